@@ -157,6 +157,179 @@ public class ArrowConverter {
         return Nd4j.create(buffer,new int[] {cols,1});
     }
 
+    /**
+     * Returns true if the data buffer of the given field vector
+     * can be used as is for an ndarray of the current nd4j data type
+     * (see {@link Nd4j#dataType()}): that is a {@link Float4Vector} for float
+     * or a {@link Float8Vector} for double, without any null values.
+     * @param fieldVector the field vector to check
+     * @return true if {@link #viewArrowVector(FieldVector, int, int)} may be used for the vector
+     */
+    public static boolean canViewArrowVector(FieldVector fieldVector) {
+        if(fieldVector.getNullCount() > 0)
+            return false;
+
+        switch(Nd4j.dataType()) {
+            case FLOAT:
+                return fieldVector instanceof Float4Vector;
+            case DOUBLE:
+                return fieldVector instanceof Float8Vector;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Create a column vector backed by the data buffer of the given field vector,
+     * for rows offset to offset + length (exclusive). No data is copied:
+     * the returned array is only valid as long as the buffers of the field vector are,
+     * that is until the vector is closed, cleared or loaded with another record batch.
+     * Use {@link INDArray#dup()} on the result if it has to outlive the vector.
+     * @param fieldVector the field vector to view, see {@link #canViewArrowVector(FieldVector)}
+     * @param offset the first row to view
+     * @param length the number of rows to view
+     * @return a column vector of shape [length,1]
+     */
+    public static INDArray viewArrowVector(FieldVector fieldVector,int offset,int length) {
+        if(!canViewArrowVector(fieldVector)) {
+            throw new ND4JIllegalArgumentException("Unable to view field vector " + fieldVector.getField().getName()
+                    + " of type " + fieldVector.getMinorType() + " as an ndarray of data type " + Nd4j.dataType());
+        }
+
+        if(offset < 0 || length < 1 || offset + length > fieldVector.getValueCount()) {
+            throw new IllegalArgumentException("Illegal range [" + offset + "," + (offset + length) + ") for vector with length " + fieldVector.getValueCount());
+        }
+
+        DataBuffer.Type type = Nd4j.dataType();
+        int elementSize = type == DataBuffer.Type.DOUBLE ? 8 : 4;
+        ByteBuffer direct = fieldVector.getDataBuffer().nioBuffer(offset * elementSize,length * elementSize);
+        direct.order(ByteOrder.nativeOrder());
+        DataBuffer buffer = Nd4j.createBuffer(direct,type,length,0);
+        return Nd4j.create(buffer,new int[] {length,1});
+    }
+
+    /**
+     * Create a matrix with one column per field vector from rows
+     * offset to offset + length (exclusive) of the given field vectors,
+     * without creating any intermediate {@link Writable}s.
+     * Columns that match the current nd4j data type are copied in bulk from the arrow buffers,
+     * other numeric columns (int, long, float, double) are converted value by value.
+     * Null values are not allowed.
+     * @param columns the numeric field vectors to convert
+     * @param offset the first row to convert
+     * @param length the number of rows to convert
+     * @return a matrix of shape [length,columns.size()], in f order
+     */
+    public static INDArray toArray(List<FieldVector> columns,int offset,int length) {
+        int cols = columns.size();
+        boolean viewable = true;
+        for(FieldVector column : columns) {
+            if(column.getNullCount() > 0) {
+                throw new ND4JIllegalArgumentException("Null values found in column " + column.getField().getName());
+            }
+
+            viewable &= canViewArrowVector(column);
+        }
+
+        if(viewable) {
+            INDArray ret = Nd4j.create(new int[] {length,cols},'f');
+            for(int j = 0; j < cols; j++) {
+                ret.getColumn(j).assign(viewArrowVector(columns.get(j),offset,length));
+            }
+
+            return ret;
+        }
+
+        if(Nd4j.dataType() == DataBuffer.Type.DOUBLE) {
+            double[] data = new double[length * cols];
+            for(int j = 0; j < cols; j++) {
+                copyArrowVector(columns.get(j),offset,length,data,j * length);
+            }
+
+            return Nd4j.create(data,new int[] {length,cols},'f');
+        }
+        else {
+            float[] data = new float[length * cols];
+            for(int j = 0; j < cols; j++) {
+                copyArrowVector(columns.get(j),offset,length,data,j * length);
+            }
+
+            return Nd4j.create(data,new int[] {length,cols},'f');
+        }
+    }
+
+    private static void copyArrowVector(FieldVector from,int offset,int length,double[] to,int toOffset) {
+        if(from instanceof Float8Vector) {
+            Float8Vector vector = (Float8Vector) from;
+            for(int i = 0; i < length; i++)
+                to[toOffset + i] = vector.get(offset + i);
+        }
+        else if(from instanceof Float4Vector) {
+            Float4Vector vector = (Float4Vector) from;
+            for(int i = 0; i < length; i++)
+                to[toOffset + i] = vector.get(offset + i);
+        }
+        else if(from instanceof IntVector) {
+            IntVector vector = (IntVector) from;
+            for(int i = 0; i < length; i++)
+                to[toOffset + i] = vector.get(offset + i);
+        }
+        else if(from instanceof BigIntVector) {
+            BigIntVector vector = (BigIntVector) from;
+            for(int i = 0; i < length; i++)
+                to[toOffset + i] = vector.get(offset + i);
+        }
+        else if(from instanceof UInt4Vector) {
+            UInt4Vector vector = (UInt4Vector) from;
+            for(int i = 0; i < length; i++)
+                to[toOffset + i] = vector.get(offset + i);
+        }
+        else if(from instanceof UInt8Vector) {
+            UInt8Vector vector = (UInt8Vector) from;
+            for(int i = 0; i < length; i++)
+                to[toOffset + i] = vector.get(offset + i);
+        }
+        else {
+            throw new ND4JIllegalArgumentException("Illegal data type found for column " + from.getField().getName());
+        }
+    }
+
+    private static void copyArrowVector(FieldVector from,int offset,int length,float[] to,int toOffset) {
+        if(from instanceof Float4Vector) {
+            Float4Vector vector = (Float4Vector) from;
+            for(int i = 0; i < length; i++)
+                to[toOffset + i] = vector.get(offset + i);
+        }
+        else if(from instanceof Float8Vector) {
+            Float8Vector vector = (Float8Vector) from;
+            for(int i = 0; i < length; i++)
+                to[toOffset + i] = (float) vector.get(offset + i);
+        }
+        else if(from instanceof IntVector) {
+            IntVector vector = (IntVector) from;
+            for(int i = 0; i < length; i++)
+                to[toOffset + i] = vector.get(offset + i);
+        }
+        else if(from instanceof BigIntVector) {
+            BigIntVector vector = (BigIntVector) from;
+            for(int i = 0; i < length; i++)
+                to[toOffset + i] = vector.get(offset + i);
+        }
+        else if(from instanceof UInt4Vector) {
+            UInt4Vector vector = (UInt4Vector) from;
+            for(int i = 0; i < length; i++)
+                to[toOffset + i] = vector.get(offset + i);
+        }
+        else if(from instanceof UInt8Vector) {
+            UInt8Vector vector = (UInt8Vector) from;
+            for(int i = 0; i < length; i++)
+                to[toOffset + i] = vector.get(offset + i);
+        }
+        else {
+            throw new ND4JIllegalArgumentException("Illegal data type found for column " + from.getField().getName());
+        }
+    }
+
 
     /**
      * Convert an {@link INDArray}
@@ -678,23 +851,36 @@ public class ArrowConverter {
         List<FieldVector> ret = new ArrayList<>(schema.numColumns());
 
         for(int i = 0; i < schema.numColumns(); i++) {
-            switch (schema.getType(i)) {
-                case Integer: ret.add(intVectorOf(bufferAllocator,schema.getName(i),numRows)); break;
-                case Long: ret.add(longVectorOf(bufferAllocator,schema.getName(i),numRows)); break;
-                case Double: ret.add(doubleVectorOf(bufferAllocator,schema.getName(i),numRows)); break;
-                case Float: ret.add(floatVectorOf(bufferAllocator,schema.getName(i),numRows)); break;
-                case Boolean: ret.add(booleanVectorOf(bufferAllocator,schema.getName(i),numRows)); break;
-                case String: ret.add(stringVectorOf(bufferAllocator,schema.getName(i),numRows)); break;
-                case Categorical: ret.add(stringVectorOf(bufferAllocator,schema.getName(i),numRows)); break;
-                case Time: ret.add(timeVectorOf(bufferAllocator,schema.getName(i),numRows)); break;
-                default: throw new IllegalArgumentException("Illegal type found " + schema.getType(i));
-
-            }
+            ret.add(createFieldVector(bufferAllocator,schema.getName(i),schema.getType(i),numRows));
         }
 
         return ret;
     }
 
+    /**
+     * Create an empty column vector
+     * of the appropriate arrow type for the given {@link ColumnType}
+     * @param bufferAllocator the buffer allocator to use
+     * @param name the name of the column
+     * @param columnType the column type
+     * @param numRows the number of rows (value count) of the vector
+     * @return the created vector
+     */
+    public static FieldVector createFieldVector(BufferAllocator bufferAllocator,String name,ColumnType columnType,int numRows) {
+        switch (columnType) {
+            case Integer: return intVectorOf(bufferAllocator,name,numRows);
+            case Long: return longVectorOf(bufferAllocator,name,numRows);
+            case Double: return doubleVectorOf(bufferAllocator,name,numRows);
+            case Float: return floatVectorOf(bufferAllocator,name,numRows);
+            case Boolean: return booleanVectorOf(bufferAllocator,name,numRows);
+            case String: return stringVectorOf(bufferAllocator,name,numRows);
+            case Categorical: return stringVectorOf(bufferAllocator,name,numRows);
+            case Time: return timeVectorOf(bufferAllocator,name,numRows);
+            default: throw new IllegalArgumentException("Illegal type found " + columnType);
+
+        }
+    }
+
     /**
      * Set the value of the specified column vector
      * at the specified row based on the given value.
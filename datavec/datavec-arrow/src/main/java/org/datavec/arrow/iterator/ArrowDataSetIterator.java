@@ -0,0 +1,382 @@
+package org.datavec.arrow.iterator;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.*;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.datavec.arrow.ArrowConverter;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.exception.ND4JIllegalArgumentException;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * DataSetIterator over arrow files, i.e. files written by {@link ArrowConverter#writeRecordBatchTo(List, org.datavec.api.transform.schema.Schema, java.io.OutputStream)}.
+ *
+ * Unlike {@link org.datavec.arrow.recordreader.ArrowRecordReader}, no {@link org.datavec.api.writable.Writable}s are
+ * created: features & labels are built straight from the buffers of numeric arrow columns
+ * (see {@link ArrowConverter#toArray(List, int, int)}). Minibatches never span arrow record batches, so last minibatch
+ * of each record batch may be smaller than batch size.
+ *
+ * PLEASE NOTE: each record batch is read from the file into arrow buffers by {@link ArrowFileReader}, so there's one
+ * copy per record batch from file to arrow memory.
+ *
+ * If zeroCopy is enabled, single column features and regression labels that match nd4j data type aren't copied again
+ * from arrow buffers, see {@link ArrowConverter#viewArrowVector(FieldVector, int, int)}. In this case returned DataSets
+ * are only valid until the next call to next() or reset(), and async prefetch is not supported.
+ */
+@Slf4j
+public class ArrowDataSetIterator implements DataSetIterator {
+    private final List<File> files;
+    private final int batchSize;
+    private final int labelIndex;
+    private final int labelIndexTo;
+    private final int numPossibleLabels;
+    private final boolean regression;
+    private final int[] featureColumns;
+    private final boolean zeroCopy;
+    private DataSetPreProcessor preProcessor;
+
+    private final BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+    private int fileIdx;
+    private FileChannel channel;
+    private ArrowFileReader reader;
+    private VectorSchemaRoot root;
+    private int rowIdx;
+    private int numRows;
+    private boolean batchLoaded;
+
+    protected ArrowDataSetIterator(Builder builder) {
+        this.files = builder.files;
+        this.batchSize = builder.batchSize;
+        this.labelIndex = builder.labelIndex;
+        this.labelIndexTo = builder.labelIndexTo;
+        this.numPossibleLabels = builder.numPossibleLabels;
+        this.regression = builder.regression;
+        this.featureColumns = builder.featureColumns;
+        this.zeroCopy = builder.zeroCopy;
+        this.preProcessor = builder.preProcessor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (!batchLoaded || rowIdx >= numRows) {
+                if (reader != null && reader.loadNextBatch()) {
+                    batchLoaded = true;
+                    rowIdx = 0;
+                    numRows = root.getRowCount();
+                } else if (fileIdx < files.size()) {
+                    openFile(files.get(fileIdx++));
+                } else {
+                    closeFile();
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public DataSet next() {
+        return next(batchSize);
+    }
+
+    @Override
+    public DataSet next(int num) {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        List<FieldVector> vectors = root.getFieldVectors();
+        int length = Math.min(num, numRows - rowIdx);
+
+        List<FieldVector> features = new ArrayList<>();
+        List<FieldVector> labels = new ArrayList<>();
+        for (int i = 0; i < vectors.size(); i++) {
+            if (labelIndex >= 0 && i >= labelIndex && i <= labelIndexTo)
+                labels.add(vectors.get(i));
+            else if (featureColumns == null)
+                features.add(vectors.get(i));
+        }
+
+        if (featureColumns != null) {
+            for (int i : featureColumns)
+                features.add(vectors.get(i));
+        }
+
+        INDArray featuresArr = toArray(features, rowIdx, length);
+        INDArray labelsArr = null;
+        if (!labels.isEmpty())
+            labelsArr = regression ? toArray(labels, rowIdx, length) : toOneHot(labels.get(0), rowIdx, length);
+
+        rowIdx += length;
+
+        DataSet ds = new DataSet(featuresArr, labelsArr);
+        if (preProcessor != null)
+            preProcessor.preProcess(ds);
+
+        return ds;
+    }
+
+    protected INDArray toArray(List<FieldVector> columns, int offset, int length) {
+        if (zeroCopy && columns.size() == 1 && ArrowConverter.canViewArrowVector(columns.get(0)))
+            return ArrowConverter.viewArrowVector(columns.get(0), offset, length);
+
+        return ArrowConverter.toArray(columns, offset, length);
+    }
+
+    protected INDArray toOneHot(FieldVector column, int offset, int length) {
+        if (column.getNullCount() > 0)
+            throw new ND4JIllegalArgumentException("Null values found in label column " + column.getField().getName());
+
+        INDArray ret = Nd4j.create(length, numPossibleLabels);
+        for (int i = 0; i < length; i++) {
+            int idx;
+            if (column instanceof IntVector)
+                idx = ((IntVector) column).get(offset + i);
+            else if (column instanceof BigIntVector)
+                idx = (int) ((BigIntVector) column).get(offset + i);
+            else if (column instanceof UInt4Vector)
+                idx = ((UInt4Vector) column).get(offset + i);
+            else if (column instanceof UInt8Vector)
+                idx = (int) ((UInt8Vector) column).get(offset + i);
+            else if (column instanceof Float8Vector)
+                idx = (int) ((Float8Vector) column).get(offset + i);
+            else if (column instanceof Float4Vector)
+                idx = (int) ((Float4Vector) column).get(offset + i);
+            else
+                throw new ND4JIllegalArgumentException("Illegal data type found for label column " + column.getField().getName());
+
+            if (idx < 0 || idx >= numPossibleLabels)
+                throw new ND4JIllegalArgumentException("Invalid classification data: expect label value (at label index column = "
+                                + labelIndex + ") to be in range 0 to " + (numPossibleLabels - 1)
+                                + " inclusive (0 to numClasses-1, with numClasses=" + numPossibleLabels
+                                + "); got label value of " + idx);
+
+            ret.putScalar(i, idx, 1.0);
+        }
+        return ret;
+    }
+
+    protected void openFile(File file) throws IOException {
+        closeFile();
+
+        channel = new RandomAccessFile(file, "r").getChannel();
+        reader = new ArrowFileReader(channel, allocator);
+        root = reader.getVectorSchemaRoot();
+        batchLoaded = false;
+        rowIdx = 0;
+        numRows = 0;
+    }
+
+    protected void closeFile() {
+        try {
+            if (reader != null)
+                reader.close();
+
+            if (channel != null)
+                channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close arrow file", e);
+        }
+
+        reader = null;
+        root = null;
+        channel = null;
+        batchLoaded = false;
+    }
+
+    @Override
+    public int totalExamples() {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    @Override
+    public int inputColumns() {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    @Override
+    public int totalOutcomes() {
+        if (regression)
+            return labelIndexTo - labelIndex + 1;
+        return numPossibleLabels;
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        return !zeroCopy;
+    }
+
+    @Override
+    public void reset() {
+        closeFile();
+        fileIdx = 0;
+    }
+
+    @Override
+    public int batch() {
+        return batchSize;
+    }
+
+    @Override
+    public int cursor() {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    @Override
+    public int numExamples() {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return null;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Builder class for ArrowDataSetIterator
+     */
+    public static class Builder {
+        protected List<File> files;
+        protected int batchSize;
+        protected int labelIndex = -1;
+        protected int labelIndexTo = -1;
+        protected int numPossibleLabels = -1;
+        protected boolean regression = false;
+        protected int[] featureColumns;
+        protected boolean zeroCopy = false;
+        protected DataSetPreProcessor preProcessor;
+
+        /**
+         * @param file      Arrow file to read
+         * @param batchSize Batch size to use
+         */
+        public Builder(@NonNull File file, int batchSize) {
+            this(Collections.singletonList(file), batchSize);
+        }
+
+        /**
+         * @param files     Arrow files to read, in order
+         * @param batchSize Batch size to use
+         */
+        public Builder(@NonNull List<File> files, int batchSize) {
+            if (batchSize < 1)
+                throw new IllegalStateException("Batch size should be positive value");
+
+            this.files = new ArrayList<>(files);
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Use this for single output regression (i.e., 1 output/regression target)
+         *
+         * @param labelIndex Column index that contains the regression target (indexes start at 0)
+         */
+        public Builder regression(int labelIndex) {
+            return regression(labelIndex, labelIndex);
+        }
+
+        /**
+         * Use this for multiple output regression (1 or more output/regression targets). Note that all regression
+         * targets must be contiguous (i.e., positions x to y, without gaps)
+         *
+         * @param labelIndexFrom Column index of the first regression target (indexes start at 0)
+         * @param labelIndexTo   Column index of the last regression target (inclusive)
+         */
+        public Builder regression(int labelIndexFrom, int labelIndexTo) {
+            this.labelIndex = labelIndexFrom;
+            this.labelIndexTo = labelIndexTo;
+            this.regression = true;
+            return this;
+        }
+
+        /**
+         * Use this for classification
+         *
+         * @param labelIndex Index that contains the label index. Column (indexes start from 0) be an integer value,
+         *                   and contain values 0 to numClasses-1
+         * @param numClasses Number of label classes (i.e., number of categories/classes in the dataset)
+         */
+        public Builder classification(int labelIndex, int numClasses) {
+            this.labelIndex = labelIndex;
+            this.labelIndexTo = labelIndex;
+            this.numPossibleLabels = numClasses;
+            this.regression = false;
+            return this;
+        }
+
+        /**
+         * Optional argument. Columns to use as features, in order. By default all columns except label columns are used.
+         *
+         * @param featureColumns Column indexes (indexes start at 0)
+         */
+        public Builder featureColumns(int... featureColumns) {
+            this.featureColumns = featureColumns;
+            return this;
+        }
+
+        /**
+         * If set to true, single column features & labels are returned as views of arrow buffers where possible,
+         * instead of being copied out of them. Such DataSets are only valid until the next call to next() or reset(). Disabled by default.
+         *
+         * @param zeroCopy
+         */
+        public Builder zeroCopy(boolean zeroCopy) {
+            this.zeroCopy = zeroCopy;
+            return this;
+        }
+
+        /**
+         * Optional arg. Allows the preprocessor to be set
+         *
+         * @param preProcessor Preprocessor to use
+         */
+        public Builder preProcessor(DataSetPreProcessor preProcessor) {
+            this.preProcessor = preProcessor;
+            return this;
+        }
+
+        public ArrowDataSetIterator build() {
+            if (files.isEmpty())
+                throw new IllegalStateException("At least one arrow file should be provided");
+
+            if (labelIndex >= 0 && !regression && numPossibleLabels < 1)
+                throw new IllegalStateException("Number of classes should be positive value for classification");
+
+            return new ArrowDataSetIterator(this);
+        }
+    }
+}
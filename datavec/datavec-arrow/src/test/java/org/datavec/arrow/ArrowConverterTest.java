@@ -4,6 +4,8 @@ import lombok.val;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.IntVector;
 import org.apache.arrow.vector.TimeStampMilliVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.VectorUnloader;
@@ -25,6 +27,7 @@ import org.datavec.api.writable.Writable;
 import org.datavec.arrow.recordreader.ArrowRecordReader;
 import org.datavec.arrow.recordreader.ArrowWritableRecordBatch;
 import org.junit.Test;
+import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.primitives.Pair;
@@ -44,6 +47,34 @@ public class ArrowConverterTest {
     private static BufferAllocator bufferAllocator = new RootAllocator(Long.MAX_VALUE);
 
 
+    @Test
+    public void testViewArrowVector() {
+        Float4Vector vector = ArrowConverter.vectorFor(bufferAllocator,"x",new float[] {1,2,3,4});
+        assertEquals(Nd4j.dataType() == DataBuffer.Type.FLOAT,ArrowConverter.canViewArrowVector(vector));
+        if(!ArrowConverter.canViewArrowVector(vector))
+            return;
+
+        INDArray view = ArrowConverter.viewArrowVector(vector,1,2);
+        assertEquals(Nd4j.create(new float[] {2,3},new int[] {2,1}),view);
+        //no copy: changes to the arrow buffer are visible through the view
+        vector.set(2,42f);
+        assertEquals(42.0,view.getDouble(1),1e-6);
+    }
+
+    @Test
+    public void testToArrayFieldVectors() {
+        List<FieldVector> columns = new ArrayList<>();
+        columns.add(ArrowConverter.vectorFor(bufferAllocator,"a",new float[] {1,2,3}));
+        columns.add(ArrowConverter.vectorFor(bufferAllocator,"b",new int[] {4,5,6}));
+        columns.add(ArrowConverter.vectorFor(bufferAllocator,"c",new double[] {7,8,9}));
+
+        INDArray arr = ArrowConverter.toArray(columns,1,2);
+        assertEquals(Nd4j.create(new double[][] {{2,5,8},{3,6,9}}),arr);
+
+        INDArray single = ArrowConverter.toArray(columns.subList(0,1),0,3);
+        assertEquals(Nd4j.create(new double[] {1,2,3},new int[] {3,1}),single);
+    }
+
     @Test
     public void testArrowColumnString() {
         Schema.Builder schema = new Schema.Builder();
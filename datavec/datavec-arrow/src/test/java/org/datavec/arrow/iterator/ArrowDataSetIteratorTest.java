@@ -0,0 +1,100 @@
+package org.datavec.arrow.iterator;
+
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.DoubleWritable;
+import org.datavec.api.writable.FloatWritable;
+import org.datavec.api.writable.IntWritable;
+import org.datavec.api.writable.Writable;
+import org.datavec.arrow.ArrowConverter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ArrowDataSetIteratorTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private File write(Schema schema, List<List<Writable>> records) throws Exception {
+        File f = testDir.newFile();
+        try (FileOutputStream fos = new FileOutputStream(f)) {
+            ArrowConverter.writeRecordBatchTo(records, schema, fos);
+        }
+        return f;
+    }
+
+    @Test
+    public void testClassification() throws Exception {
+        Schema schema = new Schema.Builder().addColumnDouble("x0").addColumnInteger("x1")
+                        .addColumnInteger("label").build();
+        List<List<Writable>> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            records.add(Arrays.<Writable>asList(new DoubleWritable(i * 0.5), new IntWritable(i), new IntWritable(i % 3)));
+        }
+
+        ArrowDataSetIterator iter = new ArrowDataSetIterator.Builder(write(schema, records), 4)
+                        .classification(2, 3).build();
+
+        for (int epoch = 0; epoch < 2; epoch++) {
+            int count = 0;
+            List<Integer> sizes = new ArrayList<>();
+            while (iter.hasNext()) {
+                DataSet ds = iter.next();
+                INDArray f = ds.getFeatures();
+                INDArray l = ds.getLabels();
+                sizes.add(f.rows());
+                assertArrayEquals(new long[] {f.rows(), 2}, f.shape());
+                assertArrayEquals(new long[] {f.rows(), 3}, l.shape());
+                for (int r = 0; r < f.rows(); r++) {
+                    int i = count + r;
+                    assertEquals(i * 0.5, f.getDouble(r, 0), 1e-6);
+                    assertEquals(i, f.getDouble(r, 1), 1e-6);
+                    assertEquals(1.0, l.getDouble(r, i % 3), 1e-6);
+                    assertEquals(1.0, l.getRow(r).sumNumber().doubleValue(), 1e-6);
+                }
+                count += f.rows();
+            }
+            assertEquals(10, count);
+            assertEquals(Arrays.asList(4, 4, 2), sizes);
+            iter.reset();
+        }
+    }
+
+    @Test
+    public void testRegressionZeroCopy() throws Exception {
+        Schema schema = new Schema.Builder().addColumnFloat("x").addColumnFloat("y").build();
+        List<List<Writable>> records = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            records.add(Arrays.<Writable>asList(new FloatWritable(i), new FloatWritable(2 * i)));
+        }
+        File f = write(schema, records);
+
+        for (boolean zeroCopy : new boolean[] {false, true}) {
+            ArrowDataSetIterator iter = new ArrowDataSetIterator.Builder(f, 5).regression(1).zeroCopy(zeroCopy).build();
+            assertEquals(!zeroCopy, iter.asyncSupported());
+
+            List<DataSet> all = new ArrayList<>();
+            while (iter.hasNext()) {
+                // views are only valid until next call, so we compare right away
+                DataSet ds = iter.next();
+                all.add(new DataSet(ds.getFeatures().dup(), ds.getLabels().dup()));
+            }
+
+            DataSet merged = DataSet.merge(all);
+            INDArray expFeatures = Nd4j.linspace(0, 6, 7).reshape(7, 1);
+            assertEquals(expFeatures, merged.getFeatures());
+            assertEquals(expFeatures.mul(2), merged.getLabels());
+        }
+    }
+}
@@ -7,6 +7,8 @@ import lombok.val;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.FieldVector;
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.records.writer.RecordWriter;
 import org.datavec.api.transform.DataAction;
 import org.datavec.api.transform.Transform;
 import org.datavec.api.transform.TransformProcess;
@@ -21,6 +23,7 @@ import org.datavec.api.transform.sequence.ConvertToSequence;
 import org.datavec.api.transform.sequence.SequenceSplit;
 import org.datavec.api.writable.*;
 import org.datavec.arrow.ArrowConverter;
+import org.datavec.local.transforms.columnar.ColumnarExecutor;
 import org.datavec.local.transforms.functions.EmptyRecordFunction;
 import org.datavec.local.transforms.join.ExecuteJoinFromCoGroupFlatMapFunction;
 import org.datavec.local.transforms.join.ExtractKeysFunction;
@@ -35,6 +38,7 @@ import org.nd4j.linalg.function.Function;
 import org.nd4j.linalg.function.FunctionalUtils;
 import org.nd4j.linalg.primitives.Pair;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
@@ -74,7 +78,65 @@ public class LocalTransformExecutor {
         if(filteredSequence.size() != inputWritables.size()) {
             log.warn("Filtered out " + (inputWritables.size() - filteredSequence.size()) + " values");
         }
-        return execute(filteredSequence, null, transformProcess).getFirst();
+        return execute(filteredSequence, null, transformProcess, 0).getFirst();
+    }
+
+    /**
+     * Execute the specified TransformProcess with the given input data, using columnar execution where possible<br>
+     * Input data is converted to arrow columns in batches of {@link ColumnarExecutor#DEFAULT_BATCH_SIZE} records,
+     * and transforms and filters are applied to whole columns (see {@link ColumnarExecutor}).
+     * Steps without a columnar implementation fall back to row mode.<br>
+     * Note: this method can only be used if the TransformProcess returns non-sequence data.
+     *
+     * @param inputWritables   Input data to process
+     * @param transformProcess TransformProcess to execute
+     * @return Processed data
+     */
+    public static List<List<Writable>> executeColumnar(List<List<Writable>> inputWritables,
+                                                       TransformProcess transformProcess) {
+        return executeColumnar(inputWritables, transformProcess, ColumnarExecutor.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Execute the specified TransformProcess with the given input data, using columnar execution where possible.
+     * See {@link #executeColumnar(List, TransformProcess)}
+     *
+     * @param inputWritables   Input data to process
+     * @param transformProcess TransformProcess to execute
+     * @param batchSize        Number of records per arrow column batch
+     * @return Processed data
+     */
+    public static List<List<Writable>> executeColumnar(List<List<Writable>> inputWritables,
+                                                       TransformProcess transformProcess, int batchSize) {
+        if (transformProcess.getFinalSchema() instanceof SequenceSchema) {
+            throw new IllegalStateException("Cannot return sequence data with this method");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive, got " + batchSize);
+        }
+
+        List<List<Writable>> filteredSequence = inputWritables.parallelStream()
+                .filter(input -> input.size() == transformProcess.getInitialSchema().numColumns()).collect(toList());
+        if(filteredSequence.size() != inputWritables.size()) {
+            log.warn("Filtered out " + (inputWritables.size() - filteredSequence.size()) + " values");
+        }
+        return execute(filteredSequence, null, transformProcess, batchSize).getFirst();
+    }
+
+    /**
+     * Execute the specified TransformProcess on all records of the given reader, writing the output to the given
+     * writer as it is produced. Records are transformed in parallel, and memory use is bounded: see
+     * {@link StreamingTransformExecutor} for details and configuration.<br>
+     * Note: only transforms, filters and reductions are supported by this method.
+     *
+     * @param input            Input data. Must be initialized
+     * @param output           Output writer. Must be initialized, and is not closed by this method
+     * @param transformProcess TransformProcess to execute
+     * @return Number of records written
+     */
+    public static long execute(RecordReader input, RecordWriter output, TransformProcess transformProcess)
+            throws IOException {
+        return new StreamingTransformExecutor.Builder().build().execute(input, output, transformProcess);
     }
 
     /**
@@ -94,7 +156,7 @@ public class LocalTransformExecutor {
             throw new IllegalStateException("Cannot return non-sequence data with this method");
         }
 
-        return execute(inputWritables, null, transformProcess).getSecond();
+        return execute(inputWritables, null, transformProcess, 0).getSecond();
     }
 
     /**
@@ -112,7 +174,7 @@ public class LocalTransformExecutor {
             throw new IllegalStateException("Cannot return sequence data with this method");
         }
 
-        return execute(null, inputSequence, transformProcess).getFirst();
+        return execute(null, inputSequence, transformProcess, 0).getFirst();
     }
 
     /**
@@ -128,13 +190,13 @@ public class LocalTransformExecutor {
         if (!(transformProcess.getFinalSchema() instanceof SequenceSchema)) {
             List<List<List<Writable>>> ret = new ArrayList<>(inputSequence.size());
             for(List<List<Writable>> timeStep : inputSequence) {
-                ret.add(execute(timeStep,null, transformProcess).getFirst());
+                ret.add(execute(timeStep,null, transformProcess, 0).getFirst());
             }
 
             return ret;
         }
 
-        return execute(null, inputSequence, transformProcess).getSecond();
+        return execute(null, inputSequence, transformProcess, 0).getSecond();
     }
 
 
@@ -287,7 +349,7 @@ public class LocalTransformExecutor {
 
     private static Pair<List<List<Writable>>, List<List<List<Writable>>>> execute(
             List<List<Writable>> inputWritables, List<List<List<Writable>>> inputSequence,
-            TransformProcess sequence) {
+            TransformProcess sequence, int columnarBatchSize) {
         List<List<Writable>> currentWritables = inputWritables;
         List<List<List<Writable>>> currentSequence = inputSequence;
 
@@ -308,8 +370,22 @@ public class LocalTransformExecutor {
             }
         }
 
+        //Columnar mode: leading transforms and filters are executed on arrow column batches
+        int firstRowStep = 0;
+        if (columnarBatchSize > 0 && inputWritables != null) {
+            ColumnarExecutor columnarExecutor = new ColumnarExecutor(bufferAllocator, sequence, columnarBatchSize);
+            if (columnarExecutor.getNumColumnarSteps() > 0) {
+                List<FieldVector> columns = columnarExecutor.execute(inputWritables);
+                currentWritables = ArrowConverter.toArrowWritables(columns, columnarExecutor.getOutputSchema());
+                firstRowStep = columnarExecutor.getNumSteps();
+                if (firstRowStep == dataActions.size()) {
+                    //Nothing left for row mode: output is already in arrow format
+                    return new Pair<>(currentWritables, null);
+                }
+            }
+        }
 
-        for (DataAction d : dataActions) {
+        for (DataAction d : dataActions.subList(firstRowStep, dataActions.size())) {
             //log.info("Starting execution of stage {} of {}", count, dataActions.size());     //
 
             if (d.getTransform() != null) {
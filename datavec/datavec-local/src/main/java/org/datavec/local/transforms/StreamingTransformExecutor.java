@@ -0,0 +1,464 @@
+package org.datavec.local.transforms;
+
+import lombok.extern.slf4j.Slf4j;
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.records.writer.RecordWriter;
+import org.datavec.api.transform.DataAction;
+import org.datavec.api.transform.TransformProcess;
+import org.datavec.api.transform.filter.Filter;
+import org.datavec.api.transform.join.Join;
+import org.datavec.api.transform.ops.IAggregableReduceOp;
+import org.datavec.api.transform.reduce.IAssociativeReducer;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.transform.schema.SequenceSchema;
+import org.datavec.api.writable.Writable;
+import org.datavec.local.transforms.join.ExecuteJoinFromCoGroupFlatMapFunction;
+import org.datavec.local.transforms.join.ExtractKeysFunction;
+import org.datavec.local.transforms.reduce.MapToPairForReducerFunction;
+import org.datavec.local.transforms.stream.ExternalSorter;
+import org.datavec.local.transforms.transform.LocalTransformFunction;
+import org.nd4j.linalg.primitives.Pair;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streaming, parallel version of {@link LocalTransformExecutor}, for data sets that don't fit in memory.<br>
+ * Records are read from a {@link RecordReader} (or any iterator) in batches, transformed and filtered on a fork-join
+ * pool, and written to a {@link RecordWriter} incrementally, in input order.
+ * The number of batches in flight is bounded, so memory use doesn't depend on the size of the data set.
+ * <br>
+ * Reductions and joins are executed by sorting records on their key with bounded memory: sorted runs are spilled
+ * to disk once {@link Builder#maxRecordsInMemory(int)} records are buffered, and merged afterwards.
+ * Note that all records of a single join key have to fit in memory.
+ * <br>
+ * Only transforms, filters and reductions are supported in streaming mode: sequence operations and
+ * sorted rank calculation require {@link LocalTransformExecutor}.
+ */
+@Slf4j
+public class StreamingTransformExecutor {
+
+    private final int numThreads;
+    private final int batchSize;
+    private final int maxBatchesInFlight;
+    private final int maxRecordsInMemory;
+    private final File tempDirectory;
+
+    private StreamingTransformExecutor(Builder builder) {
+        this.numThreads = builder.numThreads;
+        this.batchSize = builder.batchSize;
+        this.maxBatchesInFlight = builder.maxBatchesInFlight;
+        this.maxRecordsInMemory = builder.maxRecordsInMemory;
+        this.tempDirectory = builder.tempDirectory;
+    }
+
+    /**
+     * Execute the TransformProcess on all records of the given reader, writing the output to the given writer
+     *
+     * @param input            Input data. Must be initialized
+     * @param output           Output writer. Must be initialized, and is not closed by this method
+     * @param transformProcess TransformProcess to execute
+     * @return Number of records written
+     */
+    public long execute(final RecordReader input, RecordWriter output, TransformProcess transformProcess)
+                    throws IOException {
+        return execute(asIterator(input), output, transformProcess);
+    }
+
+    /**
+     * Execute the TransformProcess on all records of the given iterator, writing the output to the given writer
+     *
+     * @param input            Input data
+     * @param output           Output writer. Must be initialized, and is not closed by this method
+     * @param transformProcess TransformProcess to execute
+     * @return Number of records written
+     */
+    public long execute(Iterator<List<Writable>> input, RecordWriter output, TransformProcess transformProcess)
+                    throws IOException {
+        if (transformProcess.getInitialSchema() instanceof SequenceSchema
+                        || transformProcess.getFinalSchema() instanceof SequenceSchema) {
+            throw new UnsupportedOperationException("Streaming execution is not supported for sequence data");
+        }
+
+        //Split the process into stages: each stage is a number of transforms/filters, optionally ending with a reduction
+        List<List<DataAction>> stages = new ArrayList<>();
+        List<IAssociativeReducer> reducers = new ArrayList<>();
+        List<DataAction> current = new ArrayList<>();
+        for (DataAction d : transformProcess.getActionList()) {
+            if (d.getTransform() != null || d.getFilter() != null) {
+                current.add(d);
+            } else if (d.getReducer() != null) {
+                stages.add(current);
+                reducers.add(d.getReducer());
+                current = new ArrayList<>();
+            } else {
+                throw new UnsupportedOperationException("Action not supported in streaming execution: " + d
+                                + ". Use LocalTransformExecutor instead");
+            }
+        }
+        stages.add(current);
+
+        final int numColumns = transformProcess.getInitialSchema().numColumns();
+        final AtomicLong invalid = new AtomicLong();
+        Iterator<List<Writable>> in = filterIterator(input, numColumns, invalid);
+
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        List<ExternalSorter> sorters = new ArrayList<>();
+        try {
+            for (int i = 0; i < reducers.size(); i++) {
+                final IAssociativeReducer reducer = reducers.get(i);
+                final MapToPairForReducerFunction keyFunction = new MapToPairForReducerFunction(reducer);
+                final ExternalSorter sorter = new ExternalSorter(tempDirectory, maxRecordsInMemory);
+                sorters.add(sorter);
+
+                runStage(pool, in, stages.get(i), new RecordSink() {
+                    @Override
+                    public void accept(List<List<Writable>> records) throws IOException {
+                        for (List<Writable> record : records) {
+                            sorter.add(keyFunction.apply(record).getFirst(), 0, record);
+                        }
+                    }
+                });
+
+                if (sorter.getNumSpilledRuns() > 0)
+                    log.info("Reduction spilled {} sorted runs to disk", sorter.getNumSpilledRuns());
+                in = new ReduceIterator(sorter.sortedIterator(), reducer);
+            }
+
+            final RecordWriter writer = output;
+            final AtomicLong written = new AtomicLong();
+            runStage(pool, in, stages.get(stages.size() - 1), new RecordSink() {
+                @Override
+                public void accept(List<List<Writable>> records) throws IOException {
+                    write(writer, records);
+                    written.addAndGet(records.size());
+                }
+            });
+
+            if (invalid.get() > 0)
+                log.warn("Filtered out " + invalid.get() + " values");
+            return written.get();
+        } finally {
+            pool.shutdownNow();
+            for (ExternalSorter s : sorters) {
+                s.close();
+            }
+        }
+    }
+
+    /**
+     * Execute a join on the data from the given readers, writing the joined records to the given writer
+     *
+     * @param join   Join to execute
+     * @param left   Left data for join
+     * @param right  Right data for join
+     * @param output Output writer. Must be initialized, and is not closed by this method
+     * @return Number of records written
+     */
+    public long executeJoin(Join join, RecordReader left, RecordReader right, RecordWriter output)
+                    throws IOException {
+        return executeJoin(join, asIterator(left), asIterator(right), output);
+    }
+
+    /**
+     * Execute a join on the given data, writing the joined records to the given writer
+     *
+     * @param join   Join to execute
+     * @param left   Left data for join
+     * @param right  Right data for join
+     * @param output Output writer. Must be initialized, and is not closed by this method
+     * @return Number of records written
+     */
+    public long executeJoin(Join join, Iterator<List<Writable>> left, Iterator<List<Writable>> right,
+                    RecordWriter output) throws IOException {
+        ExtractKeysFunction leftKeys = new ExtractKeysFunction(columnIndexes(join.getLeftSchema(),
+                        join.getJoinColumnsLeft()));
+        ExtractKeysFunction rightKeys = new ExtractKeysFunction(columnIndexes(join.getRightSchema(),
+                        join.getJoinColumnsRight()));
+        ExecuteJoinFromCoGroupFlatMapFunction joinFunction = new ExecuteJoinFromCoGroupFlatMapFunction(join);
+
+        long written = 0;
+        try (ExternalSorter sorter = new ExternalSorter(tempDirectory, maxRecordsInMemory)) {
+            AtomicLong invalid = new AtomicLong();
+            Iterator<List<Writable>> l = filterIterator(left, join.getLeftSchema().numColumns(), invalid);
+            while (l.hasNext()) {
+                Pair<List<Writable>, List<Writable>> p = leftKeys.apply(l.next());
+                sorter.add(joinKey(p.getFirst()), 0, p.getSecond());
+            }
+            Iterator<List<Writable>> r = filterIterator(right, join.getRightSchema().numColumns(), invalid);
+            while (r.hasNext()) {
+                Pair<List<Writable>, List<Writable>> p = rightKeys.apply(r.next());
+                sorter.add(joinKey(p.getFirst()), 1, p.getSecond());
+            }
+            if (invalid.get() > 0)
+                log.warn("Filtered out " + invalid.get() + " values");
+
+            Iterator<ExternalSorter.Entry> sorted = sorter.sortedIterator();
+            ExternalSorter.Entry next = sorted.hasNext() ? sorted.next() : null;
+            while (next != null) {
+                String key = next.getKey();
+                List<Writable> keyValues = null;
+                List<List<Writable>> leftGroup = new ArrayList<>();
+                List<List<Writable>> rightGroup = new ArrayList<>();
+                while (next != null && next.getKey().equals(key)) {
+                    if (next.getTag() == 0) {
+                        leftGroup.add(next.getRecord());
+                        if (keyValues == null)
+                            keyValues = leftKeys.apply(next.getRecord()).getFirst();
+                    } else {
+                        rightGroup.add(next.getRecord());
+                        if (keyValues == null)
+                            keyValues = rightKeys.apply(next.getRecord()).getFirst();
+                    }
+                    next = sorted.hasNext() ? sorted.next() : null;
+                }
+
+                List<List<Writable>> joined = joinFunction.call(Pair.of(keyValues, Pair.of(leftGroup, rightGroup)));
+                write(output, joined);
+                written += joined.size();
+            }
+        }
+        return written;
+    }
+
+    private void runStage(ForkJoinPool pool, Iterator<List<Writable>> input, List<DataAction> actions,
+                    RecordSink sink) throws IOException {
+        final List<StatelessStep> steps = new ArrayList<>(actions.size());
+        for (DataAction d : actions) {
+            steps.add(new StatelessStep(d));
+        }
+
+        //Batches are submitted in input order, and their results consumed in the same order
+        Deque<ForkJoinTask<List<List<Writable>>>> inFlight = new ArrayDeque<>();
+        while (input.hasNext()) {
+            final List<List<Writable>> batch = new ArrayList<>(batchSize);
+            while (batch.size() < batchSize && input.hasNext()) {
+                batch.add(input.next());
+            }
+
+            if (steps.isEmpty()) {
+                sink.accept(batch);
+                continue;
+            }
+
+            inFlight.add(pool.submit(() -> process(batch, steps)));
+            if (inFlight.size() >= maxBatchesInFlight) {
+                sink.accept(inFlight.poll().join());
+            }
+        }
+
+        while (!inFlight.isEmpty()) {
+            sink.accept(inFlight.poll().join());
+        }
+    }
+
+    private static List<List<Writable>> process(List<List<Writable>> batch, List<StatelessStep> steps) {
+        List<List<Writable>> out = new ArrayList<>(batch.size());
+        for (List<Writable> record : batch) {
+            for (StatelessStep step : steps) {
+                record = step.apply(record);
+                if (record == null)
+                    break;
+            }
+            if (record != null)
+                out.add(record);
+        }
+        return out;
+    }
+
+    private static void write(RecordWriter writer, List<List<Writable>> records) throws IOException {
+        if (records.isEmpty())
+            return;
+
+        if (writer.supportsBatch()) {
+            writer.writeBatch(records);
+        } else {
+            for (List<Writable> record : records) {
+                writer.write(record);
+            }
+        }
+    }
+
+    private static int[] columnIndexes(Schema schema, String[] columnNames) {
+        int[] ret = new int[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            ret[i] = schema.getIndexOfColumn(columnNames[i]);
+        }
+        return ret;
+    }
+
+    private static String joinKey(List<Writable> keyValues) {
+        //Length-prefixed, so that different multi-column keys can't map to the same string
+        StringBuilder sb = new StringBuilder();
+        for (Writable w : keyValues) {
+            String s = w.toString();
+            sb.append(s.length()).append(':').append(s);
+        }
+        return sb.toString();
+    }
+
+    private static Iterator<List<Writable>> asIterator(final RecordReader reader) {
+        return new Iterator<List<Writable>>() {
+            @Override
+            public boolean hasNext() {
+                return reader.hasNext();
+            }
+
+            @Override
+            public List<Writable> next() {
+                return reader.next();
+            }
+        };
+    }
+
+    private static Iterator<List<Writable>> filterIterator(final Iterator<List<Writable>> input, final int numColumns,
+                    final AtomicLong invalid) {
+        return new Iterator<List<Writable>>() {
+            private List<Writable> next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && input.hasNext()) {
+                    List<Writable> record = input.next();
+                    if (record.size() == numColumns)
+                        next = record;
+                    else
+                        invalid.incrementAndGet();
+                }
+                return next != null;
+            }
+
+            @Override
+            public List<Writable> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                List<Writable> ret = next;
+                next = null;
+                return ret;
+            }
+        };
+    }
+
+    private interface RecordSink {
+        void accept(List<List<Writable>> records) throws IOException;
+    }
+
+    private static class StatelessStep {
+        private final LocalTransformFunction transform;
+        private final Filter filter;
+
+        private StatelessStep(DataAction d) {
+            this.transform = d.getTransform() != null ? new LocalTransformFunction(d.getTransform()) : null;
+            this.filter = d.getFilter();
+        }
+
+        /** Returns the output record, or null if the record was removed */
+        private List<Writable> apply(List<Writable> record) {
+            if (transform != null) {
+                List<Writable> out = transform.apply(record);
+                //Empty output: record failed in try/catch mode
+                return out.isEmpty() ? null : out;
+            }
+            return filter.removeExample(record) ? null : record;
+        }
+    }
+
+    /**
+     * Applies a reduction to records sorted by key, one key at a time
+     */
+    private static class ReduceIterator implements Iterator<List<Writable>> {
+        private final Iterator<ExternalSorter.Entry> sorted;
+        private final IAssociativeReducer reducer;
+        private ExternalSorter.Entry next;
+
+        private ReduceIterator(Iterator<ExternalSorter.Entry> sorted, IAssociativeReducer reducer) {
+            this.sorted = sorted;
+            this.reducer = reducer;
+            this.next = sorted.hasNext() ? sorted.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public List<Writable> next() {
+            if (next == null)
+                throw new NoSuchElementException();
+
+            String key = next.getKey();
+            IAggregableReduceOp<List<Writable>, List<Writable>> op = reducer.aggregableReducer();
+            while (next != null && next.getKey().equals(key)) {
+                op.accept(next.getRecord());
+                next = sorted.hasNext() ? sorted.next() : null;
+            }
+            return op.get();
+        }
+    }
+
+    public static class Builder {
+        private int numThreads = Runtime.getRuntime().availableProcessors();
+        private int batchSize = 1024;
+        private int maxBatchesInFlight = -1;
+        private int maxRecordsInMemory = 1000000;
+        private File tempDirectory;
+
+        /**
+         * Number of threads used to transform records. Defaults to the number of available processors
+         */
+        public Builder numThreads(int numThreads) {
+            this.numThreads = numThreads;
+            return this;
+        }
+
+        /**
+         * Number of records per task. Default: 1024
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Maximum number of batches read ahead of the output writer. Defaults to 2 * numThreads
+         */
+        public Builder maxBatchesInFlight(int maxBatchesInFlight) {
+            this.maxBatchesInFlight = maxBatchesInFlight;
+            return this;
+        }
+
+        /**
+         * Maximum number of records buffered in memory by reductions and joins, before a sorted run is spilled
+         * to disk. Default: 1000000
+         */
+        public Builder maxRecordsInMemory(int maxRecordsInMemory) {
+            this.maxRecordsInMemory = maxRecordsInMemory;
+            return this;
+        }
+
+        /**
+         * Directory for sorted runs spilled to disk. Defaults to the system temporary directory
+         */
+        public Builder tempDirectory(File tempDirectory) {
+            this.tempDirectory = tempDirectory;
+            return this;
+        }
+
+        public StreamingTransformExecutor build() {
+            if (numThreads < 1)
+                throw new IllegalStateException("Number of threads must be positive, got " + numThreads);
+            if (batchSize < 1)
+                throw new IllegalStateException("Batch size must be positive, got " + batchSize);
+            if (maxRecordsInMemory < 1)
+                throw new IllegalStateException("Max records in memory must be positive, got " + maxRecordsInMemory);
+            if (maxBatchesInFlight < 1)
+                maxBatchesInFlight = 2 * numThreads;
+            return new StreamingTransformExecutor(this);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.datavec.local.transforms.columnar;
+
+import lombok.AllArgsConstructor;
+import org.apache.arrow.vector.FieldVector;
+import org.datavec.api.transform.condition.BooleanCondition;
+
+import java.util.List;
+
+/**
+ * Columnar version of {@link BooleanCondition}: combines the row masks of its columnar sub-conditions
+ */
+@AllArgsConstructor
+public class BooleanColumnarCondition implements ColumnarCondition {
+
+    private final BooleanCondition.Type type;
+    private final ColumnarCondition[] conditions;
+
+    @Override
+    public boolean[] condition(List<FieldVector> columns, int numRows) {
+        boolean[] ret = conditions[0].condition(columns, numRows);
+        switch (type) {
+            case AND:
+                for (int c = 1; c < conditions.length; c++) {
+                    boolean[] other = conditions[c].condition(columns, numRows);
+                    for (int i = 0; i < numRows; i++)
+                        ret[i] &= other[i];
+                }
+                break;
+            case OR:
+                for (int c = 1; c < conditions.length; c++) {
+                    boolean[] other = conditions[c].condition(columns, numRows);
+                    for (int i = 0; i < numRows; i++)
+                        ret[i] |= other[i];
+                }
+                break;
+            case NOT:
+                for (int i = 0; i < numRows; i++)
+                    ret[i] = !ret[i];
+                break;
+            case XOR:
+                boolean[] other = conditions[1].condition(columns, numRows);
+                for (int i = 0; i < numRows; i++)
+                    ret[i] ^= other[i];
+                break;
+            default:
+                throw new RuntimeException("Unknown condition type: " + type);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,22 @@
+package org.datavec.local.transforms.columnar;
+
+import org.apache.arrow.vector.FieldVector;
+
+import java.util.List;
+
+/**
+ * Columnar implementation of a {@link org.datavec.api.transform.condition.Condition},
+ * evaluated for all rows of a batch of arrow column vectors at once
+ */
+public interface ColumnarCondition {
+
+    /**
+     * Evaluate the condition for each row of the batch
+     *
+     * @param columns the columns of the batch, in the condition's input schema order
+     * @param numRows the number of rows in the batch
+     * @return the condition value for each row
+     */
+    boolean[] condition(List<FieldVector> columns, int numRows);
+
+}
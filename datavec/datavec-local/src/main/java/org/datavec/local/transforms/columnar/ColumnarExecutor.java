@@ -0,0 +1,240 @@
+package org.datavec.local.transforms.columnar;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.util.TransferPair;
+import org.datavec.api.transform.DataAction;
+import org.datavec.api.transform.Transform;
+import org.datavec.api.transform.TransformProcess;
+import org.datavec.api.transform.filter.Filter;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.transform.schema.SequenceSchema;
+import org.datavec.api.writable.Writable;
+import org.datavec.arrow.ArrowConverter;
+import org.datavec.local.transforms.transform.LocalTransformFunction;
+
+import java.util.*;
+
+/**
+ * Columnar execution of a {@link TransformProcess}, used by
+ * {@link org.datavec.local.transforms.LocalTransformExecutor#executeColumnar(List, TransformProcess)}.<br>
+ * Input records are converted to arrow column vectors in batches, and the leading transform and filter steps of
+ * the process are applied to whole columns using {@link ColumnarOps}. Filters compact the batch once per step.
+ * Steps without a columnar implementation are executed in row mode on the batch, and converted back to columns.
+ * <br>
+ * Execution stops at the first step that isn't a transform or filter (conversion to sequence, reduction etc):
+ * see {@link #getNumSteps()}. Remaining steps have to be executed in row mode on the output.
+ */
+@Slf4j
+public class ColumnarExecutor {
+    public static final int DEFAULT_BATCH_SIZE = 8192;
+
+    private final BufferAllocator allocator;
+    private final Schema initialSchema;
+    private final int batchSize;
+    private final List<Step> steps = new ArrayList<>();
+    private final Schema outputSchema;
+    private final int numColumnar;
+
+    public ColumnarExecutor(BufferAllocator allocator, TransformProcess transformProcess, int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive, got " + batchSize);
+        if (transformProcess.getInitialSchema() instanceof SequenceSchema)
+            throw new IllegalArgumentException("Columnar execution is not supported for sequence input");
+
+        this.allocator = allocator;
+        this.initialSchema = transformProcess.getInitialSchema();
+        this.batchSize = batchSize;
+
+        Schema schema = initialSchema;
+        int columnar = 0;
+        for (DataAction d : transformProcess.getActionList()) {
+            Step step;
+            if (d.getTransform() != null) {
+                Transform t = d.getTransform();
+                Schema next = t.transform(schema);
+                step = new Step(schema, next, t, null, ColumnarOps.forTransform(allocator, t, schema), null);
+                schema = next;
+            } else if (d.getFilter() != null) {
+                Filter f = d.getFilter();
+                step = new Step(schema, schema, null, f, null, ColumnarOps.forFilter(f, schema));
+            } else {
+                break;
+            }
+
+            if (step.isColumnar())
+                columnar++;
+            steps.add(step);
+        }
+
+        this.outputSchema = schema;
+        this.numColumnar = columnar;
+    }
+
+    /**
+     * Number of leading steps of the transform process executed by this executor
+     */
+    public int getNumSteps() {
+        return steps.size();
+    }
+
+    /**
+     * Number of steps that have a columnar implementation. Other steps are executed row by row within each batch.
+     */
+    public int getNumColumnarSteps() {
+        return numColumnar;
+    }
+
+    /**
+     * Schema of the output, after the first {@link #getNumSteps()} steps
+     */
+    public Schema getOutputSchema() {
+        return outputSchema;
+    }
+
+    /**
+     * Execute the steps on the given input
+     *
+     * @param input the input records, all matching the initial schema of the transform process
+     * @return the output columns, matching {@link #getOutputSchema()}
+     */
+    public List<FieldVector> execute(List<List<Writable>> input) {
+        List<FieldVector> output = null;
+        int outputRows = 0;
+
+        for (int from = 0; from < input.size(); from += batchSize) {
+            List<List<Writable>> records = input.subList(from, Math.min(input.size(), from + batchSize));
+            Batch batch = new Batch(ArrowConverter.toArrowColumns(allocator, initialSchema, records), records.size());
+            for (Step step : steps) {
+                step.apply(batch);
+            }
+
+            if (batch.numRows == 0) {
+                //All records were filtered out: remaining steps were skipped, so columns may not match the output
+                batch.replaceColumns(Collections.<FieldVector>emptyList());
+            } else if (output == null) {
+                output = batch.columns;
+            } else {
+                append(output, outputRows, batch);
+            }
+            outputRows += batch.numRows;
+        }
+
+        if (output == null)
+            output = ArrowConverter.toArrowColumns(allocator, outputSchema, Collections.<List<Writable>>emptyList());
+        return output;
+    }
+
+    private static void append(List<FieldVector> output, int outputRows, Batch batch) {
+        for (int j = 0; j < output.size(); j++) {
+            FieldVector from = batch.columns.get(j);
+            FieldVector to = output.get(j);
+            TransferPair pair = from.makeTransferPair(to);
+            for (int i = 0; i < batch.numRows; i++) {
+                pair.copyValueSafe(i, outputRows + i);
+            }
+            to.setValueCount(outputRows + batch.numRows);
+            from.close();
+        }
+    }
+
+    private static class Batch {
+        private List<FieldVector> columns;
+        private int numRows;
+
+        private Batch(List<FieldVector> columns, int numRows) {
+            this.columns = columns;
+            this.numRows = numRows;
+        }
+
+        private void replaceColumns(List<FieldVector> newColumns) {
+            Set<FieldVector> retained = Collections.newSetFromMap(new IdentityHashMap<FieldVector, Boolean>());
+            retained.addAll(newColumns);
+            for (FieldVector v : columns) {
+                if (!retained.contains(v))
+                    v.close();
+            }
+            columns = newColumns;
+        }
+    }
+
+    private class Step {
+        private final Schema inputSchema;
+        private final Schema outputSchema;
+        private final Transform transform;
+        private final Filter filter;
+        private final ColumnarTransform columnarTransform;
+        private final ColumnarCondition columnarFilter;
+
+        private Step(Schema inputSchema, Schema outputSchema, Transform transform, Filter filter,
+                        ColumnarTransform columnarTransform, ColumnarCondition columnarFilter) {
+            this.inputSchema = inputSchema;
+            this.outputSchema = outputSchema;
+            this.transform = transform;
+            this.filter = filter;
+            this.columnarTransform = columnarTransform;
+            this.columnarFilter = columnarFilter;
+        }
+
+        private boolean isColumnar() {
+            return columnarTransform != null || columnarFilter != null;
+        }
+
+        private void apply(Batch batch) {
+            if (batch.numRows == 0)
+                return;
+
+            if (columnarTransform != null) {
+                batch.replaceColumns(columnarTransform.transform(batch.columns, batch.numRows));
+            } else if (columnarFilter != null) {
+                compact(batch, columnarFilter.condition(batch.columns, batch.numRows));
+            } else if (transform != null) {
+                //Row mode fallback: records are views over the current columns
+                LocalTransformFunction function = new LocalTransformFunction(transform);
+                List<List<Writable>> out = new ArrayList<>(batch.numRows);
+                for (List<Writable> record : ArrowConverter.toArrowWritables(batch.columns, inputSchema)) {
+                    List<Writable> mapped = function.apply(record);
+                    if (!mapped.isEmpty())
+                        out.add(mapped);
+                }
+                List<FieldVector> columns = ArrowConverter.toArrowColumns(allocator, outputSchema, out);
+                batch.replaceColumns(columns);
+                batch.numRows = out.size();
+            } else {
+                boolean[] remove = new boolean[batch.numRows];
+                int i = 0;
+                for (List<Writable> record : ArrowConverter.toArrowWritables(batch.columns, inputSchema)) {
+                    remove[i++] = filter.removeExample(record);
+                }
+                compact(batch, remove);
+            }
+        }
+
+        private void compact(Batch batch, boolean[] remove) {
+            int kept = 0;
+            for (int i = 0; i < batch.numRows; i++) {
+                if (!remove[i])
+                    kept++;
+            }
+            if (kept == batch.numRows)
+                return;
+
+            List<FieldVector> columns = new ArrayList<>(batch.columns.size());
+            for (FieldVector from : batch.columns) {
+                TransferPair pair = from.getTransferPair(allocator);
+                FieldVector to = (FieldVector) pair.getTo();
+                to.allocateNew();
+                int row = 0;
+                for (int i = 0; i < batch.numRows; i++) {
+                    if (!remove[i])
+                        pair.copyValueSafe(i, row++);
+                }
+                to.setValueCount(kept);
+                columns.add(to);
+            }
+            batch.replaceColumns(columns);
+            batch.numRows = kept;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.datavec.local.transforms.columnar;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.MathOp;
+import org.datavec.api.transform.Transform;
+import org.datavec.api.transform.condition.BooleanCondition;
+import org.datavec.api.transform.condition.Condition;
+import org.datavec.api.transform.condition.column.ColumnCondition;
+import org.datavec.api.transform.condition.column.DoubleColumnCondition;
+import org.datavec.api.transform.condition.column.IntegerColumnCondition;
+import org.datavec.api.transform.condition.column.LongColumnCondition;
+import org.datavec.api.transform.filter.ConditionFilter;
+import org.datavec.api.transform.filter.Filter;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.transform.transform.BaseColumnTransform;
+import org.datavec.api.transform.transform.column.RemoveAllColumnsExceptForTransform;
+import org.datavec.api.transform.transform.column.RemoveColumnsTransform;
+import org.datavec.api.transform.transform.column.RenameColumnsTransform;
+import org.datavec.api.transform.transform.column.ReorderColumnsTransform;
+import org.datavec.api.transform.transform.doubletransform.DoubleMathOpTransform;
+import org.datavec.api.transform.transform.integer.IntegerMathOpTransform;
+import org.datavec.api.transform.transform.longtransform.LongMathOpTransform;
+import org.datavec.local.transforms.LocalTransformExecutor;
+
+import java.util.List;
+
+/**
+ * Factory for the columnar versions of transforms, conditions and filters.
+ * All methods return null if there is no columnar implementation for the given op:
+ * such steps are executed in row mode instead.
+ */
+public class ColumnarOps {
+
+    private ColumnarOps() {}
+
+    /**
+     * Get the columnar version of the given transform
+     *
+     * @param allocator   allocator for any new vectors
+     * @param transform   the transform
+     * @param inputSchema input schema of the transform
+     * @return the columnar transform, or null if not supported
+     */
+    public static ColumnarTransform forTransform(BufferAllocator allocator, Transform transform, Schema inputSchema) {
+        if (transform instanceof RenameColumnsTransform) {
+            int[] idxs = new int[inputSchema.numColumns()];
+            for (int i = 0; i < idxs.length; i++)
+                idxs[i] = i;
+            return new SelectColumnsTransform(idxs);
+        }
+
+        if (transform instanceof RemoveColumnsTransform || transform instanceof RemoveAllColumnsExceptForTransform
+                        || transform instanceof ReorderColumnsTransform) {
+            List<String> outputNames = transform.transform(inputSchema).getColumnNames();
+            int[] idxs = new int[outputNames.size()];
+            for (int i = 0; i < idxs.length; i++)
+                idxs[i] = inputSchema.getIndexOfColumn(outputNames.get(i));
+            return new SelectColumnsTransform(idxs);
+        }
+
+        //In try/catch mode, failing records have to be dropped: ops that can throw are left to row mode
+        boolean tryCatch = LocalTransformExecutor.isTryCatch();
+
+        if (transform instanceof DoubleMathOpTransform) {
+            DoubleMathOpTransform t = (DoubleMathOpTransform) transform;
+            int idx = inputSchema.getIndexOfColumn(t.columnName());
+            if (inputSchema.getType(idx) == ColumnType.Double)
+                return new MathOpColumnTransform(idx, ColumnType.Double, t.getMathOp(), t.getScalar());
+        } else if (transform instanceof IntegerMathOpTransform) {
+            IntegerMathOpTransform t = (IntegerMathOpTransform) transform;
+            int idx = inputSchema.getIndexOfColumn(t.columnName());
+            if (inputSchema.getType(idx) == ColumnType.Integer && !(tryCatch && isDivision(t.getMathOp())))
+                return new MathOpColumnTransform(idx, ColumnType.Integer, t.getMathOp(), t.getScalar());
+        } else if (transform instanceof LongMathOpTransform) {
+            LongMathOpTransform t = (LongMathOpTransform) transform;
+            int idx = inputSchema.getIndexOfColumn(t.columnName());
+            if (inputSchema.getType(idx) == ColumnType.Long && !(tryCatch && isDivision(t.getMathOp())))
+                return new MathOpColumnTransform(idx, ColumnType.Long, t.getMathOp(), t.getScalar());
+        }
+
+        if (transform instanceof BaseColumnTransform && !tryCatch && !overridesRecordMap(transform)) {
+            BaseColumnTransform t = (BaseColumnTransform) transform;
+            Schema outputSchema = t.transform(inputSchema);
+            if (outputSchema.numColumns() != inputSchema.numColumns())
+                return null;
+            int idx = inputSchema.getIndexOfColumn(t.columnName());
+            return new MapColumnTransform(allocator, t, idx, inputSchema.getType(idx), outputSchema.getType(idx),
+                            outputSchema.getName(idx));
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the columnar version of the given filter. The returned condition is true for the rows to remove.
+     *
+     * @param filter      the filter
+     * @param inputSchema input schema of the filter
+     * @return the columnar condition, or null if not supported
+     */
+    public static ColumnarCondition forFilter(Filter filter, Schema inputSchema) {
+        if (filter instanceof ConditionFilter)
+            return forCondition(((ConditionFilter) filter).getCondition(), inputSchema);
+        return null;
+    }
+
+    /**
+     * Get the columnar version of the given condition
+     *
+     * @param condition   the condition
+     * @param inputSchema input schema of the condition
+     * @return the columnar condition, or null if not supported
+     */
+    public static ColumnarCondition forCondition(Condition condition, Schema inputSchema) {
+        if (condition instanceof BooleanCondition) {
+            BooleanCondition c = (BooleanCondition) condition;
+            Condition[] conditions = c.getConditions();
+            ColumnarCondition[] columnar = new ColumnarCondition[conditions.length];
+            for (int i = 0; i < conditions.length; i++) {
+                columnar[i] = forCondition(conditions[i], inputSchema);
+                if (columnar[i] == null)
+                    return null;
+            }
+            return new BooleanColumnarCondition(c.getType(), columnar);
+        }
+
+        if (!(condition instanceof ColumnCondition))
+            return null;
+
+        ColumnCondition c = (ColumnCondition) condition;
+        int idx = inputSchema.getIndexOfColumn(c.columnName());
+        ColumnType type = inputSchema.getType(idx);
+        if (condition instanceof DoubleColumnCondition && type == ColumnType.Double) {
+            DoubleColumnCondition d = (DoubleColumnCondition) condition;
+            return new NumericColumnCondition(c, idx, type, d.getOp(), d.getValue(), d.getSet());
+        } else if (condition instanceof IntegerColumnCondition && type == ColumnType.Integer) {
+            IntegerColumnCondition d = (IntegerColumnCondition) condition;
+            return new NumericColumnCondition(c, idx, type, d.getOp(), d.getValue(), d.getSet());
+        } else if (condition instanceof LongColumnCondition && type == ColumnType.Long) {
+            LongColumnCondition d = (LongColumnCondition) condition;
+            return new NumericColumnCondition(c, idx, type, d.getOp(), d.getValue(), d.getSet());
+        }
+
+        return new MapColumnCondition(c, idx, type);
+    }
+
+    private static boolean isDivision(MathOp mathOp) {
+        return mathOp == MathOp.Divide || mathOp == MathOp.Modulus || mathOp == MathOp.ReverseDivide;
+    }
+
+    private static boolean overridesRecordMap(Transform transform) {
+        try {
+            return transform.getClass().getMethod("map", List.class).getDeclaringClass() != BaseColumnTransform.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.datavec.local.transforms.columnar;
+
+import org.apache.arrow.vector.FieldVector;
+
+import java.util.List;
+
+/**
+ * Columnar implementation of a {@link org.datavec.api.transform.Transform},
+ * applied to a whole batch of arrow column vectors at once instead of record by record.
+ *
+ * Implementations may modify the input vectors in place, and may return them as part of the output.
+ * Any input vector not present in the returned list is closed by the caller.
+ */
+public interface ColumnarTransform {
+
+    /**
+     * Apply the transform to the given batch
+     *
+     * @param columns the columns of the batch, in the transform's input schema order
+     * @param numRows the number of rows in the batch
+     * @return the columns of the batch, in the transform's output schema order
+     */
+    List<FieldVector> transform(List<FieldVector> columns, int numRows);
+
+}
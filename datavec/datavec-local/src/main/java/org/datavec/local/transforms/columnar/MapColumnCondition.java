@@ -0,0 +1,34 @@
+package org.datavec.local.transforms.columnar;
+
+import lombok.AllArgsConstructor;
+import org.apache.arrow.vector.FieldVector;
+import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.condition.column.ColumnCondition;
+import org.datavec.api.writable.NullWritable;
+import org.datavec.api.writable.Writable;
+import org.datavec.arrow.ArrowConverter;
+
+import java.util.List;
+
+/**
+ * Columnar execution of any {@link ColumnCondition}: the condition is evaluated value by value
+ * on the one column it checks, without materializing records
+ */
+@AllArgsConstructor
+public class MapColumnCondition implements ColumnarCondition {
+
+    private final ColumnCondition condition;
+    private final int columnIdx;
+    private final ColumnType columnType;
+
+    @Override
+    public boolean[] condition(List<FieldVector> columns, int numRows) {
+        FieldVector column = columns.get(columnIdx);
+        boolean[] ret = new boolean[numRows];
+        for (int i = 0; i < numRows; i++) {
+            Writable w = column.isNull(i) ? NullWritable.INSTANCE : ArrowConverter.fromEntry(i, column, columnType);
+            ret[i] = condition.columnCondition(w);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,57 @@
+package org.datavec.local.transforms.columnar;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.transform.BaseColumnTransform;
+import org.datavec.api.writable.NullWritable;
+import org.datavec.api.writable.Writable;
+import org.datavec.arrow.ArrowConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Columnar execution of any {@link BaseColumnTransform}: the transform is applied value by value to the one column
+ * it modifies, and the results are written to a new vector of the output column type.
+ * Other columns of the batch are passed through untouched, so no records are materialized.
+ */
+public class MapColumnTransform implements ColumnarTransform {
+
+    private final BufferAllocator allocator;
+    private final BaseColumnTransform transform;
+    private final int columnIdx;
+    private final ColumnType inputType;
+    private final ColumnType outputType;
+    private final String outputName;
+
+    public MapColumnTransform(BufferAllocator allocator, BaseColumnTransform transform, int columnIdx,
+                    ColumnType inputType, ColumnType outputType, String outputName) {
+        this.allocator = allocator;
+        this.transform = transform;
+        this.columnIdx = columnIdx;
+        this.inputType = inputType;
+        this.outputType = outputType;
+        this.outputName = outputName;
+    }
+
+    @Override
+    public List<FieldVector> transform(List<FieldVector> columns, int numRows) {
+        FieldVector in = columns.get(columnIdx);
+        FieldVector out = ArrowConverter.createFieldVector(allocator, outputName, outputType, numRows);
+        try {
+            for (int i = 0; i < numRows; i++) {
+                Writable w = in.isNull(i) ? NullWritable.INSTANCE : ArrowConverter.fromEntry(i, in, inputType);
+                ArrowConverter.setValue(outputType, out, transform.map(w), i);
+            }
+        } catch (RuntimeException e) {
+            out.close();
+            throw e;
+        }
+        out.setValueCount(numRows);
+
+        List<FieldVector> ret = new ArrayList<>(columns);
+        ret.set(columnIdx, out);
+        return ret;
+    }
+}
@@ -0,0 +1,148 @@
+package org.datavec.local.transforms.columnar;
+
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.MathOp;
+
+import java.util.List;
+
+/**
+ * Columnar version of {@link org.datavec.api.transform.transform.doubletransform.DoubleMathOpTransform},
+ * {@link org.datavec.api.transform.transform.integer.IntegerMathOpTransform} and
+ * {@link org.datavec.api.transform.transform.longtransform.LongMathOpTransform}.
+ * Values are updated in place in the primitive vector; null values are left as is.
+ */
+public class MathOpColumnTransform implements ColumnarTransform {
+
+    private final int columnIdx;
+    private final ColumnType columnType;
+    private final MathOp mathOp;
+    private final double doubleScalar;
+    private final long longScalar;
+
+    /**
+     * @param columnIdx  index of the column to modify
+     * @param columnType type of the column: Double, Integer or Long
+     * @param mathOp     the operation to apply
+     * @param scalar     scalar value for the operation. For Integer and Long columns, this must be an integer value
+     */
+    public MathOpColumnTransform(int columnIdx, ColumnType columnType, MathOp mathOp, Number scalar) {
+        if (columnType != ColumnType.Double && columnType != ColumnType.Integer && columnType != ColumnType.Long)
+            throw new IllegalArgumentException("Unsupported column type for math op: " + columnType);
+        this.columnIdx = columnIdx;
+        this.columnType = columnType;
+        this.mathOp = mathOp;
+        this.doubleScalar = scalar.doubleValue();
+        this.longScalar = scalar.longValue();
+    }
+
+    @Override
+    public List<FieldVector> transform(List<FieldVector> columns, int numRows) {
+        FieldVector column = columns.get(columnIdx);
+        switch (columnType) {
+            case Double:
+                Float8Vector doubles = (Float8Vector) column;
+                for (int i = 0; i < numRows; i++) {
+                    if (!doubles.isNull(i))
+                        doubles.set(i, doOp(doubles.get(i)));
+                }
+                break;
+            case Integer:
+                IntVector ints = (IntVector) column;
+                int intScalar = (int) longScalar;
+                for (int i = 0; i < numRows; i++) {
+                    if (!ints.isNull(i))
+                        ints.set(i, doOp(ints.get(i), intScalar));
+                }
+                break;
+            case Long:
+                BigIntVector longs = (BigIntVector) column;
+                for (int i = 0; i < numRows; i++) {
+                    if (!longs.isNull(i))
+                        longs.set(i, doOp(longs.get(i)));
+                }
+                break;
+        }
+        return columns;
+    }
+
+    private double doOp(double input) {
+        double scalar = doubleScalar;
+        switch (mathOp) {
+            case Add:
+                return input + scalar;
+            case Subtract:
+                return input - scalar;
+            case Multiply:
+                return input * scalar;
+            case Divide:
+                return input / scalar;
+            case Modulus:
+                return input % scalar;
+            case ReverseSubtract:
+                return scalar - input;
+            case ReverseDivide:
+                return scalar / input;
+            case ScalarMin:
+                return Math.min(input, scalar);
+            case ScalarMax:
+                return Math.max(input, scalar);
+            default:
+                throw new IllegalStateException("Unknown or not implemented math op: " + mathOp);
+        }
+    }
+
+    private int doOp(int input, int scalar) {
+        switch (mathOp) {
+            case Add:
+                return input + scalar;
+            case Subtract:
+                return input - scalar;
+            case Multiply:
+                return input * scalar;
+            case Divide:
+                return input / scalar;
+            case Modulus:
+                return input % scalar;
+            case ReverseSubtract:
+                return scalar - input;
+            case ReverseDivide:
+                return scalar / input;
+            case ScalarMin:
+                return Math.min(input, scalar);
+            case ScalarMax:
+                return Math.max(input, scalar);
+            default:
+                throw new IllegalStateException("Unknown or not implemented math op: " + mathOp);
+        }
+    }
+
+    private long doOp(long input) {
+        long scalar = longScalar;
+        switch (mathOp) {
+            case Add:
+                return input + scalar;
+            case Subtract:
+                return input - scalar;
+            case Multiply:
+                return input * scalar;
+            case Divide:
+                return input / scalar;
+            case Modulus:
+                return input % scalar;
+            case ReverseSubtract:
+                return scalar - input;
+            case ReverseDivide:
+                return scalar / input;
+            case ScalarMin:
+                return Math.min(input, scalar);
+            case ScalarMax:
+                return Math.max(input, scalar);
+            default:
+                throw new IllegalStateException("Unknown or not implemented math op: " + mathOp);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.datavec.local.transforms.columnar;
+
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.condition.ConditionOp;
+import org.datavec.api.transform.condition.column.ColumnCondition;
+import org.datavec.api.writable.NullWritable;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Columnar version of {@link org.datavec.api.transform.condition.column.DoubleColumnCondition},
+ * {@link org.datavec.api.transform.condition.column.IntegerColumnCondition} and
+ * {@link org.datavec.api.transform.condition.column.LongColumnCondition}, comparing primitive values directly.
+ * Null values are passed to the original condition as {@link NullWritable}, same as in row mode.
+ */
+public class NumericColumnCondition implements ColumnarCondition {
+
+    private final ColumnCondition condition;
+    private final int columnIdx;
+    private final ColumnType columnType;
+    private final ConditionOp op;
+    private final double doubleValue;
+    private final long longValue;
+    private final Set<?> set;
+
+    /**
+     * @param condition  the original condition, used for null values
+     * @param columnIdx  index of the column to check
+     * @param columnType type of the column: Double, Integer or Long
+     * @param op         condition op
+     * @param value      value for the condition op, may be null for InSet/NotInSet ops
+     * @param set        set for InSet/NotInSet ops, with elements of the same type as the column
+     */
+    public NumericColumnCondition(ColumnCondition condition, int columnIdx, ColumnType columnType, ConditionOp op,
+                    Number value, Set<?> set) {
+        if (columnType != ColumnType.Double && columnType != ColumnType.Integer && columnType != ColumnType.Long)
+            throw new IllegalArgumentException("Unsupported column type for numeric condition: " + columnType);
+        this.condition = condition;
+        this.columnIdx = columnIdx;
+        this.columnType = columnType;
+        this.op = op;
+        this.doubleValue = (value == null ? Double.NaN : value.doubleValue());
+        this.longValue = (value == null ? 0 : value.longValue());
+        this.set = set;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean[] condition(List<FieldVector> columns, int numRows) {
+        FieldVector column = columns.get(columnIdx);
+        boolean[] ret = new boolean[numRows];
+        switch (columnType) {
+            case Double:
+                Float8Vector doubles = (Float8Vector) column;
+                Set<Double> doubleSet = (Set<Double>) set;
+                for (int i = 0; i < numRows; i++) {
+                    ret[i] = doubles.isNull(i) ? condition.columnCondition(NullWritable.INSTANCE)
+                                    : op.apply(doubles.get(i), doubleValue, doubleSet);
+                }
+                break;
+            case Integer:
+                IntVector ints = (IntVector) column;
+                Set<Integer> intSet = (Set<Integer>) set;
+                int intValue = (int) longValue;
+                for (int i = 0; i < numRows; i++) {
+                    ret[i] = ints.isNull(i) ? condition.columnCondition(NullWritable.INSTANCE)
+                                    : op.apply(ints.get(i), intValue, intSet);
+                }
+                break;
+            case Long:
+                BigIntVector longs = (BigIntVector) column;
+                Set<Long> longSet = (Set<Long>) set;
+                for (int i = 0; i < numRows; i++) {
+                    ret[i] = longs.isNull(i) ? condition.columnCondition(NullWritable.INSTANCE)
+                                    : op.apply(longs.get(i), longValue, longSet);
+                }
+                break;
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,30 @@
+package org.datavec.local.transforms.columnar;
+
+import lombok.AllArgsConstructor;
+import org.apache.arrow.vector.FieldVector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Columnar version of transforms that only remove, reorder or rename columns
+ * ({@link org.datavec.api.transform.transform.column.RemoveColumnsTransform},
+ * {@link org.datavec.api.transform.transform.column.RemoveAllColumnsExceptForTransform},
+ * {@link org.datavec.api.transform.transform.column.ReorderColumnsTransform} and
+ * {@link org.datavec.api.transform.transform.column.RenameColumnsTransform}).
+ * No data is copied: output columns are the input vectors at the given indices.
+ */
+@AllArgsConstructor
+public class SelectColumnsTransform implements ColumnarTransform {
+
+    private final int[] columnIndices;
+
+    @Override
+    public List<FieldVector> transform(List<FieldVector> columns, int numRows) {
+        List<FieldVector> ret = new ArrayList<>(columnIndices.length);
+        for (int idx : columnIndices) {
+            ret.add(columns.get(idx));
+        }
+        return ret;
+    }
+}
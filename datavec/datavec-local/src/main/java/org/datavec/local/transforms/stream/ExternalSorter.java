@@ -0,0 +1,258 @@
+package org.datavec.local.transforms.stream;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.datavec.api.writable.Writable;
+import org.datavec.api.writable.WritableFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Sorts records by a String key with bounded memory, for streaming reductions and joins.<br>
+ * Records are buffered in memory; once the buffer is full, it is sorted and spilled to a temporary file as a sorted run.
+ * {@link #sortedIterator()} then merges all runs (and whatever is left in memory) in key order.
+ * <br>
+ * Sorting is stable: records with equal keys are returned in the order they were added.
+ * Each record may carry an integer tag (i.e. the side of a join) that is returned with it.
+ */
+@Slf4j
+public class ExternalSorter implements Closeable {
+
+    private final File tempDirectory;
+    private final int maxRecordsInMemory;
+
+    private List<Entry> buffer = new ArrayList<>();
+    private final List<File> runs = new ArrayList<>();
+    private final List<RunSource> openRuns = new ArrayList<>();
+    private boolean iterating = false;
+
+    /**
+     * @param tempDirectory      Directory for sorted runs. If null, the default temporary directory is used
+     * @param maxRecordsInMemory Maximum number of records buffered in memory before a sorted run is spilled to disk
+     */
+    public ExternalSorter(File tempDirectory, int maxRecordsInMemory) {
+        if (maxRecordsInMemory < 1)
+            throw new IllegalArgumentException("Maximum number of records in memory must be positive, got " + maxRecordsInMemory);
+        this.tempDirectory = tempDirectory;
+        this.maxRecordsInMemory = maxRecordsInMemory;
+    }
+
+    /**
+     * Add a record
+     *
+     * @param key    Key to sort on
+     * @param tag    Tag returned with the record
+     * @param record The record
+     */
+    public void add(String key, int tag, List<Writable> record) throws IOException {
+        if (iterating)
+            throw new IllegalStateException("Cannot add records after sortedIterator() has been called");
+
+        buffer.add(new Entry(key, tag, record));
+        if (buffer.size() >= maxRecordsInMemory)
+            spill();
+    }
+
+    /**
+     * @return Number of sorted runs spilled to disk so far
+     */
+    public int getNumSpilledRuns() {
+        return runs.size();
+    }
+
+    /**
+     * Get an iterator over all records added so far, sorted by key. Can only be called once.
+     * Run files are read lazily, and deleted on {@link #close()}
+     */
+    public Iterator<Entry> sortedIterator() throws IOException {
+        if (iterating)
+            throw new IllegalStateException("sortedIterator() can only be called once");
+        iterating = true;
+
+        Collections.sort(buffer, KEY_ORDER);
+        List<Source> sources = new ArrayList<>(runs.size() + 1);
+        for (File f : runs) {
+            RunSource run = new RunSource(f);
+            openRuns.add(run);
+            sources.add(run);
+        }
+        sources.add(new MemorySource(buffer.iterator()));
+        buffer = null;
+
+        return new MergeIterator(sources);
+    }
+
+    /**
+     * Close and delete all run files
+     */
+    @Override
+    public void close() {
+        for (RunSource run : openRuns) {
+            try {
+                run.in.close();
+            } catch (IOException e) {
+                log.warn("Unable to close sorted run", e);
+            }
+        }
+        openRuns.clear();
+        for (File f : runs) {
+            if (f.exists() && !f.delete())
+                log.warn("Unable to delete sorted run file {}", f);
+        }
+        runs.clear();
+        buffer = null;
+    }
+
+    private void spill() throws IOException {
+        Collections.sort(buffer, KEY_ORDER);
+
+        File f = File.createTempFile("datavec_sorted_run_", ".bin", tempDirectory);
+        runs.add(f);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)))) {
+            WritableFactory factory = WritableFactory.getInstance();
+            for (Entry e : buffer) {
+                byte[] key = e.key.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeInt(e.tag);
+                out.writeInt(e.record.size());
+                for (Writable w : e.record) {
+                    factory.writeWithType(w, out);
+                }
+            }
+        }
+
+        log.debug("Spilled sorted run of {} records to {}", buffer.size(), f);
+        buffer = new ArrayList<>();
+    }
+
+    private static final Comparator<Entry> KEY_ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry o1, Entry o2) {
+            return o1.key.compareTo(o2.key);
+        }
+    };
+
+    /**
+     * A record, with its key and tag
+     */
+    @AllArgsConstructor
+    @Getter
+    public static class Entry {
+        private final String key;
+        private final int tag;
+        private final List<Writable> record;
+    }
+
+    private interface Source {
+        /** Current entry, or null if exhausted */
+        Entry current();
+
+        void advance() throws IOException;
+    }
+
+    private static class MemorySource implements Source {
+        private final Iterator<Entry> iterator;
+        private Entry current;
+
+        private MemorySource(Iterator<Entry> iterator) {
+            this.iterator = iterator;
+            this.current = iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public Entry current() {
+            return current;
+        }
+
+        @Override
+        public void advance() {
+            current = iterator.hasNext() ? iterator.next() : null;
+        }
+    }
+
+    private static class RunSource implements Source {
+        private final DataInputStream in;
+        private Entry current;
+
+        private RunSource(File f) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+            advance();
+        }
+
+        @Override
+        public Entry current() {
+            return current;
+        }
+
+        @Override
+        public void advance() throws IOException {
+            int keyLength;
+            try {
+                keyLength = in.readInt();
+            } catch (EOFException e) {
+                current = null;
+                in.close();
+                return;
+            }
+
+            byte[] key = new byte[keyLength];
+            in.readFully(key);
+            int tag = in.readInt();
+            int size = in.readInt();
+            List<Writable> record = new ArrayList<>(size);
+            WritableFactory factory = WritableFactory.getInstance();
+            for (int i = 0; i < size; i++) {
+                record.add(factory.readWithType(in));
+            }
+            current = new Entry(new String(key, StandardCharsets.UTF_8), tag, record);
+        }
+    }
+
+    private static class MergeIterator implements Iterator<Entry> {
+        private final PriorityQueue<Integer> queue;
+        private final List<Source> sources;
+
+        private MergeIterator(final List<Source> sources) {
+            this.sources = sources;
+            //Sources are ordered by key, then by source index: runs are spilled in insertion order, so this keeps the sort stable
+            this.queue = new PriorityQueue<>(Math.max(1, sources.size()), new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    int c = sources.get(o1).current().key.compareTo(sources.get(o2).current().key);
+                    return c != 0 ? c : Integer.compare(o1, o2);
+                }
+            });
+            for (int i = 0; i < sources.size(); i++) {
+                if (sources.get(i).current() != null)
+                    queue.add(i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public Entry next() {
+            if (queue.isEmpty())
+                throw new NoSuchElementException();
+
+            int idx = queue.poll();
+            Source source = sources.get(idx);
+            Entry ret = source.current();
+            try {
+                source.advance();
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading sorted run", e);
+            }
+            if (source.current() != null)
+                queue.add(idx);
+            return ret;
+        }
+    }
+}
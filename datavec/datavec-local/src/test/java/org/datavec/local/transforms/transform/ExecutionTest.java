@@ -20,13 +20,18 @@ package org.datavec.local.transforms.transform;
 import org.datavec.api.transform.MathOp;
 import org.datavec.api.transform.ReduceOp;
 import org.datavec.api.transform.TransformProcess;
+import org.datavec.api.transform.condition.BooleanCondition;
 import org.datavec.api.transform.condition.ConditionOp;
 import org.datavec.api.transform.condition.column.DoubleColumnCondition;
+import org.datavec.api.transform.condition.column.IntegerColumnCondition;
+import org.datavec.api.transform.condition.column.StringColumnCondition;
 import org.datavec.api.transform.reduce.Reducer;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.transform.schema.SequenceSchema;
+import org.datavec.api.transform.transform.string.ChangeCaseStringTransform;
 import org.datavec.api.writable.DoubleWritable;
 import org.datavec.api.writable.IntWritable;
+import org.datavec.api.writable.LongWritable;
 import org.datavec.api.writable.Text;
 import org.datavec.api.writable.Writable;
 
@@ -214,4 +219,71 @@ public class ExecutionTest  {
         assertEquals(expOut, out);
     }
 
+
+    @Test
+    public void testExecutionColumnar() {
+        Schema schema = new Schema.Builder().addColumnInteger("col0")
+                .addColumnCategorical("col1", "state0", "state1", "state2").addColumnDouble("col2")
+                .addColumnLong("col3").addColumnString("col4").build();
+
+        TransformProcess tp = new TransformProcess.Builder(schema)
+                .filter(new IntegerColumnCondition("col0", ConditionOp.InSet, new HashSet<>(Arrays.asList(3, 17))))
+                .categoricalToInteger("col1")
+                .doubleMathOp("col2", MathOp.Multiply, 2.0)
+                .integerMathOp("col0", MathOp.Add, 100)
+                .longMathOp("col3", MathOp.ReverseSubtract, 50L)
+                .transform(new ChangeCaseStringTransform("col4", ChangeCaseStringTransform.CaseType.UPPER))
+                .filter(BooleanCondition.OR(new DoubleColumnCondition("col2", ConditionOp.GreaterThan, 70.0),
+                        new StringColumnCondition("col4", ConditionOp.Equal, "VALUE5")))
+                .removeColumns("col3")
+                .renameColumn("col2", "doubles")
+                .reorderColumns("col4", "col0")
+                .build();
+
+        List<List<Writable>> inputData = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            inputData.add(Arrays.<Writable>asList(new IntWritable(i), new Text("state" + (i % 3)),
+                    new DoubleWritable(i + 0.5), new LongWritable(i * 3L), new Text("value" + i)));
+        }
+
+        List<List<Writable>> expected = new ArrayList<>(LocalTransformExecutor.execute(inputData, tp));
+        assertEquals(32, expected.size());
+
+        //Small batches, so that filters and appends are executed across batch boundaries
+        for (int batchSize : new int[] {1, 7, 1000}) {
+            List<List<Writable>> out = new ArrayList<>(LocalTransformExecutor.executeColumnar(inputData, tp, batchSize));
+            assertEquals(expected, out);
+        }
+    }
+
+    @Test
+    public void testExecutionColumnarFallback() {
+        Schema schema = new Schema.Builder().addColumnInteger("col0").addColumnDouble("col1").build();
+
+        //Filter can be executed columnar, but the reduction after it has to be executed in row mode
+        TransformProcess tp = new TransformProcess.Builder(schema)
+                .filter(new DoubleColumnCondition("col1", ConditionOp.LessThan, 2.0))
+                .reduce(new Reducer.Builder(ReduceOp.Sum).keyColumns("col0").build())
+                .build();
+
+        List<List<Writable>> inputData = new ArrayList<>();
+        inputData.add(Arrays.<Writable>asList(new IntWritable(0), new DoubleWritable(1.0)));
+        inputData.add(Arrays.<Writable>asList(new IntWritable(0), new DoubleWritable(3.0)));
+        inputData.add(Arrays.<Writable>asList(new IntWritable(0), new DoubleWritable(4.0)));
+        inputData.add(Arrays.<Writable>asList(new IntWritable(1), new DoubleWritable(5.0)));
+
+        List<List<Writable>> out = new ArrayList<>(LocalTransformExecutor.executeColumnar(inputData, tp, 2));
+        Collections.sort(out, new Comparator<List<Writable>>() {
+            @Override
+            public int compare(List<Writable> o1, List<Writable> o2) {
+                return Integer.compare(o1.get(0).toInt(), o2.get(0).toInt());
+            }
+        });
+
+        List<List<Writable>> expected = new ArrayList<>();
+        expected.add(Arrays.<Writable>asList(new IntWritable(0), new DoubleWritable(7.0)));
+        expected.add(Arrays.<Writable>asList(new IntWritable(1), new DoubleWritable(5.0)));
+
+        assertEquals(expected, out);
+    }
 }
@@ -0,0 +1,178 @@
+package org.datavec.local.transforms.transform;
+
+import org.datavec.api.conf.Configuration;
+import org.datavec.api.records.reader.impl.collection.CollectionRecordReader;
+import org.datavec.api.records.writer.RecordWriter;
+import org.datavec.api.split.InputSplit;
+import org.datavec.api.split.partition.PartitionMetaData;
+import org.datavec.api.split.partition.Partitioner;
+import org.datavec.api.transform.MathOp;
+import org.datavec.api.transform.ReduceOp;
+import org.datavec.api.transform.TransformProcess;
+import org.datavec.api.transform.condition.ConditionOp;
+import org.datavec.api.transform.condition.column.DoubleColumnCondition;
+import org.datavec.api.transform.join.Join;
+import org.datavec.api.transform.reduce.Reducer;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.*;
+import org.datavec.local.transforms.LocalTransformExecutor;
+import org.datavec.local.transforms.StreamingTransformExecutor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestStreamingExecution {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testStreamingTransformAndReduce() throws Exception {
+        Schema schema = new Schema.Builder().addColumnInteger("key").addColumnDouble("value")
+                .addColumnString("text").build();
+
+        TransformProcess tp = new TransformProcess.Builder(schema)
+                .filter(new DoubleColumnCondition("value", ConditionOp.LessThan, 10.0))
+                .doubleMathOp("value", MathOp.Multiply, 2.0)
+                .reduce(new Reducer.Builder(ReduceOp.Sum).keyColumns("key").takeFirstColumns("text").build())
+                .doubleMathOp("sum(value)", MathOp.Add, 1.0)
+                .build();
+
+        Random r = new Random(12345);
+        List<List<Writable>> input = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            input.add(Arrays.<Writable>asList(new IntWritable(r.nextInt(37)), new DoubleWritable(r.nextInt(100)),
+                    new Text("text" + i)));
+        }
+
+        List<List<Writable>> expected = new ArrayList<>(LocalTransformExecutor.execute(input, tp));
+
+        File tempDir = testDir.newFolder();
+        StreamingTransformExecutor executor = new StreamingTransformExecutor.Builder().numThreads(4).batchSize(7)
+                .maxRecordsInMemory(50).tempDirectory(tempDir).build();
+        CollectionRecordWriter writer = new CollectionRecordWriter();
+        long count = executor.execute(new CollectionRecordReader(input), writer, tp);
+
+        assertEquals(expected.size(), count);
+        assertEquals(toSortedStrings(expected), toSortedStrings(writer.records));
+        //Sorted runs are deleted once execution completes
+        assertEquals(0, tempDir.listFiles().length);
+    }
+
+    @Test
+    public void testStreamingPreservesOrder() throws Exception {
+        Schema schema = new Schema.Builder().addColumnInteger("idx").addColumnDouble("value").build();
+
+        TransformProcess tp = new TransformProcess.Builder(schema)
+                .doubleMathOp("value", MathOp.Add, 0.5)
+                .filter(new DoubleColumnCondition("value", ConditionOp.GreaterThan, 400.0))
+                .build();
+
+        List<List<Writable>> input = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            input.add(Arrays.<Writable>asList(new IntWritable(i), new DoubleWritable(i)));
+        }
+
+        StreamingTransformExecutor executor = new StreamingTransformExecutor.Builder().numThreads(4).batchSize(3)
+                .maxBatchesInFlight(5).build();
+        CollectionRecordWriter writer = new CollectionRecordWriter();
+        long count = executor.execute(input.iterator(), writer, tp);
+
+        assertEquals(400, count);
+        for (int i = 0; i < 400; i++) {
+            assertEquals(Arrays.<Writable>asList(new IntWritable(i), new DoubleWritable(i + 0.5)),
+                    writer.records.get(i));
+        }
+    }
+
+    @Test
+    public void testStreamingJoin() throws Exception {
+        Schema customerInfoSchema =
+                new Schema.Builder().addColumnLong("customerID").addColumnString("customerName").build();
+
+        Schema purchasesSchema = new Schema.Builder().addColumnLong("purchaseID").addColumnLong("customerID")
+                .addColumnDouble("amount").build();
+
+        List<List<Writable>> infoList = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            infoList.add(Arrays.<Writable>asList(new LongWritable(i), new Text("Customer" + i)));
+        }
+
+        Random r = new Random(12345);
+        List<List<Writable>> purchaseList = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            purchaseList.add(Arrays.<Writable>asList(new LongWritable(1000000 + i), new LongWritable(r.nextInt(80)),
+                    new DoubleWritable(r.nextInt(1000) / 10.0)));
+        }
+
+        for (Join.JoinType joinType : Join.JoinType.values()) {
+            Join join = new Join.Builder(joinType).setJoinColumns("customerID")
+                    .setSchemas(customerInfoSchema, purchasesSchema).build();
+
+            List<List<Writable>> expected = LocalTransformExecutor.executeJoin(join, infoList, purchaseList);
+
+            StreamingTransformExecutor executor = new StreamingTransformExecutor.Builder().maxRecordsInMemory(32)
+                    .tempDirectory(testDir.newFolder()).build();
+            CollectionRecordWriter writer = new CollectionRecordWriter();
+            long count = executor.executeJoin(join, infoList.iterator(), purchaseList.iterator(), writer);
+
+            assertEquals(joinType.toString(), expected.size(), count);
+            assertEquals(joinType.toString(), toSortedStrings(expected), toSortedStrings(writer.records));
+        }
+    }
+
+    private static List<String> toSortedStrings(List<List<Writable>> records) {
+        List<String> ret = new ArrayList<>(records.size());
+        for (List<Writable> record : records) {
+            ret.add(record.toString());
+        }
+        Collections.sort(ret);
+        return ret;
+    }
+
+    private static class CollectionRecordWriter implements RecordWriter {
+        private final List<List<Writable>> records = new ArrayList<>();
+        private Configuration conf;
+
+        @Override
+        public boolean supportsBatch() {
+            return true;
+        }
+
+        @Override
+        public void initialize(InputSplit inputSplit, Partitioner partitioner) {}
+
+        @Override
+        public void initialize(Configuration configuration, InputSplit split, Partitioner partitioner) {}
+
+        @Override
+        public PartitionMetaData write(List<Writable> record) {
+            records.add(record);
+            return PartitionMetaData.builder().numRecordsUpdated(1).build();
+        }
+
+        @Override
+        public PartitionMetaData writeBatch(List<List<Writable>> batch) {
+            records.addAll(batch);
+            return PartitionMetaData.builder().numRecordsUpdated(batch.size()).build();
+        }
+
+        @Override
+        public void close() {}
+
+        @Override
+        public void setConf(Configuration conf) {
+            this.conf = conf;
+        }
+
+        @Override
+        public Configuration getConf() {
+            return conf;
+        }
+    }
+}
@@ -1349,4 +1349,62 @@ public class RecordReaderDataSetiteratorTest extends BaseDL4JTest {
         assertArrayEquals(new long[]{2, 3, 28, 28}, ds.getFeatures().shape());
         assertArrayEquals(new long[]{2, 2}, ds.getLabels().shape());
     }
+
+    @Test
+    public void testParallelReaders() throws Exception {
+        File dir = temporaryFolder.newFolder();
+        int numFiles = 10;
+        int linesPerFile = 7;
+        List<String> expected = new ArrayList<>();
+        for (int f = 0; f < numFiles; f++) {
+            StringBuilder sb = new StringBuilder();
+            for (int l = 0; l < linesPerFile; l++) {
+                int v = f * linesPerFile + l;
+                sb.append(v).append(",").append(v + 0.5).append(",").append(v % 3).append("\n");
+                expected.add(String.valueOf(v));
+            }
+            Files.write(sb.toString().getBytes("UTF-8"), new File(dir, "data_" + f + ".csv"));
+        }
+
+        for (ParallelRecordReaderDataSetIterator.Ordering ordering : ParallelRecordReaderDataSetIterator.Ordering
+                        .values()) {
+            ParallelRecordReaderDataSetIterator iter =
+                            new ParallelRecordReaderDataSetIterator.Builder(new FileSplit(dir), 4)
+                                            .readers(new CSVRecordReader(), new CSVRecordReader(),
+                                                            new CSVRecordReader())
+                                            .classification(2, 3).ordering(ordering).build();
+
+            List<List<String>> epochs = new ArrayList<>();
+            for (int epoch = 0; epoch < 2; epoch++) {
+                List<String> seen = new ArrayList<>();
+                while (iter.hasNext()) {
+                    DataSet ds = iter.next();
+                    assertEquals(2, ds.getFeatures().columns());
+                    assertEquals(3, ds.getLabels().columns());
+                    assertTrue(ds.numExamples() <= 4);
+
+                    for (int i = 0; i < ds.numExamples(); i++) {
+                        int v = ds.getFeatures().getInt(i, 0);
+                        assertEquals(v + 0.5, ds.getFeatures().getDouble(i, 1), 1e-5);
+                        assertEquals(1.0, ds.getLabels().getDouble(i, v % 3), 1e-5);
+                        seen.add(String.valueOf(v));
+                    }
+                }
+
+                List<String> sorted = new ArrayList<>(seen);
+                Collections.sort(sorted);
+                List<String> exp = new ArrayList<>(expected);
+                Collections.sort(exp);
+                assertEquals(exp, sorted);
+
+                epochs.add(seen);
+                iter.reset();
+            }
+
+            if (ordering == ParallelRecordReaderDataSetIterator.Ordering.DETERMINISTIC)
+                assertEquals(epochs.get(0), epochs.get(1));
+
+            iter.shutdown();
+        }
+    }
 }
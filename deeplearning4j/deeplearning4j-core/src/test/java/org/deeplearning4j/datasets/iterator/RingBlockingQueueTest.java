@@ -0,0 +1,153 @@
+package org.deeplearning4j.datasets.iterator;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class RingBlockingQueueTest {
+
+    @Test
+    public void testCapacity() throws Exception {
+        RingBlockingQueue<Integer> queue = new RingBlockingQueue<>(3);
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertTrue(queue.offer(3));
+        assertFalse(queue.offer(4));
+        assertFalse(queue.offer(4, 10, TimeUnit.MILLISECONDS));
+
+        assertEquals(3, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+        assertEquals(1, queue.peek().intValue());
+
+        assertEquals(1, queue.poll().intValue());
+        assertTrue(queue.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, queue.drainTo(drained));
+        assertEquals(3, drained.size());
+        assertEquals(4, drained.get(2).intValue());
+
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 30000L)
+    public void testProducerConsumer() throws Exception {
+        final int numElements = 200000;
+        final RingBlockingQueue<Integer> queue = new RingBlockingQueue<>(8);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < numElements; i++)
+                        queue.put(i);
+                } catch (Throwable t) {
+                    error.set(t);
+                }
+            }
+        });
+        producer.start();
+
+        for (int i = 0; i < numElements; i++)
+            assertEquals(i, queue.take().intValue());
+
+        producer.join();
+        assertNull(error.get());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = 30000L)
+    public void testIdleConsumerIsParked() throws Exception {
+        final RingBlockingQueue<Integer> queue = new RingBlockingQueue<>(4);
+        final AtomicReference<Integer> taken = new AtomicReference<>();
+
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    taken.set(queue.take());
+                } catch (InterruptedException e) {
+                    // nothing to do
+                }
+            }
+        });
+        consumer.start();
+
+        // waiting consumer should be parked until signalled, not polling with timeouts
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (consumer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(Thread.State.WAITING, consumer.getState());
+
+        assertTrue(queue.offer(17));
+        consumer.join();
+        assertEquals(17, taken.get().intValue());
+    }
+
+    @Test(timeout = 60000L)
+    public void testWakeUps() throws Exception {
+        // both sides are parked frequently, so lost wake ups would hang this test
+        final int numElements = 2000;
+        final RingBlockingQueue<Integer> queue = new RingBlockingQueue<>(2);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < numElements; i++) {
+                        queue.put(i);
+                        if (i % 100 < 50)
+                            Thread.sleep(0, 100000);
+                    }
+                } catch (Throwable t) {
+                    error.set(t);
+                }
+            }
+        });
+        producer.start();
+
+        for (int i = 0; i < numElements; i++) {
+            if (i % 100 >= 50)
+                Thread.sleep(0, 100000);
+            assertEquals(i, queue.take().intValue());
+        }
+
+        producer.join();
+        assertNull(error.get());
+    }
+
+    @Test(timeout = 30000L)
+    public void testInterruptedPut() throws Exception {
+        final RingBlockingQueue<Integer> queue = new RingBlockingQueue<>(1);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        queue.put(1);
+
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    queue.put(2);
+                } catch (Throwable t) {
+                    error.set(t);
+                }
+            }
+        });
+        producer.start();
+        Thread.sleep(100);
+        producer.interrupt();
+        producer.join();
+
+        assertTrue(error.get() instanceof InterruptedException);
+        assertEquals(1, queue.size());
+    }
+}
@@ -1034,4 +1034,131 @@ public class ROCTest extends BaseDL4JTest {
         }
     }
 
+    @Test
+    public void testScoreSketch() {
+        int nArrays = 20;
+        int minibatch = 100;
+        int nROCs = 3;
+        int nBins = 1000;
+
+        Nd4j.getRandom().setSeed(12345);
+        Random r = new Random(12345);
+
+        ROC exact = new ROC(0);
+        ROC single = ROC.withScoreSketch(nBins);
+        List<ROC> rocList = new ArrayList<>();
+        for (int i = 0; i < nROCs; i++) {
+            rocList.add(ROC.withScoreSketch(nBins));
+        }
+
+        for (int i = 0; i < nArrays; i++) {
+            //Skewed predictions, all in the range 0 to 0.1
+            INDArray p = Nd4j.rand(minibatch, 1).muli(0.1);
+            INDArray l = Nd4j.zeros(minibatch, 1);
+            for (int j = 0; j < minibatch; j++) {
+                if (r.nextDouble() < 5 * p.getDouble(j)) {
+                    l.putScalar(j, 1.0);
+                }
+            }
+
+            exact.eval(l, p);
+            single.eval(l, p);
+            rocList.get(i % nROCs).eval(l, p);
+        }
+
+        assertEquals(exact.getCountActualPositive(), single.getCountActualPositive());
+        assertEquals(exact.getCountActualNegative(), single.getCountActualNegative());
+
+        double bound = single.calculateAUCErrorBound();
+        assertTrue(bound > 0.0 && bound < 0.01);
+        assertEquals(0.0, exact.calculateAUCErrorBound(), 0.0);
+        assertEquals(exact.calculateAUC(), single.calculateAUC(), bound + 1e-9);
+        assertEquals(exact.calculateAUCPR(), single.calculateAUCPR(), 0.01);
+
+        ROC first = rocList.get(0);
+        for (int i = 1; i < nROCs; i++) {
+            first.merge(rocList.get(i));
+        }
+        assertEquals(single, first);
+        assertEquals(single.calculateAUC(), first.calculateAUC(), 1e-12);
+        assertEquals(single.getRocCurve(), first.getRocCurve());
+        assertEquals(single.getPrecisionRecallCurve(), first.getPrecisionRecallCurve());
+
+        //Sketch is stored in JSON, so deserialized instances can still be merged
+        ROC fromJson = ROC.fromJson(rocList.get(1).toJson(), ROC.class);
+        assertEquals(rocList.get(1), fromJson);
+        fromJson.merge(rocList.get(2));
+
+        try {
+            single.merge(ROC.withScoreSketch(nBins / 2));
+            fail("Expected exception");
+        } catch (UnsupportedOperationException e) {
+            //OK
+        }
+
+        single.reset();
+        assertEquals(0, single.getCountActualPositive());
+        assertTrue(Double.isNaN(single.calculateAUC()));
+    }
+
+    @Test
+    public void testScoreSketchCountOverflow() {
+        Nd4j.getRandom().setSeed(12345);
+        ROC roc = ROC.withScoreSketch(100, false);
+        INDArray p = Nd4j.rand(100, 1);
+        INDArray l = Nd4j.getExecutioner().exec(new BernoulliDistribution(Nd4j.createUninitialized(100, 1), 0.5));
+        roc.eval(l, p);
+
+        double auc = roc.calculateAUC();
+        double auprc = roc.calculateAUCPR();
+
+        //Self merge doubles the counts: 100 * 2^25 examples > Integer.MAX_VALUE
+        for (int i = 0; i < 25; i++) {
+            roc.merge(roc);
+        }
+        assertTrue(roc.getCountActualPositive() + roc.getCountActualNegative() > Integer.MAX_VALUE);
+        assertEquals(auc, roc.calculateAUC(), 1e-9);
+        assertEquals(auprc, roc.calculateAUCPR(), 1e-9);
+
+        PrecisionRecallCurve prc = roc.getPrecisionRecallCurve();
+        assertEquals(Integer.MAX_VALUE, prc.getTotalCount());
+        for (int i = 0; i < prc.numPoints(); i++) {
+            PrecisionRecallCurve.Confusion c = prc.getConfusionMatrixAtPoint(i);
+            assertTrue(c.getTpCount() >= 0);
+            assertTrue(c.getFpCount() >= 0);
+            assertTrue(c.getFnCount() >= 0);
+            assertTrue(c.getTnCount() >= 0);
+        }
+    }
+
+    @Test
+    public void testScoreSketchMultiClass() {
+        int nBins = 1000;
+        int nClasses = 3;
+        Nd4j.getRandom().setSeed(12345);
+
+        ROCMultiClass exact = new ROCMultiClass(0);
+        ROCMultiClass sketch = ROCMultiClass.withScoreSketch(nBins);
+        ROCBinary exactBinary = new ROCBinary(0);
+        ROCBinary sketchBinary = ROCBinary.withScoreSketch(nBins);
+        for (int i = 0; i < 10; i++) {
+            INDArray p = Nd4j.rand(50, nClasses);
+            p.diviColumnVector(p.sum(1));
+            INDArray l = Nd4j.zeros(50, nClasses);
+            for (int j = 0; j < 50; j++) {
+                l.putScalar(j, Nd4j.getRandom().nextInt(nClasses), 1.0);
+            }
+            exact.eval(l, p);
+            sketch.eval(l, p);
+            exactBinary.eval(l, p);
+            sketchBinary.eval(l, p);
+        }
+
+        for (int i = 0; i < nClasses; i++) {
+            assertTrue(sketch.getUnderlying()[i].isScoreSketch());
+            assertEquals(exact.calculateAUC(i), sketch.calculateAUC(i), sketch.calculateAUCErrorBound(i) + 1e-9);
+            assertEquals(exactBinary.calculateAUC(i), sketchBinary.calculateAUC(i),
+                            sketchBinary.calculateAUCErrorBound(i) + 1e-9);
+        }
+    }
 }
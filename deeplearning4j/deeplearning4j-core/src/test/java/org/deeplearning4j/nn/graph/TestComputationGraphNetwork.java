@@ -1648,4 +1648,70 @@ public class TestComputationGraphNetwork extends BaseDL4JTest {
         net.fit(new SingletonMultiDataSetIterator(mds));
         assertEquals(exp, listener.getModelClasses());
     }
+
+    @Test
+    public void testConcurrentVertexExecution(){
+        Nd4j.getRandom().setSeed(12345);
+        for(WorkspaceMode wsm : WorkspaceMode.values()) {
+            log.info("Workspace mode: {}", wsm);
+            //Multi-tower network: 4 independent branches, merged, plus a second output from one of the branches
+            ComputationGraphConfiguration.GraphBuilder b = new NeuralNetConfiguration.Builder()
+                    .seed(12345)
+                    .inferenceWorkspaceMode(wsm)
+                    .trainingWorkspaceMode(wsm)
+                    .activation(Activation.TANH)
+                    .graphBuilder()
+                    .addInputs("in1", "in2");
+            String[] towers = new String[4];
+            for (int i = 0; i < towers.length; i++) {
+                towers[i] = "t" + i + "_1";
+                b.addLayer("t" + i + "_0", new DenseLayer.Builder().nIn(5).nOut(8).build(), i % 2 == 0 ? "in1" : "in2")
+                        .addLayer(towers[i], new DenseLayer.Builder().nIn(8).nOut(8).build(), "t" + i + "_0");
+            }
+            ComputationGraphConfiguration conf = b
+                    .addVertex("merge", new MergeVertex(), towers)
+                    .addVertex("elementwise", new ElementWiseVertex(ElementWiseVertex.Op.Add), "t0_1", "t1_1")
+                    .addLayer("out1", new OutputLayer.Builder().nIn(32).nOut(3).activation(Activation.SOFTMAX).build(), "merge")
+                    .addLayer("out2", new OutputLayer.Builder().nIn(8).nOut(2).lossFunction(LossFunctions.LossFunction.MSE)
+                            .activation(Activation.IDENTITY).build(), "elementwise")
+                    .setOutputs("out1", "out2")
+                    .build();
+
+            ComputationGraph net = new ComputationGraph(conf);
+            net.init();
+            assertEquals(0, net.getVertexExecutionThreads());
+
+            INDArray in1 = Nd4j.rand(10, 5);
+            INDArray in2 = Nd4j.rand(10, 5);
+            INDArray[] exp = net.output(in1, in2);
+            assertNull(net.getVertexExecutionTimes());
+
+            net.setVertexExecutionThreads(4);
+            for (int i = 0; i < 3; i++) {
+                INDArray[] out = net.output(in1, in2);
+                assertArrayEquals(exp, out);
+            }
+
+            Map<String, Long> times = net.getVertexExecutionTimes();
+            assertNotNull(times);
+            //All vertices except the inputs
+            assertEquals(net.getVertices().length - 2, times.size());
+            for (Long t : times.values()) {
+                assertTrue(t > 0);
+            }
+
+            //Inputs not cleared (external errors use case)
+            assertArrayEquals(exp, net.output(false, false, in1, in2));
+
+            //Fit should still work, and be unaffected
+            net.fit(new org.nd4j.linalg.dataset.MultiDataSet(new INDArray[]{in1, in2},
+                    new INDArray[]{Nd4j.rand(10, 3), Nd4j.rand(10, 2)}));
+
+            net.setVertexExecutionThreads(0);
+            INDArray[] afterFitSeq = net.output(in1, in2);
+            net.setVertexExecutionThreads(2);
+            INDArray[] afterFitConc = net.output(in1, in2);
+            assertArrayEquals(afterFitSeq, afterFitConc);
+        }
+    }
 }
@@ -21,6 +21,7 @@ import org.deeplearning4j.nn.params.DefaultParamInitializer;
 import org.deeplearning4j.nn.params.PretrainParamInitializer;
 import org.deeplearning4j.nn.updater.graph.ComputationGraphUpdater;
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -971,4 +972,77 @@ public class TestUpdaters extends BaseDL4JTest {
         }
         assertEquals(expParams, actParams);
     }
+
+    @Test
+    public void testFusedUpdater() {
+        IUpdater[] updaters = {new Sgd(0.1), new Nesterovs(0.1, 0.9), new Adam(0.01), new RmsProp(0.01)};
+        INDArray f = Nd4j.rand(5, 4);
+        INDArray l = Nd4j.rand(5, 3);
+
+        for (IUpdater updater : updaters) {
+            MultiLayerNetwork[] nets = new MultiLayerNetwork[2];
+            for (int i = 0; i < 2; i++) {
+                MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).updater(updater)
+                                .l1(1e-4).l2(1e-3).activation(Activation.TANH).list()
+                                .layer(new DenseLayer.Builder().nIn(4).nOut(5).build())
+                                .layer(new DenseLayer.Builder().nIn(5).nOut(5).l2(0.0).build())
+                                .layer(new DenseLayer.Builder().nIn(5).nOut(5).build())
+                                .layer(new OutputLayer.Builder().nIn(5).nOut(3).activation(Activation.IDENTITY)
+                                                .lossFunction(LossFunctions.LossFunction.MSE).build())
+                                .build();
+                nets[i] = new MultiLayerNetwork(conf);
+                nets[i].init();
+            }
+
+            BaseMultiLayerUpdater fused = (BaseMultiLayerUpdater) nets[1].getUpdater();
+            fused.setFusedUpdateMaxLength(Integer.MAX_VALUE);
+            assertEquals(Integer.MAX_VALUE, fused.getFusedUpdateMaxLength());
+
+            for (int i = 0; i < 10; i++) {
+                nets[0].fit(f, l);
+                nets[1].fit(f, l);
+            }
+
+            String msg = updater.getClass().getSimpleName();
+            assertEquals(msg, nets[0].params(), nets[1].params());
+            assertEquals(msg, nets[0].getUpdater().getStateViewArray(), nets[1].getUpdater().getStateViewArray());
+        }
+    }
+
+    @Test
+    @Ignore
+    public void testFusedUpdaterPerformance() {
+        //Many small updater blocks (alternating learning rates): op dispatch overhead dominates the updater step
+        NeuralNetConfiguration.ListBuilder builder = new NeuralNetConfiguration.Builder().l2(1e-4).list();
+        for (int i = 0; i < 50; i++) {
+            builder.layer(new DenseLayer.Builder().nIn(8).nOut(8).updater(new Adam(i % 2 == 0 ? 1e-3 : 2e-3)).build());
+        }
+        builder.layer(new OutputLayer.Builder().nIn(8).nOut(8).updater(new Adam(1e-3)).build());
+
+        for (int maxLength : new int[] {0, Integer.MAX_VALUE}) {
+            MultiLayerNetwork net = new MultiLayerNetwork(builder.build());
+            net.init();
+            BaseMultiLayerUpdater u = (BaseMultiLayerUpdater) net.getUpdater();
+            u.setFusedUpdateMaxLength(maxLength);
+
+            Gradient g = new DefaultGradient(net.getFlattenedGradients());
+            for (Map.Entry<String, INDArray> e : net.paramTable().entrySet()) {
+                g.setGradientFor(e.getKey(), e.getValue());
+            }
+
+            int iterations = 2000;
+            for (int i = 0; i < 100; i++) {
+                u.update(g, i, 0, 1, LayerWorkspaceMgr.noWorkspaces());
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                net.getFlattenedGradients().assign(1e-3);
+                u.update(g, i, 0, 1, LayerWorkspaceMgr.noWorkspaces());
+            }
+            long avg = (System.nanoTime() - start) / iterations / 1000;
+            System.out.println((maxLength == 0 ? "Op chain" : "Fused") + ": " + avg + " us per update, "
+                            + u.getUpdaterBlocks().size() + " updater blocks, " + net.numParams() + " parameters");
+        }
+    }
 }
@@ -20,6 +20,7 @@ package org.deeplearning4j.plot;
 
 import org.apache.commons.io.IOUtils;
 import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
 import org.junit.Before;
 import org.junit.Test;
 import org.nd4j.linalg.api.buffer.DataBuffer;
@@ -33,6 +34,7 @@ import java.io.File;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 // import org.nd4j.jita.conf.CudaEnvironment;
 
@@ -68,6 +70,38 @@ public class BarnesHutTsneTest extends BaseDL4JTest {
         b.fit(data);
     }
 
+    @Test
+    public void testPerplexityRecomputedBeforeGradient() {
+        DataTypeUtil.setDTypeForContext(DataBuffer.Type.DOUBLE);
+        Nd4j.getRandom().setSeed(123);
+        //with perplexity 5, 15 neighbours are used: all other points, so P doesn't depend on the nearest neighbours search
+        INDArray x1 = Nd4j.rand(16, 10);
+        INDArray x2 = Nd4j.rand(16, 10).muli(3);
+        INDArray y = Nd4j.randn(16, 2);
+
+        //gradients are compared after the calls, so these must not be allocated in workspaces
+        BarnesHutTsne b = new BarnesHutTsne.Builder().theta(0.5).build();
+        b.workspaceMode = WorkspaceMode.NONE;
+        b.setData(y.dup());
+        b.computeGaussianPerplexity(x1, 5);
+        b.gradient();
+        double score1 = b.score();
+
+        //P matrix changed: gradient and score must not use the previous one
+        b.computeGaussianPerplexity(x2, 5);
+        INDArray grad2 = b.gradient().getGradientFor(BarnesHutTsne.Y_GRAD);
+        double score2 = b.score();
+
+        BarnesHutTsne expected = new BarnesHutTsne.Builder().theta(0.5).build();
+        expected.workspaceMode = WorkspaceMode.NONE;
+        expected.setData(y.dup());
+        expected.computeGaussianPerplexity(x2, 5);
+        INDArray expectedGrad = expected.gradient().getGradientFor(BarnesHutTsne.Y_GRAD);
+        assertEquals(0.0, expectedGrad.sub(grad2).norm1Number().doubleValue(), 1e-8);
+        assertEquals(expected.score(), score2, 1e-8);
+        assertNotEquals(score1, score2, 1e-3);
+    }
+
     @Test
     public void testBuilderFields() throws Exception {
         final double theta = 0;
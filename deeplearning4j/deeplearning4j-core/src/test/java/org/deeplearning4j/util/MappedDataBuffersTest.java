@@ -0,0 +1,83 @@
+package org.deeplearning4j.util;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import static org.junit.Assert.*;
+
+public class MappedDataBuffersTest extends BaseDL4JTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    @Test
+    public void testSegmentedWriteAndRead() throws Exception {
+        INDArray arr = Nd4j.rand(37, 11);
+        File f = tempDir.newFile();
+        DataBuffer.Type dataType = arr.data().dataType();
+
+        try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+            FileChannel channel = raf.getChannel();
+            channel.position(100);
+            // segments of 64 bytes: many segments, the last one partial
+            MappedDataBuffers.write(channel, arr, arr.length(), 64);
+            assertEquals(100 + arr.length() * arr.data().getElementSize(), raf.length());
+
+            long[] shape = arr.shape();
+            INDArray copied = MappedDataBuffers.read(channel, 100, shape, dataType, ByteOrder.nativeOrder(), false, 64);
+            assertEquals(arr, copied);
+
+            INDArray mapped = MappedDataBuffers.read(channel, 100, shape, dataType, ByteOrder.nativeOrder(), true);
+            assertEquals(arr, mapped);
+
+            // views are written in c order
+            INDArray view = arr.get(NDArrayIndex.interval(5, 10), NDArrayIndex.all());
+            channel.position(0);
+            MappedDataBuffers.write(channel, view, view.length(), 64);
+            assertEquals(view, MappedDataBuffers.read(channel, 0, view.shape(), dataType, ByteOrder.nativeOrder(),
+                            false, 64));
+        }
+    }
+
+    @Test
+    public void testReadConvertsTypeAndByteOrder() throws Exception {
+        double[] values = new double[1000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i * 0.5 - 17;
+        ByteOrder other = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? ByteOrder.BIG_ENDIAN
+                        : ByteOrder.LITTLE_ENDIAN;
+
+        File f = tempDir.newFile();
+        try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+            FileChannel channel = raf.getChannel();
+
+            ByteBuffer doubles = ByteBuffer.allocate(values.length * 8).order(other);
+            doubles.asDoubleBuffer().put(values);
+            channel.write(doubles, 0);
+
+            ByteBuffer floats = ByteBuffer.allocate(values.length * 4).order(other);
+            for (double v : values)
+                floats.putFloat((float) v);
+            floats.flip();
+            channel.write(floats, values.length * 8);
+
+            INDArray exp = Nd4j.create(values, new long[] {10, 100});
+            long[] shape = {10, 100};
+            assertEquals(exp, MappedDataBuffers.read(channel, 0, shape, DataBuffer.Type.DOUBLE, other, true, 96));
+            assertEquals(exp, MappedDataBuffers.read(channel, values.length * 8, shape, DataBuffer.Type.FLOAT, other,
+                            true, 96));
+        }
+    }
+}
@@ -429,4 +429,93 @@ public class ModelSerializerTest extends BaseDL4JTest {
         ComputationGraph restoredNet = ModelSerializer.restoreComputationGraph(tempFile);
         assertEquals(net.params(), restoredNet.params());
     }
+
+    @Test
+    public void testWriteMappedMLNModel() throws Exception {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .updater(new Sgd(0.1)).activation(Activation.TANH).weightInit(WeightInit.XAVIER).list()
+                        .layer(0, new DenseLayer.Builder().nIn(4).nOut(20).build())
+                        .layer(1, new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(20).nOut(3).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        File tempFile = tempDir.newFile();
+        ModelSerializer.writeModelMapped(net, tempFile);
+
+        MultiLayerNetwork network = ModelSerializer.restoreMultiLayerNetworkMapped(tempFile);
+
+        assertEquals(net.getLayerWiseConfigurations().toJson(), network.getLayerWiseConfigurations().toJson());
+        assertEquals(net.params(), network.params());
+
+        DataSet ds = new IrisDataSetIterator(150, 150).next();
+        assertEquals(net.output(ds.getFeatures()), network.output(ds.getFeatures()));
+
+        // mapping is copy-on-write: training restored network must not change the file
+        INDArray before = net.params().dup();
+        network.fit(ds);
+        assertNotEquals(before, network.params());
+        assertEquals(before, ModelSerializer.restoreMultiLayerNetworkMapped(tempFile).params());
+
+        try {
+            ModelSerializer.restoreComputationGraphMapped(tempFile);
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("restoreMultiLayerNetworkMapped"));
+        }
+    }
+
+    @Test
+    public void testWriteMappedReadOnly() throws Exception {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).list()
+                        .layer(0, new DenseLayer.Builder().nIn(4).nOut(20).build())
+                        .layer(1, new OutputLayer.Builder().nIn(20).nOut(3).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        File tempFile = tempDir.newFile();
+        ModelSerializer.writeModelMapped(net, tempFile);
+        assertTrue(tempFile.setWritable(false));
+        try {
+            // read-only file can't be mapped copy-on-write, so parameters are copied
+            MultiLayerNetwork network = ModelSerializer.restoreMultiLayerNetworkMapped(tempFile);
+            assertEquals(net.params(), network.params());
+
+            DataSet ds = new IrisDataSetIterator(150, 150).next();
+            network.fit(ds);
+            assertEquals(net.params(), ModelSerializer.restoreMultiLayerNetworkMapped(tempFile).params());
+        } finally {
+            tempFile.setWritable(true);
+        }
+    }
+
+    @Test
+    public void testWriteMappedCGModel() throws Exception {
+        ComputationGraphConfiguration config = new NeuralNetConfiguration.Builder()
+                        .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).updater(new Sgd(0.1))
+                        .graphBuilder().addInputs("in")
+                        .addLayer("dense", new DenseLayer.Builder().nIn(4).nOut(2).build(), "in").addLayer("out",
+                                        new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(2).nOut(3)
+                                                        .build(),
+                                        "dense")
+                        .setOutputs("out").pretrain(false).backprop(true).build();
+
+        ComputationGraph cg = new ComputationGraph(config);
+        cg.init();
+
+        File tempFile = tempDir.newFile();
+        ModelSerializer.writeModelMapped(cg, tempFile);
+
+        ComputationGraph network = ModelSerializer.restoreComputationGraphMapped(tempFile);
+
+        assertEquals(cg.getConfiguration().toJson(), network.getConfiguration().toJson());
+        assertEquals(cg.params(), network.params());
+
+        INDArray in = Nd4j.rand(5, 4);
+        assertEquals(cg.outputSingle(in), network.outputSingle(in));
+    }
 }
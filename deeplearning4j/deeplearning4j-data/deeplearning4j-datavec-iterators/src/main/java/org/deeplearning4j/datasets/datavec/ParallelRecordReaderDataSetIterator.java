@@ -0,0 +1,511 @@
+package org.deeplearning4j.datasets.datavec;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.datavec.api.io.WritableConverter;
+import org.datavec.api.io.converters.SelfWritableConverter;
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.split.CollectionInputSplit;
+import org.datavec.api.split.InputSplit;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Parallel version of {@link RecordReaderDataSetIterator}: locations of the InputSplit are sharded across multiple
+ * RecordReader instances, and each shard is read, parsed and converted to minibatches by its own thread.<br>
+ * <br>
+ * Two orderings are available:<br>
+ * DETERMINISTIC: minibatches are taken from shards in round-robin order, so output doesn't depend on thread timings<br>
+ * RELAXED: minibatches are returned as soon as any shard has them ready<br>
+ * <br>
+ * PLEASE NOTE: Minibatches never span shards, so each shard may produce one incomplete minibatch per epoch.<br>
+ * <br>
+ * Example: CSV files in a directory, 4 readers, batch size 32<br>
+ * <pre>
+ * {@code DataSetIterator iter = new ParallelRecordReaderDataSetIterator.Builder(new FileSplit(new File("/path/to/dir")), 32)
+ *       .readers(new CSVRecordReader(), new CSVRecordReader(), new CSVRecordReader(), new CSVRecordReader())
+ *       .classification(4, 3)
+ *       .build()
+ * }
+ * </pre>
+ */
+@Slf4j
+public class ParallelRecordReaderDataSetIterator implements DataSetIterator {
+
+    public enum Ordering {
+        DETERMINISTIC, RELAXED
+    }
+
+    protected final List<RecordReaderDataSetIterator> shards = new ArrayList<>();
+    protected final Ordering ordering;
+    protected final int prefetchSize;
+    protected final int batchSize;
+    protected final int maxNumBatches;
+    protected volatile DataSetPreProcessor preProcessor;
+
+    protected final DataSet terminator = new DataSet();
+    protected List<BlockingQueue<DataSet>> queues;
+    protected List<ShardThread> threads;
+    protected boolean[] finished;
+    protected int activeShards;
+    protected int cursor;
+    protected int batchNum;
+    protected DataSet nextElement;
+    protected volatile RuntimeException throwable;
+
+    protected ParallelRecordReaderDataSetIterator(Builder b) {
+        this.ordering = b.ordering;
+        this.prefetchSize = b.prefetchSize;
+        this.batchSize = b.batchSize;
+        this.maxNumBatches = b.maxNumBatches;
+        this.preProcessor = b.preProcessor;
+
+        URI[] locations = b.split.locations();
+        int numReaders = b.readers.size();
+        for (int r = 0; r < numReaders; r++) {
+            List<URI> shard = new ArrayList<>();
+            for (int i = r; i < locations.length; i += numReaders)
+                shard.add(locations[i]);
+
+            // more readers than locations: extra readers just aren't used
+            if (shard.isEmpty())
+                continue;
+
+            RecordReader reader = b.readers.get(r);
+            try {
+                reader.initialize(new CollectionInputSplit(shard));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+
+            RecordReaderDataSetIterator iterator = new RecordReaderDataSetIterator(reader, b.converter, b.batchSize,
+                            b.labelIndex, b.labelIndexTo, b.numPossibleLabels, -1, b.regression);
+            iterator.setCollectMetaData(b.collectMetaData);
+            shards.add(iterator);
+        }
+
+        if (shards.isEmpty())
+            throw new IllegalStateException("InputSplit has no locations");
+
+        log.debug("Locations: {}; Shards: {}", locations.length, shards.size());
+
+        start();
+    }
+
+    protected void start() {
+        int numShards = shards.size();
+        queues = new ArrayList<>(numShards);
+        threads = new ArrayList<>(numShards);
+        finished = new boolean[numShards];
+        activeShards = numShards;
+        cursor = 0;
+        batchNum = 0;
+        nextElement = null;
+        throwable = null;
+
+        BlockingQueue<DataSet> shared =
+                        ordering == Ordering.RELAXED ? new LinkedBlockingQueue<DataSet>(prefetchSize * numShards) : null;
+        int deviceId = Nd4j.getAffinityManager().getDeviceForCurrentThread();
+        for (int i = 0; i < numShards; i++) {
+            BlockingQueue<DataSet> queue = shared != null ? shared : new LinkedBlockingQueue<DataSet>(prefetchSize);
+            queues.add(queue);
+
+            ShardThread thread = new ShardThread(i, shards.get(i), queue);
+            Nd4j.getAffinityManager().attachThreadToDevice(thread, deviceId);
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    protected void stop() {
+        for (ShardThread thread : threads)
+            thread.interrupt();
+
+        try {
+            for (ShardThread thread : threads)
+                thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        for (BlockingQueue<DataSet> queue : queues)
+            queue.clear();
+    }
+
+    /**
+     * This method stops all reader threads
+     *
+     * PLEASE NOTE: After shutdown() call, this instance can't be used anymore
+     */
+    public void shutdown() {
+        stop();
+    }
+
+    protected DataSet fetch() throws InterruptedException {
+        if (ordering == Ordering.RELAXED) {
+            while (activeShards > 0) {
+                DataSet ds = queues.get(0).take();
+                checkThrowable();
+
+                if (ds == terminator) {
+                    activeShards--;
+                    continue;
+                }
+
+                return ds;
+            }
+        } else {
+            while (activeShards > 0) {
+                int shard = cursor;
+                cursor = (cursor + 1) % finished.length;
+                if (finished[shard])
+                    continue;
+
+                DataSet ds = queues.get(shard).take();
+                checkThrowable();
+
+                if (ds == terminator) {
+                    finished[shard] = true;
+                    activeShards--;
+                    continue;
+                }
+
+                return ds;
+            }
+        }
+
+        return null;
+    }
+
+    protected void checkThrowable() {
+        if (throwable != null)
+            throw throwable;
+    }
+
+    @Override
+    public boolean hasNext() {
+        checkThrowable();
+
+        if (nextElement != null)
+            return true;
+
+        if (maxNumBatches >= 0 && batchNum >= maxNumBatches)
+            return false;
+
+        try {
+            nextElement = fetch();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        return nextElement != null;
+    }
+
+    @Override
+    public DataSet next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        DataSet ds = nextElement;
+        nextElement = null;
+        batchNum++;
+
+        return ds;
+    }
+
+    @Override
+    public DataSet next(int num) {
+        throw new UnsupportedOperationException("Batch size is fixed for ParallelRecordReaderDataSetIterator");
+    }
+
+    @Override
+    public int totalExamples() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int inputColumns() {
+        if (!hasNext())
+            throw new IllegalStateException("No data available");
+
+        return nextElement.numInputs();
+    }
+
+    @Override
+    public int totalOutcomes() {
+        if (!hasNext())
+            throw new IllegalStateException("No data available");
+
+        return nextElement.numOutcomes();
+    }
+
+    @Override
+    public boolean resetSupported() {
+        for (RecordReaderDataSetIterator shard : shards)
+            if (!shard.resetSupported())
+                return false;
+
+        return true;
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        // we're doing prefetch on our own
+        return false;
+    }
+
+    @Override
+    public void reset() {
+        stop();
+
+        for (RecordReaderDataSetIterator shard : shards)
+            shard.reset();
+
+        start();
+    }
+
+    @Override
+    public int batch() {
+        return batchSize;
+    }
+
+    @Override
+    public int cursor() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int numExamples() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return shards.get(0).getLabels();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * This thread reads single shard, and converts its records to minibatches
+     */
+    protected class ShardThread extends Thread {
+        private final RecordReaderDataSetIterator iterator;
+        private final BlockingQueue<DataSet> queue;
+
+        protected ShardThread(int shard, @NonNull RecordReaderDataSetIterator iterator,
+                        @NonNull BlockingQueue<DataSet> queue) {
+            this.iterator = iterator;
+            this.queue = queue;
+
+            this.setDaemon(true);
+            this.setName("PRRDSI reader thread " + shard);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (iterator.hasNext() && !isInterrupted()) {
+                    DataSet ds = iterator.next();
+
+                    // preprocessing is done here as well, so it's parallel too
+                    DataSetPreProcessor pp = preProcessor;
+                    if (pp != null)
+                        pp.preProcess(ds);
+
+                    queue.put(ds);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                throwable = e;
+            } catch (Exception e) {
+                throwable = new RuntimeException(e);
+            }
+
+            // consumer should never be left waiting, even if something went wrong
+            try {
+                queue.put(terminator);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Builder class for ParallelRecordReaderDataSetIterator
+     */
+    public static class Builder {
+        protected InputSplit split;
+        protected List<RecordReader> readers = new ArrayList<>();
+        protected WritableConverter converter = new SelfWritableConverter();
+        protected int batchSize;
+        protected int maxNumBatches = -1;
+        protected int labelIndex = -1;
+        protected int labelIndexTo = -1;
+        protected int numPossibleLabels = -1;
+        protected boolean regression = false;
+        protected DataSetPreProcessor preProcessor;
+        protected boolean collectMetaData = false;
+        protected Ordering ordering = Ordering.DETERMINISTIC;
+        protected int prefetchSize = 2;
+
+        /**
+         * @param split     InputSplit, which locations will be sharded across readers
+         * @param batchSize Batch size to use
+         */
+        public Builder(@NonNull InputSplit split, int batchSize) {
+            this.split = split;
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Uninitialized RecordReader instances, one per shard. Each reader is used by its own thread.
+         *
+         * @param readers
+         */
+        public Builder readers(@NonNull RecordReader... readers) {
+            return readers(Arrays.asList(readers));
+        }
+
+        /**
+         * Uninitialized RecordReader instances, one per shard. Each reader is used by its own thread.
+         *
+         * @param readers
+         */
+        public Builder readers(@NonNull List<? extends RecordReader> readers) {
+            this.readers = new ArrayList<>(readers);
+            return this;
+        }
+
+        public Builder writableConverter(WritableConverter converter) {
+            this.converter = converter;
+            return this;
+        }
+
+        /**
+         * Optional argument. If set, limits the maximum number of minibatches that will be returned (between resets).
+         *
+         * @param maxNumBatches Maximum number of minibatches per epoch / reset
+         */
+        public Builder maxNumBatches(int maxNumBatches) {
+            this.maxNumBatches = maxNumBatches;
+            return this;
+        }
+
+        /**
+         * Use this for single output regression (i.e., 1 output/regression target)
+         *
+         * @param labelIndex Column index that contains the regression target (indexes start at 0)
+         */
+        public Builder regression(int labelIndex) {
+            return regression(labelIndex, labelIndex);
+        }
+
+        /**
+         * Use this for multiple output regression (1 or more output/regression targets). Note that all regression
+         * targets must be contiguous (i.e., positions x to y, without gaps)
+         *
+         * @param labelIndexFrom Column index of the first regression target (indexes start at 0)
+         * @param labelIndexTo   Column index of the last regression target (inclusive)
+         */
+        public Builder regression(int labelIndexFrom, int labelIndexTo) {
+            this.labelIndex = labelIndexFrom;
+            this.labelIndexTo = labelIndexTo;
+            this.regression = true;
+            return this;
+        }
+
+        /**
+         * Use this for classification
+         *
+         * @param labelIndex Index that contains the label index. Column (indexes start from 0) be an integer value,
+         *                   and contain values 0 to numClasses-1
+         * @param numClasses Number of label classes (i.e., number of categories/classes in the dataset)
+         */
+        public Builder classification(int labelIndex, int numClasses) {
+            this.labelIndex = labelIndex;
+            this.labelIndexTo = labelIndex;
+            this.numPossibleLabels = numClasses;
+            this.regression = false;
+            return this;
+        }
+
+        /**
+         * Optional arg. Allows the preprocessor to be set
+         *
+         * @param preProcessor Preprocessor to use
+         */
+        public Builder preProcessor(DataSetPreProcessor preProcessor) {
+            this.preProcessor = preProcessor;
+            return this;
+        }
+
+        /**
+         * When set to true: metadata for the current examples will be present in the returned DataSet.
+         * Disabled by default.
+         *
+         * @param collectMetaData Whether metadata should be collected or not
+         */
+        public Builder collectMetaData(boolean collectMetaData) {
+            this.collectMetaData = collectMetaData;
+            return this;
+        }
+
+        /**
+         * Order in which minibatches from different shards are returned. DETERMINISTIC by default.
+         *
+         * @param ordering
+         */
+        public Builder ordering(@NonNull Ordering ordering) {
+            this.ordering = ordering;
+            return this;
+        }
+
+        /**
+         * Number of minibatches each reader thread may prepare ahead. Default value: 2
+         *
+         * @param prefetchSize
+         */
+        public Builder prefetchSize(int prefetchSize) {
+            if (prefetchSize < 1)
+                throw new IllegalStateException("Prefetch size should be positive value");
+
+            this.prefetchSize = prefetchSize;
+            return this;
+        }
+
+        public ParallelRecordReaderDataSetIterator build() {
+            if (readers.isEmpty())
+                throw new IllegalStateException("At least one RecordReader should be provided");
+
+            return new ParallelRecordReaderDataSetIterator(this);
+        }
+    }
+}
@@ -17,7 +17,6 @@ import org.nd4j.linalg.factory.Nd4j;
 
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -56,21 +55,21 @@ public class AsyncDataSetIterator implements DataSetIterator {
     }
 
     public AsyncDataSetIterator(DataSetIterator baseIterator, int queueSize) {
-        this(baseIterator, queueSize, new LinkedBlockingQueue<DataSet>(queueSize));
+        this(baseIterator, queueSize, new RingBlockingQueue<DataSet>(queueSize));
     }
 
     public AsyncDataSetIterator(DataSetIterator baseIterator, int queueSize, boolean useWorkspace) {
-        this(baseIterator, queueSize, new LinkedBlockingQueue<DataSet>(queueSize), useWorkspace);
+        this(baseIterator, queueSize, new RingBlockingQueue<DataSet>(queueSize), useWorkspace);
     }
 
     public AsyncDataSetIterator(DataSetIterator baseIterator, int queueSize, boolean useWorkspace, Integer deviceId) {
-        this(baseIterator, queueSize, new LinkedBlockingQueue<DataSet>(queueSize), useWorkspace, new DefaultCallback(),
+        this(baseIterator, queueSize, new RingBlockingQueue<DataSet>(queueSize), useWorkspace, new DefaultCallback(),
                         deviceId);
     }
 
     public AsyncDataSetIterator(DataSetIterator baseIterator, int queueSize, boolean useWorkspace,
                     DataSetCallback callback) {
-        this(baseIterator, queueSize, new LinkedBlockingQueue<DataSet>(queueSize), useWorkspace, callback);
+        this(baseIterator, queueSize, new RingBlockingQueue<DataSet>(queueSize), useWorkspace, callback);
     }
 
     public AsyncDataSetIterator(DataSetIterator iterator, int queueSize, BlockingQueue<DataSet> queue,
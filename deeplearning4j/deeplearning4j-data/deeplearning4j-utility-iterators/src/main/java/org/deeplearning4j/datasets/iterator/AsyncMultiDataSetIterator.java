@@ -16,7 +16,6 @@ import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
 import org.nd4j.linalg.factory.Nd4j;
 
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -55,16 +54,16 @@ public class AsyncMultiDataSetIterator implements MultiDataSetIterator {
     }
 
     public AsyncMultiDataSetIterator(MultiDataSetIterator baseIterator, int queueSize) {
-        this(baseIterator, queueSize, new LinkedBlockingQueue<MultiDataSet>(queueSize));
+        this(baseIterator, queueSize, new RingBlockingQueue<MultiDataSet>(queueSize));
     }
 
     public AsyncMultiDataSetIterator(MultiDataSetIterator baseIterator, int queueSize, boolean useWorkspace) {
-        this(baseIterator, queueSize, new LinkedBlockingQueue<MultiDataSet>(queueSize), useWorkspace);
+        this(baseIterator, queueSize, new RingBlockingQueue<MultiDataSet>(queueSize), useWorkspace);
     }
 
     public AsyncMultiDataSetIterator(MultiDataSetIterator baseIterator, int queueSize, boolean useWorkspace,
                     Integer deviceId) {
-        this(baseIterator, queueSize, new LinkedBlockingQueue<MultiDataSet>(queueSize), useWorkspace, null, deviceId);
+        this(baseIterator, queueSize, new RingBlockingQueue<MultiDataSet>(queueSize), useWorkspace, null, deviceId);
     }
 
     public AsyncMultiDataSetIterator(MultiDataSetIterator iterator, int queueSize, BlockingQueue<MultiDataSet> queue,
@@ -0,0 +1,241 @@
+package org.deeplearning4j.datasets.iterator;
+
+import lombok.NonNull;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single-producer/single-consumer BlockingQueue, backed by pre-allocated ring of slots.
+ *
+ * Unlike LinkedBlockingQueue, there are no locks and no per-element allocations: producer and consumer only
+ * publish their own position. If ring is full or empty, waiting side spins briefly, and then parks until the other
+ * side signals it, so idle threads don't consume CPU.
+ * This is the queue used by AsyncDataSetIterator & AsyncMultiDataSetIterator by default.
+ *
+ * PLEASE NOTE: Only one thread at a time may insert elements, and only one thread at a time may take them.
+ *
+ * @param <E>
+ */
+public class RingBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    private static final int SPINS = 128;
+
+    private final Object[] ring;
+    private final int mask;
+    private final int capacity;
+
+    // position of next element to be taken, written by consumer only
+    private final AtomicLong head = new AtomicLong(0);
+    // position of next element to be inserted, written by producer only
+    private final AtomicLong tail = new AtomicLong(0);
+
+    // set by parked thread before it re-checks the queue, so that other side either sees it, or it sees other side's update
+    private volatile Thread waitingConsumer;
+    private volatile Thread waitingProducer;
+
+    public RingBlockingQueue(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity should be positive value");
+
+        int size = 1;
+        while (size < capacity)
+            size <<= 1;
+
+        this.capacity = capacity;
+        this.ring = new Object[size];
+        this.mask = size - 1;
+    }
+
+    @Override
+    public boolean offer(@NonNull E e) {
+        long t = tail.get();
+        if (t - head.get() >= capacity)
+            return false;
+
+        ring[(int) (t & mask)] = e;
+        // full volatile write, not lazySet: it must not be reordered with the read of waitingConsumer below,
+        // otherwise consumer could park after checking stale tail, and never be woken up
+        tail.set(t + 1);
+
+        Thread consumer = waitingConsumer;
+        if (consumer != null)
+            LockSupport.unpark(consumer);
+
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = head.get();
+        if (h >= tail.get())
+            return null;
+
+        int idx = (int) (h & mask);
+        E e = (E) ring[idx];
+        ring[idx] = null;
+        // full volatile write, for the same reason as in offer()
+        head.set(h + 1);
+
+        Thread producer = waitingProducer;
+        if (producer != null)
+            LockSupport.unpark(producer);
+
+        return e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long h = head.get();
+        if (h >= tail.get())
+            return null;
+
+        return (E) ring[(int) (h & mask)];
+    }
+
+    @Override
+    public void put(@NonNull E e) throws InterruptedException {
+        int spins = 0;
+        while (!offer(e)) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            if (spins++ < SPINS) {
+                Thread.yield();
+            } else {
+                waitingProducer = Thread.currentThread();
+                if (remainingCapacity() == 0)
+                    LockSupport.park(this);
+                waitingProducer = null;
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(@NonNull E e, long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int spins = 0;
+        while (!offer(e)) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            long left = deadline - System.nanoTime();
+            if (left <= 0)
+                return false;
+
+            if (spins++ < SPINS) {
+                Thread.yield();
+            } else {
+                waitingProducer = Thread.currentThread();
+                if (remainingCapacity() == 0)
+                    LockSupport.parkNanos(this, left);
+                waitingProducer = null;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        int spins = 0;
+        E e;
+        while ((e = poll()) == null) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            if (spins++ < SPINS) {
+                Thread.yield();
+            } else {
+                waitingConsumer = Thread.currentThread();
+                if (isEmpty())
+                    LockSupport.park(this);
+                waitingConsumer = null;
+            }
+        }
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int spins = 0;
+        E e;
+        while ((e = poll()) == null) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            long left = deadline - System.nanoTime();
+            if (left <= 0)
+                return null;
+
+            if (spins++ < SPINS) {
+                Thread.yield();
+            } else {
+                waitingConsumer = Thread.currentThread();
+                if (isEmpty())
+                    LockSupport.parkNanos(this, left);
+                waitingConsumer = null;
+            }
+        }
+        return e;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    @Override
+    public int size() {
+        // head is read first, so size can't go negative
+        long h = head.get();
+        long t = tail.get();
+        return (int) Math.max(0, Math.min(capacity, t - h));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    @Override
+    public int drainTo(@NonNull Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(@NonNull Collection<? super E> c, int maxElements) {
+        if (c == this)
+            throw new IllegalArgumentException();
+
+        int cnt = 0;
+        E e;
+        while (cnt < maxElements && (e = poll()) != null) {
+            c.add(e);
+            cnt++;
+        }
+        return cnt;
+    }
+
+    /**
+     * This method returns snapshot iterator over queued elements. Elements can't be removed through it.
+     *
+     * @return
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<>();
+        long t = tail.get();
+        for (long p = head.get(); p < t; p++) {
+            E e = (E) ring[(int) (p & mask)];
+            if (e != null)
+                snapshot.add(e);
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+}
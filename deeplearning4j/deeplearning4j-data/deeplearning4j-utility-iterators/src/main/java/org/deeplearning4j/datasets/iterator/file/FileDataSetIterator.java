@@ -12,7 +12,8 @@ import java.util.Random;
 
 /**
  * Iterate over a directory (and optionally subdirectories) containing a number of {@link DataSet} objects that have
- * previously been saved to files with {@link DataSet#save(File)}.<br>
+ * previously been saved to files with {@link DataSet#save(File)} or, for large DataSets,
+ * {@link DataSet#save(File, org.nd4j.serde.binary.ChunkedBinarySerde)}.<br>
  * This iterator supports the following (optional) features, depending on the constructor used:<br>
  * - Recursive listing of all files (i.e., include files in subdirectories)<br>
  * - Filtering based on a set of file extensions (if null, no filtering - assume all files are saved DataSet objects)<br>
@@ -4,6 +4,7 @@ import org.deeplearning4j.graph.api.Edge;
 import org.deeplearning4j.graph.api.Vertex;
 import org.deeplearning4j.graph.data.impl.DelimitedEdgeLineProcessor;
 import org.deeplearning4j.graph.data.impl.WeightedEdgeLineProcessor;
+import org.deeplearning4j.graph.graph.CSRGraph;
 import org.deeplearning4j.graph.graph.Graph;
 import org.deeplearning4j.graph.vertexfactory.StringVertexFactory;
 import org.deeplearning4j.graph.vertexfactory.VertexFactory;
@@ -172,4 +173,80 @@ public class GraphLoader {
 
         return graph;
     }
+
+    /**Method for loading a (possibly very large) graph from an edge list file into a {@link CSRGraph}, where each edge
+     * is represented by a single line. Graph may be directed or undirected, weighted or unweighted<br>
+     * This method assumes that edges are of the format: {@code fromIndex<delim>toIndex} for unweighted graphs, and
+     * {@code fromIndex<delim>toIndex<delim>edgeWeight} for weighted graphs. Unlike other methods here, delimiter is
+     * a plain string and not a regular expression, and lines are parsed without creating any per-edge objects.<br>
+     * Vertices are created with {@link StringVertexFactory}, and multiple edges between two vertices are allowed.
+     * @param path Path to the edge list file
+     * @param numVertices The number of vertices in the graph
+     * @param delim The delimiter used in the file (typically: "," or " " etc)
+     * @param directed whether the edges should be treated as directed (true) or undirected (false)
+     * @param weighted whether lines contain edge weights
+     * @param ignoreLinesStartingWith Starting characters for comment lines. May be null. For example: "//" or "#"
+     * @return The graph
+     * @throws IOException
+     */
+    public static CSRGraph<String> loadCSRGraph(String path, int numVertices, String delim, boolean directed,
+                    boolean weighted, String... ignoreLinesStartingWith) throws IOException {
+        CSRGraph.Builder<String> builder =
+                        new CSRGraph.Builder<>(numVertices, directed, weighted, new StringVertexFactory());
+
+        try (BufferedReader br = new BufferedReader(new FileReader(new File(path)), 1 << 20)) {
+            String line;
+            lines: while ((line = br.readLine()) != null) {
+                if (line.isEmpty())
+                    continue;
+                if (ignoreLinesStartingWith != null) {
+                    for (String s : ignoreLinesStartingWith) {
+                        if (line.startsWith(s))
+                            continue lines;
+                    }
+                }
+
+                int first = line.indexOf(delim);
+                int second = first < 0 ? -1 : line.indexOf(delim, first + delim.length());
+                if (first < 0 || (weighted && second < 0) || (!weighted && second >= 0))
+                    throw new IllegalArgumentException("Invalid line: expected format \"" + 0 + delim + 1
+                                    + (weighted ? delim + "weight" : "") + "\"; received \"" + line + "\"");
+
+                int from = parseInt(line, 0, first);
+                if (weighted) {
+                    int to = parseInt(line, first + delim.length(), second);
+                    double weight = Double.parseDouble(line.substring(second + delim.length()));
+                    builder.addEdge(from, to, weight);
+                } else {
+                    builder.addEdge(from, parseInt(line, first + delim.length(), line.length()));
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static int parseInt(String line, int start, int end) {
+        //Trim whitespace around the value
+        while (start < end && Character.isWhitespace(line.charAt(start)))
+            start++;
+        while (end > start && Character.isWhitespace(line.charAt(end - 1)))
+            end--;
+
+        boolean negative = start < end && line.charAt(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i >= end)
+            throw new NumberFormatException("Invalid integer in line \"" + line + "\"");
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE)
+                throw new NumberFormatException("Invalid integer in line \"" + line + "\"");
+            value = value * 10 + digit;
+        }
+        if (value > Integer.MAX_VALUE)
+            throw new NumberFormatException("Invalid integer in line \"" + line + "\"");
+        return (int) (negative ? -value : value);
+    }
 }
@@ -0,0 +1,379 @@
+package org.deeplearning4j.graph.graph;
+
+import org.deeplearning4j.graph.api.BaseGraph;
+import org.deeplearning4j.graph.api.Edge;
+import org.deeplearning4j.graph.api.Vertex;
+import org.deeplearning4j.graph.exception.NoEdgesException;
+import org.deeplearning4j.graph.vertexfactory.VertexFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/** Immutable graph stored in compressed sparse row (CSR) format.<br>
+ * Edges of vertex i are stored as a contiguous range {@code offsets[i]} to {@code offsets[i+1]} (exclusive) of a single
+ * primitive array of target vertex indices, with optional float weights stored in a parallel array. As with
+ * {@link Graph}, undirected edges are stored once for each of the two vertices. Compared to {@link Graph}, there are
+ * no per-edge or per-vertex objects: a graph with E (directed) edges takes 4*E bytes, or 8*E bytes if weighted.<br>
+ * Vertex objects aren't stored either: they're created by the {@link VertexFactory} on request, so iterators and
+ * models should prefer methods operating on vertex indices, such as {@link #getRandomConnectedVertexIndex(int, Random)}.<br>
+ * Graphs are created with {@link Builder} (or {@link org.deeplearning4j.graph.data.GraphLoader#loadCSRGraph(String, int, String, boolean, boolean, String...)}),
+ * and may be saved with {@link #save(File)} and memory mapped with {@link #load(File, VertexFactory)}, in which case
+ * edges aren't loaded onto the heap at all.<br>
+ * Edge values are the edge weights (1.0 for unweighted graphs). Multiple edges between the same vertices are allowed,
+ * and all edges in the graph are either directed or undirected.
+ * @param <V> Type parameter for vertices (type of objects attached to each vertex)
+ */
+public class CSRGraph<V> extends BaseGraph<V, Double> {
+    private static final int MAGIC = 0x43535247;
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 24;
+
+    private final int numVertices;
+    private final boolean directed;
+    private final VertexFactory<V> vertexFactory;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final FloatBuffer weights;
+
+    protected CSRGraph(int numVertices, boolean directed, VertexFactory<V> vertexFactory, IntBuffer offsets,
+                    IntBuffer targets, FloatBuffer weights) {
+        this.numVertices = numVertices;
+        this.directed = directed;
+        this.vertexFactory = vertexFactory;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    @Override
+    public int numVertices() {
+        return numVertices;
+    }
+
+    /** Whether edges of this graph are directed */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /** Whether this graph has edge weights. Edges of unweighted graphs have weight of 1.0 */
+    public boolean isWeighted() {
+        return weights != null;
+    }
+
+    @Override
+    public Vertex<V> getVertex(int idx) {
+        if (idx < 0 || idx >= numVertices)
+            throw new IllegalArgumentException("Invalid index: " + idx);
+        return vertexFactory.create(idx);
+    }
+
+    @Override
+    public List<Vertex<V>> getVertices(int[] indexes) {
+        List<Vertex<V>> out = new ArrayList<>(indexes.length);
+        for (int i : indexes)
+            out.add(getVertex(i));
+        return out;
+    }
+
+    @Override
+    public List<Vertex<V>> getVertices(int from, int to) {
+        if (to < from || from < 0 || to >= numVertices)
+            throw new IllegalArgumentException("Invalid range: from=" + from + ", to=" + to);
+        List<Vertex<V>> out = new ArrayList<>(to - from + 1);
+        for (int i = from; i <= to; i++)
+            out.add(getVertex(i));
+        return out;
+    }
+
+    @Override
+    public void addEdge(Edge<Double> edge) {
+        throw new UnsupportedOperationException("CSRGraph is immutable: use CSRGraph.Builder to add edges");
+    }
+
+    @Override
+    public List<Edge<Double>> getEdgesOut(int vertex) {
+        int start = offsets.get(vertex);
+        int end = offsets.get(vertex + 1);
+        List<Edge<Double>> out = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++)
+            out.add(new Edge<>(vertex, targets.get(i), getWeight(i), directed));
+        return out;
+    }
+
+    @Override
+    public int getVertexDegree(int vertex) {
+        return offsets.get(vertex + 1) - offsets.get(vertex);
+    }
+
+    @Override
+    public Vertex<V> getRandomConnectedVertex(int vertex, Random rng) throws NoEdgesException {
+        return getVertex(getRandomConnectedVertexIndex(vertex, rng));
+    }
+
+    /** Randomly sample a vertex connected to a given vertex, uniformly at random. Same as
+     * {@link #getRandomConnectedVertex(int, Random)}, but returns the index of the vertex, without creating any objects
+     * @param vertex vertex to randomly sample from
+     * @param rng Random number generator to use
+     * @return index of the vertex connected to the specified vertex
+     * @throws NoEdgesException thrown if the specified vertex has no edges, or no outgoing edges (in the case
+     * of a directed graph).
+     */
+    public int getRandomConnectedVertexIndex(int vertex, Random rng) throws NoEdgesException {
+        if (vertex < 0 || vertex >= numVertices)
+            throw new IllegalArgumentException("Invalid vertex index: " + vertex);
+        int start = offsets.get(vertex);
+        int degree = offsets.get(vertex + 1) - start;
+        if (degree == 0)
+            throw new NoEdgesException("Cannot generate random connected vertex: vertex " + vertex
+                            + " has no outgoing/undirected edges");
+        return targets.get(start + rng.nextInt(degree));
+    }
+
+    /** Randomly sample a vertex connected to a given vertex, with probability proportional to the edge weight.
+     * Weights need not be normalized. For unweighted graphs, this is the same as
+     * {@link #getRandomConnectedVertexIndex(int, Random)}
+     * @param vertex vertex to randomly sample from
+     * @param rng Random number generator to use
+     * @return index of the vertex connected to the specified vertex
+     * @throws NoEdgesException thrown if the specified vertex has no edges, or no outgoing edges (in the case
+     * of a directed graph).
+     */
+    public int getWeightedRandomConnectedVertexIndex(int vertex, Random rng) throws NoEdgesException {
+        if (weights == null)
+            return getRandomConnectedVertexIndex(vertex, rng);
+        if (vertex < 0 || vertex >= numVertices)
+            throw new IllegalArgumentException("Invalid vertex index: " + vertex);
+
+        int start = offsets.get(vertex);
+        int end = offsets.get(vertex + 1);
+        if (start == end)
+            throw new NoEdgesException("Cannot generate random connected vertex: vertex " + vertex
+                            + " has no outgoing/undirected edges");
+
+        double totalWeight = 0.0;
+        for (int i = start; i < end; i++)
+            totalWeight += weights.get(i);
+
+        double threshold = rng.nextDouble() * totalWeight;
+        double sumWeight = 0.0;
+        for (int i = start; i < end - 1; i++) {
+            sumWeight += weights.get(i);
+            if (sumWeight >= threshold)
+                return targets.get(i);
+        }
+        return targets.get(end - 1);
+    }
+
+    @Override
+    public List<Vertex<V>> getConnectedVertices(int vertex) {
+        if (vertex < 0 || vertex >= numVertices)
+            throw new IllegalArgumentException("Invalid vertex index: " + vertex);
+        return getVertices(getConnectedVertexIndices(vertex));
+    }
+
+    @Override
+    public int[] getConnectedVertexIndices(int vertex) {
+        int start = offsets.get(vertex);
+        int[] out = new int[offsets.get(vertex + 1) - start];
+        for (int i = 0; i < out.length; i++)
+            out[i] = targets.get(start + i);
+        return out;
+    }
+
+    private double getWeight(int entry) {
+        return weights == null ? 1.0 : weights.get(entry);
+    }
+
+    /** Save the graph to the specified file, in a format that can be memory mapped by {@link #load(File, VertexFactory)}.
+     * Vertex objects aren't saved.
+     * @param file file to save the graph to
+     * @throws IOException
+     */
+    public void save(File file) throws IOException {
+        int numEntries = offsets.get(numVertices);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            raf.setLength(0);
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(numVertices).putInt(numEntries)
+                            .put((byte) (directed ? 1 : 0)).put((byte) (weights != null ? 1 : 0));
+            buffer.position(HEADER_LENGTH);
+
+            for (int i = 0; i <= numVertices; i++)
+                buffer = putInt(channel, buffer, offsets.get(i));
+            for (int i = 0; i < numEntries; i++)
+                buffer = putInt(channel, buffer, targets.get(i));
+            if (weights != null) {
+                for (int i = 0; i < numEntries; i++)
+                    buffer = putInt(channel, buffer, Float.floatToRawIntBits(weights.get(i)));
+            }
+
+            flush(channel, buffer);
+        }
+    }
+
+    private static ByteBuffer putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < 4)
+            flush(channel, buffer);
+        return buffer.putInt(value);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /** Load a graph saved with {@link #save(File)}. Edges are memory mapped (read only) rather than loaded onto the
+     * heap, so the graph is available immediately, and is shared with other processes mapping the same file.<br>
+     * Note that each of the offsets, targets and weights arrays must be smaller than 2GB to be mapped: i.e., up to
+     * roughly 500 million edge entries.
+     * @param file file to load the graph from
+     * @param vertexFactory used to create vertices
+     * @return the graph
+     * @throws IOException
+     */
+    public static <V> CSRGraph<V> load(File file, VertexFactory<V> vertexFactory) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0);
+            header.flip();
+            if (header.remaining() < HEADER_LENGTH || header.getInt() != MAGIC)
+                throw new IOException("File " + file + " is not a CSRGraph file");
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported CSRGraph file version: " + version);
+
+            int numVertices = header.getInt();
+            int numEntries = header.getInt();
+            boolean directed = header.get() != 0;
+            boolean weighted = header.get() != 0;
+
+            long position = HEADER_LENGTH;
+            IntBuffer offsets = map(channel, position, numVertices + 1L).asIntBuffer();
+            position += 4L * (numVertices + 1);
+            IntBuffer targets = map(channel, position, numEntries).asIntBuffer();
+            position += 4L * numEntries;
+            FloatBuffer weights = weighted ? map(channel, position, numEntries).asFloatBuffer() : null;
+
+            // mappings stay valid after channel is closed
+            return new CSRGraph<>(numVertices, directed, vertexFactory, offsets, targets, weights);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long numElements) throws IOException {
+        long length = 4L * numElements;
+        if (length > Integer.MAX_VALUE)
+            throw new IOException("Unable to map " + numElements + " elements: arrays over 2GB can't be mapped");
+        if (position + length > channel.size())
+            throw new IOException("CSRGraph file is truncated");
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public String toString() {
+        return "CSRGraph(numVertices=" + numVertices + ", numEdgeEntries=" + offsets.get(numVertices) + ", directed="
+                        + directed + ", weighted=" + (weights != null) + ")";
+    }
+
+    /** Builder for {@link CSRGraph}. Edges are accumulated in primitive arrays, and converted to CSR format in
+     * {@link #build()}, with edges of each vertex in the order they were added.
+     * @param <V> Type parameter for vertices
+     */
+    public static class Builder<V> {
+        private final int numVertices;
+        private final boolean directed;
+        private final boolean weighted;
+        private final VertexFactory<V> vertexFactory;
+
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private float[] weights;
+        private int numEdges;
+
+        /**
+         * @param numVertices number of vertices in the graph
+         * @param directed whether edges are directed
+         * @param weighted whether edges have weights
+         * @param vertexFactory used to create vertices
+         */
+        public Builder(int numVertices, boolean directed, boolean weighted, VertexFactory<V> vertexFactory) {
+            if (numVertices <= 0)
+                throw new IllegalArgumentException("Number of vertices must be positive: " + numVertices);
+            this.numVertices = numVertices;
+            this.directed = directed;
+            this.weighted = weighted;
+            this.vertexFactory = vertexFactory;
+            if (weighted)
+                weights = new float[16];
+        }
+
+        /** Add an edge with weight 1.0 */
+        public Builder<V> addEdge(int from, int to) {
+            return addEdge(from, to, 1.0);
+        }
+
+        /** Add an edge with the specified weight. Weight is ignored for unweighted graphs */
+        public Builder<V> addEdge(int from, int to, double weight) {
+            if (from < 0 || from >= numVertices || to < 0 || to >= numVertices)
+                throw new IllegalArgumentException("Invalid edge: " + from + (directed ? "->" : "--") + to
+                                + ", from/to indexes out of range");
+
+            if (numEdges == this.from.length) {
+                int newLength = (int) Math.min(Integer.MAX_VALUE - 8, 2L * numEdges);
+                this.from = Arrays.copyOf(this.from, newLength);
+                this.to = Arrays.copyOf(this.to, newLength);
+                if (weighted)
+                    weights = Arrays.copyOf(weights, newLength);
+            }
+
+            this.from[numEdges] = from;
+            this.to[numEdges] = to;
+            if (weighted)
+                weights[numEdges] = (float) weight;
+            numEdges++;
+            return this;
+        }
+
+        public CSRGraph<V> build() {
+            long numEntries = directed ? numEdges : 2L * numEdges;
+            if (numEntries > Integer.MAX_VALUE - 8)
+                throw new IllegalStateException("Too many edges for CSRGraph: " + numEdges);
+
+            //Count edges per vertex, then convert counts to offsets
+            int[] offsets = new int[numVertices + 1];
+            for (int i = 0; i < numEdges; i++) {
+                offsets[from[i] + 1]++;
+                if (!directed)
+                    offsets[to[i] + 1]++;
+            }
+            for (int i = 0; i < numVertices; i++)
+                offsets[i + 1] += offsets[i];
+
+            int[] position = Arrays.copyOf(offsets, numVertices);
+            int[] targets = new int[(int) numEntries];
+            float[] entryWeights = weighted ? new float[(int) numEntries] : null;
+            for (int i = 0; i < numEdges; i++) {
+                int p = position[from[i]]++;
+                targets[p] = to[i];
+                if (weighted)
+                    entryWeights[p] = weights[i];
+
+                if (!directed) {
+                    p = position[to[i]]++;
+                    targets[p] = from[i];
+                    if (weighted)
+                        entryWeights[p] = weights[i];
+                }
+            }
+
+            return new CSRGraph<>(numVertices, directed, vertexFactory, IntBuffer.wrap(offsets),
+                            IntBuffer.wrap(targets), weighted ? FloatBuffer.wrap(entryWeights) : null);
+        }
+    }
+}
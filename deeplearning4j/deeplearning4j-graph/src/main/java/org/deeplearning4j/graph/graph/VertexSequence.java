@@ -36,6 +36,11 @@ public class VertexSequence<V> implements IVertexSequence<V> {
         return graph.getVertex(indices[currIdx++]);
     }
 
+    /** Indices of the vertices in this sequence. Returned array is not a copy, and should not be modified */
+    public int[] getIndices() {
+        return indices;
+    }
+
     @Override
     public void remove() {
         throw new UnsupportedOperationException();
@@ -0,0 +1,217 @@
+package org.deeplearning4j.graph.iterator;
+
+import org.deeplearning4j.graph.api.Edge;
+import org.deeplearning4j.graph.api.IGraph;
+import org.deeplearning4j.graph.exception.NoEdgesException;
+
+import java.util.List;
+import java.util.Random;
+
+/**Precomputed alias tables (Walker's alias method) for the outgoing edges of every vertex in a graph, for sampling
+ * a connected vertex with probability proportional to the edge weight in O(1) time, regardless of vertex degree.<br>
+ * Edge weights are the edge values for edges with a {@link Number} value, and 1.0 otherwise; weights need not be
+ * normalized. Tables are stored in flat primitive arrays (12 bytes per edge entry, plus 4 bytes per vertex), and the
+ * connected vertices of each vertex are sorted, so {@link #isConnected(int, int)} is O(log(degree)).<br>
+ * Once built, an {@code AliasTables} instance is immutable, and can be shared between threads/iterators: see
+ * {@link org.deeplearning4j.graph.iterator.parallel.WeightedRandomWalkGraphIteratorProvider}.
+ * @see <a href="https://en.wikipedia.org/wiki/Alias_method">https://en.wikipedia.org/wiki/Alias_method</a>
+ */
+public class AliasTables {
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final float[] probabilities;
+    private final int[] aliases;
+
+    /**
+     * @param graph graph to build alias tables for. Graph should not be modified after the alias tables are built
+     */
+    public AliasTables(IGraph<?, ?> graph) {
+        int numVertices = graph.numVertices();
+        offsets = new int[numVertices + 1];
+        for (int i = 0; i < numVertices; i++)
+            offsets[i + 1] = offsets[i] + graph.getVertexDegree(i);
+
+        int numEntries = offsets[numVertices];
+        targets = new int[numEntries];
+        probabilities = new float[numEntries];
+        aliases = new int[numEntries];
+
+        //Reused between vertices
+        double[] weights = new double[16];
+        int[] small = new int[16];
+        int[] large = new int[16];
+        for (int v = 0; v < numVertices; v++) {
+            int start = offsets[v];
+            int degree = offsets[v + 1] - start;
+            if (degree == 0)
+                continue;
+            if (weights.length < degree) {
+                weights = new double[degree];
+                small = new int[degree];
+                large = new int[degree];
+            }
+
+            List<? extends Edge<?>> edges = graph.getEdgesOut(v);
+            if (edges.size() != degree)
+                throw new IllegalStateException("Vertex " + v + " has degree " + degree + " but " + edges.size()
+                                + " outgoing edges");
+            for (int j = 0; j < degree; j++) {
+                Edge<?> edge = edges.get(j);
+                //Undirected edge: might be other--v instead of v--other
+                targets[start + j] = !edge.isDirected() && edge.getTo() == v ? edge.getFrom() : edge.getTo();
+                Object value = edge.getValue();
+                weights[j] = value instanceof Number ? ((Number) value).doubleValue() : 1.0;
+                if (weights[j] < 0.0 || Double.isNaN(weights[j]) || Double.isInfinite(weights[j]))
+                    throw new IllegalArgumentException("Invalid weight for edge " + edge + ": weights must be finite"
+                                    + " and non-negative");
+            }
+
+            sortByTarget(targets, weights, start, degree);
+            buildTable(v, start, degree, weights, small, large);
+        }
+    }
+
+    /** Insertion sort for small rows, heap sort otherwise; sorts targets[start..start+n) along with weights[0..n) */
+    private static void sortByTarget(int[] targets, double[] weights, int start, int n) {
+        if (n <= 32) {
+            for (int i = 1; i < n; i++) {
+                int t = targets[start + i];
+                double w = weights[i];
+                int j = i - 1;
+                while (j >= 0 && targets[start + j] > t) {
+                    targets[start + j + 1] = targets[start + j];
+                    weights[j + 1] = weights[j];
+                    j--;
+                }
+                targets[start + j + 1] = t;
+                weights[j + 1] = w;
+            }
+            return;
+        }
+
+        for (int i = n / 2 - 1; i >= 0; i--)
+            siftDown(targets, weights, start, i, n);
+        for (int end = n - 1; end > 0; end--) {
+            swap(targets, weights, start, 0, end);
+            siftDown(targets, weights, start, 0, end);
+        }
+    }
+
+    private static void siftDown(int[] targets, double[] weights, int start, int i, int n) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n)
+                return;
+            if (child + 1 < n && targets[start + child + 1] > targets[start + child])
+                child++;
+            if (targets[start + i] >= targets[start + child])
+                return;
+            swap(targets, weights, start, i, child);
+            i = child;
+        }
+    }
+
+    private static void swap(int[] targets, double[] weights, int start, int i, int j) {
+        int t = targets[start + i];
+        targets[start + i] = targets[start + j];
+        targets[start + j] = t;
+        double w = weights[i];
+        weights[i] = weights[j];
+        weights[j] = w;
+    }
+
+    /** Vose's alias method: builds the table for one vertex from its (sorted) weights, in O(degree) */
+    private void buildTable(int vertex, int start, int degree, double[] weights, int[] small, int[] large) {
+        double sum = 0.0;
+        for (int j = 0; j < degree; j++)
+            sum += weights[j];
+        if (sum <= 0.0) {
+            //All weights zero: sample uniformly
+            for (int j = 0; j < degree; j++)
+                weights[j] = 1.0;
+            sum = degree;
+        }
+
+        int nSmall = 0;
+        int nLarge = 0;
+        for (int j = 0; j < degree; j++) {
+            //Scaled so that mean weight is 1.0
+            weights[j] = weights[j] * degree / sum;
+            if (weights[j] < 1.0)
+                small[nSmall++] = j;
+            else
+                large[nLarge++] = j;
+        }
+
+        while (nSmall > 0 && nLarge > 0) {
+            int s = small[--nSmall];
+            int l = large[--nLarge];
+            probabilities[start + s] = (float) weights[s];
+            aliases[start + s] = start + l;
+            weights[l] = (weights[l] + weights[s]) - 1.0;
+            if (weights[l] < 1.0)
+                small[nSmall++] = l;
+            else
+                large[nLarge++] = l;
+        }
+        //Remaining entries have weight 1.0, up to rounding errors
+        while (nLarge > 0) {
+            int l = large[--nLarge];
+            probabilities[start + l] = 1.0f;
+            aliases[start + l] = start + l;
+        }
+        while (nSmall > 0) {
+            int s = small[--nSmall];
+            probabilities[start + s] = 1.0f;
+            aliases[start + s] = start + s;
+        }
+    }
+
+    /** Number of vertices in the graph */
+    public int numVertices() {
+        return offsets.length - 1;
+    }
+
+    /** Number of outgoing edges (including undirected edges) of the specified vertex */
+    public int getVertexDegree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    /** Whether the graph has an edge from vertex {@code from} to vertex {@code to}, in O(log(degree)) time.
+     * For undirected graphs, this is the same as {@code isConnected(to, from)}
+     */
+    public boolean isConnected(int from, int to) {
+        int low = offsets[from];
+        int high = offsets[from + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int t = targets[mid];
+            if (t < to)
+                low = mid + 1;
+            else if (t > to)
+                high = mid - 1;
+            else
+                return true;
+        }
+        return false;
+    }
+
+    /** Randomly sample a vertex connected to the specified vertex, with probability proportional to the edge weight.
+     * O(1) time, and doesn't create any objects.
+     * @param vertex vertex to randomly sample from
+     * @param rng Random number generator to use
+     * @return index of the vertex connected to the specified vertex
+     * @throws NoEdgesException thrown if the specified vertex has no edges, or no outgoing edges (in the case
+     * of a directed graph).
+     */
+    public int sample(int vertex, Random rng) throws NoEdgesException {
+        int start = offsets[vertex];
+        int degree = offsets[vertex + 1] - start;
+        if (degree == 0)
+            throw new NoEdgesException("Cannot generate random connected vertex: vertex " + vertex
+                            + " has no outgoing/undirected edges");
+        int entry = start + rng.nextInt(degree);
+        return rng.nextFloat() < probabilities[entry] ? targets[entry] : targets[aliases[entry]];
+    }
+}
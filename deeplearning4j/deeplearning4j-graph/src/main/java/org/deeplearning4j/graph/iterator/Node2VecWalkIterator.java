@@ -0,0 +1,170 @@
+package org.deeplearning4j.graph.iterator;
+
+import org.deeplearning4j.graph.api.IGraph;
+import org.deeplearning4j.graph.api.IVertexSequence;
+import org.deeplearning4j.graph.api.NoEdgeHandling;
+import org.deeplearning4j.graph.exception.NoEdgesException;
+import org.deeplearning4j.graph.graph.VertexSequence;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**Given a graph, iterate through biased second-order random walks on that graph, as used in node2vec:
+ * <i>node2vec: Scalable Feature Learning for Networks</i> by Grover & Leskovec (2016),
+ * <a href="https://arxiv.org/abs/1607.00653">https://arxiv.org/abs/1607.00653</a><br>
+ * Having just traversed the edge t -> v, the next vertex x is selected with probability proportional to
+ * {@code w(v,x) * bias(t,x)}, where w(v,x) is the edge weight (1.0 for edges without a {@link Number} value), and
+ * bias(t,x) is 1/p if x is t (return parameter), 1 if x is connected to t, and 1/q otherwise (in-out parameter).
+ * Thus p = q = 1 is equivalent to a {@link WeightedRandomWalkIterator}; low p keeps walks local, and low q
+ * encourages walks to move away from t.<br>
+ * Rather than precomputing alias tables for every edge (which takes memory proportional to the sum of squared vertex
+ * degrees), candidates are sampled in O(1) time from the first-order {@link AliasTables} and accepted with probability
+ * {@code bias(t,x) / max(1/p, 1, 1/q)}. The expected number of candidates per step is bounded by
+ * {@code max(1/p, 1, 1/q) / min(1/p, 1, 1/q)}, independent of vertex degree.<br>
+ * Random walks are generated starting at every node in the graph exactly once, though the order of the starting nodes
+ * is randomized.
+ * @see org.deeplearning4j.graph.iterator.parallel.Node2VecGraphIteratorProvider
+ */
+public class Node2VecWalkIterator<V> implements GraphWalkIterator<V> {
+
+    private final IGraph<V, ?> graph;
+    private final AliasTables aliasTables;
+    private final int walkLength;
+    private final double returnBias;
+    private final double inOutBias;
+    private final double maxBias;
+    private final NoEdgeHandling mode;
+
+    private int position;
+    private Random rng;
+    private int[] order;
+
+    /**Uses {@code NoEdgeHandling.EXCEPTION_ON_DISCONNECTED}
+     * @see #Node2VecWalkIterator(IGraph, int, double, double, long, NoEdgeHandling)
+     */
+    public Node2VecWalkIterator(IGraph<V, ?> graph, int walkLength, double p, double q, long rngSeed) {
+        this(graph, walkLength, p, q, rngSeed, NoEdgeHandling.EXCEPTION_ON_DISCONNECTED);
+    }
+
+    /**
+     * @param graph IGraph to conduct walks on
+     * @param walkLength length of each walk. Walk of length 0 includes 1 vertex, walk of 1 includes 2 vertices etc
+     * @param p return parameter
+     * @param q in-out parameter
+     * @param rngSeed seed for randomization
+     * @param mode mode for handling random walks from vertices with either no edges, or no outgoing edges (for directed graphs)
+     */
+    public Node2VecWalkIterator(IGraph<V, ?> graph, int walkLength, double p, double q, long rngSeed,
+                    NoEdgeHandling mode) {
+        this(graph, new AliasTables(graph), walkLength, p, q, rngSeed, mode, 0, graph.numVertices());
+    }
+
+    /**Constructor used to generate random walks starting at a subset of the vertices in the graph, using alias tables
+     * that have already been built for the graph. Order of starting vertices is randomized within this subset
+     * @param graph IGraph to conduct walks on
+     * @param aliasTables alias tables for the graph
+     * @param walkLength length of each walk. Walk of length 0 includes 1 vertex, walk of 1 includes 2 vertices etc
+     * @param p return parameter
+     * @param q in-out parameter
+     * @param rngSeed seed for randomization
+     * @param mode mode for handling random walks from vertices with either no edges, or no outgoing edges (for directed graphs)
+     * @param firstVertex first vertex index (inclusive) to start random walks from
+     * @param lastVertex last vertex index (exclusive) to start random walks from
+     */
+    public Node2VecWalkIterator(IGraph<V, ?> graph, AliasTables aliasTables, int walkLength, double p, double q,
+                    long rngSeed, NoEdgeHandling mode, int firstVertex, int lastVertex) {
+        if (!(p > 0.0) || !(q > 0.0) || Double.isInfinite(p) || Double.isInfinite(q))
+            throw new IllegalArgumentException("p and q must be positive and finite: got p=" + p + ", q=" + q);
+        if (aliasTables.numVertices() != graph.numVertices())
+            throw new IllegalArgumentException("Alias tables (" + aliasTables.numVertices()
+                            + " vertices) do not match graph (" + graph.numVertices() + " vertices)");
+        this.graph = graph;
+        this.aliasTables = aliasTables;
+        this.walkLength = walkLength;
+        this.returnBias = 1.0 / p;
+        this.inOutBias = 1.0 / q;
+        this.maxBias = Math.max(1.0, Math.max(returnBias, inOutBias));
+        this.rng = new Random(rngSeed);
+        this.mode = mode;
+
+        order = new int[lastVertex - firstVertex];
+        for (int i = 0; i < order.length; i++)
+            order[i] = firstVertex + i;
+        reset();
+    }
+
+    @Override
+    public IVertexSequence<V> next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        int currVertexIdx = order[position++];
+        int prevVertexIdx = -1;
+        int[] indices = new int[walkLength + 1];
+        indices[0] = currVertexIdx;
+
+        for (int i = 1; i <= walkLength; i++) {
+            if (aliasTables.getVertexDegree(currVertexIdx) == 0) {
+                switch (mode) {
+                    case SELF_LOOP_ON_DISCONNECTED:
+                        for (int j = i; j <= walkLength; j++)
+                            indices[j] = currVertexIdx;
+                        return new VertexSequence<>(graph, indices);
+                    case EXCEPTION_ON_DISCONNECTED:
+                        throw new NoEdgesException("Cannot conduct random walk: vertex " + currVertexIdx
+                                        + " has no outgoing edges. "
+                                        + " Set NoEdgeHandling mode to NoEdgeHandlingMode.SELF_LOOP_ON_DISCONNECTED to self loop instead of "
+                                        + "throwing an exception in this situation.");
+                    default:
+                        throw new RuntimeException("Unknown/not implemented NoEdgeHandling mode: " + mode);
+                }
+            }
+
+            int next;
+            if (prevVertexIdx < 0) {
+                //First step: no previous vertex, so no bias
+                next = aliasTables.sample(currVertexIdx, rng);
+            } else {
+                //Rejection sampling: candidate ~ w(curr,x), accepted with probability bias(prev,x)/maxBias
+                while (true) {
+                    next = aliasTables.sample(currVertexIdx, rng);
+                    double bias;
+                    if (next == prevVertexIdx)
+                        bias = returnBias;
+                    else if (aliasTables.isConnected(prevVertexIdx, next))
+                        bias = 1.0;
+                    else
+                        bias = inOutBias;
+                    if (bias >= maxBias || rng.nextDouble() * maxBias < bias)
+                        break;
+                }
+            }
+
+            prevVertexIdx = currVertexIdx;
+            currVertexIdx = next;
+            indices[i] = currVertexIdx;
+        }
+        return new VertexSequence<>(graph, indices);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < order.length;
+    }
+
+    @Override
+    public void reset() {
+        position = 0;
+        //https://en.wikipedia.org/wiki/Fisher%E2%80%93Yates_shuffle#The_modern_algorithm
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int temp = order[j];
+            order[j] = order[i];
+            order[i] = temp;
+        }
+    }
+
+    @Override
+    public int walkLength() {
+        return walkLength;
+    }
+}
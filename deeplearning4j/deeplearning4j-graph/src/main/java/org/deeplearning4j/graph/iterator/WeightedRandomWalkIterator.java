@@ -1,13 +1,11 @@
 package org.deeplearning4j.graph.iterator;
 
-import org.deeplearning4j.graph.api.Edge;
 import org.deeplearning4j.graph.api.IGraph;
 import org.deeplearning4j.graph.api.IVertexSequence;
 import org.deeplearning4j.graph.api.NoEdgeHandling;
 import org.deeplearning4j.graph.exception.NoEdgesException;
 import org.deeplearning4j.graph.graph.VertexSequence;
 
-import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Random;
 
@@ -17,12 +15,15 @@ import java.util.Random;
  * Because the edge values are used to determine the probabilities of selecting an edge, the {@code WeightedRandomWalkIterator}
  * can only be used on graphs with an edge type that extends the {@link java.lang.Number} class (i.e., Integer, Double, etc)<br>
  * Random walks are generated starting at every node in the graph exactly once, though the order of the starting nodes
- * is randomized.
+ * is randomized.<br>
+ * Each step is sampled in O(1) time (independent of the vertex degree) using {@link AliasTables}, which are built
+ * once per iterator, or shared between iterators.
  * @author Alex Black
  */
 public class WeightedRandomWalkIterator<V> implements GraphWalkIterator<V> {
 
     private final IGraph<V, ? extends Number> graph;
+    private final AliasTables aliasTables;
     private final int walkLength;
     private final NoEdgeHandling mode;
     private final int firstVertex;
@@ -68,7 +69,28 @@ public class WeightedRandomWalkIterator<V> implements GraphWalkIterator<V> {
      */
     public WeightedRandomWalkIterator(IGraph<V, ? extends Number> graph, int walkLength, long rngSeed,
                     NoEdgeHandling mode, int firstVertex, int lastVertex) {
+        this(graph, new AliasTables(graph), walkLength, rngSeed, mode, firstVertex, lastVertex);
+    }
+
+    /**Constructor used to generate random walks starting at a subset of the vertices in the graph, using alias tables
+     * that have already been built for the graph. As building the alias tables is O(number of edges), this should be
+     * used when multiple iterators are created for the same graph
+     * (see {@link org.deeplearning4j.graph.iterator.parallel.WeightedRandomWalkGraphIteratorProvider})
+     * @param graph IGraph to conduct walks on
+     * @param aliasTables alias tables for the graph, used to sample the next vertex of each walk
+     * @param walkLength length of each walk. Walk of length 0 includes 1 vertex, walk of 1 includes 2 vertices etc
+     * @param rngSeed seed for randomization
+     * @param mode mode for handling random walks from vertices with either no edges, or no outgoing edges (for directed graphs)
+     * @param firstVertex first vertex index (inclusive) to start random walks from
+     * @param lastVertex last vertex index (exclusive) to start random walks from
+     */
+    public WeightedRandomWalkIterator(IGraph<V, ? extends Number> graph, AliasTables aliasTables, int walkLength,
+                    long rngSeed, NoEdgeHandling mode, int firstVertex, int lastVertex) {
+        if (aliasTables.numVertices() != graph.numVertices())
+            throw new IllegalArgumentException("Alias tables (" + aliasTables.numVertices()
+                            + " vertices) do not match graph (" + graph.numVertices() + " vertices)");
         this.graph = graph;
+        this.aliasTables = aliasTables;
         this.walkLength = walkLength;
         this.rng = new Random(rngSeed);
         this.mode = mode;
@@ -89,17 +111,13 @@ public class WeightedRandomWalkIterator<V> implements GraphWalkIterator<V> {
         int currVertexIdx = order[position++];
         int[] indices = new int[walkLength + 1];
         indices[0] = currVertexIdx;
-        if (walkLength == 0)
-            return new VertexSequence<>(graph, indices);
 
         for (int i = 1; i <= walkLength; i++) {
-            List<? extends Edge<? extends Number>> edgeList = graph.getEdgesOut(currVertexIdx);
-
             //First: check if there are any outgoing edges from this vertex. If not: handle the situation
-            if (edgeList == null || edgeList.isEmpty()) {
+            if (aliasTables.getVertexDegree(currVertexIdx) == 0) {
                 switch (mode) {
                     case SELF_LOOP_ON_DISCONNECTED:
-                        for (int j = i; j < walkLength; j++)
+                        for (int j = i; j <= walkLength; j++)
                             indices[j] = currVertexIdx;
                         return new VertexSequence<>(graph, indices);
                     case EXCEPTION_ON_DISCONNECTED:
@@ -112,31 +130,9 @@ public class WeightedRandomWalkIterator<V> implements GraphWalkIterator<V> {
                 }
             }
 
-            //To do a weighted random walk: we need to know total weight of all outgoing edges
-            double totalWeight = 0.0;
-            for (Edge<? extends Number> edge : edgeList) {
-                totalWeight += edge.getValue().doubleValue();
-            }
-
-            double d = rng.nextDouble();
-            double threshold = d * totalWeight;
-            double sumWeight = 0.0;
-            for (Edge<? extends Number> edge : edgeList) {
-                sumWeight += edge.getValue().doubleValue();
-                if (sumWeight >= threshold) {
-                    if (edge.isDirected()) {
-                        currVertexIdx = edge.getTo();
-                    } else {
-                        if (edge.getFrom() == currVertexIdx) {
-                            currVertexIdx = edge.getTo();
-                        } else {
-                            currVertexIdx = edge.getFrom(); //Undirected edge: might be next--currVertexIdx instead of currVertexIdx--next
-                        }
-                    }
-                    indices[i] = currVertexIdx;
-                    break;
-                }
-            }
+            //O(1) weighted sampling, using the alias table for the current vertex
+            currVertexIdx = aliasTables.sample(currVertexIdx, rng);
+            indices[i] = currVertexIdx;
         }
         return new VertexSequence<>(graph, indices);
     }
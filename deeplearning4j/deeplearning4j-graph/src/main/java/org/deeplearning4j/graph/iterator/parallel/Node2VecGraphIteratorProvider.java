@@ -0,0 +1,74 @@
+package org.deeplearning4j.graph.iterator.parallel;
+
+import org.deeplearning4j.graph.api.IGraph;
+import org.deeplearning4j.graph.api.NoEdgeHandling;
+import org.deeplearning4j.graph.iterator.AliasTables;
+import org.deeplearning4j.graph.iterator.GraphWalkIterator;
+import org.deeplearning4j.graph.iterator.Node2VecWalkIterator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**node2vec graph iterator provider: given a graph, split up the generation of biased second-order (p,q) random walks
+ * for parallel learning. Specifically: with N threads and V vertices:
+ * - First iterator generates random walks starting at vertices 0 to V/N
+ * - Second iterator generates random walks starting at vertices V/N+1 to 2*V/N
+ * - and so on<br>
+ * The {@link AliasTables} for the graph are built once, and shared by all iterators.
+ * @param <V> Vertex type
+ * @see Node2VecWalkIterator
+ */
+public class Node2VecGraphIteratorProvider<V> implements GraphWalkIteratorProvider<V> {
+
+    private IGraph<V, ?> graph;
+    private AliasTables aliasTables;
+    private int walkLength;
+    private double p;
+    private double q;
+    private Random rng;
+    private NoEdgeHandling mode;
+
+    public Node2VecGraphIteratorProvider(IGraph<V, ?> graph, int walkLength, double p, double q) {
+        this(graph, walkLength, p, q, System.currentTimeMillis(), NoEdgeHandling.EXCEPTION_ON_DISCONNECTED);
+    }
+
+    public Node2VecGraphIteratorProvider(IGraph<V, ?> graph, int walkLength, double p, double q, long seed,
+                    NoEdgeHandling mode) {
+        this.graph = graph;
+        this.walkLength = walkLength;
+        this.p = p;
+        this.q = q;
+        this.rng = new Random(seed);
+        this.mode = mode;
+    }
+
+
+    @Override
+    public List<GraphWalkIterator<V>> getGraphWalkIterators(int numIterators) {
+        int nVertices = graph.numVertices();
+        if (numIterators > nVertices)
+            numIterators = nVertices;
+
+        int verticesPerIter = nVertices / numIterators;
+
+        if (aliasTables == null)
+            aliasTables = new AliasTables(graph);
+
+        List<GraphWalkIterator<V>> list = new ArrayList<>(numIterators);
+        int last = 0;
+        for (int i = 0; i < numIterators; i++) {
+            int from = last;
+            int to = Math.min(nVertices, from + verticesPerIter);
+            if (i == numIterators - 1)
+                to = nVertices;
+
+            GraphWalkIterator<V> iter = new Node2VecWalkIterator<>(graph, aliasTables, walkLength, p, q,
+                            rng.nextLong(), mode, from, to);
+            list.add(iter);
+            last = to;
+        }
+
+        return list;
+    }
+}
@@ -2,6 +2,7 @@ package org.deeplearning4j.graph.iterator.parallel;
 
 import org.deeplearning4j.graph.api.IGraph;
 import org.deeplearning4j.graph.api.NoEdgeHandling;
+import org.deeplearning4j.graph.iterator.AliasTables;
 import org.deeplearning4j.graph.iterator.GraphWalkIterator;
 import org.deeplearning4j.graph.iterator.WeightedRandomWalkIterator;
 
@@ -20,6 +21,7 @@ import java.util.Random;
 public class WeightedRandomWalkGraphIteratorProvider<V> implements GraphWalkIteratorProvider<V> {
 
     private IGraph<V, ? extends Number> graph;
+    private AliasTables aliasTables;
     private int walkLength;
     private Random rng;
     private NoEdgeHandling mode;
@@ -45,6 +47,10 @@ public class WeightedRandomWalkGraphIteratorProvider<V> implements GraphWalkIter
 
         int verticesPerIter = nVertices / numIterators;
 
+        //Alias tables are built once, and shared by all iterators
+        if (aliasTables == null)
+            aliasTables = new AliasTables(graph);
+
         List<GraphWalkIterator<V>> list = new ArrayList<>(numIterators);
         int last = 0;
         for (int i = 0; i < numIterators; i++) {
@@ -53,8 +59,8 @@ public class WeightedRandomWalkGraphIteratorProvider<V> implements GraphWalkIter
             if (i == numIterators - 1)
                 to = nVertices;
 
-            GraphWalkIterator<V> iter =
-                            new WeightedRandomWalkIterator<>(graph, walkLength, rng.nextLong(), mode, from, to);
+            GraphWalkIterator<V> iter = new WeightedRandomWalkIterator<>(graph, aliasTables, walkLength,
+                            rng.nextLong(), mode, from, to);
             list.add(iter);
             last = to;
         }
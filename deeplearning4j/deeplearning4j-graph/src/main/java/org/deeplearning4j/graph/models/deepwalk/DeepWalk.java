@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import org.deeplearning4j.graph.api.IGraph;
 import org.deeplearning4j.graph.api.IVertexSequence;
 import org.deeplearning4j.graph.api.NoEdgeHandling;
+import org.deeplearning4j.graph.graph.VertexSequence;
 import org.deeplearning4j.graph.iterator.GraphWalkIterator;
 import org.deeplearning4j.graph.iterator.parallel.GraphWalkIteratorProvider;
 import org.deeplearning4j.graph.iterator.parallel.RandomWalkGraphIteratorProvider;
@@ -154,10 +155,16 @@ public class DeepWalk<V, E> extends GraphVectorsImpl<V, E> {
             IVertexSequence<V> sequence = iterator.next();
 
             //Skipgram model:
-            int[] walk = new int[walkLength + 1];
-            int i = 0;
-            while (sequence.hasNext())
-                walk[i++] = sequence.next().vertexID();
+            int[] walk;
+            if (sequence instanceof VertexSequence) {
+                //Use vertex indices directly, avoiding creation of vertex objects (i.e., for CSRGraph)
+                walk = ((VertexSequence<V>) sequence).getIndices();
+            } else {
+                walk = new int[walkLength + 1];
+                int i = 0;
+                while (sequence.hasNext())
+                    walk[i++] = sequence.next().vertexID();
+            }
 
             skipGram(walk);
 
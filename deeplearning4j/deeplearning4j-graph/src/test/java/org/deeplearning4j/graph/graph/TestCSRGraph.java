@@ -0,0 +1,118 @@
+package org.deeplearning4j.graph.graph;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.deeplearning4j.graph.api.Edge;
+import org.deeplearning4j.graph.api.IGraph;
+import org.deeplearning4j.graph.api.IVertexSequence;
+import org.deeplearning4j.graph.data.GraphLoader;
+import org.deeplearning4j.graph.iterator.RandomWalkIterator;
+import org.deeplearning4j.graph.iterator.WeightedRandomWalkIterator;
+import org.deeplearning4j.graph.vertexfactory.StringVertexFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.io.ClassPathResource;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestCSRGraph {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test(timeout = 10000L)
+    public void testUndirectedSameAsGraph() throws Exception {
+        String path = new ClassPathResource("testgraph_7vertices.txt").getTempFileFromArchive().getAbsolutePath();
+
+        IGraph<String, String> graph = GraphLoader.loadUndirectedGraphEdgeListFile(path, 7, ",");
+        CSRGraph<String> csrGraph = GraphLoader.loadCSRGraph(path, 7, ",", false, false);
+
+        assertEquals(graph.numVertices(), csrGraph.numVertices());
+        assertFalse(csrGraph.isDirected());
+        assertFalse(csrGraph.isWeighted());
+        for (int i = 0; i < 7; i++) {
+            assertEquals(graph.getVertex(i), csrGraph.getVertex(i));
+            assertEquals(graph.getVertexDegree(i), csrGraph.getVertexDegree(i));
+            assertArrayEquals(graph.getConnectedVertexIndices(i), csrGraph.getConnectedVertexIndices(i));
+        }
+
+        //Every step of the walk should follow an edge
+        RandomWalkIterator<String> iter = new RandomWalkIterator<>(csrGraph, 8, 12345);
+        int count = 0;
+        while (iter.hasNext()) {
+            IVertexSequence<String> walk = iter.next();
+            assertEquals(9, walk.sequenceLength());
+            int last = walk.next().vertexID();
+            while (walk.hasNext()) {
+                int curr = walk.next().vertexID();
+                assertTrue(ArrayUtils.contains(csrGraph.getConnectedVertexIndices(last), curr));
+                last = curr;
+            }
+            count++;
+        }
+        assertEquals(7, count);
+    }
+
+    @Test(timeout = 10000L)
+    public void testWeightedDirectedSaveLoad() throws Exception {
+        String path = new ClassPathResource("WeightedGraph.txt").getTempFileFromArchive().getAbsolutePath();
+
+        IGraph<String, Double> graph = GraphLoader.loadWeightedEdgeListFile(path, 9, ",", true, "//");
+        CSRGraph<String> csrGraph = GraphLoader.loadCSRGraph(path, 9, ",", true, true, "//");
+
+        File file = new File(testDir.getRoot(), "graph.bin");
+        csrGraph.save(file);
+        CSRGraph<String> mapped = CSRGraph.load(file, new StringVertexFactory());
+
+        for (CSRGraph<String> g : new CSRGraph[] {csrGraph, mapped}) {
+            assertTrue(g.isDirected());
+            assertTrue(g.isWeighted());
+            for (int i = 0; i < 9; i++) {
+                List<Edge<Double>> expected = graph.getEdgesOut(i);
+                List<Edge<Double>> actual = g.getEdgesOut(i);
+                assertEquals(expected.size(), actual.size());
+                for (int j = 0; j < expected.size(); j++) {
+                    assertEquals(expected.get(j).getFrom(), actual.get(j).getFrom());
+                    assertEquals(expected.get(j).getTo(), actual.get(j).getTo());
+                    assertEquals(expected.get(j).getValue(), actual.get(j).getValue(), 1e-6);
+                    assertTrue(actual.get(j).isDirected());
+                }
+            }
+
+            WeightedRandomWalkIterator<String> iter = new WeightedRandomWalkIterator<>(g, 5, 12345);
+            while (iter.hasNext()) {
+                IVertexSequence<String> walk = iter.next();
+                assertEquals(6, walk.sequenceLength());
+                int last = walk.next().vertexID();
+                while (walk.hasNext()) {
+                    int curr = walk.next().vertexID();
+                    assertTrue(ArrayUtils.contains(g.getConnectedVertexIndices(last), curr));
+                    last = curr;
+                }
+            }
+        }
+    }
+
+    @Test(timeout = 10000L)
+    public void testBuilder() {
+        CSRGraph<String> graph = new CSRGraph.Builder<>(4, false, true, new StringVertexFactory())
+                        .addEdge(0, 1, 2.0).addEdge(1, 2, 3.0).addEdge(0, 1, 4.0).build();
+
+        //Multiple edges are allowed, and undirected edges are stored for both vertices
+        assertArrayEquals(new int[] {1, 1}, graph.getConnectedVertexIndices(0));
+        assertArrayEquals(new int[] {0, 2, 0}, graph.getConnectedVertexIndices(1));
+        assertArrayEquals(new int[] {1}, graph.getConnectedVertexIndices(2));
+        assertEquals(0, graph.getVertexDegree(3));
+        assertEquals(3.0, graph.getEdgesOut(2).get(0).getValue(), 0.0);
+
+        try {
+            graph.addEdge(2, 3, 1.0, false);
+            fail("Expected exception");
+        } catch (UnsupportedOperationException e) {
+            //expected
+        }
+    }
+}
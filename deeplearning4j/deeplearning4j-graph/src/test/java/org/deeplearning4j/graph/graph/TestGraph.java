@@ -3,16 +3,15 @@ package org.deeplearning4j.graph.graph;
 import org.apache.commons.lang3.ArrayUtils;
 import org.deeplearning4j.graph.api.*;
 import org.deeplearning4j.graph.data.GraphLoader;
-import org.deeplearning4j.graph.iterator.RandomWalkIterator;
-import org.deeplearning4j.graph.iterator.WeightedRandomWalkIterator;
+import org.deeplearning4j.graph.exception.NoEdgesException;
+import org.deeplearning4j.graph.iterator.*;
+import org.deeplearning4j.graph.iterator.parallel.Node2VecGraphIteratorProvider;
+import org.deeplearning4j.graph.vertexfactory.StringVertexFactory;
 import org.deeplearning4j.graph.vertexfactory.VertexFactory;
 import org.junit.Test;
 import org.nd4j.linalg.io.ClassPathResource;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.*;
@@ -223,4 +222,99 @@ public class TestGraph {
             assertTrue(set.contains(i));
         assertEquals(numVertices, walkCount);
     }
+
+    @Test(timeout = 10000L)
+    public void testAliasTables() {
+        //Star graph with skewed weights, plus a vertex with no edges
+        int numVertices = 6;
+        double[] weights = {1, 2, 3, 0, 14};
+        CSRGraph<String> graph = new CSRGraph.Builder<>(numVertices, true, true, new StringVertexFactory())
+                        .addEdge(0, 4, weights[4]).addEdge(0, 2, weights[2]).addEdge(0, 1, weights[1])
+                        .addEdge(0, 3, weights[3]).addEdge(0, 0, weights[0]).build();
+
+        AliasTables tables = new AliasTables(graph);
+        assertEquals(numVertices, tables.numVertices());
+        assertEquals(5, tables.getVertexDegree(0));
+        assertEquals(0, tables.getVertexDegree(5));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(tables.isConnected(0, i));
+            assertFalse(tables.isConnected(i + 1, 0));
+        }
+        assertFalse(tables.isConnected(0, 5));
+
+        int n = 200000;
+        double[] counts = new double[numVertices];
+        Random r = new Random(12345);
+        for (int i = 0; i < n; i++)
+            counts[tables.sample(0, r)]++;
+        for (int i = 0; i < weights.length; i++)
+            assertEquals(weights[i] / 20.0, counts[i] / n, 0.005);
+        assertEquals(0.0, counts[5], 0.0);
+
+        try {
+            tables.sample(5, r);
+            fail("Expected exception");
+        } catch (NoEdgesException e) {
+            //expected
+        }
+    }
+
+    @Test(timeout = 20000L)
+    public void testNode2VecWalkIterator() {
+        //Triangle 0-1-2, plus 1-3 with weight 2. Vertex 3 is not connected to 0
+        CSRGraph<String> graph = new CSRGraph.Builder<>(4, false, true, new StringVertexFactory()).addEdge(0, 1, 1.0)
+                        .addEdge(1, 2, 1.0).addEdge(2, 0, 1.0).addEdge(1, 3, 2.0).build();
+
+        //After 0 -> 1: unnormalized probabilities are w*bias: to 0: 1*(1/p), to 2: 1*1, to 3: 2*(1/q)
+        double p = 0.5;
+        double q = 4.0;
+        double[] expected = {2.0 / 3.5, 0, 1.0 / 3.5, 0.5 / 3.5};
+
+        int walkLength = 2;
+        Node2VecWalkIterator<String> iterator = new Node2VecWalkIterator<>(graph, walkLength, p, q, 12345);
+        double[] counts = new double[4];
+        int total = 0;
+        for (int i = 0; i < 20000; i++) {
+            iterator.reset();
+            while (iterator.hasNext()) {
+                IVertexSequence<String> walk = iterator.next();
+                assertEquals(walkLength + 1, walk.sequenceLength());
+                int[] indices = ((VertexSequence<String>) walk).getIndices();
+                for (int j = 1; j < indices.length; j++)
+                    assertTrue(ArrayUtils.contains(graph.getConnectedVertexIndices(indices[j - 1]), indices[j]));
+                if (indices[0] == 0 && indices[1] == 1) {
+                    counts[indices[2]]++;
+                    total++;
+                }
+            }
+        }
+        for (int i = 0; i < 4; i++)
+            assertEquals(expected[i], counts[i] / total, 0.02);
+    }
+
+    @Test(timeout = 10000L)
+    public void testNode2VecGraphIteratorProvider() {
+        Graph<String, String> graph = new Graph<>(10, false, new VFactory());
+        for (int i = 0; i < 9; i++)
+            graph.addEdge(i, i + 1, null, false);
+
+        List<GraphWalkIterator<String>> iterators =
+                        new Node2VecGraphIteratorProvider<>(graph, 4, 1.0, 2.0, 12345,
+                                        NoEdgeHandling.EXCEPTION_ON_DISCONNECTED).getGraphWalkIterators(3);
+        assertEquals(3, iterators.size());
+        Set<Integer> startIdxSet = new HashSet<>();
+        for (GraphWalkIterator<String> iter : iterators) {
+            while (iter.hasNext()) {
+                IVertexSequence<String> walk = iter.next();
+                int last = walk.next().vertexID();
+                assertTrue(startIdxSet.add(last));
+                while (walk.hasNext()) {
+                    int curr = walk.next().vertexID();
+                    assertEquals(1, Math.abs(curr - last));
+                    last = curr;
+                }
+            }
+        }
+        assertEquals(10, startIdxSet.size());
+    }
 }
@@ -20,11 +20,10 @@
 package org.deeplearning4j.plot;
 
 
-import com.google.common.util.concurrent.AtomicDouble;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.math3.util.FastMath;
 import org.deeplearning4j.clustering.sptree.DataPoint;
-import org.deeplearning4j.clustering.sptree.SpTree;
+import org.deeplearning4j.clustering.sptree.FlatSpTree;
 import org.deeplearning4j.clustering.vptree.VPTree;
 import org.deeplearning4j.nn.api.Model;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
@@ -57,7 +56,6 @@ import java.util.List;
 import java.util.Map;
 
 import static org.nd4j.linalg.factory.Nd4j.*;
-import static org.nd4j.linalg.ops.transforms.Transforms.pow;
 import static org.nd4j.linalg.ops.transforms.Transforms.sign;
 
 
@@ -104,7 +102,15 @@ public class BarnesHutTsne implements Model {
     private INDArray x;
     private int numDimensions = 0;
     public final static String Y_GRAD = "yIncs";
-    private SpTree tree;
+    private FlatSpTree tree;
+    //P matrix in compressed sparse row format, copied from rows/cols/vals when needed. Arrays the copies were made
+    //from are kept, so that copies are refreshed whenever rows/cols/vals are reassigned
+    private int[] rowP;
+    private int[] colP;
+    private double[] valP;
+    private INDArray rowPSource;
+    private INDArray colPSource;
+    private INDArray valPSource;
     private INDArray gains;
     private INDArray yIncs;
     private int vpTreeWorkers;
@@ -531,14 +537,17 @@ public class BarnesHutTsne implements Model {
                 vals = symmetrized(rows, cols, vals).divi(vals.sum(Integer.MAX_VALUE));
                 //lie about gradient
                 vals.muli(12);
+                valP = null;
 
                 for (int i = 0; i < maxIter; i++) {
                     step(vals, i);
 
                     if (i == switchMomentumIteration)
                         momentum = finalMomentum;
-                    if (i == stopLyingIteration)
+                    if (i == stopLyingIteration) {
                         vals.divi(12);
+                        valP = null;
+                    }
 
 
                     if (TrainingListener != null) {
@@ -681,27 +690,24 @@ public class BarnesHutTsne implements Model {
 
 
             // Get estimate of normalization term
-            INDArray buff = Nd4j.create(numDimensions);
-            AtomicDouble sum_Q = new AtomicDouble(0.0);
-            for (int n = 0; n < N; n++)
-                tree.computeNonEdgeForces(n, theta, buff, sum_Q);
+            int D = Y.columns();
+            double[] y = Y.dup('c').data().asDouble();
+            tree = new FlatSpTree(y, N, D);
+            double sumQ = tree.computeNonEdgeForces(theta, new double[y.length]);
 
             // Loop over all edges to compute t-SNE error
+            updateSparseP();
             double C = .0;
-            INDArray linear = Y;
             for (int n = 0; n < N; n++) {
-                int begin = rows.getInt(n);
-                int end = rows.getInt(n + 1);
-                int ind1 = n;
-                for (int i = begin; i < end; i++) {
-                    int ind2 = cols.getInt(i);
-                    buff.assign(linear.slice(ind1));
-                    buff.subi(linear.slice(ind2));
-
-                    double Q = pow(buff, 2).sum(Integer.MAX_VALUE).getDouble(0);
-                    Q = (1.0 / (1.0 + Q)) / sum_Q.doubleValue();
-                    C += vals.getDouble(i) * FastMath.log(vals.getDouble(i) + Nd4j.EPS_THRESHOLD)
-                            / (Q + Nd4j.EPS_THRESHOLD);
+                for (int i = rowP[n]; i < rowP[n + 1]; i++) {
+                    int m = colP[i];
+                    double Q = 0.0;
+                    for (int d = 0; d < D; d++) {
+                        double diff = y[n * D + d] - y[m * D + d];
+                        Q += diff * diff;
+                    }
+                    Q = (1.0 / (1.0 + Q)) / sumQ;
+                    C += valP[i] * FastMath.log((valP[i] + Nd4j.EPS_THRESHOLD) / (Q + Nd4j.EPS_THRESHOLD));
                 }
             }
 
@@ -796,19 +802,21 @@ public class BarnesHutTsne implements Model {
             if (gains == null)
                 gains = ones(Y.shape());
 
-            AtomicDouble sumQ = new AtomicDouble(0);
             /* Calculate gradient based on barnes hut approximation with positive and negative forces */
-            INDArray posF = Nd4j.create(Y.shape());
-            INDArray negF = Nd4j.create(Y.shape());
-            if (tree == null)
-                tree = new SpTree(Y);
-            tree.computeEdgeForces(rows, cols, vals, N, posF);
-
-            for (int n = 0; n < N; n++)
-                tree.computeNonEdgeForces(n, theta, negF.slice(n), sumQ);
+            int D = Y.columns();
+            double[] y = Y.dup('c').data().asDouble();
+            updateSparseP();
+            double[] posF = new double[y.length];
+            FlatSpTree.computeEdgeForces(rowP, colP, valP, y, D, posF);
 
+            //Points move every iteration, so the tree is rebuilt every time
+            tree = new FlatSpTree(y, N, D);
+            double[] negF = new double[y.length];
+            double sumQ = tree.computeNonEdgeForces(theta, negF);
 
-            INDArray dC = posF.subi(negF.divi(sumQ));
+            for (int i = 0; i < posF.length; i++)
+                posF[i] -= negF[i] / sumQ;
+            INDArray dC = Nd4j.create(posF, new int[] {N, D}, 'c');
 
             Gradient ret = new DefaultGradient();
             ret.gradientForVariable().put(Y_GRAD, dC);
@@ -816,6 +824,23 @@ public class BarnesHutTsne implements Model {
         }
     }
 
+    /**
+     * Copy the P matrix (rows, cols and vals) to primitive arrays, if they have changed since the last copy.
+     * Reassigned arrays are detected here, but vals modified in place require valP to be reset by the caller
+     */
+    private void updateSparseP() {
+        if (rowP == null || rowPSource != rows || colPSource != cols) {
+            rowP = rows.data().asInt();
+            colP = cols.data().asInt();
+            rowPSource = rows;
+            colPSource = cols;
+        }
+        if (valP == null || valPSource != vals) {
+            valP = vals.data().asDouble();
+            valPSource = vals;
+        }
+    }
+
     @Override
     public Pair<Gradient, Double> gradientAndScore() {
         return new Pair<>(gradient(), score());
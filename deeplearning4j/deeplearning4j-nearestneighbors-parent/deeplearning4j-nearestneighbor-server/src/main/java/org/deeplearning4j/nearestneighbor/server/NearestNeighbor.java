@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import org.deeplearning4j.clustering.sptree.DataPoint;
 import org.deeplearning4j.clustering.vptree.VPTree;
+import org.deeplearning4j.clustering.vptree.VPTreeIndex;
 import org.deeplearning4j.nearestneighbor.model.NearestNeighborRequest;
 import org.deeplearning4j.nearestneighbor.model.NearestNeighborsResult;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -20,14 +21,19 @@ public class NearestNeighbor {
     private NearestNeighborRequest record;
     private VPTree tree;
     private INDArray points;
+    // if set, tree & points are ignored, and input index is the point id within the index
+    private VPTreeIndex index;
 
     public List<NearestNeighborsResult> search() {
-        INDArray input = points.slice(record.getInputIndex());
+        INDArray input = index != null ? index.getPoint(record.getInputIndex()) : points.slice(record.getInputIndex());
         List<NearestNeighborsResult> results = new ArrayList<>();
-        if (input.isVector()) {
+        if (input != null && input.isVector()) {
             List<DataPoint> add = new ArrayList<>();
             List<Double> distances = new ArrayList<>();
-            tree.search(input, record.getK(), add, distances);
+            if (index != null)
+                index.search(input, record.getK(), add, distances);
+            else
+                tree.search(input, record.getK(), add, distances);
 
             if (add.size() != distances.size()) {
                 throw new IllegalStateException(
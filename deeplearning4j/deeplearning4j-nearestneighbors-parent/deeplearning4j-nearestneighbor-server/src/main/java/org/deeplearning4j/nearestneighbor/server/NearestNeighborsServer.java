@@ -7,7 +7,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.deeplearning4j.clustering.sptree.DataPoint;
 import org.deeplearning4j.clustering.vptree.VPTree;
-import org.deeplearning4j.clustering.vptree.VPTreeFillSearch;
+import org.deeplearning4j.clustering.vptree.VPTreeIndex;
 import org.deeplearning4j.exception.DL4JInvalidInputException;
 import org.deeplearning4j.nearestneighbor.model.*;
 import org.nd4j.linalg.api.buffer.DataBuffer;
@@ -31,7 +31,11 @@ import static play.mvc.Results.*;
 /**
  * A rest server for using an
  * {@link VPTree} based on loading an ndarray containing
- * the data points for the path
+ * the data points for the path.
+ *
+ * Points are held in {@link VPTreeIndex}, so they can be inserted & deleted via /insert and /delete
+ * endpoints without restarting the server. If --indexPath is specified, index is loaded from there
+ * (instead of --ndarrayPath), and saved there on startup & via /save endpoint.
  * The input values are an {@link CSVRecord}
  * which (based on the input schema) will automatically
  * have their values transformed.
@@ -40,8 +44,10 @@ import static play.mvc.Results.*;
  */
 @Slf4j
 public class NearestNeighborsServer {
-    @Parameter(names = {"--ndarrayPath"}, arity = 1, required = true)
+    @Parameter(names = {"--ndarrayPath"}, arity = 1, required = false)
     private String ndarrayPath = null;
+    @Parameter(names = {"--indexPath"}, arity = 1, required = false)
+    private String indexPath = null;
     @Parameter(names = {"--labelsPath"}, arity = 1, required = false)
     private String labelsPath = null;
     @Parameter(names = {"--nearestNeighborsPort"}, arity = 1)
@@ -52,6 +58,7 @@ public class NearestNeighborsServer {
     private boolean invert = false;
 
     private Server server;
+    private VPTreeIndex index;
 
     public void runMain(String... args) throws Exception {
         JCommander jcmdr = new JCommander(this);
@@ -83,30 +90,6 @@ public class NearestNeighborsServer {
     }
 
     protected void runHelper() throws Exception {
-
-        String[] pathArr = ndarrayPath.split(",");
-        //INDArray[] pointsArr = new INDArray[pathArr.length];
-        // first of all we reading shapes of saved eariler files
-        int rows = 0;
-        int cols = 0;
-        for (int i = 0; i < pathArr.length; i++) {
-            DataBuffer shape = BinarySerde.readShapeFromDisk(new File(pathArr[i]));
-
-            log.info("Loading shape {} of {}; Shape: [{} x {}]", i + 1, pathArr.length, Shape.size(shape, 0),
-                            Shape.size(shape, 1));
-
-            if (Shape.rank(shape) != 2)
-                throw new DL4JInvalidInputException("NearestNeighborsServer assumes 2D chunks");
-
-            rows += Shape.size(shape, 0);
-
-            if (cols == 0)
-                cols = Shape.size(shape, 1);
-            else if (cols != Shape.size(shape, 1))
-                throw new DL4JInvalidInputException(
-                                "NearestNeighborsServer requires equal 2D chunks. Got columns mismatch.");
-        }
-
         final List<String> labels = new ArrayList<>();
         if (labelsPath != null) {
             String[] labelsPathArr = labelsPath.split(",");
@@ -114,32 +97,32 @@ public class NearestNeighborsServer {
                 labels.addAll(FileUtils.readLines(new File(labelsPathArr[i]), "utf-8"));
             }
         }
-        if (!labels.isEmpty() && labels.size() != rows)
-            throw new DL4JInvalidInputException(String.format("Number of labels must match number of rows in points matrix (expected %d, found %d)", rows, labels.size()));
-
-        final INDArray points = Nd4j.createUninitialized(rows, cols);
-
-        int lastPosition = 0;
-        for (int i = 0; i < pathArr.length; i++) {
-            log.info("Loading chunk {} of {}", i + 1, pathArr.length);
-            INDArray pointsArr = BinarySerde.readFromDisk(new File(pathArr[i]));
 
-            points.get(NDArrayIndex.interval(lastPosition, lastPosition + pointsArr.rows())).assign(pointsArr);
-            lastPosition += pointsArr.rows();
+        File indexFile = indexPath == null ? null : new File(indexPath);
+        if (indexFile != null && indexFile.exists()) {
+            log.info("Loading index from {}", indexFile.getAbsolutePath());
+            index = VPTreeIndex.load(indexFile);
+            if (!similarityFunction.equals(index.getSimilarityFunction()))
+                log.warn("Index was built with similarity function {}, ignoring --similarityFunction {}",
+                                index.getSimilarityFunction(), similarityFunction);
+        } else {
+            if (ndarrayPath == null)
+                throw new DL4JInvalidInputException("Either --ndarrayPath or existing --indexPath should be specified");
 
-            // let's ensure we don't bring too much stuff in next loop
-            System.gc();
+            index = new VPTreeIndex(loadPoints(labels), similarityFunction, invert);
+            if (indexFile != null) {
+                log.info("Saving index to {}", indexFile.getAbsolutePath());
+                index.save(indexFile);
+            }
         }
 
-        VPTree tree = new VPTree(points, similarityFunction, invert);
-
         RoutingDsl routingDsl = new RoutingDsl();
         //return the host information for a given id
         routingDsl.POST("/knn").routeTo(FunctionUtil.function0((() -> {
             try {
                 NearestNeighborRequest record = Json.fromJson(request().body().asJson(), NearestNeighborRequest.class);
                 NearestNeighbor nearestNeighbor =
-                                NearestNeighbor.builder().points(points).record(record).tree(tree).build();
+                                NearestNeighbor.builder().index(index).record(record).build();
 
                 if (record == null)
                     return badRequest(Json.toJson(Collections.singletonMap("status", "invalid json passed.")));
@@ -164,18 +147,15 @@ public class NearestNeighborsServer {
                     return badRequest(Json.toJson(Collections.singletonMap("status", "invalid json passed.")));
 
                 INDArray arr = Nd4jBase64.fromBase64(record.getNdarray());
-                List<DataPoint> results;
-                List<Double> distances;
+                List<DataPoint> results = new ArrayList<>();
+                List<Double> distances = new ArrayList<>();
 
+                // index search is exact, so it always fills k results if there's enough points
+                index.search(arr, record.getK(), results, distances);
                 if (record.isForceFillK()) {
-                    VPTreeFillSearch vpTreeFillSearch = new VPTreeFillSearch(tree, record.getK(), arr);
-                    vpTreeFillSearch.search();
-                    results = vpTreeFillSearch.getResults();
-                    distances = vpTreeFillSearch.getDistances();
-                } else {
-                    results = new ArrayList<>();
-                    distances = new ArrayList<>();
-                    tree.search(arr, record.getK(), results, distances);
+                    // fill search returns results nearest first
+                    Collections.reverse(results);
+                    Collections.reverse(distances);
                 }
 
                 if (results.size() != distances.size()) {
@@ -184,15 +164,7 @@ public class NearestNeighborsServer {
                                     results.size(), distances.size()));
                 }
 
-                List<NearestNeighborsResult> nnResult = new ArrayList<>();
-                for (int i=0; i<results.size(); i++) {
-                    if (!labels.isEmpty())
-                        nnResult.add(new NearestNeighborsResult(results.get(i).getIndex(), distances.get(i), labels.get(results.get(i).getIndex())));
-                    else
-                        nnResult.add(new NearestNeighborsResult(results.get(i).getIndex(), distances.get(i)));
-                }
-
-                NearestNeighborsResults results2 = NearestNeighborsResults.builder().results(nnResult).build();
+                NearestNeighborsResults results2 = toResults(results, distances, labels);
                 return ok(Json.toJson(results2));
 
             } catch (Throwable e) {
@@ -202,6 +174,83 @@ public class NearestNeighborsServer {
             }
         })));
 
+        routingDsl.POST("/knnnewbatch").routeTo(FunctionUtil.function0((() -> {
+            try {
+                Base64NDArrayBody record = Json.fromJson(request().body().asJson(), Base64NDArrayBody.class);
+                if (record == null || record.getNdarray() == null)
+                    return badRequest(Json.toJson(Collections.singletonMap("status", "invalid json passed.")));
+
+                INDArray arr = Nd4jBase64.fromBase64(record.getNdarray());
+                if (arr.isVector())
+                    arr = arr.reshape(1, arr.length());
+
+                List<List<DataPoint>> results = new ArrayList<>();
+                List<List<Double>> distances = new ArrayList<>();
+                index.searchBatch(arr, record.getK(), results, distances);
+
+                List<NearestNeighborsResults> batch = new ArrayList<>(results.size());
+                for (int i = 0; i < results.size(); i++)
+                    batch.add(toResults(results.get(i), distances.get(i), labels));
+
+                return ok(Json.toJson(NearestNeighborsBatchResults.builder().results(batch).build()));
+            } catch (Throwable e) {
+                log.error("Error in POST /knnnewbatch",e);
+                e.printStackTrace();
+                return internalServerError(e.getMessage());
+            }
+        })));
+
+        routingDsl.POST("/insert").routeTo(FunctionUtil.function0((() -> {
+            try {
+                Base64NDArrayBody record = Json.fromJson(request().body().asJson(), Base64NDArrayBody.class);
+                if (record == null || record.getNdarray() == null)
+                    return badRequest(Json.toJson(Collections.singletonMap("status", "invalid json passed.")));
+
+                INDArray arr = Nd4jBase64.fromBase64(record.getNdarray());
+                int[] ids = index.insert(arr);
+
+                return ok(Json.toJson(NearestNeighborsInsertResult.builder().ids(ids).build()));
+            } catch (Throwable e) {
+                log.error("Error in POST /insert",e);
+                e.printStackTrace();
+                return internalServerError(e.getMessage());
+            }
+        })));
+
+        routingDsl.POST("/delete").routeTo(FunctionUtil.function0((() -> {
+            try {
+                NearestNeighborsDeleteRequest record =
+                                Json.fromJson(request().body().asJson(), NearestNeighborsDeleteRequest.class);
+                if (record == null || record.getIds() == null)
+                    return badRequest(Json.toJson(Collections.singletonMap("status", "invalid json passed.")));
+
+                int deleted = 0;
+                for (int id : record.getIds())
+                    if (index.delete(id))
+                        deleted++;
+
+                return ok(Json.toJson(Collections.singletonMap("deleted", deleted)));
+            } catch (Throwable e) {
+                log.error("Error in POST /delete",e);
+                e.printStackTrace();
+                return internalServerError(e.getMessage());
+            }
+        })));
+
+        routingDsl.POST("/save").routeTo(FunctionUtil.function0((() -> {
+            try {
+                if (indexPath == null)
+                    return badRequest(Json.toJson(Collections.singletonMap("status", "--indexPath wasn't specified")));
+
+                index.save(new File(indexPath));
+                return ok(Json.toJson(Collections.singletonMap("status", "saved")));
+            } catch (Throwable e) {
+                log.error("Error in POST /save",e);
+                e.printStackTrace();
+                return internalServerError(e.getMessage());
+            }
+        })));
+
         //Set play secret key, if required
         //http://www.playframework.com/documentation/latest/ApplicationSecret
         String crypto = System.getProperty("play.crypto.secret");
@@ -219,6 +268,64 @@ public class NearestNeighborsServer {
 
     }
 
+    protected NearestNeighborsResults toResults(List<DataPoint> results, List<Double> distances, List<String> labels) {
+        List<NearestNeighborsResult> nnResult = new ArrayList<>();
+        for (int i=0; i<results.size(); i++) {
+            int id = results.get(i).getIndex();
+            // points inserted after startup don't have labels
+            if (id < labels.size())
+                nnResult.add(new NearestNeighborsResult(id, distances.get(i), labels.get(id)));
+            else
+                nnResult.add(new NearestNeighborsResult(id, distances.get(i)));
+        }
+
+        return NearestNeighborsResults.builder().results(nnResult).build();
+    }
+
+    protected INDArray loadPoints(List<String> labels) throws Exception {
+        String[] pathArr = ndarrayPath.split(",");
+        //INDArray[] pointsArr = new INDArray[pathArr.length];
+        // first of all we reading shapes of saved eariler files
+        int rows = 0;
+        int cols = 0;
+        for (int i = 0; i < pathArr.length; i++) {
+            DataBuffer shape = BinarySerde.readShapeFromDisk(new File(pathArr[i]));
+
+            log.info("Loading shape {} of {}; Shape: [{} x {}]", i + 1, pathArr.length, Shape.size(shape, 0),
+                            Shape.size(shape, 1));
+
+            if (Shape.rank(shape) != 2)
+                throw new DL4JInvalidInputException("NearestNeighborsServer assumes 2D chunks");
+
+            rows += Shape.size(shape, 0);
+
+            if (cols == 0)
+                cols = Shape.size(shape, 1);
+            else if (cols != Shape.size(shape, 1))
+                throw new DL4JInvalidInputException(
+                                "NearestNeighborsServer requires equal 2D chunks. Got columns mismatch.");
+        }
+
+        if (!labels.isEmpty() && labels.size() != rows)
+            throw new DL4JInvalidInputException(String.format("Number of labels must match number of rows in points matrix (expected %d, found %d)", rows, labels.size()));
+
+        final INDArray points = Nd4j.createUninitialized(rows, cols);
+
+        int lastPosition = 0;
+        for (int i = 0; i < pathArr.length; i++) {
+            log.info("Loading chunk {} of {}", i + 1, pathArr.length);
+            INDArray pointsArr = BinarySerde.readFromDisk(new File(pathArr[i]));
+
+            points.get(NDArrayIndex.interval(lastPosition, lastPosition + pointsArr.rows())).assign(pointsArr);
+            lastPosition += pointsArr.rows();
+
+            // let's ensure we don't bring too much stuff in next loop
+            System.gc();
+        }
+
+        return points;
+    }
+
     /**
      * Stop the server
      */
@@ -227,6 +334,8 @@ public class NearestNeighborsServer {
             log.info("Attempting to stop server");
             server.stop();
         }
+        if (index != null)
+            index.close();
     }
 
     public static void main(String[] args) throws Exception {
@@ -107,6 +107,83 @@ public class NearestNeighborsClient {
     }
 
 
+    /**
+     * Run k nearest neighbors search
+     * on a batch of NEW data points
+     * @param k the number of results
+     *          to retrieve for each point
+     * @param arr the points to run the search on,
+     *            one point per row
+     * @return results for each point, in row order
+     * @throws Exception
+     */
+    public NearestNeighborsBatchResults knnNewBatch(int k, INDArray arr) throws Exception {
+        Base64NDArrayBody base64NDArrayBody =
+                        Base64NDArrayBody.builder().k(k).ndarray(Nd4jBase64.base64String(arr)).build();
+
+        HttpRequestWithBody req = Unirest.post(url + "/knnnewbatch");
+        req.header("accept", "application/json")
+                .header("Content-Type", "application/json").body(base64NDArrayBody);
+        addAuthHeader(req);
+
+        NearestNeighborsBatchResults ret = req.asObject(NearestNeighborsBatchResults.class).getBody();
+
+        return ret;
+    }
+
+    /**
+     * Insert new points into the server's index
+     * @param arr the points to insert, one point per row.
+     *            Row vector is treated as a single point
+     * @return ids assigned to the inserted points,
+     * these can be used with {@link #knn(int, int)} and {@link #delete(int...)}
+     * @throws Exception
+     */
+    public int[] insert(INDArray arr) throws Exception {
+        Base64NDArrayBody base64NDArrayBody =
+                        Base64NDArrayBody.builder().ndarray(Nd4jBase64.base64String(arr)).build();
+
+        HttpRequestWithBody req = Unirest.post(url + "/insert");
+        req.header("accept", "application/json")
+                .header("Content-Type", "application/json").body(base64NDArrayBody);
+        addAuthHeader(req);
+
+        NearestNeighborsInsertResult ret = req.asObject(NearestNeighborsInsertResult.class).getBody();
+        return ret.getIds();
+    }
+
+    /**
+     * Delete points from the server's index
+     * @param ids the ids of the points to delete
+     * @throws Exception
+     */
+    public void delete(int... ids) throws Exception {
+        NearestNeighborsDeleteRequest request = NearestNeighborsDeleteRequest.builder().ids(ids).build();
+
+        HttpRequestWithBody req = Unirest.post(url + "/delete");
+        req.header("accept", "application/json")
+                .header("Content-Type", "application/json").body(request);
+        addAuthHeader(req);
+
+        req.asString();
+    }
+
+    /**
+     * Save the server's index to the index path
+     * the server was started with
+     * @throws Exception
+     */
+    public void save() throws Exception {
+        HttpRequestWithBody req = Unirest.post(url + "/save");
+        req.header("accept", "application/json");
+        addAuthHeader(req);
+
+        int status = req.asString().getStatus();
+        if (status != 200)
+            throw new IllegalStateException("Unable to save index, server returned status " + status);
+    }
+
+
     /**
      * Add the specified authentication header to the specified HttpRequest
      *
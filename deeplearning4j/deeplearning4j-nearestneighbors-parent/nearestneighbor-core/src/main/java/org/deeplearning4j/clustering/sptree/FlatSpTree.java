@@ -0,0 +1,443 @@
+package org.deeplearning4j.clustering.sptree;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Space partitioning tree for Barnes-Hut approximations (as used in t-SNE), stored as flat primitive arrays.
+ *
+ * Unlike {@link SpTree}, which creates a tree object, a {@link Cell} and several INDArrays per node and computes
+ * forces with one op per visited node, this tree keeps all node data in a few arrays indexed by node number:
+ * point range, center of mass, maximum half width and children. Points are reordered during construction so that
+ * the points of every subtree are contiguous, and only non-empty children are stored, contiguously after each other.
+ * Building the tree is O(N log N), and cheap enough to rebuild on every iteration.
+ *
+ * Leaves hold up to leafCapacity points, and interactions with points in leaves are computed exactly.
+ * Forces for all points are computed in parallel, on a shared fork-join pool.
+ *
+ * PLEASE NOTE: the tree keeps a reference to the data array, which should not be modified while the tree is used.
+ *
+ * @see SpTree
+ */
+public class FlatSpTree {
+    public static final int DEFAULT_LEAF_CAPACITY = 1;
+    public static final int MAX_DIMENSIONS = 8;
+    protected static final int MAX_DEPTH = 48;
+    protected static final int CHUNK_SIZE = 256;
+
+    private static ForkJoinPool pool;
+
+    private final double[] data;
+    @Getter
+    private final int numPoints;
+    @Getter
+    private final int numDimensions;
+    private final int leafCapacity;
+
+    // points, reordered so that each node covers the range [nodeStart, nodeStart + nodeSize)
+    private final int[] pointIndices;
+
+    @Getter
+    private int numNodes;
+    @Getter
+    private int depth;
+    private int[] nodeStart;
+    private int[] nodeSize;
+    private int[] nodeFirstChild;       // -1 for leaves
+    private int[] nodeNumChildren;
+    private double[] nodeMaxWidth;
+    private double[] nodeCenterOfMass;  // numNodes x numDimensions, row major
+
+    // construction scratch
+    private int[] codes;
+    private int[] scratch;
+
+    /**
+     * @param data points, one per row
+     */
+    public FlatSpTree(@NonNull INDArray data) {
+        this(data.dup('c').data().asDouble(), data.rows(), data.columns(), DEFAULT_LEAF_CAPACITY);
+    }
+
+    /**
+     * @param data          points, row major: point i occupies data[i * numDimensions, (i + 1) * numDimensions)
+     * @param numPoints     number of points
+     * @param numDimensions number of dimensions, no more than {@link #MAX_DIMENSIONS}
+     */
+    public FlatSpTree(@NonNull double[] data, int numPoints, int numDimensions) {
+        this(data, numPoints, numDimensions, DEFAULT_LEAF_CAPACITY);
+    }
+
+    /**
+     * @param data          points, row major: point i occupies data[i * numDimensions, (i + 1) * numDimensions)
+     * @param numPoints     number of points
+     * @param numDimensions number of dimensions, no more than {@link #MAX_DIMENSIONS}
+     * @param leafCapacity  nodes with this number of points or less aren't subdivided
+     */
+    public FlatSpTree(@NonNull double[] data, int numPoints, int numDimensions, int leafCapacity) {
+        if (numDimensions < 1 || numDimensions > MAX_DIMENSIONS)
+            throw new IllegalArgumentException("Number of dimensions should be between 1 and " + MAX_DIMENSIONS
+                            + ", got " + numDimensions);
+        if (numPoints < 1 || data.length < (long) numPoints * numDimensions)
+            throw new IllegalArgumentException("Expected at least " + ((long) numPoints * numDimensions)
+                            + " values for " + numPoints + " points, got " + data.length);
+        if (leafCapacity < 1)
+            throw new IllegalArgumentException("Leaf capacity should be positive, got " + leafCapacity);
+
+        this.data = data;
+        this.numPoints = numPoints;
+        this.numDimensions = numDimensions;
+        this.leafCapacity = leafCapacity;
+
+        pointIndices = new int[numPoints];
+        for (int i = 0; i < numPoints; i++)
+            pointIndices[i] = i;
+
+        int capacity = Math.max(16, 2 * numPoints / leafCapacity);
+        nodeStart = new int[capacity];
+        nodeSize = new int[capacity];
+        nodeFirstChild = new int[capacity];
+        nodeNumChildren = new int[capacity];
+        nodeMaxWidth = new double[capacity];
+        nodeCenterOfMass = new double[capacity * numDimensions];
+
+        // root cell is centered at the mean, and covers all points
+        double[] mean = new double[numDimensions];
+        double[] min = new double[numDimensions];
+        double[] max = new double[numDimensions];
+        for (int d = 0; d < numDimensions; d++) {
+            min[d] = Double.POSITIVE_INFINITY;
+            max[d] = Double.NEGATIVE_INFINITY;
+        }
+        for (int i = 0; i < numPoints; i++) {
+            for (int d = 0; d < numDimensions; d++) {
+                double v = data[i * numDimensions + d];
+                mean[d] += v;
+                min[d] = Math.min(min[d], v);
+                max[d] = Math.max(max[d], v);
+            }
+        }
+        double[] halfWidth = new double[numDimensions];
+        for (int d = 0; d < numDimensions; d++) {
+            mean[d] /= numPoints;
+            halfWidth[d] = Math.max(max[d] - mean[d], mean[d] - min[d]) + 1e-5;
+        }
+
+        codes = new int[numPoints];
+        scratch = new int[numPoints];
+        numNodes = 1;
+        build(0, 0, numPoints, mean, halfWidth, 1);
+        codes = null;
+        scratch = null;
+    }
+
+    private void build(int node, int start, int end, double[] center, double[] halfWidth, int level) {
+        int size = end - start;
+        nodeStart[node] = start;
+        nodeSize[node] = size;
+        depth = Math.max(depth, level);
+
+        double maxWidth = 0.0;
+        for (int d = 0; d < numDimensions; d++)
+            maxWidth = Math.max(maxWidth, halfWidth[d]);
+        nodeMaxWidth[node] = maxWidth;
+
+        int comOffset = node * numDimensions;
+        for (int p = start; p < end; p++) {
+            int pointOffset = pointIndices[p] * numDimensions;
+            for (int d = 0; d < numDimensions; d++)
+                nodeCenterOfMass[comOffset + d] += data[pointOffset + d];
+        }
+        for (int d = 0; d < numDimensions; d++)
+            nodeCenterOfMass[comOffset + d] /= size;
+
+        if (size <= leafCapacity || level >= MAX_DEPTH) {
+            nodeFirstChild[node] = -1;
+            nodeNumChildren[node] = 0;
+            return;
+        }
+
+        // counting sort of the points by orthant
+        int numOrthants = 1 << numDimensions;
+        int[] counts = new int[numOrthants + 1];
+        for (int p = start; p < end; p++) {
+            int pointOffset = pointIndices[p] * numDimensions;
+            int code = 0;
+            for (int d = 0; d < numDimensions; d++)
+                if (data[pointOffset + d] > center[d])
+                    code |= 1 << d;
+            codes[p] = code;
+            counts[code + 1]++;
+        }
+        int numChildren = 0;
+        for (int c = 0; c < numOrthants; c++) {
+            if (counts[c + 1] > 0)
+                numChildren++;
+            counts[c + 1] += counts[c];
+        }
+        for (int p = start; p < end; p++)
+            scratch[start + counts[codes[p]]++] = pointIndices[p];
+        System.arraycopy(scratch, start, pointIndices, start, size);
+
+        int firstChild = allocate(numChildren);
+        nodeFirstChild[node] = firstChild;
+        nodeNumChildren[node] = numChildren;
+
+        // counts[c] is now the end of orthant c
+        int child = firstChild;
+        int childStart = start;
+        for (int c = 0; c < numOrthants; c++) {
+            int childEnd = start + counts[c];
+            if (childEnd == childStart)
+                continue;
+
+            double[] childCenter = new double[numDimensions];
+            double[] childHalfWidth = new double[numDimensions];
+            for (int d = 0; d < numDimensions; d++) {
+                childHalfWidth[d] = 0.5 * halfWidth[d];
+                childCenter[d] = (c & (1 << d)) != 0 ? center[d] + childHalfWidth[d] : center[d] - childHalfWidth[d];
+            }
+            build(child++, childStart, childEnd, childCenter, childHalfWidth, level + 1);
+            childStart = childEnd;
+        }
+    }
+
+    private int allocate(int count) {
+        int first = numNodes;
+        numNodes += count;
+        if (numNodes > nodeStart.length) {
+            int capacity = Math.max(numNodes, nodeStart.length + (nodeStart.length >> 1));
+            nodeStart = Arrays.copyOf(nodeStart, capacity);
+            nodeSize = Arrays.copyOf(nodeSize, capacity);
+            nodeFirstChild = Arrays.copyOf(nodeFirstChild, capacity);
+            nodeNumChildren = Arrays.copyOf(nodeNumChildren, capacity);
+            nodeMaxWidth = Arrays.copyOf(nodeMaxWidth, capacity);
+            nodeCenterOfMass = Arrays.copyOf(nodeCenterOfMass, capacity * numDimensions);
+        }
+        return first;
+    }
+
+    protected static synchronized ForkJoinPool getPool() {
+        if (pool == null)
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        return pool;
+    }
+
+    /**
+     * Number of points in the subtree of the given node
+     */
+    public int getCumSize(int node) {
+        return nodeSize[node];
+    }
+
+    /**
+     * Center of mass of the points in the subtree of the given node
+     */
+    public double[] getCenterOfMass(int node) {
+        double[] ret = new double[numDimensions];
+        System.arraycopy(nodeCenterOfMass, node * numDimensions, ret, 0, numDimensions);
+        return ret;
+    }
+
+    /**
+     * @return true if the given node has no children
+     */
+    public boolean isLeaf(int node) {
+        return nodeFirstChild[node] < 0;
+    }
+
+    /**
+     * Compute non edge (repulsive) forces for a single point, using Barnes-Hut approximation.
+     *
+     * @param pointIndex    point to compute forces for
+     * @param theta         accuracy/speed trade off: a node is used as a summary if its max half width divided by the
+     *                      distance to its center of mass is less than theta. 0 means exact forces
+     * @param negativeForce array to add unnormalized forces to, at {@code pointIndex * numDimensions}
+     * @param stack         traversal stack, as returned by {@link #createStack()}
+     * @return contribution of this point to the normalization term (sum of Q)
+     */
+    public double computeNonEdgeForces(int pointIndex, double theta, double[] negativeForce, int[] stack) {
+        int pointOffset = pointIndex * numDimensions;
+        double sumQ = 0.0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int comOffset = node * numDimensions;
+            double dist = 0.0;
+            for (int d = 0; d < numDimensions; d++) {
+                double diff = data[pointOffset + d] - nodeCenterOfMass[comOffset + d];
+                dist += diff * diff;
+            }
+
+            if (nodeFirstChild[node] < 0) {
+                // exact interactions with the points of this leaf, excluding self interaction
+                int end = nodeStart[node] + nodeSize[node];
+                for (int p = nodeStart[node]; p < end; p++) {
+                    int other = pointIndices[p];
+                    if (other == pointIndex)
+                        continue;
+                    int otherOffset = other * numDimensions;
+                    double otherDist = 0.0;
+                    for (int d = 0; d < numDimensions; d++) {
+                        double diff = data[pointOffset + d] - data[otherOffset + d];
+                        otherDist += diff * diff;
+                    }
+                    double q = 1.0 / (1.0 + otherDist);
+                    sumQ += q;
+                    double mult = q * q;
+                    for (int d = 0; d < numDimensions; d++)
+                        negativeForce[pointOffset + d] += mult * (data[pointOffset + d] - data[otherOffset + d]);
+                }
+            } else if (nodeMaxWidth[node] / Math.sqrt(dist) < theta) {
+                // use this node as a summary
+                double q = 1.0 / (1.0 + dist);
+                double mult = nodeSize[node] * q;
+                sumQ += mult;
+                mult *= q;
+                for (int d = 0; d < numDimensions; d++)
+                    negativeForce[pointOffset + d] += mult
+                                    * (data[pointOffset + d] - nodeCenterOfMass[comOffset + d]);
+            } else {
+                int firstChild = nodeFirstChild[node];
+                for (int c = nodeNumChildren[node] - 1; c >= 0; c--)
+                    stack[top++] = firstChild + c;
+            }
+        }
+        return sumQ;
+    }
+
+    /**
+     * Compute non edge (repulsive) forces for all points in parallel, using Barnes-Hut approximation.
+     *
+     * @param theta         accuracy/speed trade off, see {@link #computeNonEdgeForces(int, double, double[], int[])}
+     * @param negativeForce array to add unnormalized forces to, numPoints x numDimensions, row major
+     * @return normalization term (sum of Q over all pairs of points)
+     */
+    public double computeNonEdgeForces(double theta, @NonNull double[] negativeForce) {
+        NonEdgeTask task = new NonEdgeTask(theta, negativeForce, 0, numPoints);
+        if (numPoints <= CHUNK_SIZE)
+            return task.compute();
+        return getPool().invoke(task);
+    }
+
+    /**
+     * @return stack big enough for the traversal in {@link #computeNonEdgeForces(int, double, double[], int[])}
+     */
+    public int[] createStack() {
+        return new int[depth * (1 << numDimensions) + 1];
+    }
+
+    /**
+     * Compute edge (attractive) forces for all points in parallel, for a sparse matrix of input similarities P
+     * in compressed sparse row format.
+     *
+     * @param rowP          row pointers: values of row n are at [rowP[n], rowP[n + 1])
+     * @param colP          column indices
+     * @param valP          values
+     * @param data          points, row major
+     * @param numDimensions number of dimensions
+     * @param positiveForce array to add forces to, numPoints x numDimensions, row major
+     */
+    public static void computeEdgeForces(@NonNull int[] rowP, @NonNull int[] colP, @NonNull double[] valP,
+                    @NonNull double[] data, int numDimensions, @NonNull double[] positiveForce) {
+        int numPoints = rowP.length - 1;
+        EdgeTask task = new EdgeTask(rowP, colP, valP, data, numDimensions, positiveForce, 0, numPoints);
+        if (numPoints <= CHUNK_SIZE)
+            task.compute();
+        else
+            getPool().invoke(task);
+    }
+
+    protected static void computeEdgeForces(int[] rowP, int[] colP, double[] valP, double[] data, int numDimensions,
+                    double[] positiveForce, int firstPoint, int lastPoint) {
+        for (int n = firstPoint; n < lastPoint; n++) {
+            int offset = n * numDimensions;
+            for (int i = rowP[n]; i < rowP[n + 1]; i++) {
+                int otherOffset = colP[i] * numDimensions;
+                double dist = 1.0;
+                for (int d = 0; d < numDimensions; d++) {
+                    double diff = data[offset + d] - data[otherOffset + d];
+                    dist += diff * diff;
+                }
+                double mult = valP[i] / dist;
+                for (int d = 0; d < numDimensions; d++)
+                    positiveForce[offset + d] += mult * (data[offset + d] - data[otherOffset + d]);
+            }
+        }
+    }
+
+    protected class NonEdgeTask extends RecursiveTask<Double> {
+        private final double theta;
+        private final double[] negativeForce;
+        private final int firstPoint;
+        private final int lastPoint;
+
+        protected NonEdgeTask(double theta, double[] negativeForce, int firstPoint, int lastPoint) {
+            this.theta = theta;
+            this.negativeForce = negativeForce;
+            this.firstPoint = firstPoint;
+            this.lastPoint = lastPoint;
+        }
+
+        @Override
+        protected Double compute() {
+            if (lastPoint - firstPoint > CHUNK_SIZE) {
+                int middle = (firstPoint + lastPoint) >>> 1;
+                NonEdgeTask left = new NonEdgeTask(theta, negativeForce, firstPoint, middle);
+                NonEdgeTask right = new NonEdgeTask(theta, negativeForce, middle, lastPoint);
+                left.fork();
+                double sumQ = right.compute();
+                // fixed summation order, so results don't depend on scheduling
+                return left.join() + sumQ;
+            }
+
+            int[] stack = createStack();
+            double sumQ = 0.0;
+            for (int i = firstPoint; i < lastPoint; i++)
+                sumQ += computeNonEdgeForces(i, theta, negativeForce, stack);
+            return sumQ;
+        }
+    }
+
+    protected static class EdgeTask extends RecursiveAction {
+        private final int[] rowP;
+        private final int[] colP;
+        private final double[] valP;
+        private final double[] data;
+        private final int numDimensions;
+        private final double[] positiveForce;
+        private final int firstPoint;
+        private final int lastPoint;
+
+        protected EdgeTask(int[] rowP, int[] colP, double[] valP, double[] data, int numDimensions,
+                        double[] positiveForce, int firstPoint, int lastPoint) {
+            this.rowP = rowP;
+            this.colP = colP;
+            this.valP = valP;
+            this.data = data;
+            this.numDimensions = numDimensions;
+            this.positiveForce = positiveForce;
+            this.firstPoint = firstPoint;
+            this.lastPoint = lastPoint;
+        }
+
+        @Override
+        protected void compute() {
+            if (lastPoint - firstPoint > CHUNK_SIZE) {
+                int middle = (firstPoint + lastPoint) >>> 1;
+                invokeAll(new EdgeTask(rowP, colP, valP, data, numDimensions, positiveForce, firstPoint, middle),
+                                new EdgeTask(rowP, colP, valP, data, numDimensions, positiveForce, middle, lastPoint));
+                return;
+            }
+            computeEdgeForces(rowP, colP, valP, data, numDimensions, positiveForce, firstPoint, lastPoint);
+        }
+    }
+}
@@ -55,7 +55,9 @@ public class VPTree implements Serializable {
     @Setter
     private INDArray items;
     private List<INDArray> itemsList;
+    @Getter
     private Node root;
+    @Getter
     private String similarityFunction;
     @Getter
     private boolean invert = false;
@@ -159,6 +161,21 @@ public class VPTree implements Serializable {
     }
 
 
+    /**
+     * This constructor wraps already built tree, i.e. restored from disk. Nodes should refer to rows of given items.
+     *
+     * @param items the items tree was built from, may be null if tree is used for distance calculations only
+     * @param root root node of the tree, may be null
+     * @param similarityFunction the similarity function to use
+     * @param invert whether to invert the metric (different optimization objective)
+     */
+    protected VPTree(INDArray items, Node root, String similarityFunction, boolean invert) {
+        this.items = items;
+        this.root = root;
+        this.similarityFunction = similarityFunction;
+        this.invert = invert;
+    }
+
     /**
      *
      * @param items
@@ -0,0 +1,423 @@
+package org.deeplearning4j.clustering.vptree;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Batched k nearest neighbours search over {@link VPTree}.
+ *
+ * Unlike {@link VPTree#search(INDArray, int, List, List)}, which runs one distance op per visited node for a single
+ * query, this class processes queries in chunks: every visited node is evaluated for the whole chunk with a single op,
+ * and each chunk only descends into subtrees some of its queries can still find neighbours in.
+ * Small subtrees (buckets) are laid out contiguously in a separate points matrix, so they're scanned with brute force,
+ * which is a single GEMM call for euclidean, cosine and dot similarity functions.
+ * Chunks are processed in parallel on shared fork-join pool.
+ *
+ * PLEASE NOTE: bucket layout is a copy of the tree points, so this class doubles memory used by points.
+ * Instances are thread safe and meant to be reused for as long as the tree is.
+ *
+ * @see VPTree
+ */
+public class VPTreeBatchSearch {
+    public static final int DEFAULT_BUCKET_SIZE = 64;
+    public static final int DEFAULT_CHUNK_SIZE = 64;
+
+    private static ForkJoinPool pool;
+
+    @Getter
+    private final VPTree tree;
+    private final int chunkSize;
+    private final String similarityFunction;
+    private final boolean gemm;
+
+    // bucket root -> {offset, length} within bucketPoints
+    private final Map<VPTree.Node, int[]> buckets = new IdentityHashMap<>();
+    private final INDArray bucketPoints;
+    private final int[] bucketIds;
+    // squared norms for euclidean, norms for cosine, row vector
+    private final INDArray bucketNorms;
+
+    /**
+     * @param tree tree to search
+     */
+    public VPTreeBatchSearch(@NonNull VPTree tree) {
+        this(tree, DEFAULT_BUCKET_SIZE, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param tree       tree to search
+     * @param bucketSize subtrees of this size or less are scanned with brute force
+     * @param chunkSize  number of queries traversing the tree together
+     */
+    public VPTreeBatchSearch(@NonNull VPTree tree, int bucketSize, int chunkSize) {
+        if (bucketSize < 1 || chunkSize < 1)
+            throw new IllegalArgumentException("Bucket size and chunk size should be positive values");
+
+        this.tree = tree;
+        this.chunkSize = chunkSize;
+        this.similarityFunction = tree.getSimilarityFunction() == null ? VPTree.EUCLIDEAN : tree.getSimilarityFunction();
+
+        switch (similarityFunction) {
+            case "euclidean":
+            case "cosinesimilarity":
+            case "cosinedistance":
+            case "dot":
+                gemm = true;
+                break;
+            default:
+                gemm = false;
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        if (tree.getRoot() != null)
+            layout(tree.getRoot(), bucketSize, ids);
+
+        bucketIds = new int[ids.size()];
+        for (int i = 0; i < bucketIds.length; i++)
+            bucketIds[i] = ids.get(i);
+
+        if (bucketIds.length > 0) {
+            bucketPoints = Nd4j.pullRows(tree.getItems(), 1, bucketIds, 'c');
+            INDArray norms = bucketPoints.norm2(1).reshape(1, bucketIds.length);
+            bucketNorms = "euclidean".equals(similarityFunction) ? norms.muli(norms) : norms;
+        } else {
+            bucketPoints = null;
+            bucketNorms = null;
+        }
+    }
+
+    /**
+     * This method assigns buckets to subtrees, returning number of nodes in given subtree.
+     * Points of each bucket are stored contiguously, points of inner nodes are checked during traversal instead.
+     */
+    private int layout(VPTree.Node node, int bucketSize, List<Integer> ids) {
+        int offset = ids.size();
+        int size = 1;
+        if (node.getLeft() != null)
+            size += layout(node.getLeft(), bucketSize, ids);
+        if (node.getRight() != null)
+            size += layout(node.getRight(), bucketSize, ids);
+
+        if (size <= bucketSize) {
+            // children are part of this bucket now
+            buckets.remove(node.getLeft());
+            buckets.remove(node.getRight());
+
+            ids.add(offset, node.getIndex());
+            buckets.put(node, new int[] {offset, size});
+        }
+
+        return size;
+    }
+
+    protected static synchronized ForkJoinPool getPool() {
+        if (pool == null)
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        return pool;
+    }
+
+    /**
+     * This method searches k nearest neighbours for each row of targets.
+     * Results for each query are ordered the same way as {@link VPTree#search(INDArray, int, List, List)} orders them.
+     *
+     * @param targets   queries, one per row
+     * @param k         number of neighbours
+     * @param results   list to put results to, one list per query
+     * @param distances list to put distances to, one list per query
+     */
+    public void search(@NonNull INDArray targets, int k, @NonNull List<List<DataPoint>> results,
+                    @NonNull List<List<Double>> distances) {
+        results.clear();
+        distances.clear();
+
+        INDArray items = tree.getItems();
+        if (targets.rank() != 2 || targets.columns() != items.columns())
+            throw new ND4JIllegalStateException("Targets for search should have shape of [N, " + items.columns()
+                            + "] but got " + Arrays.toString(targets.shape()) + " instead");
+
+        int numQueries = targets.rows();
+        k = Math.min(k, items.rows());
+        if (numQueries == 0)
+            return;
+
+        int[][] resultIds = new int[numQueries][];
+        double[][] resultDistances = new double[numQueries][];
+        int numChunks = (numQueries + chunkSize - 1) / chunkSize;
+
+        ChunkTask task = new ChunkTask(targets, k, 0, numChunks, resultIds, resultDistances);
+        if (numChunks == 1)
+            task.compute();
+        else
+            getPool().invoke(task);
+
+        for (int q = 0; q < numQueries; q++) {
+            List<DataPoint> r = new ArrayList<>(k);
+            List<Double> d = new ArrayList<>(k);
+            for (int i = 0; i < resultIds[q].length; i++) {
+                r.add(new DataPoint(resultIds[q][i], items.getRow(resultIds[q][i])));
+                d.add(resultDistances[q][i]);
+            }
+            results.add(r);
+            distances.add(d);
+        }
+    }
+
+    protected class ChunkTask extends RecursiveAction {
+        private final INDArray targets;
+        private final int k;
+        private final int firstChunk;
+        private final int lastChunk;
+        private final int[][] resultIds;
+        private final double[][] resultDistances;
+
+        protected ChunkTask(INDArray targets, int k, int firstChunk, int lastChunk, int[][] resultIds,
+                        double[][] resultDistances) {
+            this.targets = targets;
+            this.k = k;
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+            this.resultIds = resultIds;
+            this.resultDistances = resultDistances;
+        }
+
+        @Override
+        protected void compute() {
+            if (lastChunk - firstChunk > 1) {
+                int middle = (firstChunk + lastChunk) / 2;
+                invokeAll(new ChunkTask(targets, k, firstChunk, middle, resultIds, resultDistances),
+                                new ChunkTask(targets, k, middle, lastChunk, resultIds, resultDistances));
+                return;
+            }
+
+            int first = firstChunk * chunkSize;
+            int last = Math.min(first + chunkSize, targets.rows());
+            INDArray queries = targets.get(NDArrayIndex.interval(first, last), NDArrayIndex.all()).dup('c');
+
+            Chunk chunk = new Chunk(queries, k);
+            chunk.search();
+            for (int q = 0; q < last - first; q++)
+                chunk.results(q, first + q, resultIds, resultDistances);
+        }
+    }
+
+    /**
+     * Traversal state for single chunk of queries. Each query keeps its own max-heap of k best candidates.
+     */
+    protected class Chunk {
+        private final INDArray queries;
+        private final int size;
+        private final int k;
+        private final double[][] heapDistances;
+        private final int[][] heapIds;
+        private final int[] heapSizes;
+        private final INDArray nodeDistances;
+        private INDArray queryNorms;
+
+        protected Chunk(INDArray queries, int k) {
+            this.queries = queries;
+            this.size = queries.rows();
+            this.k = k;
+            this.heapDistances = new double[size][k];
+            this.heapIds = new int[size][k];
+            this.heapSizes = new int[size];
+            this.nodeDistances = Nd4j.create(size, 1);
+        }
+
+        protected void search() {
+            if (k < 1 || tree.getRoot() == null)
+                return;
+
+            int[] active = new int[size];
+            for (int q = 0; q < size; q++)
+                active[q] = q;
+
+            visit(tree.getRoot(), active, size);
+        }
+
+        protected double tau(int q) {
+            return heapSizes[q] < k ? Double.MAX_VALUE : heapDistances[q][0];
+        }
+
+        protected void visit(VPTree.Node node, int[] active, int numActive) {
+            if (node == null || numActive == 0)
+                return;
+
+            int[] bucket = buckets.get(node);
+            if (bucket != null) {
+                scanBucket(bucket[0], bucket[1], active, numActive);
+                return;
+            }
+
+            tree.calcDistancesRelativeTo(queries, node.getPoint(), nodeDistances);
+            double[] distance = new double[numActive];
+            for (int i = 0; i < numActive; i++) {
+                int q = active[i];
+                distance[i] = nodeDistances.getDouble(q);
+                offer(q, distance[i], node.getIndex());
+            }
+
+            double threshold = node.getThreshold();
+            int[] next = new int[numActive];
+            int numNext;
+
+            // each query visits the side its target falls into first, exactly like VPTree.search() does
+            numNext = 0;
+            for (int i = 0; i < numActive; i++)
+                if (distance[i] < threshold && distance[i] - tau(active[i]) < threshold)
+                    next[numNext++] = active[i];
+            visit(node.getLeft(), next, numNext);
+
+            numNext = 0;
+            for (int i = 0; i < numActive; i++)
+                if (distance[i] >= threshold && distance[i] + tau(active[i]) >= threshold)
+                    next[numNext++] = active[i];
+            visit(node.getRight(), next, numNext);
+
+            // and the other side afterwards, with tau updated
+            numNext = 0;
+            for (int i = 0; i < numActive; i++)
+                if (distance[i] < threshold && distance[i] + tau(active[i]) >= threshold)
+                    next[numNext++] = active[i];
+            visit(node.getRight(), next, numNext);
+
+            numNext = 0;
+            for (int i = 0; i < numActive; i++)
+                if (distance[i] >= threshold && distance[i] - tau(active[i]) < threshold)
+                    next[numNext++] = active[i];
+            visit(node.getLeft(), next, numNext);
+        }
+
+        protected void scanBucket(int offset, int length, int[] active, int numActive) {
+            INDArray points = bucketPoints.get(NDArrayIndex.interval(offset, offset + length), NDArrayIndex.all());
+
+            // f order: distance between query q and point j is at q + j * size
+            double[] distances;
+            if (gemm) {
+                distances = gemmDistances(points, offset, length);
+            } else {
+                distances = new double[size * length];
+                for (int j = 0; j < length; j++) {
+                    tree.calcDistancesRelativeTo(queries, points.getRow(j), nodeDistances);
+                    for (int i = 0; i < numActive; i++)
+                        distances[active[i] + j * size] = nodeDistances.getDouble(active[i]);
+                }
+            }
+
+            for (int i = 0; i < numActive; i++) {
+                int q = active[i];
+                for (int j = 0; j < length; j++)
+                    offer(q, distances[q + j * size], bucketIds[offset + j]);
+            }
+        }
+
+        protected double[] gemmDistances(INDArray points, int offset, int length) {
+            INDArray result = Nd4j.createUninitialized(new long[] {size, length}, 'f');
+            INDArray norms = bucketNorms.get(NDArrayIndex.all(), NDArrayIndex.interval(offset, offset + length));
+
+            switch (similarityFunction) {
+                case "euclidean":
+                    // |q - p|^2 = |q|^2 + |p|^2 - 2 q.p
+                    Nd4j.gemm(queries, points, result, false, true, -2.0, 0.0);
+                    result.addiColumnVector(queryNorms(true)).addiRowVector(norms);
+                    Transforms.max(result, 0.0, false);
+                    Transforms.sqrt(result, false);
+                    break;
+                case "cosinesimilarity":
+                case "cosinedistance":
+                    Nd4j.gemm(queries, points, result, false, true, 1.0, 0.0);
+                    result.diviColumnVector(queryNorms(false)).diviRowVector(norms);
+                    if ("cosinedistance".equals(similarityFunction))
+                        result.rsubi(1.0);
+                    break;
+                default:
+                    Nd4j.gemm(queries, points, result, false, true, 1.0, 0.0);
+            }
+
+            if (tree.isInvert())
+                result.negi();
+
+            return result.data().asDouble();
+        }
+
+        protected INDArray queryNorms(boolean squared) {
+            if (queryNorms == null) {
+                INDArray norms = queries.norm2(1).reshape(size, 1);
+                queryNorms = squared ? norms.muli(norms) : norms;
+            }
+            return queryNorms;
+        }
+
+        protected void offer(int q, double distance, int id) {
+            double[] dist = heapDistances[q];
+            int[] ids = heapIds[q];
+            int n = heapSizes[q];
+
+            if (n < k) {
+                // sift up
+                int i = n;
+                while (i > 0) {
+                    int parent = (i - 1) / 2;
+                    if (dist[parent] >= distance)
+                        break;
+                    dist[i] = dist[parent];
+                    ids[i] = ids[parent];
+                    i = parent;
+                }
+                dist[i] = distance;
+                ids[i] = id;
+                heapSizes[q] = n + 1;
+            } else if (distance < dist[0]) {
+                // replace the farthest one, and sift down
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= k)
+                        break;
+                    if (child + 1 < k && dist[child + 1] > dist[child])
+                        child++;
+                    if (dist[child] <= distance)
+                        break;
+                    dist[i] = dist[child];
+                    ids[i] = ids[child];
+                    i = child;
+                }
+                dist[i] = distance;
+                ids[i] = id;
+            }
+        }
+
+        protected void results(int q, int position, int[][] resultIds, double[][] resultDistances) {
+            int n = heapSizes[q];
+            final double[] dist = heapDistances[q];
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++)
+                order[i] = i;
+
+            // farthest first, or nearest first if inverted - same as VPTree.search()
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return tree.isInvert() ? Double.compare(dist[o1], dist[o2]) : Double.compare(dist[o2], dist[o1]);
+                }
+            });
+
+            resultIds[position] = new int[n];
+            resultDistances[position] = new double[n];
+            for (int i = 0; i < n; i++) {
+                resultIds[position][i] = heapIds[q][order[i]];
+                resultDistances[position][i] = dist[order[i]];
+            }
+        }
+    }
+}
@@ -0,0 +1,795 @@
+package org.deeplearning4j.clustering.vptree;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.deeplearning4j.util.MappedDataBuffers;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Updatable & persistent index on top of {@link VPTree}.
+ *
+ * Every point gets stable integer id, assigned in order of insertion. Points inserted after the tree was built are
+ * kept in a separate buffer and searched by brute force, and deleted points are filtered out of tree search
+ * results. Once number of such pending updates exceeds given fraction of the tree size, tree is rebuilt from live
+ * points in background thread, and swapped in atomically. Searches aren't blocked while tree is rebuilt.
+ *
+ * Index can be saved in compact binary format, with tree structure stored as flat arrays. On load, points are
+ * memory mapped (copy-on-write), so even large indexes are available in seconds. A single mapping is limited to 2GB:
+ * points of larger indexes are copied into memory in bulk instead, so there's no limit on index size.
+ *
+ * Search results follow the same conventions as {@link VPTree#search(INDArray, int, List, List)},
+ * with {@link DataPoint#getIndex()} holding the point id.
+ */
+@Slf4j
+public class VPTreeIndex implements Closeable {
+    public static final double DEFAULT_REBALANCE_FRACTION = 0.1;
+
+    private static final byte[] MAGIC = {'D', 'L', '4', 'J', 'V', 'P', 'T', 'I'};
+    private static final int VERSION = 1;
+    private static final long ALIGNMENT = 4096;
+
+    // points stored in larger regions are copied on load, instead of being mapped
+    static long maxMappedBytes = MappedDataBuffers.MAX_MAPPED_BYTES;
+
+    @Getter
+    private final String similarityFunction;
+    @Getter
+    private final boolean invert;
+    @Getter
+    private final double rebalanceFraction;
+    private final int columns;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final VPTree distanceHelper;
+    private transient ExecutorService rebalancer;
+    private Future<?> rebalanceFuture;
+
+    // everything below is guarded by lock
+    private VPTree tree;
+    private int[] treeIds;
+    private INDArray deltaPoints;
+    private int[] deltaIds;
+    private int deltaCount;
+    // id -> row in tree items if >= 0, or -(row in delta + 1)
+    private int[] locations;
+    private int nextId;
+    private final BitSet deleted;
+    private int treeDeleted;
+
+    // created on first batch search, for current tree
+    private final Object batchSearchLock = new Object();
+    private VPTreeBatchSearch batchSearch;
+
+    /**
+     * @param points             initial points, one per row. Ids are assigned in row order, starting from 0
+     * @param similarityFunction the similarity function to use
+     * @param invert             whether to invert the distance
+     */
+    public VPTreeIndex(@NonNull INDArray points, @NonNull String similarityFunction, boolean invert) {
+        this(points, similarityFunction, invert, DEFAULT_REBALANCE_FRACTION);
+    }
+
+    /**
+     * @param points             initial points, one per row. Ids are assigned in row order, starting from 0
+     * @param similarityFunction the similarity function to use
+     * @param invert             whether to invert the distance
+     * @param rebalanceFraction  tree is rebuilt once number of inserted & deleted points since last build exceeds
+     *                           this fraction of tree size
+     */
+    public VPTreeIndex(@NonNull INDArray points, @NonNull String similarityFunction, boolean invert,
+                    double rebalanceFraction) {
+        this(similarityFunction, invert, rebalanceFraction, (int) points.columns());
+
+        int rows = points.rows();
+        this.nextId = rows;
+        this.treeIds = new int[rows];
+        this.locations = new int[Math.max(rows, 16)];
+        for (int i = 0; i < rows; i++) {
+            treeIds[i] = i;
+            locations[i] = i;
+        }
+        if (rows > 0)
+            this.tree = new VPTree(points, similarityFunction, invert);
+    }
+
+    private VPTreeIndex(String similarityFunction, boolean invert, double rebalanceFraction, int columns) {
+        if (rebalanceFraction <= 0)
+            throw new IllegalArgumentException("Rebalance fraction should be positive value");
+
+        this.similarityFunction = similarityFunction;
+        this.invert = invert;
+        this.rebalanceFraction = rebalanceFraction;
+        this.columns = columns;
+        this.distanceHelper = new VPTree(null, null, similarityFunction, invert);
+        this.deleted = new BitSet();
+        this.deltaIds = new int[16];
+        this.treeIds = new int[0];
+    }
+
+    /**
+     * This method inserts given points into the index
+     *
+     * @param points matrix, one point per row, or single point as vector
+     * @return ids assigned to the points, in row order
+     */
+    public int[] insert(@NonNull INDArray points) {
+        if (points.isVector() && points.length() == columns)
+            points = points.reshape(1, columns);
+
+        if (points.rank() != 2 || points.columns() != columns)
+            throw new ND4JIllegalStateException("Points should have shape of [N, " + columns + "] but got "
+                            + Arrays.toString(points.shape()) + " instead");
+
+        int rows = points.rows();
+        int[] ids = new int[rows];
+        lock.writeLock().lock();
+        try {
+            ensureDeltaCapacity(deltaCount + rows);
+            deltaPoints.get(NDArrayIndex.interval(deltaCount, deltaCount + rows), NDArrayIndex.all()).assign(points);
+
+            for (int i = 0; i < rows; i++) {
+                int id = nextId++;
+                ensureLocationsCapacity(id + 1);
+                locations[id] = -(deltaCount + 1);
+                deltaIds[deltaCount++] = id;
+                ids[i] = id;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        maybeRebalance();
+        return ids;
+    }
+
+    /**
+     * This method removes point with given id from the index
+     *
+     * @param id
+     * @return true if point was removed, false if there was no such point
+     */
+    public boolean delete(int id) {
+        lock.writeLock().lock();
+        try {
+            if (id < 0 || id >= nextId || deleted.get(id))
+                return false;
+
+            deleted.set(id);
+            if (locations[id] >= 0)
+                treeDeleted++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        maybeRebalance();
+        return true;
+    }
+
+    /**
+     * This method checks if point with given id is present in the index
+     *
+     * @param id
+     * @return
+     */
+    public boolean contains(int id) {
+        lock.readLock().lock();
+        try {
+            return id >= 0 && id < nextId && !deleted.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method returns point with given id
+     *
+     * @param id
+     * @return row vector, or null if there's no such point
+     */
+    public INDArray getPoint(int id) {
+        lock.readLock().lock();
+        try {
+            if (id < 0 || id >= nextId || deleted.get(id))
+                return null;
+
+            int location = locations[id];
+            return location >= 0 ? tree.getItems().getRow(location) : deltaPoints.getRow(-location - 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of points in the index
+     *
+     * @return
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nextId - deleted.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of inserted and deleted points not reflected in the tree yet
+     *
+     * @return
+     */
+    public int pendingUpdates() {
+        lock.readLock().lock();
+        try {
+            return deltaCount + treeDeleted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method searches for k nearest neighbours of the target
+     *
+     * @param target    row vector
+     * @param k         number of neighbours
+     * @param results   list to put results to, DataPoint index is the point id
+     * @param distances list to put distances to
+     */
+    public void search(@NonNull INDArray target, int k, @NonNull List<DataPoint> results,
+                    @NonNull List<Double> distances) {
+        if (!target.isVectorOrScalar() || target.length() != columns || target.rows() > 1)
+            throw new ND4JIllegalStateException("Target for search should have shape of [1, " + columns
+                            + "] but got " + Arrays.toString(target.shape()) + " instead");
+
+        results.clear();
+        distances.clear();
+
+        List<Candidate> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (tree != null) {
+                // at most treeDeleted of tree results can be deleted ones
+                List<DataPoint> treeResults = new ArrayList<>();
+                List<Double> treeDistances = new ArrayList<>();
+                tree.search(target, k + treeDeleted, treeResults, treeDistances);
+                addTreeCandidates(candidates, treeResults, treeDistances);
+            }
+
+            addDeltaCandidates(candidates, target);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        collect(candidates, k, results, distances);
+    }
+
+    /**
+     * This method searches for k nearest neighbours of each target, using {@link VPTreeBatchSearch} for the tree.
+     *
+     * @param targets   matrix, one target per row
+     * @param k         number of neighbours
+     * @param results   list to put results to, one list per target. DataPoint index is the point id
+     * @param distances list to put distances to, one list per target
+     */
+    public void searchBatch(@NonNull INDArray targets, int k, @NonNull List<List<DataPoint>> results,
+                    @NonNull List<List<Double>> distances) {
+        if (targets.rank() != 2 || targets.columns() != columns)
+            throw new ND4JIllegalStateException("Targets for search should have shape of [N, " + columns
+                            + "] but got " + Arrays.toString(targets.shape()) + " instead");
+
+        results.clear();
+        distances.clear();
+
+        int numTargets = targets.rows();
+        List<List<Candidate>> candidates = new ArrayList<>(numTargets);
+        lock.readLock().lock();
+        try {
+            List<List<DataPoint>> treeResults = new ArrayList<>();
+            List<List<Double>> treeDistances = new ArrayList<>();
+            if (tree != null)
+                batchSearch().search(targets, k + treeDeleted, treeResults, treeDistances);
+
+            for (int i = 0; i < numTargets; i++) {
+                List<Candidate> list = new ArrayList<>();
+                if (tree != null)
+                    addTreeCandidates(list, treeResults.get(i), treeDistances.get(i));
+                addDeltaCandidates(list, targets.getRow(i));
+                candidates.add(list);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        for (int i = 0; i < numTargets; i++) {
+            List<DataPoint> r = new ArrayList<>();
+            List<Double> d = new ArrayList<>();
+            collect(candidates.get(i), k, r, d);
+            results.add(r);
+            distances.add(d);
+        }
+    }
+
+    /**
+     * Should be called under read lock, so tree isn't swapped meanwhile
+     */
+    private VPTreeBatchSearch batchSearch() {
+        synchronized (batchSearchLock) {
+            if (batchSearch == null || batchSearch.getTree() != tree)
+                batchSearch = new VPTreeBatchSearch(tree);
+
+            return batchSearch;
+        }
+    }
+
+    private void addTreeCandidates(List<Candidate> candidates, List<DataPoint> treeResults,
+                    List<Double> treeDistances) {
+        for (int i = 0; i < treeResults.size(); i++) {
+            int id = treeIds[treeResults.get(i).getIndex()];
+            if (!deleted.get(id))
+                candidates.add(new Candidate(id, treeResults.get(i).getPoint(), treeDistances.get(i)));
+        }
+    }
+
+    private void addDeltaCandidates(List<Candidate> candidates, INDArray target) {
+        if (deltaCount == 0)
+            return;
+
+        INDArray delta = deltaPoints.get(NDArrayIndex.interval(0, deltaCount), NDArrayIndex.all());
+        INDArray distancesArr = Nd4j.create(deltaCount, 1);
+        distanceHelper.calcDistancesRelativeTo(delta, target, distancesArr);
+        for (int i = 0; i < deltaCount; i++) {
+            if (!deleted.get(deltaIds[i]))
+                candidates.add(new Candidate(deltaIds[i], delta.getRow(i), distancesArr.getDouble(i)));
+        }
+    }
+
+    private void collect(List<Candidate> candidates, int k, List<DataPoint> results, List<Double> distances) {
+        Collections.sort(candidates);
+        List<Candidate> top = candidates.subList(0, Math.min(k, candidates.size()));
+
+        // same order as VPTree.search() uses
+        if (!invert)
+            Collections.reverse(top);
+
+        for (Candidate c : top) {
+            results.add(new DataPoint(c.id, c.point));
+            distances.add(c.distance);
+        }
+    }
+
+    /**
+     * This method rebuilds the tree from live points, blocking until it's done.
+     * Index remains available for search and updates meanwhile.
+     */
+    public void rebalance() {
+        Future<?> future = rebalanceAsync();
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * This method schedules tree rebuild in background thread. If rebuild is already in progress, its Future is
+     * returned instead.
+     *
+     * @return
+     */
+    public synchronized Future<?> rebalanceAsync() {
+        if (rebalanceFuture != null && !rebalanceFuture.isDone())
+            return rebalanceFuture;
+
+        if (rebalancer == null) {
+            rebalancer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = Executors.defaultThreadFactory().newThread(r);
+                    t.setDaemon(true);
+                    t.setName("VPTreeIndex rebalancer");
+
+                    // we don't want threads to be working on different devices
+                    Nd4j.getAffinityManager().attachThreadToDevice(t,
+                                    Nd4j.getAffinityManager().getDeviceForCurrentThread());
+                    return t;
+                }
+            });
+        }
+
+        rebalanceFuture = rebalancer.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    rebuild();
+                } catch (Throwable t) {
+                    log.error("VPTreeIndex rebalancing failed", t);
+                    throw t;
+                }
+            }
+        });
+        return rebalanceFuture;
+    }
+
+    protected void maybeRebalance() {
+        int pending;
+        int treeSize;
+        lock.readLock().lock();
+        try {
+            pending = deltaCount + treeDeleted;
+            treeSize = treeIds.length;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (pending > 0 && pending >= rebalanceFraction * treeSize)
+            rebalanceAsync();
+    }
+
+    protected void rebuild() {
+        INDArray items;
+        int[] ids;
+        int snapshotDelta;
+
+        lock.readLock().lock();
+        try {
+            snapshotDelta = deltaCount;
+
+            int[] treeRows = new int[treeIds.length];
+            int numTree = 0;
+            for (int i = 0; i < treeIds.length; i++)
+                if (!deleted.get(treeIds[i]))
+                    treeRows[numTree++] = i;
+
+            int[] deltaRows = new int[snapshotDelta];
+            int numDelta = 0;
+            for (int i = 0; i < snapshotDelta; i++)
+                if (!deleted.get(deltaIds[i]))
+                    deltaRows[numDelta++] = i;
+
+            ids = new int[numTree + numDelta];
+            for (int i = 0; i < numTree; i++)
+                ids[i] = treeIds[treeRows[i]];
+            for (int i = 0; i < numDelta; i++)
+                ids[numTree + i] = deltaIds[deltaRows[i]];
+
+            items = ids.length == 0 ? null : Nd4j.createUninitialized(ids.length, columns);
+            if (numTree > 0)
+                items.get(NDArrayIndex.interval(0, numTree), NDArrayIndex.all())
+                                .assign(Nd4j.pullRows(tree.getItems(), 1, Arrays.copyOf(treeRows, numTree)));
+            if (numDelta > 0)
+                items.get(NDArrayIndex.interval(numTree, ids.length), NDArrayIndex.all())
+                                .assign(Nd4j.pullRows(deltaPoints, 1, Arrays.copyOf(deltaRows, numDelta)));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long time = System.currentTimeMillis();
+        VPTree newTree = items == null ? null : new VPTree(items, similarityFunction, invert);
+
+        lock.writeLock().lock();
+        try {
+            // points inserted while tree was built stay in delta
+            int remaining = deltaCount - snapshotDelta;
+            INDArray newDelta = null;
+            if (remaining > 0)
+                newDelta = deltaPoints.get(NDArrayIndex.interval(snapshotDelta, deltaCount), NDArrayIndex.all()).dup();
+
+            int[] newDeltaIds = new int[Math.max(16, remaining)];
+            System.arraycopy(deltaIds, snapshotDelta, newDeltaIds, 0, remaining);
+
+            tree = newTree;
+            treeIds = ids;
+            synchronized (batchSearchLock) {
+                batchSearch = null;
+            }
+            treeDeleted = 0;
+            for (int i = 0; i < ids.length; i++) {
+                locations[ids[i]] = i;
+                if (deleted.get(ids[i]))
+                    treeDeleted++;
+            }
+
+            deltaPoints = null;
+            deltaIds = newDeltaIds;
+            deltaCount = 0;
+            if (remaining > 0) {
+                ensureDeltaCapacity(remaining);
+                deltaPoints.get(NDArrayIndex.interval(0, remaining), NDArrayIndex.all()).assign(newDelta);
+                deltaCount = remaining;
+                for (int i = 0; i < remaining; i++)
+                    locations[deltaIds[i]] = -(i + 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.debug("VPTreeIndex rebuilt for {} points in {} ms", ids.length, System.currentTimeMillis() - time);
+    }
+
+    private void ensureDeltaCapacity(int required) {
+        int capacity = deltaPoints == null ? 0 : deltaPoints.rows();
+        if (capacity < required) {
+            int newCapacity = Math.max(required, Math.max(16, capacity * 2));
+            INDArray newPoints = Nd4j.create(newCapacity, columns);
+            if (deltaCount > 0)
+                newPoints.get(NDArrayIndex.interval(0, deltaCount), NDArrayIndex.all())
+                                .assign(deltaPoints.get(NDArrayIndex.interval(0, deltaCount), NDArrayIndex.all()));
+            deltaPoints = newPoints;
+        }
+
+        if (deltaIds.length < required)
+            deltaIds = Arrays.copyOf(deltaIds, Math.max(required, deltaIds.length * 2));
+    }
+
+    private void ensureLocationsCapacity(int required) {
+        if (locations.length < required)
+            locations = Arrays.copyOf(locations, Math.max(required, locations.length * 2));
+    }
+
+    /**
+     * This method saves the index to the file. Pending updates are stored as well, so they're still pending
+     * after {@link #load(File)}.
+     * Index is written to temporary file first, and then moved in place, so it's safe to save index to the same file
+     * it was loaded from.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(@NonNull File file) throws IOException {
+        File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        lock.readLock().lock();
+        try {
+            write(tmp);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // file being replaced might be mapped, so it's never overwritten in place
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void write(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+
+            // tree structure is stored in pre-order, as flat arrays
+            List<VPTree.Node> nodes = new ArrayList<>(treeIds.length);
+            Map<VPTree.Node, Integer> nodeIds = new IdentityHashMap<>(treeIds.length);
+            if (tree != null && tree.getRoot() != null) {
+                Deque<VPTree.Node> stack = new ArrayDeque<>();
+                stack.push(tree.getRoot());
+                while (!stack.isEmpty()) {
+                    VPTree.Node node = stack.pop();
+                    nodeIds.put(node, nodes.size());
+                    nodes.add(node);
+                    if (node.getRight() != null)
+                        stack.push(node.getRight());
+                    if (node.getLeft() != null)
+                        stack.push(node.getLeft());
+                }
+            }
+
+            DataBuffer.Type dataType = Nd4j.dataType() == DataBuffer.Type.DOUBLE ? DataBuffer.Type.DOUBLE
+                            : DataBuffer.Type.FLOAT;
+            int elementSize = dataType == DataBuffer.Type.DOUBLE ? 8 : 4;
+
+            DataOutputStream dos = new DataOutputStream(
+                            new BufferedOutputStream(Channels.newOutputStream(raf.getChannel())));
+            dos.write(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeUTF(similarityFunction);
+            dos.writeBoolean(invert);
+            dos.writeDouble(rebalanceFraction);
+            dos.writeByte(dataType == DataBuffer.Type.DOUBLE ? 1 : 0);
+            dos.writeByte(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 0 : 1);
+            dos.writeInt(columns);
+            dos.writeInt(nextId);
+            dos.writeInt(treeIds.length);
+            dos.writeInt(nodes.size());
+            dos.writeInt(deltaCount);
+
+            for (int id : treeIds)
+                dos.writeInt(id);
+            for (VPTree.Node node : nodes) {
+                dos.writeInt(node.getIndex());
+                dos.writeFloat(node.getThreshold());
+                dos.writeInt(node.getLeft() == null ? -1 : nodeIds.get(node.getLeft()));
+                dos.writeInt(node.getRight() == null ? -1 : nodeIds.get(node.getRight()));
+            }
+            for (int i = 0; i < deltaCount; i++)
+                dos.writeInt(deltaIds[i]);
+
+            long[] words = deleted.toLongArray();
+            dos.writeInt(words.length);
+            for (long w : words)
+                dos.writeLong(w);
+
+            // points go last, aligned to page size, so they can be mapped directly
+            long pointsOffset = (dos.size() + 8 + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+            dos.writeLong(pointsOffset);
+            dos.flush();
+
+            FileChannel channel = raf.getChannel();
+            channel.position(pointsOffset);
+            if (tree != null)
+                MappedDataBuffers.write(channel, tree.getItems(), treeIds.length * (long) columns);
+            if (deltaCount > 0)
+                MappedDataBuffers.write(channel,
+                                deltaPoints.get(NDArrayIndex.interval(0, deltaCount), NDArrayIndex.all()),
+                                deltaCount * (long) columns);
+
+            long expectedLength = pointsOffset + (treeIds.length + (long) deltaCount) * columns * elementSize;
+            if (raf.length() < expectedLength)
+                raf.setLength(expectedLength);
+        }
+    }
+
+    /**
+     * This method loads index saved with {@link #save(File)}.
+     * Points are memory mapped copy-on-write, so file pages are loaded lazily and shared between all processes
+     * mapping the same file. If file isn't writable, was written with different data type or byte order, or points
+     * take more than 2GB, points are copied instead.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static VPTreeIndex load(@NonNull File file) throws IOException {
+        // copy-on-write mapping requires channel opened for writing, even though file is never modified
+        boolean writable = file.canWrite();
+        try (RandomAccessFile raf = new RandomAccessFile(file, writable ? "rw" : "r")) {
+            DataInputStream dis = new DataInputStream(
+                            new BufferedInputStream(Channels.newInputStream(raf.getChannel())));
+            byte[] magic = new byte[MAGIC.length];
+            dis.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC))
+                throw new IOException("File " + file + " wasn't written by VPTreeIndex.save()");
+
+            int version = dis.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported VPTreeIndex version: " + version);
+
+            String similarityFunction = dis.readUTF();
+            boolean invert = dis.readBoolean();
+            double rebalanceFraction = dis.readDouble();
+            DataBuffer.Type dataType = dis.readByte() == 1 ? DataBuffer.Type.DOUBLE : DataBuffer.Type.FLOAT;
+            ByteOrder byteOrder = dis.readByte() == 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+            int columns = dis.readInt();
+            int nextId = dis.readInt();
+            int treeSize = dis.readInt();
+            int numNodes = dis.readInt();
+            int deltaCount = dis.readInt();
+
+            VPTreeIndex index = new VPTreeIndex(similarityFunction, invert, rebalanceFraction, columns);
+            index.nextId = nextId;
+            index.locations = new int[Math.max(nextId, 16)];
+
+            index.treeIds = new int[treeSize];
+            for (int i = 0; i < treeSize; i++) {
+                index.treeIds[i] = dis.readInt();
+                index.locations[index.treeIds[i]] = i;
+            }
+
+            int[] nodeIndex = new int[numNodes];
+            float[] nodeThreshold = new float[numNodes];
+            int[] nodeLeft = new int[numNodes];
+            int[] nodeRight = new int[numNodes];
+            for (int i = 0; i < numNodes; i++) {
+                nodeIndex[i] = dis.readInt();
+                nodeThreshold[i] = dis.readFloat();
+                nodeLeft[i] = dis.readInt();
+                nodeRight[i] = dis.readInt();
+            }
+
+            int[] deltaIds = new int[deltaCount];
+            for (int i = 0; i < deltaCount; i++)
+                deltaIds[i] = dis.readInt();
+
+            long[] words = new long[dis.readInt()];
+            for (int i = 0; i < words.length; i++)
+                words[i] = dis.readLong();
+            index.deleted.or(BitSet.valueOf(words));
+            for (int id : index.treeIds)
+                if (index.deleted.get(id))
+                    index.treeDeleted++;
+
+            long pointsOffset = dis.readLong();
+            int elementSize = dataType == DataBuffer.Type.DOUBLE ? 8 : 4;
+            long treeBytes = treeSize * (long) columns * elementSize;
+            long deltaBytes = deltaCount * (long) columns * elementSize;
+            if (pointsOffset + treeBytes + deltaBytes > raf.length())
+                throw new IOException("VPTreeIndex file " + file + " is truncated");
+
+            if (treeSize > 0) {
+                INDArray items = readPoints(raf, pointsOffset, treeSize, columns, dataType, byteOrder, writable);
+
+                // rebuilding nodes from flat arrays
+                VPTree.Node[] nodes = new VPTree.Node[numNodes];
+                for (int i = numNodes - 1; i >= 0; i--) {
+                    VPTree.Node node = new VPTree.Node(nodeIndex[i], nodeThreshold[i]);
+                    node.setPoint(items.getRow(nodeIndex[i]));
+                    if (nodeLeft[i] >= 0)
+                        node.setLeft(nodes[nodeLeft[i]]);
+                    if (nodeRight[i] >= 0)
+                        node.setRight(nodes[nodeRight[i]]);
+                    nodes[i] = node;
+                }
+
+                index.tree = new VPTree(items, numNodes > 0 ? nodes[0] : null, similarityFunction, invert);
+            }
+
+            if (deltaCount > 0) {
+                // delta is going to grow, so it's always copied
+                INDArray delta = readPoints(raf, pointsOffset + treeBytes, deltaCount, columns, dataType, byteOrder,
+                                false);
+                index.ensureDeltaCapacity(deltaCount);
+                index.deltaPoints.get(NDArrayIndex.interval(0, deltaCount), NDArrayIndex.all()).assign(delta);
+                System.arraycopy(deltaIds, 0, index.deltaIds, 0, deltaCount);
+                index.deltaCount = deltaCount;
+                for (int i = 0; i < deltaCount; i++)
+                    index.locations[deltaIds[i]] = -(i + 1);
+            }
+
+            return index;
+        }
+    }
+
+    private static INDArray readPoints(RandomAccessFile raf, long offset, int rows, int columns,
+                    DataBuffer.Type dataType, ByteOrder byteOrder, boolean writable) throws IOException {
+        int elementSize = dataType == DataBuffer.Type.DOUBLE ? 8 : 4;
+        // larger regions can't be mapped, so points are copied
+        boolean map = writable && rows * (long) columns * elementSize <= maxMappedBytes;
+        return MappedDataBuffers.read(raf.getChannel(), offset, new long[] {rows, columns}, dataType, byteOrder, map);
+    }
+
+    /**
+     * This method stops background rebalancing thread
+     */
+    @Override
+    public synchronized void close() {
+        if (rebalancer != null) {
+            rebalancer.shutdown();
+            rebalancer = null;
+        }
+    }
+
+    private static class Candidate implements Comparable<Candidate> {
+        private final int id;
+        private final INDArray point;
+        private final double distance;
+
+        private Candidate(int id, INDArray point, double distance) {
+            this.id = id;
+            this.point = point;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            return Double.compare(distance, o.distance);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.deeplearning4j.clustering.sptree;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FlatSpTreeTest {
+
+    @Test
+    public void testStructure() {
+        INDArray data = Nd4j.create(new double[][] {{1, 2, 3}, {4, 5, 6}});
+        FlatSpTree tree = new FlatSpTree(data);
+        assertArrayEquals(new double[] {2.5, 3.5, 4.5}, tree.getCenterOfMass(0), 1e-12);
+        assertEquals(2, tree.getCumSize(0));
+        assertFalse(tree.isLeaf(0));
+        // only non-empty children are stored
+        assertEquals(3, tree.getNumNodes());
+        assertTrue(tree.isLeaf(1));
+        assertTrue(tree.isLeaf(2));
+    }
+
+    @Test
+    public void testNonEdgeForces() {
+        int n = 1000;
+        int d = 2;
+        double[] y = randomPoints(n, d, 12345);
+        // duplicate points end up in a single leaf at max depth
+        System.arraycopy(y, 0, y, 10 * d, d);
+
+        double[] exact = new double[n * d];
+        double exactSumQ = 0.0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i == j)
+                    continue;
+                double dist = 0.0;
+                for (int k = 0; k < d; k++)
+                    dist += (y[i * d + k] - y[j * d + k]) * (y[i * d + k] - y[j * d + k]);
+                double q = 1.0 / (1.0 + dist);
+                exactSumQ += q;
+                for (int k = 0; k < d; k++)
+                    exact[i * d + k] += q * q * (y[i * d + k] - y[j * d + k]);
+            }
+        }
+
+        FlatSpTree tree = new FlatSpTree(y, n, d);
+        assertEquals(n, tree.getCumSize(0));
+
+        // theta == 0 is exact
+        double[] negF = new double[n * d];
+        assertEquals(exactSumQ, tree.computeNonEdgeForces(0.0, negF), 1e-6 * exactSumQ);
+        assertArrayEquals(exact, negF, 1e-9);
+
+        // approximation is close, and the same for parallel and single point computation
+        double[] approx = new double[n * d];
+        double sumQ = tree.computeNonEdgeForces(0.5, approx);
+        assertEquals(exactSumQ, sumQ, 0.05 * exactSumQ);
+
+        double[] single = new double[n * d];
+        int[] stack = tree.createStack();
+        double singleSumQ = 0.0;
+        for (int i = 0; i < n; i++)
+            singleSumQ += tree.computeNonEdgeForces(i, 0.5, single, stack);
+        assertArrayEquals(approx, single, 1e-12);
+        assertEquals(sumQ, singleSumQ, 1e-6 * sumQ);
+
+        double err = 0.0;
+        double norm = 0.0;
+        for (int i = 0; i < n * d; i++) {
+            err += (approx[i] - exact[i]) * (approx[i] - exact[i]);
+            norm += exact[i] * exact[i];
+        }
+        assertTrue(Math.sqrt(err / norm) < 0.05);
+    }
+
+    @Test
+    public void testEdgeForces() {
+        int n = 600;
+        int d = 3;
+        int k = 5;
+        double[] y = randomPoints(n, d, 123);
+        Random r = new Random(123);
+        int[] rowP = new int[n + 1];
+        int[] colP = new int[n * k];
+        double[] valP = new double[n * k];
+        for (int i = 0; i < n; i++) {
+            rowP[i + 1] = rowP[i] + k;
+            for (int j = 0; j < k; j++) {
+                colP[i * k + j] = r.nextInt(n);
+                valP[i * k + j] = r.nextDouble();
+            }
+        }
+
+        double[] posF = new double[n * d];
+        FlatSpTree.computeEdgeForces(rowP, colP, valP, y, d, posF);
+
+        for (int i = 0; i < n; i++) {
+            double[] expected = new double[d];
+            for (int e = rowP[i]; e < rowP[i + 1]; e++) {
+                int j = colP[e];
+                double dist = 1.0;
+                for (int x = 0; x < d; x++)
+                    dist += (y[i * d + x] - y[j * d + x]) * (y[i * d + x] - y[j * d + x]);
+                for (int x = 0; x < d; x++)
+                    expected[x] += valP[e] / dist * (y[i * d + x] - y[j * d + x]);
+            }
+            for (int x = 0; x < d; x++)
+                assertEquals(expected[x], posF[i * d + x], 1e-12);
+        }
+    }
+
+    private static double[] randomPoints(int n, int d, long seed) {
+        Random r = new Random(seed);
+        double[] y = new double[n * d];
+        for (int i = 0; i < y.length; i++)
+            y[i] = r.nextGaussian();
+        return y;
+    }
+}
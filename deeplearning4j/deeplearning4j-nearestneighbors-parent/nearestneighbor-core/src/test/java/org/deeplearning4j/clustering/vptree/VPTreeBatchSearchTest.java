@@ -0,0 +1,86 @@
+package org.deeplearning4j.clustering.vptree;
+
+import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VPTreeBatchSearchTest {
+
+    private static void assertSameAsSingleSearch(String similarityFunction, boolean invert) {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.rand(500, 5);
+        INDArray queries = Nd4j.rand(100, 5);
+        VPTree tree = new VPTree(points, similarityFunction, invert);
+
+        // small chunks & buckets, so there's multiple chunks and both inner nodes & buckets are visited
+        VPTreeBatchSearch batchSearch = new VPTreeBatchSearch(tree, 16, 8);
+        for (int k : new int[] {1, 7, 600}) {
+            List<List<DataPoint>> results = new ArrayList<>();
+            List<List<Double>> distances = new ArrayList<>();
+            batchSearch.search(queries, k, results, distances);
+            assertEquals(queries.rows(), results.size());
+            assertEquals(queries.rows(), distances.size());
+
+            for (int q = 0; q < queries.rows(); q++) {
+                List<DataPoint> expResults = new ArrayList<>();
+                List<Double> expDistances = new ArrayList<>();
+                tree.search(queries.getRow(q), k, expResults, expDistances);
+
+                assertEquals(expResults.size(), results.get(q).size());
+                for (int i = 0; i < expResults.size(); i++) {
+                    assertEquals(expDistances.get(i), distances.get(q).get(i), 1e-4);
+
+                    // order of nearly equal distances depends on rounding
+                    boolean tie = (i > 0 && Math.abs(expDistances.get(i) - expDistances.get(i - 1)) < 1e-4)
+                                    || (i + 1 < expDistances.size()
+                                                    && Math.abs(expDistances.get(i) - expDistances.get(i + 1)) < 1e-4);
+                    if (!tie)
+                        assertEquals(expResults.get(i).getIndex(), results.get(q).get(i).getIndex());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEuclidean() {
+        assertSameAsSingleSearch("euclidean", false);
+    }
+
+    @Test
+    public void testManhattan() {
+        assertSameAsSingleSearch("manhattan", false);
+    }
+
+    @Test
+    public void testCosineSimilarityDistances() {
+        // cosine similarity isn't a metric, so search isn't exact, but distances of results should be
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.rand(200, 5);
+        INDArray queries = Nd4j.rand(20, 5);
+        VPTree tree = new VPTree(points, "cosinesimilarity", true);
+
+        List<List<DataPoint>> results = new ArrayList<>();
+        List<List<Double>> distances = new ArrayList<>();
+        new VPTreeBatchSearch(tree, 16, 8).search(queries, 5, results, distances);
+
+        for (int q = 0; q < queries.rows(); q++) {
+            assertEquals(5, results.get(q).size());
+            for (int i = 0; i < 5; i++) {
+                double expected = -Transforms.cosineSim(queries.getRow(q), points.getRow(results.get(q).get(i).getIndex()));
+                assertEquals(expected, distances.get(q).get(i), 1e-4);
+
+                // inverted results are nearest first
+                if (i > 0)
+                    assertTrue(distances.get(q).get(i - 1) <= distances.get(q).get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.deeplearning4j.clustering.vptree;
+
+import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class VPTreeIndexTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    /**
+     * Brute force k nearest ids among live points, nearest first
+     */
+    private static List<Integer> bruteForce(Map<Integer, INDArray> live, INDArray target, int k) {
+        List<Map.Entry<Integer, Double>> all = new ArrayList<>();
+        for (Map.Entry<Integer, INDArray> e : live.entrySet())
+            all.add(new AbstractMap.SimpleEntry<>(e.getKey(), e.getValue().distance2(target)));
+
+        Collections.sort(all, new Comparator<Map.Entry<Integer, Double>>() {
+            @Override
+            public int compare(Map.Entry<Integer, Double> o1, Map.Entry<Integer, Double> o2) {
+                return Double.compare(o1.getValue(), o2.getValue());
+            }
+        });
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < Math.min(k, all.size()); i++)
+            ids.add(all.get(i).getKey());
+        return ids;
+    }
+
+    private static List<Integer> search(VPTreeIndex index, INDArray target, int k) {
+        List<DataPoint> results = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        index.search(target, k, results, distances);
+        assertEquals(results.size(), distances.size());
+
+        // results are ordered farthest first, same as VPTree
+        List<Integer> ids = new ArrayList<>();
+        for (DataPoint dp : results)
+            ids.add(0, dp.getIndex());
+        return ids;
+    }
+
+    private static void assertSearchMatches(VPTreeIndex index, Map<Integer, INDArray> live, Random r) {
+        for (int q = 0; q < 10; q++) {
+            INDArray target = Nd4j.rand(1, 4);
+            int k = 1 + r.nextInt(8);
+            assertEquals(bruteForce(live, target, k), search(index, target, k));
+        }
+
+        INDArray targets = Nd4j.rand(10, 4);
+        List<List<DataPoint>> results = new ArrayList<>();
+        List<List<Double>> distances = new ArrayList<>();
+        index.searchBatch(targets, 5, results, distances);
+        assertEquals(10, results.size());
+        for (int q = 0; q < 10; q++) {
+            List<Integer> ids = new ArrayList<>();
+            for (DataPoint dp : results.get(q))
+                ids.add(0, dp.getIndex());
+            assertEquals(bruteForce(live, targets.getRow(q), 5), ids);
+        }
+    }
+
+    @Test
+    public void testInsertDeleteSearch() throws Exception {
+        Nd4j.getRandom().setSeed(12345);
+        Random r = new Random(12345);
+        INDArray points = Nd4j.rand(50, 4);
+
+        Map<Integer, INDArray> live = new HashMap<>();
+        for (int i = 0; i < points.rows(); i++)
+            live.put(i, points.getRow(i).dup());
+
+        // large rebalance fraction, so updates stay pending
+        try (VPTreeIndex index = new VPTreeIndex(points, "euclidean", false, 100.0)) {
+            assertEquals(50, index.size());
+            assertSearchMatches(index, live, r);
+
+            INDArray newPoints = Nd4j.rand(20, 4);
+            int[] ids = index.insert(newPoints);
+            assertEquals(20, ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                assertEquals(50 + i, ids[i]);
+                live.put(ids[i], newPoints.getRow(i).dup());
+            }
+
+            for (int id : new int[] {0, 7, 13, 55, 60}) {
+                assertTrue(index.delete(id));
+                live.remove(id);
+            }
+            assertFalse(index.delete(7));
+            assertFalse(index.contains(7));
+            assertNull(index.getPoint(55));
+            assertEquals(live.get(61), index.getPoint(61));
+
+            assertEquals(65, index.size());
+            assertEquals(20 + 3, index.pendingUpdates());
+            assertSearchMatches(index, live, r);
+
+            index.rebalance();
+            assertEquals(0, index.pendingUpdates());
+            assertEquals(65, index.size());
+            assertEquals(live.get(61), index.getPoint(61));
+            assertSearchMatches(index, live, r);
+
+            // ids are stable across rebuilds
+            assertEquals(70, index.insert(Nd4j.rand(1, 4))[0]);
+        }
+    }
+
+    @Test
+    public void testBackgroundRebalance() throws Exception {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.rand(40, 4);
+
+        try (VPTreeIndex index = new VPTreeIndex(points, "euclidean", false, 0.1)) {
+            index.insert(Nd4j.rand(10, 4));
+
+            // rebalance was triggered by insert, this call waits for it
+            index.rebalanceAsync().get();
+            assertEquals(0, index.pendingUpdates());
+            assertEquals(50, index.size());
+        }
+    }
+
+    @Test
+    public void testSaveLoad() throws Exception {
+        Nd4j.getRandom().setSeed(12345);
+        Random r = new Random(12345);
+        INDArray points = Nd4j.rand(100, 4);
+
+        Map<Integer, INDArray> live = new HashMap<>();
+        for (int i = 0; i < points.rows(); i++)
+            live.put(i, points.getRow(i).dup());
+
+        File file = new File(testDir.getRoot(), "index.bin");
+        try (VPTreeIndex index = new VPTreeIndex(points, "euclidean", false, 100.0)) {
+            INDArray newPoints = Nd4j.rand(5, 4);
+            int[] ids = index.insert(newPoints);
+            for (int i = 0; i < ids.length; i++)
+                live.put(ids[i], newPoints.getRow(i).dup());
+            index.delete(3);
+            live.remove(3);
+
+            index.save(file);
+        }
+
+        try (VPTreeIndex restored = VPTreeIndex.load(file)) {
+            assertEquals("euclidean", restored.getSimilarityFunction());
+            assertEquals(104, restored.size());
+            assertEquals(6, restored.pendingUpdates());
+            assertFalse(restored.contains(3));
+            assertSearchMatches(restored, live, r);
+
+            // restored index is still updatable
+            assertEquals(105, restored.insert(Nd4j.rand(1, 4))[0]);
+            assertTrue(restored.delete(10));
+            live.remove(10);
+            restored.rebalance();
+            assertEquals(live.get(50), restored.getPoint(50));
+        }
+    }
+
+    @Test
+    public void testLoadOverMappingLimit() throws Exception {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.rand(200, 4);
+        Map<Integer, INDArray> live = new HashMap<>();
+        for (int i = 0; i < points.rows(); i++)
+            live.put(i, points.getRow(i).dup());
+
+        File file = new File(testDir.getRoot(), "index.bin");
+        try (VPTreeIndex index = new VPTreeIndex(points, "euclidean", false)) {
+            index.save(file);
+        }
+
+        // stands in for the 2GB limit of a single mapping: points are copied instead of mapped
+        long maxMappedBytes = VPTreeIndex.maxMappedBytes;
+        VPTreeIndex.maxMappedBytes = 100;
+        try (VPTreeIndex restored = VPTreeIndex.load(file)) {
+            assertEquals(200, restored.size());
+            assertEquals(points.getRow(17), restored.getPoint(17));
+            assertSearchMatches(restored, live, new Random(12345));
+
+            assertTrue(restored.delete(5));
+            live.remove(5);
+            restored.save(file);
+        } finally {
+            VPTreeIndex.maxMappedBytes = maxMappedBytes;
+        }
+
+        try (VPTreeIndex restored = VPTreeIndex.load(file)) {
+            assertEquals(199, restored.size());
+            assertFalse(restored.contains(5));
+            assertSearchMatches(restored, live, new Random(12345));
+        }
+    }
+}
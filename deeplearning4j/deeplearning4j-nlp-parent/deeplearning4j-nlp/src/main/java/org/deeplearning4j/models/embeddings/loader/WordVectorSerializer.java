@@ -34,6 +34,7 @@ import org.deeplearning4j.models.embeddings.WeightLookupTable;
 import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
 import org.deeplearning4j.models.embeddings.learning.impl.elements.SkipGram;
 import org.deeplearning4j.models.embeddings.reader.impl.BasicModelUtils;
+import org.deeplearning4j.models.embeddings.reader.impl.InvertedFileIndex;
 import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
 import org.deeplearning4j.models.embeddings.wordvectors.WordVectorsImpl;
 import org.deeplearning4j.models.glove.Glove;
@@ -42,6 +43,7 @@ import org.deeplearning4j.models.sequencevectors.SequenceVectors;
 import org.deeplearning4j.models.sequencevectors.interfaces.SequenceElementFactory;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.sequencevectors.serialization.VocabWordFactory;
+import org.deeplearning4j.models.word2vec.MappedWord2Vec;
 import org.deeplearning4j.models.word2vec.StaticWord2Vec;
 import org.deeplearning4j.models.word2vec.VocabWord;
 import org.deeplearning4j.models.word2vec.Word2Vec;
@@ -2101,6 +2103,56 @@ public class WordVectorSerializer {
         return vocabCache;
     }
 
+    /**
+     * This method saves InvertedFileIndex to provided File, so it could be stored next to the model.
+     * Please note: only centroids and lists are saved, vectors are taken from the model upon IvfModelUtils init
+     *
+     * @param index
+     * @param file
+     * @throws IOException
+     */
+    public static void writeInvertedFileIndex(@NonNull InvertedFileIndex index, @NonNull File file) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            writeInvertedFileIndex(index, fos);
+        }
+    }
+
+    /**
+     * This method saves InvertedFileIndex to provided OutputStream
+     *
+     * @param index
+     * @param stream
+     * @throws IOException
+     */
+    public static void writeInvertedFileIndex(@NonNull InvertedFileIndex index, @NonNull OutputStream stream)
+                    throws IOException {
+        index.write(stream);
+    }
+
+    /**
+     * This method reads InvertedFileIndex from provided File
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static InvertedFileIndex readInvertedFileIndex(@NonNull File file) throws IOException {
+        try (FileInputStream fis = new FileInputStream(file)) {
+            return readInvertedFileIndex(fis);
+        }
+    }
+
+    /**
+     * This method reads InvertedFileIndex from provided InputStream
+     *
+     * @param stream
+     * @return
+     * @throws IOException
+     */
+    public static InvertedFileIndex readInvertedFileIndex(@NonNull InputStream stream) throws IOException {
+        return InvertedFileIndex.read(stream);
+    }
+
     /**
      * This is utility holder class
      */
@@ -2432,6 +2484,30 @@ public class WordVectorSerializer {
         return null;
     }
 
+    /**
+     * This method saves vectors into compact binary format, suitable for memory-mapping via readMappedWordVectors()
+     *
+     * @param vectors model to be saved. It should provide access to both vocab and lookup table.
+     * @param file
+     * @throws IOException
+     */
+    public static void writeMappedWordVectors(@NonNull WordVectors vectors, @NonNull File file) throws IOException {
+        MappedWord2Vec.write(vectors.vocab(), vectors.lookupTable(), file);
+    }
+
+    /**
+     * This method memory-maps model previously saved with writeMappedWordVectors().
+     * Nothing but file header is loaded onto heap, so this method is suitable for huge models,
+     * and multiple JVMs serving the same model on one host share the same page cache.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static MappedWord2Vec readMappedWordVectors(@NonNull File file) throws IOException {
+        return MappedWord2Vec.open(file);
+    }
+
     /**
      * This method restores previously saved w2v model. File can be in one of the following formats:
      * 1) Binary model, either compressed or not. Like well-known Google Model
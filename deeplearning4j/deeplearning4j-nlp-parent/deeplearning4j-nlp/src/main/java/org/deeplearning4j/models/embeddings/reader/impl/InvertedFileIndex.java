@@ -0,0 +1,370 @@
+package org.deeplearning4j.models.embeddings.reader.impl;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.*;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Approximate nearest neighbours index (IVF-flat) over rows of a vectors matrix, i.e. syn0.
+ *
+ * Vectors are partitioned into numLists clusters with spherical k-means. Each query is compared against cluster centroids
+ * first, and only vectors from the numProbes most similar clusters are scanned. So numProbes is the recall/latency knob:
+ * numProbes == numLists gives exact results, lower values give faster, approximate results.
+ *
+ * Only centroids and cluster membership are serialized, normalized vectors are rebuilt from syn0 via attach() call.
+ * PLEASE NOTE: attached index keeps normalized copy of vectors, so it takes as much memory as syn0 itself.
+ */
+@Slf4j
+public class InvertedFileIndex {
+    private static final int VERSION = 1;
+    private static final int SAMPLES_PER_LIST = 64;
+    // max number of similarities computed at once during assignment, i.e. batch rows * numLists
+    private static final int ASSIGN_ELEMENTS = 1 << 24;
+    private static final double EPS = 1e-12;
+
+    @Getter
+    protected final int numVectors;
+    @Getter
+    protected final int vectorLength;
+
+    // [numLists, vectorLength], unit length rows
+    protected final INDArray centroids;
+    protected final int[][] lists;
+
+    // normalized vectors, grouped by list. these are never serialized, and rebuilt from syn0 instead
+    protected volatile INDArray[] listVectors;
+
+    protected InvertedFileIndex(@NonNull INDArray centroids, @NonNull int[][] lists, int numVectors) {
+        this.centroids = centroids;
+        this.lists = lists;
+        this.numVectors = numVectors;
+        this.vectorLength = centroids.columns();
+    }
+
+    /**
+     * This method builds index for rows of given matrix
+     *
+     * @param syn0 vectors matrix, one vector per row
+     * @param numLists number of clusters to split vectors into. Something around 4 * sqrt(syn0.rows()) is a good start
+     * @param iterations number of k-means iterations
+     * @param seed random seed
+     * @return
+     */
+    public static InvertedFileIndex build(@NonNull INDArray syn0, int numLists, int iterations, long seed) {
+        int numVectors = syn0.rows();
+        if (numVectors < 1)
+            throw new ND4JIllegalStateException("Can't build index for empty matrix");
+
+        numLists = Math.max(1, Math.min(numLists, numVectors));
+        Random rng = new Random(seed);
+
+        // training sample, Fisher-Yates partial shuffle
+        int numSamples = (int) Math.min((long) numVectors, (long) numLists * SAMPLES_PER_LIST);
+        int[] permutation = new int[numVectors];
+        for (int i = 0; i < numVectors; i++)
+            permutation[i] = i;
+
+        for (int i = 0; i < numSamples; i++) {
+            int j = i + rng.nextInt(numVectors - i);
+            int tmp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = tmp;
+        }
+
+        int[] sampleIndices = new int[numSamples];
+        System.arraycopy(permutation, 0, sampleIndices, 0, numSamples);
+        permutation = null;
+
+        INDArray sample = normalizeRows(Nd4j.pullRows(syn0, 1, sampleIndices, 'c'));
+
+        // initial centroids are just first sampled vectors
+        int[] initial = new int[numLists];
+        for (int i = 0; i < numLists; i++)
+            initial[i] = i;
+        INDArray centroids = Nd4j.pullRows(sample, 1, initial, 'c');
+
+        for (int iter = 0; iter < iterations; iter++) {
+            int[] assignment = assign(sample, centroids);
+            int[][] clusters = group(assignment, numLists);
+
+            int empty = 0;
+            for (int c = 0; c < numLists; c++) {
+                INDArray row = centroids.getRow(c);
+                if (clusters[c].length == 0) {
+                    // empty cluster gets re-seeded with random sample
+                    row.assign(sample.getRow(rng.nextInt(numSamples)));
+                    empty++;
+                } else {
+                    row.assign(Nd4j.pullRows(sample, 1, clusters[c], 'c').mean(0));
+                }
+            }
+            centroids = normalizeRows(centroids);
+
+            log.debug("IVF k-means iteration {}: {} empty lists re-seeded", iter, empty);
+        }
+
+        // now we assign all vectors to the lists
+        int[] assignment = assign(syn0, centroids);
+
+        return new InvertedFileIndex(centroids, group(assignment, numLists), numVectors);
+    }
+
+    /**
+     * This method builds normalized per-list copies of given vectors, required for search
+     *
+     * @param syn0 the same matrix index was built for
+     */
+    public synchronized void attach(@NonNull INDArray syn0) {
+        if (syn0.rows() != numVectors || syn0.columns() != vectorLength)
+            throw new ND4JIllegalStateException("Index was built for [" + numVectors + ", " + vectorLength
+                            + "] matrix, but got " + java.util.Arrays.toString(syn0.shape()) + " instead");
+
+        INDArray[] vectors = new INDArray[lists.length];
+        for (int l = 0; l < lists.length; l++) {
+            if (lists[l].length > 0)
+                vectors[l] = normalizeRows(Nd4j.pullRows(syn0, 1, lists[l], 'c'));
+        }
+
+        listVectors = vectors;
+    }
+
+    /**
+     * This method releases normalized vectors copies
+     */
+    public synchronized void detach() {
+        listVectors = null;
+    }
+
+    public boolean isAttached() {
+        return listVectors != null;
+    }
+
+    public int numLists() {
+        return lists.length;
+    }
+
+    /**
+     * This method finds k rows most similar (cosine similarity) to given vector
+     *
+     * @param query vector to look nearest rows for
+     * @param k number of rows to return
+     * @param numProbes number of lists to scan, in range [1, numLists]
+     * @param results row indices, ordered by descending similarity
+     * @param similarities cosine similarities for rows returned
+     */
+    public void search(@NonNull INDArray query, int k, int numProbes, @NonNull List<Integer> results,
+                    @NonNull List<Double> similarities) {
+        INDArray[] vectors = listVectors;
+        if (vectors == null)
+            throw new ND4JIllegalStateException("Index should be attached to vectors before search");
+
+        results.clear();
+        similarities.clear();
+        if (k < 1)
+            return;
+
+        numProbes = Math.max(1, Math.min(numProbes, lists.length));
+
+        INDArray q = normalizeRows(query.dup('c').reshape(1, vectorLength)).transpose();
+
+        TopK probes = new TopK(numProbes);
+        double[] centroidSims = centroids.mmul(q).dup('c').data().asDouble();
+        for (int c = 0; c < centroidSims.length; c++)
+            probes.offer(c, centroidSims[c]);
+
+        TopK top = new TopK(k);
+        for (int p = 0; p < probes.size(); p++) {
+            int l = probes.indices[p];
+            if (lists[l].length == 0)
+                continue;
+
+            double[] sims = vectors[l].mmul(q).dup('c').data().asDouble();
+            for (int i = 0; i < sims.length; i++)
+                top.offer(lists[l][i], sims[i]);
+        }
+
+        top.sortDescending();
+        for (int i = 0; i < top.size(); i++) {
+            results.add(top.indices[i]);
+            similarities.add(top.scores[i]);
+        }
+    }
+
+    /**
+     * This method writes index to given stream. Vectors aren't saved, only centroids and lists.
+     *
+     * @param stream
+     * @throws IOException
+     */
+    public void write(@NonNull OutputStream stream) throws IOException {
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(stream));
+        dos.writeInt(VERSION);
+        dos.writeInt(numVectors);
+        Nd4j.write(centroids, dos);
+        dos.writeInt(lists.length);
+        for (int[] list : lists) {
+            dos.writeInt(list.length);
+            for (int idx : list)
+                dos.writeInt(idx);
+        }
+        dos.flush();
+    }
+
+    /**
+     * This method reads index from given stream. Please note: index should be attached to vectors before use.
+     *
+     * @param stream
+     * @return
+     * @throws IOException
+     */
+    public static InvertedFileIndex read(@NonNull InputStream stream) throws IOException {
+        DataInputStream dis = new DataInputStream(new BufferedInputStream(stream));
+        int version = dis.readInt();
+        if (version != VERSION)
+            throw new ND4JIllegalStateException("Unknown index version: [" + version + "]");
+
+        int numVectors = dis.readInt();
+        INDArray centroids = Nd4j.read(dis);
+        int numLists = dis.readInt();
+        int[][] lists = new int[numLists][];
+        for (int l = 0; l < numLists; l++) {
+            lists[l] = new int[dis.readInt()];
+            for (int i = 0; i < lists[l].length; i++)
+                lists[l][i] = dis.readInt();
+        }
+
+        return new InvertedFileIndex(centroids, lists, numVectors);
+    }
+
+    protected static INDArray normalizeRows(INDArray matrix) {
+        return matrix.diviColumnVector(matrix.norm2(1).addi(EPS));
+    }
+
+    /**
+     * This method returns index of the most similar centroid for each row of given matrix.
+     * Rows are processed batch by batch, so that similarities matrix stays within ASSIGN_ELEMENTS
+     */
+    protected static int[] assign(INDArray vectors, INDArray centroids) {
+        int numVectors = vectors.rows();
+        int batchSize = Math.max(1, ASSIGN_ELEMENTS / centroids.rows());
+        INDArray centroidsT = centroids.transpose();
+
+        int[] result = new int[numVectors];
+        for (int start = 0; start < numVectors; start += batchSize) {
+            int end = Math.min(numVectors, start + batchSize);
+            INDArray batch = vectors.get(NDArrayIndex.interval(start, end), NDArrayIndex.all());
+            INDArray best = Nd4j.argMax(batch.mmul(centroidsT), 1);
+            double[] values = best.dup('c').data().asDouble();
+            for (int i = 0; i < values.length; i++)
+                result[start + i] = (int) values[i];
+        }
+
+        return result;
+    }
+
+    protected static int[][] group(int[] assignment, int numLists) {
+        int[] counts = new int[numLists];
+        for (int a : assignment)
+            counts[a]++;
+
+        int[][] groups = new int[numLists][];
+        for (int l = 0; l < numLists; l++)
+            groups[l] = new int[counts[l]];
+
+        int[] positions = new int[numLists];
+        for (int i = 0; i < assignment.length; i++) {
+            int a = assignment[i];
+            groups[a][positions[a]++] = i;
+        }
+
+        return groups;
+    }
+
+    /**
+     * Bounded min-heap over primitive index/score pairs
+     */
+    protected static class TopK {
+        private final int capacity;
+        private final int[] indices;
+        private final double[] scores;
+        private int size;
+
+        protected TopK(int capacity) {
+            this.capacity = capacity;
+            this.indices = new int[capacity];
+            this.scores = new double[capacity];
+        }
+
+        protected int size() {
+            return size;
+        }
+
+        protected void offer(int index, double score) {
+            if (Double.isNaN(score))
+                return;
+
+            if (size < capacity) {
+                indices[size] = index;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                indices[0] = index;
+                scores[0] = score;
+                siftDown(0, size);
+            }
+        }
+
+        /**
+         * Heap-sort in place, heap property is destroyed after this call
+         */
+        protected void sortDescending() {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (scores[parent] <= scores[i])
+                    break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i, int limit) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= limit)
+                    break;
+                int smallest = left;
+                if (left + 1 < limit && scores[left + 1] < scores[left])
+                    smallest = left + 1;
+                if (scores[i] <= scores[smallest])
+                    break;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int ti = indices[a];
+            indices[a] = indices[b];
+            indices[b] = ti;
+
+            double ts = scores[a];
+            scores[a] = scores[b];
+            scores[b] = ts;
+        }
+    }
+}
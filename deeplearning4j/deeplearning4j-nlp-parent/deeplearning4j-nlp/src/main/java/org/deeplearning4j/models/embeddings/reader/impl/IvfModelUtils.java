@@ -0,0 +1,146 @@
+package org.deeplearning4j.models.embeddings.reader.impl;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This is approximate implementation for wordsNearest methods, backed by InvertedFileIndex built over syn0.
+ * Suited for multiple consequent calls against large vocabularies, where full scan is too slow.
+ *
+ * numProbes is the recall/latency knob: the more lists are scanned per query, the closer results are to exact ones.
+ * Index is built upon first call to wordsNearest, unless it was provided explicitly, i.e. read via WordVectorSerializer.
+ *
+ * PLEASE NOTE: This reader does NOT normalize underlying weights, but index keeps normalized copy of them.
+ */
+@Slf4j
+public class IvfModelUtils<T extends SequenceElement> extends BasicModelUtils<T> {
+    public static final int DEFAULT_NUM_PROBES = 8;
+    public static final int DEFAULT_ITERATIONS = 10;
+
+    protected int numLists;
+    protected int iterations = DEFAULT_ITERATIONS;
+    protected long seed = 119L;
+    protected volatile int numProbes;
+
+    protected volatile InvertedFileIndex index;
+    protected boolean externalIndex = false;
+
+    /**
+     * Number of lists will be picked as 4 * sqrt(vocabulary size)
+     */
+    public IvfModelUtils() {
+        this(0, DEFAULT_NUM_PROBES);
+    }
+
+    /**
+     * @param numLists number of lists vectors are partitioned into. 0 means 4 * sqrt(vocabulary size)
+     * @param numProbes number of lists scanned per query
+     */
+    public IvfModelUtils(int numLists, int numProbes) {
+        this.numLists = numLists;
+        this.numProbes = numProbes;
+    }
+
+    /**
+     * @param index previously built index, i.e. restored via WordVectorSerializer.readInvertedFileIndex()
+     * @param numProbes number of lists scanned per query
+     */
+    public IvfModelUtils(@NonNull InvertedFileIndex index, int numProbes) {
+        this(index.numLists(), numProbes);
+        this.index = index;
+        this.externalIndex = true;
+    }
+
+    @Override
+    public void init(@NonNull WeightLookupTable<T> lookupTable) {
+        super.init(lookupTable);
+
+        // provided index is kept, but it'll be re-attached to the new table
+        if (externalIndex)
+            index.detach();
+        else
+            index = null;
+    }
+
+    /**
+     * This method sets number of lists scanned per query. Can be changed at any time.
+     *
+     * @param numProbes
+     */
+    public void setNumProbes(int numProbes) {
+        this.numProbes = numProbes;
+    }
+
+    public int getNumProbes() {
+        return numProbes;
+    }
+
+    /**
+     * This method returns index used by this ModelUtils, building it if necessary
+     *
+     * @return
+     */
+    public InvertedFileIndex getIndex() {
+        checkIndex();
+        return index;
+    }
+
+    protected synchronized void checkIndex() {
+        if (!(lookupTable instanceof InMemoryLookupTable))
+            throw new IllegalStateException("IvfModelUtils requires InMemoryLookupTable");
+
+        INDArray syn0 = ((InMemoryLookupTable) lookupTable).getSyn0();
+
+        if (index == null) {
+            int lists = numLists > 0 ? numLists : Math.max(1, (int) (4 * Math.sqrt(syn0.rows())));
+            long time1 = System.currentTimeMillis();
+            index = InvertedFileIndex.build(syn0, lists, iterations, seed);
+            long time2 = System.currentTimeMillis();
+            log.info("InvertedFileIndex with {} lists was built in {} ms", lists, time2 - time1);
+        }
+
+        if (!index.isAttached())
+            index.attach(syn0);
+    }
+
+    /**
+     * This method returns approximate nearest words for given vector.
+     *
+     * @param words vector to look nearest words for
+     * @param top number of nearest words to return
+     * @return
+     */
+    @Override
+    public Collection<String> wordsNearest(INDArray words, int top) {
+        if (!(lookupTable instanceof InMemoryLookupTable))
+            return super.wordsNearest(words, top);
+
+        checkIndex();
+
+        List<Integer> indices = new ArrayList<>();
+        List<Double> similarities = new ArrayList<>();
+
+        // couple of extra elements, to address UNK/STOP removal
+        index.search(words, top + 2, numProbes, indices, similarities);
+
+        List<String> result = new ArrayList<>();
+        for (Integer idx : indices) {
+            String word = vocabCache.wordAtIndex(idx);
+            if (word != null && !word.equals("UNK") && !word.equals("STOP"))
+                result.add(word);
+
+            if (result.size() >= top)
+                break;
+        }
+
+        return result;
+    }
+}
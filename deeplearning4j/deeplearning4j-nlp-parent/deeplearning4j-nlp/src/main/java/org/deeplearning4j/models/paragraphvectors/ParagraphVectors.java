@@ -38,6 +38,7 @@ import org.nd4j.linalg.primitives.Pair;
 import org.threadly.concurrent.PriorityScheduler;
 import org.threadly.concurrent.TaskPriority;
 
+import java.io.File;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
@@ -882,6 +883,24 @@ public class ParagraphVectors extends Word2Vec {
             return this;
         }
 
+        @Override
+        public Builder useCompactVocabCounter(boolean reallyUse) {
+            super.useCompactVocabCounter(reallyUse);
+            return this;
+        }
+
+        @Override
+        public Builder vocabCounterMemoryLimit(long bytes) {
+            super.vocabCounterMemoryLimit(bytes);
+            return this;
+        }
+
+        @Override
+        public Builder vocabSpillDirectory(@NonNull File directory) {
+            super.vocabSpillDirectory(directory);
+            return this;
+        }
+
         @Override
         public ParagraphVectors build() {
             presetTables();
@@ -954,6 +973,9 @@ public class ParagraphVectors extends Word2Vec {
             ret.seed = this.seed;
             ret.enableScavenger = this.enableScavenger;
             ret.vocabLimit = this.vocabLimit;
+            ret.useCompactVocabCounter = this.useCompactVocabCounter;
+            ret.vocabCounterMemoryLimit = this.vocabCounterMemoryLimit;
+            ret.vocabSpillDirectory = this.vocabSpillDirectory;
 
             ret.trainElementsVectors = this.trainElementsVectors;
             ret.trainSequenceVectors = this.trainSequenceVectors;
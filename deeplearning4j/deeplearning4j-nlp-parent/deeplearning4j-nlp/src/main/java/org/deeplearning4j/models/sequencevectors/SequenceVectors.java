@@ -34,6 +34,7 @@ import org.nd4j.linalg.factory.Nd4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.*;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -70,6 +71,9 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
 
     protected boolean enableScavenger = false;
     protected int vocabLimit = 0;
+    protected boolean useCompactVocabCounter = false;
+    protected long vocabCounterMemoryLimit = 0L;
+    protected transient File vocabSpillDirectory;
 
 
     @Setter
@@ -112,6 +116,8 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
         VocabConstructor<T> constructor = new VocabConstructor.Builder<T>().addSource(iterator, minWordFrequency)
                         .setTargetVocabCache(vocab).fetchLabels(trainSequenceVectors).setStopWords(stopWords)
                         .enableScavenger(enableScavenger).setEntriesLimit(vocabLimit)
+                        .useCompactCounter(useCompactVocabCounter).setCounterMemoryLimit(vocabCounterMemoryLimit)
+                        .setSpillDirectory(vocabSpillDirectory)
                         .setUnk(useUnknown && unknownElement != null ? unknownElement : null).build();
 
         if (existingModel != null && lookupTable instanceof InMemoryLookupTable
@@ -408,6 +414,9 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
 
         protected boolean enableScavenger = false;
         protected int vocabLimit;
+        protected boolean useCompactVocabCounter = false;
+        protected long vocabCounterMemoryLimit = 0L;
+        protected File vocabSpillDirectory;
 
         // defaults values for learning algorithms are set here
         protected ElementsLearningAlgorithm<T> elementsLearningAlgorithm = new SkipGram<>();
@@ -936,6 +945,49 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
             return this;
         }
 
+        /**
+         * This method enables/disables compact vocabulary counting: element frequencies are counted in primitive
+         * arrays instead of per-element objects, so only elements that pass minWordFrequency end up on heap.
+         *
+         * PLEASE NOTE: This option is applicable to VocabWord elements only
+         *
+         * Default value: disabled
+         *
+         * @param reallyUse
+         * @return
+         */
+        public Builder<T> useCompactVocabCounter(boolean reallyUse) {
+            this.useCompactVocabCounter = reallyUse;
+            return this;
+        }
+
+        /**
+         * This method sets approximate memory limit for compact vocabulary counter, in bytes.
+         * If counter grows beyond this limit, counts are spilled to disk and merged back after corpus pass.
+         *
+         * Default value: 0, which means no limit
+         *
+         * @param bytes
+         * @return
+         */
+        public Builder<T> vocabCounterMemoryLimit(long bytes) {
+            this.vocabCounterMemoryLimit = bytes;
+            return this;
+        }
+
+        /**
+         * This method sets directory for compact vocabulary counter spills.
+         *
+         * Default value: java.io.tmpdir
+         *
+         * @param directory
+         * @return
+         */
+        public Builder<T> vocabSpillDirectory(@NonNull File directory) {
+            this.vocabSpillDirectory = directory;
+            return this;
+        }
+
         /**
          * Build SequenceVectors instance with defined settings/options
          * @return
@@ -984,6 +1036,9 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
 
             vectors.existingModel = this.existingVectors;
             vectors.enableScavenger = this.enableScavenger;
+            vectors.useCompactVocabCounter = this.useCompactVocabCounter;
+            vectors.vocabCounterMemoryLimit = this.vocabCounterMemoryLimit;
+            vectors.vocabSpillDirectory = this.vocabSpillDirectory;
 
             this.configuration.setLearningRate(this.learningRate);
             this.configuration.setLayersSize(layerSize);
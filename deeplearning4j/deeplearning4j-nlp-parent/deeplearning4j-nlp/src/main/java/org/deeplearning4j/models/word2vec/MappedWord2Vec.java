@@ -0,0 +1,615 @@
+package org.deeplearning4j.models.word2vec;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.reader.ModelUtils;
+import org.deeplearning4j.models.embeddings.reader.impl.BasicModelUtils;
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+import org.nd4j.linalg.util.MathUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * This is special limited Word2Vec implementation, suited for serving huge models from read-only memory-mapped file.
+ * Nothing except file header is loaded onto heap: vectors, words and word-to-index hash table are all memory-mapped,
+ * so startup time doesn't depend on model size, and multiple JVMs on the same host share the same page cache.
+ *
+ * Vectors are fetched lazily, row by row, upon request. wordsNearest methods are available, but they do full scan over
+ * mapped vectors, so consider using Word2Vec with IvfModelUtils if you need fast nearest neighbours lookups.
+ * This implementation DOES NOT provide access to VocabCache/WeightLookupTable, and wordsNearestSum/accuracy methods.
+ *
+ * File is built once via MappedWord2Vec.write() or WordVectorSerializer.writeMappedWordVectors(). All values are stored in
+ * little endian order:
+ *  - 64 bytes header: magic, version, numWords, vectorLength, hash capacity and offsets of the sections below
+ *  - int[numWords + 1] offsets of words within UTF-8 strings section
+ *  - UTF-8 strings section
+ *  - int[capacity] open addressing hash table, with word index + 1 stored in each non-empty slot
+ *  - float[numWords] norm2 of each vector
+ *  - float[numWords * vectorLength] vectors, row by row, 64-bytes aligned
+ */
+@Slf4j
+public class MappedWord2Vec implements WordVectors, Closeable {
+    public static final long MAGIC = 0x444C344A4D575631L; // "DL4JMWV1"
+    public static final int VERSION = 1;
+    protected static final int HEADER_LENGTH = 64;
+    protected static final int ALIGNMENT = 64;
+    protected static final int SCAN_BLOCK = 4096;
+
+    private transient RandomAccessFile file;
+    private transient FileChannel channel;
+
+    private int numWords;
+    private int vectorLength;
+    private int hashMask;
+
+    private transient IntBuffer stringOffsets;
+    private transient ByteBuffer strings;
+    private transient IntBuffer hashTable;
+    private transient FloatBuffer norms;
+
+    // vectors can easily be larger than 2GB, so they are mapped by regions of whole rows
+    private transient FloatBuffer[] vectorRegions;
+    private int rowsPerRegion;
+
+    private String unk = null;
+
+    private MappedWord2Vec() {
+
+    }
+
+    /**
+     * This method memory-maps previously written model file
+     *
+     * @param modelFile file created with MappedWord2Vec.write()
+     * @return
+     * @throws IOException
+     */
+    public static MappedWord2Vec open(@NonNull File modelFile) throws IOException {
+        MappedWord2Vec vectors = new MappedWord2Vec();
+        vectors.file = new RandomAccessFile(modelFile, "r");
+        vectors.channel = vectors.file.getChannel();
+
+        try {
+            vectors.init();
+        } catch (IOException | RuntimeException e) {
+            vectors.close();
+            throw e;
+        }
+
+        return vectors;
+    }
+
+    protected void init() throws IOException {
+        ByteBuffer header = map(0, HEADER_LENGTH);
+        if (header.getLong() != MAGIC)
+            throw new ND4JIllegalStateException("File isn't MappedWord2Vec model");
+
+        int version = header.getInt();
+        if (version != VERSION)
+            throw new ND4JIllegalStateException("Unsupported MappedWord2Vec version: [" + version + "]");
+
+        numWords = header.getInt();
+        vectorLength = header.getInt();
+        int hashCapacity = header.getInt();
+        long offsetsStart = header.getLong();
+        long stringsStart = header.getLong();
+        long hashStart = header.getLong();
+        long normsStart = header.getLong();
+        long vectorsStart = header.getLong();
+
+        hashMask = hashCapacity - 1;
+        stringOffsets = map(offsetsStart, (numWords + 1) * 4L).asIntBuffer();
+        strings = map(stringsStart, hashStart - stringsStart);
+        hashTable = map(hashStart, hashCapacity * 4L).asIntBuffer();
+        norms = map(normsStart, numWords * 4L).asFloatBuffer();
+
+        long rowBytes = vectorLength * 4L;
+        rowsPerRegion = (int) Math.max(1, Integer.MAX_VALUE / rowBytes);
+        int numRegions = numWords == 0 ? 0 : (numWords - 1) / rowsPerRegion + 1;
+        vectorRegions = new FloatBuffer[numRegions];
+        for (int r = 0; r < numRegions; r++) {
+            long firstRow = (long) r * rowsPerRegion;
+            long rows = Math.min(rowsPerRegion, numWords - firstRow);
+            vectorRegions[r] = map(vectorsStart + firstRow * rowBytes, rows * rowBytes).asFloatBuffer();
+        }
+
+        log.info("MappedWord2Vec: {} words, vector length {}, {} vector regions", numWords, vectorLength, numRegions);
+    }
+
+    private ByteBuffer map(long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    /**
+     * This method writes vectors from given vocab/lookup table into memory-mappable file
+     *
+     * @param vocabCache vocabulary, defines word order
+     * @param lookupTable source of vectors
+     * @param output file to be created
+     * @throws IOException
+     */
+    public static void write(@NonNull VocabCache<?> vocabCache, @NonNull WeightLookupTable<?> lookupTable,
+                    @NonNull File output) throws IOException {
+        int numWords = vocabCache.numWords();
+        int vectorLength = lookupTable.layerSize();
+
+        byte[][] words = new byte[numWords][];
+        long stringsLength = 0;
+        for (int i = 0; i < numWords; i++) {
+            String word = vocabCache.wordAtIndex(i);
+            if (word == null)
+                throw new ND4JIllegalStateException("No word found at index [" + i + "]");
+
+            words[i] = word.getBytes(StandardCharsets.UTF_8);
+            stringsLength += words[i].length;
+        }
+
+        if (stringsLength > Integer.MAX_VALUE)
+            throw new ND4JIllegalStateException("Vocabulary strings can't exceed 2GB");
+
+        int hashCapacity = Integer.highestOneBit(Math.max(2, numWords * 2 - 1)) << 1;
+        int[] hashTable = new int[hashCapacity];
+        for (int i = 0; i < numWords; i++) {
+            int slot = hash(words[i], 0, words[i].length) & (hashCapacity - 1);
+            while (hashTable[slot] != 0)
+                slot = (slot + 1) & (hashCapacity - 1);
+            hashTable[slot] = i + 1;
+        }
+
+        long offsetsStart = HEADER_LENGTH;
+        long stringsStart = offsetsStart + (numWords + 1) * 4L;
+        long hashStart = stringsStart + stringsLength;
+        long normsStart = hashStart + hashCapacity * 4L;
+        long vectorsStart = align(normsStart + numWords * 4L);
+
+        try (FileOutputStream fos = new FileOutputStream(output); FileChannel out = fos.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putLong(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(numWords);
+            buffer.putInt(vectorLength);
+            buffer.putInt(hashCapacity);
+            buffer.putLong(offsetsStart);
+            buffer.putLong(stringsStart);
+            buffer.putLong(hashStart);
+            buffer.putLong(normsStart);
+            buffer.putLong(vectorsStart);
+            pad(buffer, out, HEADER_LENGTH - buffer.position());
+
+            int offset = 0;
+            for (int i = 0; i <= numWords; i++) {
+                ensure(buffer, out, 4);
+                buffer.putInt(offset);
+                if (i < numWords)
+                    offset += words[i].length;
+            }
+
+            for (byte[] word : words) {
+                int written = 0;
+                while (written < word.length) {
+                    ensure(buffer, out, 1);
+                    int chunk = Math.min(buffer.remaining(), word.length - written);
+                    buffer.put(word, written, chunk);
+                    written += chunk;
+                }
+            }
+
+            for (int slot : hashTable) {
+                ensure(buffer, out, 4);
+                buffer.putInt(slot);
+            }
+
+            for (int i = 0; i < numWords; i++) {
+                ensure(buffer, out, 4);
+                buffer.putFloat(lookupTable.vector(vocabCache.wordAtIndex(i)).norm2Number().floatValue());
+            }
+
+            pad(buffer, out, (int) (vectorsStart - normsStart - numWords * 4L));
+
+            for (int i = 0; i < numWords; i++) {
+                INDArray vector = lookupTable.vector(vocabCache.wordAtIndex(i));
+                for (int e = 0; e < vectorLength; e++) {
+                    ensure(buffer, out, 4);
+                    buffer.putFloat(vector.getFloat(e));
+                }
+            }
+
+            flush(buffer, out);
+        }
+    }
+
+    private static long align(long position) {
+        return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static void pad(ByteBuffer buffer, FileChannel out, int bytes) throws IOException {
+        for (int i = 0; i < bytes; i++) {
+            ensure(buffer, out, 1);
+            buffer.put((byte) 0);
+        }
+    }
+
+    private static void ensure(ByteBuffer buffer, FileChannel out, int bytes) throws IOException {
+        if (buffer.remaining() < bytes)
+            flush(buffer, out);
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            out.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * FNV-1a hash over UTF-8 bytes of the word
+     */
+    protected static int hash(byte[] bytes, int offset, int length) {
+        int h = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++) {
+            h ^= bytes[i] & 0xFF;
+            h *= 0x01000193;
+        }
+        return h;
+    }
+
+    /**
+     * Closes underlying file. Please note: mapped memory is released only after this object is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null)
+            channel.close();
+        if (file != null)
+            file.close();
+    }
+
+    /**
+     * Returns number of words in this model
+     *
+     * @return
+     */
+    public int numWords() {
+        return numWords;
+    }
+
+    /**
+     * Returns length of vectors in this model
+     *
+     * @return
+     */
+    public int getLayerSize() {
+        return vectorLength;
+    }
+
+    /**
+     * Returns word stored at specified index
+     *
+     * @param index
+     * @return
+     */
+    public String wordAtIndex(int index) {
+        if (index < 0 || index >= numWords)
+            return null;
+
+        int start = stringOffsets.get(index);
+        int end = stringOffsets.get(index + 1);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer dup = strings.duplicate();
+        dup.position(start);
+        dup.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String getUNK() {
+        return unk;
+    }
+
+    @Override
+    public void setUNK(String newUNK) {
+        this.unk = newUNK;
+    }
+
+    @Override
+    public boolean hasWord(String word) {
+        return word != null && indexOf(word) >= 0;
+    }
+
+    /**
+     * Returns index of the word, or -1 if word is unknown
+     *
+     * @param word
+     * @return
+     */
+    @Override
+    public int indexOf(String word) {
+        byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+        int slot = hash(bytes, 0, bytes.length) & hashMask;
+        while (true) {
+            int value = hashTable.get(slot);
+            if (value == 0)
+                return -1;
+
+            int idx = value - 1;
+            if (matches(idx, bytes))
+                return idx;
+
+            slot = (slot + 1) & hashMask;
+        }
+    }
+
+    private boolean matches(int index, byte[] bytes) {
+        int start = stringOffsets.get(index);
+        int end = stringOffsets.get(index + 1);
+        if (end - start != bytes.length)
+            return false;
+
+        for (int i = 0; i < bytes.length; i++) {
+            if (strings.get(start + i) != bytes[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * This method copies vector with specified index into given array
+     *
+     * @param index index of the word
+     * @param target array of vectorLength elements
+     */
+    public void getVector(int index, float[] target) {
+        FloatBuffer region = vectorRegions[index / rowsPerRegion].duplicate();
+        region.position((index % rowsPerRegion) * vectorLength);
+        region.get(target, 0, vectorLength);
+    }
+
+    private int resolve(String word) {
+        int idx = word == null ? -1 : indexOf(word);
+        if (idx < 0 && getUNK() != null)
+            idx = indexOf(getUNK());
+
+        return idx;
+    }
+
+    @Override
+    public double[] getWordVector(String word) {
+        INDArray vector = getWordVectorMatrix(word);
+        return vector == null ? null : vector.data().asDouble();
+    }
+
+    @Override
+    public INDArray getWordVectorMatrixNormalized(String word) {
+        INDArray vector = getWordVectorMatrix(word);
+        return vector == null ? null : Transforms.unitVec(vector);
+    }
+
+    /**
+     * Returns vector for the given word, copied from mapped memory. Returns null for unknown words, if UNK isn't set.
+     *
+     * @param word the word to get the matrix for
+     * @return
+     */
+    @Override
+    public INDArray getWordVectorMatrix(String word) {
+        int idx = resolve(word);
+        if (idx < 0)
+            return null;
+
+        float[] vector = new float[vectorLength];
+        getVector(idx, vector);
+        return Nd4j.create(vector);
+    }
+
+    @Override
+    public INDArray getWordVectors(Collection<String> labels) {
+        List<INDArray> words = new ArrayList<>();
+        for (String label : labels) {
+            INDArray vector = getWordVectorMatrix(label);
+            if (vector != null)
+                words.add(vector);
+        }
+
+        return words.isEmpty() ? null : Nd4j.vstack(words);
+    }
+
+    @Override
+    public INDArray getWordVectorsMean(Collection<String> labels) {
+        INDArray matrix = getWordVectors(labels);
+        return matrix == null ? null : matrix.mean(0);
+    }
+
+    /**
+     * This method does full scan over mapped vectors, and returns labels of top most similar (cosine) vectors
+     *
+     * @param words vector to look nearest words for
+     * @param top number of words to return
+     * @return
+     */
+    @Override
+    public Collection<String> wordsNearest(INDArray words, int top) {
+        float[] query = words.dup().data().asFloat();
+        double queryNorm = 0.0;
+        for (float v : query)
+            queryNorm += v * v;
+        queryNorm = Math.sqrt(queryNorm);
+
+        BasicModelUtils.ArrayComparator comparator = new BasicModelUtils.ArrayComparator();
+        PriorityQueue<Double[]> queue = new PriorityQueue<>(Math.max(1, top), comparator);
+
+        float[] block = new float[SCAN_BLOCK * vectorLength];
+        for (int start = 0; start < numWords; start += SCAN_BLOCK) {
+            int rows = readBlock(start, block);
+            for (int r = 0; r < rows; r++) {
+                int idx = start + r;
+                double dot = 0.0;
+                int offset = r * vectorLength;
+                for (int e = 0; e < vectorLength; e++)
+                    dot += block[offset + e] * query[e];
+
+                double sim = dot / (norms.get(idx) * queryNorm);
+                if (Double.isNaN(sim))
+                    continue;
+
+                if (queue.size() < top) {
+                    queue.add(new Double[] {sim, (double) idx});
+                } else if (top > 0 && sim > queue.peek()[0]) {
+                    queue.poll();
+                    queue.add(new Double[] {sim, (double) idx});
+                }
+            }
+        }
+
+        LinkedList<String> result = new LinkedList<>();
+        while (!queue.isEmpty())
+            result.addFirst(wordAtIndex(queue.poll()[1].intValue()));
+
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Copies consequent rows starting from given index into the block, never crossing mapped region boundary
+     *
+     * @return number of rows copied
+     */
+    private int readBlock(int start, float[] block) {
+        int region = start / rowsPerRegion;
+        int regionRow = start % rowsPerRegion;
+        int rows = Math.min(SCAN_BLOCK, Math.min(numWords - start, rowsPerRegion - regionRow));
+        FloatBuffer buffer = vectorRegions[region].duplicate();
+        buffer.position(regionRow * vectorLength);
+        buffer.get(block, 0, rows * vectorLength);
+        return rows;
+    }
+
+    @Override
+    public Collection<String> wordsNearest(Collection<String> positive, Collection<String> negative, int top) {
+        for (String word : positive)
+            if (!hasWord(word))
+                return new ArrayList<>();
+        for (String word : negative)
+            if (!hasWord(word))
+                return new ArrayList<>();
+
+        INDArray mean = Nd4j.create(vectorLength);
+        for (String word : positive)
+            mean.addi(getWordVectorMatrix(word));
+        for (String word : negative)
+            mean.subi(getWordVectorMatrix(word));
+
+        Collection<String> candidates = wordsNearest(mean, top + positive.size() + negative.size());
+        List<String> result = new ArrayList<>();
+        for (String word : candidates) {
+            if (!positive.contains(word) && !negative.contains(word) && result.size() < top)
+                result.add(word);
+        }
+
+        return result;
+    }
+
+    @Override
+    public Collection<String> wordsNearest(String word, int n) {
+        return wordsNearest(Arrays.asList(word), new ArrayList<String>(), n);
+    }
+
+    @Override
+    public double similarity(String label1, String label2) {
+        INDArray vec1 = label1 == null ? null : getWordVectorMatrix(label1);
+        INDArray vec2 = label2 == null ? null : getWordVectorMatrix(label2);
+        if (vec1 == null || vec2 == null)
+            return Double.NaN;
+
+        if (label1.equals(label2))
+            return 1.0;
+
+        return Transforms.cosineSim(vec1, vec2);
+    }
+
+    @Override
+    public List<String> similarWordsInVocabTo(String word, double accuracy) {
+        List<String> ret = new ArrayList<>();
+        for (int i = 0; i < numWords; i++) {
+            String s = wordAtIndex(i);
+            if (MathUtils.stringSimilarity(word, s) >= accuracy)
+                ret.add(s);
+        }
+        return ret;
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public Collection<String> wordsNearestSum(INDArray words, int top) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public Collection<String> wordsNearestSum(String word, int n) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public Collection<String> wordsNearestSum(Collection<String> positive, Collection<String> negative, int top) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public Map<String, Double> accuracy(List<String> questions) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation, since vocabulary isn't loaded onto heap.
+     */
+    @Override
+    public VocabCache vocab() {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation, since vectors aren't loaded onto heap.
+     */
+    @Override
+    public WeightLookupTable lookupTable() {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * Specifies ModelUtils to be used to access model
+     * PLEASE NOTE: This method has no effect in this implementation.
+     *
+     * @param utils
+     */
+    @Override
+    public void setModelUtils(ModelUtils utils) {
+        // no-op
+    }
+}
@@ -21,6 +21,7 @@ import org.deeplearning4j.text.sentenceiterator.StreamLineIterator;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.List;
 
@@ -534,6 +535,24 @@ public class Word2Vec extends SequenceVectors<VocabWord> {
             return this;
         }
 
+        @Override
+        public Builder useCompactVocabCounter(boolean reallyUse) {
+            super.useCompactVocabCounter(reallyUse);
+            return this;
+        }
+
+        @Override
+        public Builder vocabCounterMemoryLimit(long bytes) {
+            super.vocabCounterMemoryLimit(bytes);
+            return this;
+        }
+
+        @Override
+        public Builder vocabSpillDirectory(@NonNull File directory) {
+            super.vocabSpillDirectory(directory);
+            return this;
+        }
+
         public Word2Vec build() {
             presetTables();
 
@@ -581,6 +600,9 @@ public class Word2Vec extends SequenceVectors<VocabWord> {
             ret.seed = this.seed;
             ret.enableScavenger = this.enableScavenger;
             ret.vocabLimit = this.vocabLimit;
+            ret.useCompactVocabCounter = this.useCompactVocabCounter;
+            ret.vocabCounterMemoryLimit = this.vocabCounterMemoryLimit;
+            ret.vocabSpillDirectory = this.vocabSpillDirectory;
 
 
             ret.iterator = this.iterator;
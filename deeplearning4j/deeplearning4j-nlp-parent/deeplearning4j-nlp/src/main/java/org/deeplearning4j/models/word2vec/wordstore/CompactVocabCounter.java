@@ -0,0 +1,466 @@
+package org.deeplearning4j.models.word2vec.wordstore;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * This class counts elements frequencies for vocabulary construction, without creating any object per element.
+ *
+ * Labels are stored as UTF-8 bytes within arena of large byte pages, and looked up through open addressing hash table
+ * of primitive ints. Frequencies and sequence counts are kept in primitive arrays as well.
+ *
+ * If memory limit is set, and counter grows beyond it, current counts are sorted and spilled to disk as sorted run,
+ * and counting continues from scratch. All runs are merged during forEach() call, so the total number of distinct
+ * elements seen isn't limited by heap size, only elements that pass minimal frequency end up on heap.
+ *
+ * PLEASE NOTE: This class is thread-safe, but each sequence is counted under the same lock.
+ */
+@Slf4j
+public class CompactVocabCounter implements Closeable {
+    private static final int PAGE_SIZE = 1 << 20;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    // location + length + hash + lastSeen + frequency + sequences, per entry
+    private static final int ENTRY_BYTES = 8 + 4 + 4 + 4 + 8 + 8;
+
+    private final long memoryLimit;
+    private final File spillDirectory;
+
+    // string arena
+    private List<byte[]> pages;
+    private int pageOffset;
+
+    // entries
+    private long[] locations;
+    private int[] lengths;
+    private int[] hashes;
+    private int[] lastSeen;
+    private long[] frequencies;
+    private long[] sequences;
+    private int size;
+
+    // hash table, with entry index + 1 stored in each non-empty slot
+    private int[] slots;
+    private int mask;
+
+    private int sequenceStamp = 0;
+    private long totalCount = 0;
+    private final List<File> runs = new ArrayList<>();
+
+    /**
+     * This interface is used to visit counted elements
+     */
+    public interface Visitor {
+        void visit(String label, long frequency, long sequences);
+    }
+
+    /**
+     * Creates counter which is never spilled to disk
+     */
+    public CompactVocabCounter() {
+        this(0L, null);
+    }
+
+    /**
+     * @param memoryLimit approximate memory limit in bytes. If counter grows beyond it, counts are spilled to disk. 0 means no limit
+     * @param spillDirectory directory for temporary files. If null, java.io.tmpdir will be used
+     */
+    public CompactVocabCounter(long memoryLimit, File spillDirectory) {
+        this.memoryLimit = memoryLimit;
+        this.spillDirectory = spillDirectory;
+        reset();
+    }
+
+    private void reset() {
+        pages = new ArrayList<>();
+        pages.add(new byte[PAGE_SIZE]);
+        pageOffset = 0;
+
+        locations = new long[INITIAL_CAPACITY];
+        lengths = new int[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY];
+        lastSeen = new int[INITIAL_CAPACITY];
+        frequencies = new long[INITIAL_CAPACITY];
+        sequences = new long[INITIAL_CAPACITY];
+        size = 0;
+
+        slots = new int[INITIAL_CAPACITY * 2];
+        mask = slots.length - 1;
+    }
+
+    /**
+     * This method counts all tokens of single sequence. Sequence counts are incremented only once per distinct token.
+     *
+     * @param tokens
+     */
+    public synchronized void addSequence(@NonNull Collection<String> tokens) {
+        // stamp is used to count each element only once per sequence
+        sequenceStamp++;
+        if (sequenceStamp == 0) {
+            Arrays.fill(lastSeen, 0, size, 0);
+            sequenceStamp = 1;
+        }
+
+        for (String token : tokens) {
+            if (token == null || token.isEmpty())
+                continue;
+
+            int id = findOrInsert(token.getBytes(StandardCharsets.UTF_8));
+            frequencies[id]++;
+            if (lastSeen[id] != sequenceStamp) {
+                lastSeen[id] = sequenceStamp;
+                sequences[id]++;
+            }
+            totalCount++;
+        }
+
+        if (memoryLimit > 0 && memoryUsage() > memoryLimit)
+            spill();
+    }
+
+    /**
+     * Returns approximate number of bytes occupied by elements held in memory: label bytes, counters and hash slots
+     *
+     * @return
+     */
+    public synchronized long memoryUsage() {
+        return (long) (pages.size() - 1) * PAGE_SIZE + pageOffset + (long) size * ENTRY_BYTES + slots.length * 4L;
+    }
+
+    /**
+     * Returns number of distinct elements held in memory right now
+     *
+     * @return
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns number of runs spilled to disk so far
+     *
+     * @return
+     */
+    public synchronized int numberOfRuns() {
+        return runs.size();
+    }
+
+    /**
+     * Returns total number of tokens counted
+     *
+     * @return
+     */
+    public synchronized long totalCount() {
+        return totalCount;
+    }
+
+    /**
+     * This method visits all elements with frequency equal or above minFrequency.
+     * If anything was spilled to disk, sorted runs are merged, and element counts are summed up across runs.
+     *
+     * @param minFrequency
+     * @param visitor
+     * @throws IOException
+     */
+    public synchronized void forEach(long minFrequency, @NonNull Visitor visitor) throws IOException {
+        if (runs.isEmpty()) {
+            for (int i = 0; i < size; i++) {
+                if (frequencies[i] >= minFrequency)
+                    visitor.visit(labelOf(i), frequencies[i], sequences[i]);
+            }
+            return;
+        }
+
+        if (size > 0)
+            spill();
+
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size(), new Comparator<RunReader>() {
+            @Override
+            public int compare(RunReader o1, RunReader o2) {
+                return compareBytes(o1.label, o1.length, o2.label, o2.length);
+            }
+        });
+
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (File run : runs) {
+                RunReader reader = new RunReader(run);
+                readers.add(reader);
+                if (reader.advance())
+                    queue.add(reader);
+            }
+
+            while (!queue.isEmpty()) {
+                RunReader head = queue.poll();
+                byte[] label = Arrays.copyOf(head.label, head.length);
+                long frequency = head.frequency;
+                long seqs = head.sequences;
+                if (head.advance())
+                    queue.add(head);
+
+                while (!queue.isEmpty() && compareBytes(queue.peek().label, queue.peek().length, label,
+                                label.length) == 0) {
+                    RunReader same = queue.poll();
+                    frequency += same.frequency;
+                    seqs += same.sequences;
+                    if (same.advance())
+                        queue.add(same);
+                }
+
+                if (frequency >= minFrequency)
+                    visitor.visit(new String(label, StandardCharsets.UTF_8), frequency, seqs);
+            }
+        } finally {
+            for (RunReader reader : readers)
+                reader.close();
+        }
+    }
+
+    /**
+     * Deletes all spilled runs
+     */
+    @Override
+    public synchronized void close() {
+        for (File run : runs) {
+            if (!run.delete())
+                log.warn("Can't delete vocabulary run: [{}]", run.getAbsolutePath());
+        }
+        runs.clear();
+        reset();
+    }
+
+    private int findOrInsert(byte[] bytes) {
+        int hash = hash(bytes);
+        int slot = hash & mask;
+        while (true) {
+            int value = slots[slot];
+            if (value == 0)
+                break;
+
+            int id = value - 1;
+            if (hashes[id] == hash && equalBytes(id, bytes))
+                return id;
+
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == locations.length)
+            growEntries();
+
+        int id = size++;
+        locations[id] = store(bytes);
+        lengths[id] = bytes.length;
+        hashes[id] = hash;
+        lastSeen[id] = 0;
+        frequencies[id] = 0;
+        sequences[id] = 0;
+        slots[slot] = id + 1;
+
+        if (size * 2 > slots.length)
+            growSlots();
+
+        return id;
+    }
+
+    private long store(byte[] bytes) {
+        if (bytes.length > PAGE_SIZE) {
+            // oversized labels get their own page
+            pages.add(bytes.clone());
+            pages.add(new byte[PAGE_SIZE]);
+            pageOffset = 0;
+            return ((long) (pages.size() - 2)) << 32;
+        }
+
+        if (pageOffset + bytes.length > PAGE_SIZE) {
+            pages.add(new byte[PAGE_SIZE]);
+            pageOffset = 0;
+        }
+
+        int page = pages.size() - 1;
+        System.arraycopy(bytes, 0, pages.get(page), pageOffset, bytes.length);
+        long location = (((long) page) << 32) | pageOffset;
+        pageOffset += bytes.length;
+        return location;
+    }
+
+    private boolean equalBytes(int id, byte[] bytes) {
+        if (lengths[id] != bytes.length)
+            return false;
+
+        byte[] page = pages.get((int) (locations[id] >>> 32));
+        int offset = (int) locations[id];
+        for (int i = 0; i < bytes.length; i++) {
+            if (page[offset + i] != bytes[i])
+                return false;
+        }
+        return true;
+    }
+
+    private int compareEntries(int a, int b) {
+        byte[] pageA = pages.get((int) (locations[a] >>> 32));
+        byte[] pageB = pages.get((int) (locations[b] >>> 32));
+        int offsetA = (int) locations[a];
+        int offsetB = (int) locations[b];
+        int len = Math.min(lengths[a], lengths[b]);
+        for (int i = 0; i < len; i++) {
+            int cmp = (pageA[offsetA + i] & 0xFF) - (pageB[offsetB + i] & 0xFF);
+            if (cmp != 0)
+                return cmp;
+        }
+        return lengths[a] - lengths[b];
+    }
+
+    private static int compareBytes(byte[] a, int lengthA, byte[] b, int lengthB) {
+        int len = Math.min(lengthA, lengthB);
+        for (int i = 0; i < len; i++) {
+            int cmp = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (cmp != 0)
+                return cmp;
+        }
+        return lengthA - lengthB;
+    }
+
+    private String labelOf(int id) {
+        byte[] page = pages.get((int) (locations[id] >>> 32));
+        return new String(page, (int) locations[id], lengths[id], StandardCharsets.UTF_8);
+    }
+
+    private void growEntries() {
+        int capacity = locations.length + (locations.length >> 1);
+        locations = Arrays.copyOf(locations, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        lastSeen = Arrays.copyOf(lastSeen, capacity);
+        frequencies = Arrays.copyOf(frequencies, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+    }
+
+    private void growSlots() {
+        slots = new int[slots.length * 2];
+        mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0)
+                slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * FNV-1a hash, with final avalanche, since lower bits are used as slot index
+     */
+    private static int hash(byte[] bytes) {
+        int h = 0x811C9DC5;
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    /**
+     * Sorts current entries by label bytes, and writes them to new run file
+     */
+    private void spill() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+        heapSort(order);
+
+        try {
+            File run = File.createTempFile("vocab_run_", ".bin", spillDirectory);
+            run.deleteOnExit();
+
+            try (DataOutputStream dos = new DataOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(run), 1024 * 1024))) {
+                dos.writeInt(size);
+                for (int id : order) {
+                    byte[] page = pages.get((int) (locations[id] >>> 32));
+                    dos.writeInt(lengths[id]);
+                    dos.write(page, (int) locations[id], lengths[id]);
+                    dos.writeLong(frequencies[id]);
+                    dos.writeLong(sequences[id]);
+                }
+            }
+
+            runs.add(run);
+            log.debug("Vocabulary counter spilled {} elements to [{}]", size, run.getAbsolutePath());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        reset();
+    }
+
+    private void heapSort(int[] order) {
+        int n = order.length;
+        for (int i = n / 2 - 1; i >= 0; i--)
+            siftDown(order, i, n);
+
+        for (int end = n - 1; end > 0; end--) {
+            int tmp = order[0];
+            order[0] = order[end];
+            order[end] = tmp;
+            siftDown(order, 0, end);
+        }
+    }
+
+    private void siftDown(int[] order, int i, int limit) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= limit)
+                return;
+
+            int largest = left;
+            if (left + 1 < limit && compareEntries(order[left + 1], order[left]) > 0)
+                largest = left + 1;
+
+            if (compareEntries(order[i], order[largest]) >= 0)
+                return;
+
+            int tmp = order[i];
+            order[i] = order[largest];
+            order[largest] = tmp;
+            i = largest;
+        }
+    }
+
+    private static class RunReader implements Closeable {
+        private final DataInputStream stream;
+        private int remaining;
+        private byte[] label = new byte[64];
+        private int length;
+        private long frequency;
+        private long sequences;
+
+        private RunReader(File file) throws IOException {
+            stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1024 * 1024));
+            remaining = stream.readInt();
+        }
+
+        private boolean advance() throws IOException {
+            if (remaining == 0)
+                return false;
+
+            length = stream.readInt();
+            if (label.length < length)
+                label = new byte[Math.max(length, label.length * 2)];
+            stream.readFully(label, 0, length);
+            frequency = stream.readLong();
+            sequences = stream.readLong();
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+}
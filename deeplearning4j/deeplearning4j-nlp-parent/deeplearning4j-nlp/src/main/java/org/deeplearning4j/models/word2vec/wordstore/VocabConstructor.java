@@ -8,6 +8,7 @@ import org.deeplearning4j.models.sequencevectors.interfaces.SequenceIterator;
 import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.Huffman;
+import org.deeplearning4j.models.word2vec.VocabWord;
 import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
 import org.deeplearning4j.text.invertedindex.InvertedIndex;
 import org.deeplearning4j.util.ThreadUtils;
@@ -15,6 +16,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.threadly.concurrent.PriorityScheduler;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
@@ -41,6 +44,9 @@ public class VocabConstructor<T extends SequenceElement> {
     private boolean enableScavenger = false;
     private T unk;
     private boolean allowParallelBuilder = true;
+    private boolean useCompactCounter = false;
+    private long counterMemoryLimit = 0L;
+    private File spillDirectory;
 
     protected static final Logger log = LoggerFactory.getLogger(VocabConstructor.class);
 
@@ -198,6 +204,8 @@ public class VocabConstructor<T extends SequenceElement> {
             cnt++;
 
             AbstractCache<T> tempHolder = new AbstractCache.Builder<T>().build();
+            CompactVocabCounter counter =
+                            useCompactCounter ? new CompactVocabCounter(counterMemoryLimit, spillDirectory) : null;
 
 
             List<Long> timesHasNext = new ArrayList<>();
@@ -211,7 +219,7 @@ public class VocabConstructor<T extends SequenceElement> {
                 parsedCount.addAndGet(document.size());
                 tempHolder.incrementTotalDocCount();
                 execCounter.incrementAndGet();
-                VocabRunnable runnable = new VocabRunnable(tempHolder, document, finCounter, loopCounter);
+                VocabRunnable runnable = new VocabRunnable(tempHolder, counter, document, finCounter, loopCounter);
 
                 executorService.execute(runnable);
 
@@ -262,7 +270,8 @@ public class VocabConstructor<T extends SequenceElement> {
                 /**
                  * Firing scavenger loop
                  */
-                if (enableScavenger && loopCounter.get() >= 2000000 && tempHolder.numWords() > 10000000) {
+                if (enableScavenger && counter == null && loopCounter.get() >= 2000000
+                                && tempHolder.numWords() > 10000000) {
                     log.info("Starting scavenger...");
                     while (execCounter.get() != finCounter.get()) {
                         ThreadUtils.uncheckedSleep(1);
@@ -285,6 +294,11 @@ public class VocabConstructor<T extends SequenceElement> {
             }
 
 
+            // compact counter holds everything but labels, so we transfer elements that pass minWordFrequency
+            if (counter != null) {
+                transferCounts(counter, tempHolder, source.getMinWordFrequency());
+            }
+
             // apply minWordFrequency set for this source
             log.debug("Vocab size before truncation: [" + tempHolder.numWords() + "],  NumWords: ["
                             + tempHolder.totalWordOccurrences() + "], sequences parsed: [" + seqCount.get()
@@ -356,6 +370,37 @@ public class VocabConstructor<T extends SequenceElement> {
         return cache;
     }
 
+    /**
+     * This method moves elements from CompactVocabCounter to the given cache, and releases counter resources
+     */
+    @SuppressWarnings("unchecked") // compact counter is allowed for VocabWord elements only, see VocabRunnable
+    protected void transferCounts(@NonNull CompactVocabCounter counter, @NonNull final AbstractCache<T> cache,
+                    int minWordFrequency) {
+        log.debug("Merging {} vocabulary runs...", counter.numberOfRuns());
+        try {
+            counter.forEach(minWordFrequency, new CompactVocabCounter.Visitor() {
+                @Override
+                public void visit(String label, long frequency, long sequences) {
+                    T element = cache.wordFor(label);
+                    if (element == null) {
+                        element = (T) new VocabWord(1.0, label);
+                        element.setElementFrequency(frequency);
+                        element.setSequencesCount(sequences);
+                        cache.addToken(element);
+                    } else {
+                        // this is label collision, so we just update counters
+                        cache.incrementWordCount(label, (int) frequency);
+                        element.incrementSequencesCount(sequences);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            counter.close();
+        }
+    }
+
     protected void filterVocab(AbstractCache<T> cache, int minWordFrequency) {
         int numWords = cache.numWords();
         LinkedBlockingQueue<String> labelsToRemove = new LinkedBlockingQueue<>();
@@ -382,6 +427,9 @@ public class VocabConstructor<T extends SequenceElement> {
         private boolean enableScavenger = false;
         private T unk;
         private boolean allowParallelBuilder = true;
+        private boolean useCompactCounter = false;
+        private long counterMemoryLimit = 0L;
+        private File spillDirectory;
 
         public Builder() {
 
@@ -489,6 +537,47 @@ public class VocabConstructor<T extends SequenceElement> {
             return this;
         }
 
+        /**
+         * This method enables counting of elements with CompactVocabCounter, which doesn't create objects per element,
+         * so only elements that pass minWordFrequency end up on heap.
+         *
+         * PLEASE NOTE: This option is applicable to VocabWord elements only.
+         *
+         * Default value: false
+         *
+         * @param reallyUse
+         * @return
+         */
+        public Builder<T> useCompactCounter(boolean reallyUse) {
+            this.useCompactCounter = reallyUse;
+            return this;
+        }
+
+        /**
+         * This method sets approximate memory limit for CompactVocabCounter, in bytes.
+         * If counter grows beyond it, counts are spilled to disk, and merged back after source is processed.
+         *
+         * Default value: 0, which means no limit
+         *
+         * @param bytes
+         * @return
+         */
+        public Builder<T> setCounterMemoryLimit(long bytes) {
+            this.counterMemoryLimit = bytes;
+            return this;
+        }
+
+        /**
+         * This method sets directory for CompactVocabCounter spills. If not set, java.io.tmpdir is used.
+         *
+         * @param directory
+         * @return
+         */
+        public Builder<T> setSpillDirectory(File directory) {
+            this.spillDirectory = directory;
+            return this;
+        }
+
         public VocabConstructor<T> build() {
             VocabConstructor<T> constructor = new VocabConstructor<>();
             constructor.sources = this.sources;
@@ -501,6 +590,12 @@ public class VocabConstructor<T extends SequenceElement> {
             constructor.enableScavenger = this.enableScavenger;
             constructor.unk = this.unk;
             constructor.allowParallelBuilder = this.allowParallelBuilder;
+            constructor.useCompactCounter = this.useCompactCounter;
+            constructor.counterMemoryLimit = this.counterMemoryLimit;
+            constructor.spillDirectory = this.spillDirectory;
+
+            if (useCompactCounter && index != null)
+                throw new IllegalStateException("InvertedIndex can't be built with compact vocabulary counter");
 
             return constructor;
         }
@@ -519,14 +614,22 @@ public class VocabConstructor<T extends SequenceElement> {
         private final AtomicLong finalCounter;
         private final Sequence<T> document;
         private final AbstractCache<T> targetVocab;
+        private final CompactVocabCounter counter;
         private final AtomicLong loopCounter;
         private boolean done;
 
         public VocabRunnable(@NonNull AbstractCache<T> targetVocab, @NonNull Sequence<T> sequence,
                         @NonNull AtomicLong finalCounter, @NonNull AtomicLong loopCounter) {
+            this(targetVocab, null, sequence, finalCounter, loopCounter);
+        }
+
+        public VocabRunnable(@NonNull AbstractCache<T> targetVocab, CompactVocabCounter counter,
+                        @NonNull Sequence<T> sequence, @NonNull AtomicLong finalCounter,
+                        @NonNull AtomicLong loopCounter) {
             this.finalCounter = finalCounter;
             this.document = sequence;
             this.targetVocab = targetVocab;
+            this.counter = counter;
             this.loopCounter = loopCounter;
         }
 
@@ -557,6 +660,28 @@ public class VocabConstructor<T extends SequenceElement> {
                 }
 
                 List<String> tokens = document.asLabels();
+
+                // labels are still kept in targetVocab, everything else goes to compact counter
+                if (counter != null) {
+                    List<String> filtered = new ArrayList<>(tokens.size());
+                    for (String token : tokens) {
+                        if (token == null || token.isEmpty())
+                            continue;
+                        if (stopWords != null && stopWords.contains(token))
+                            continue;
+
+                        if (!(document.getElementByLabel(token) instanceof VocabWord))
+                            throw new UnsupportedOperationException(
+                                            "Compact vocabulary counter is available for VocabWord elements only");
+
+                        filtered.add(token);
+                    }
+
+                    counter.addSequence(filtered);
+                    loopCounter.addAndGet(filtered.size());
+                    return;
+                }
+
                 for (String token : tokens) {
                     if (stopWords != null && stopWords.contains(token))
                         continue;
@@ -0,0 +1,99 @@
+package org.deeplearning4j.models.embeddings.reader.impl;
+
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IvfModelUtilsTest {
+    private static final int NUM_WORDS = 2000;
+
+    private InMemoryLookupTable<VocabWord> lookupTable;
+
+    @Before
+    public void setUp() throws Exception {
+        AbstractCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+        for (int i = 0; i < NUM_WORDS; i++) {
+            String label = "word_" + i;
+            cache.addToken(new VocabWord(1.0, label));
+            cache.addWordToIndex(i, label);
+        }
+
+        lookupTable = (InMemoryLookupTable<VocabWord>) new InMemoryLookupTable.Builder<VocabWord>().vectorLength(32)
+                        .cache(cache).seed(119).build();
+        lookupTable.resetWeights(true);
+    }
+
+    @Test
+    public void testExactWhenAllListsProbed() throws Exception {
+        FlatModelUtils<VocabWord> flat = new FlatModelUtils<>();
+        flat.init(lookupTable);
+
+        IvfModelUtils<VocabWord> ivf = new IvfModelUtils<>(16, 16);
+        ivf.init(lookupTable);
+
+        for (int i = 0; i < 10; i++) {
+            String word = "word_" + (i * 37);
+            Collection<String> expected = flat.wordsNearest(lookupTable.vector(word), 10);
+            Collection<String> approx = ivf.wordsNearest(lookupTable.vector(word), 10);
+
+            assertEquals(10, approx.size());
+            assertEquals(new HashSet<>(expected), new HashSet<>(approx));
+            assertEquals(word, approx.iterator().next());
+        }
+    }
+
+    @Test
+    public void testNumProbes() throws Exception {
+        IvfModelUtils<VocabWord> ivf = new IvfModelUtils<>(32, 4);
+        ivf.init(lookupTable);
+
+        Collection<String> nearest = ivf.wordsNearest("word_119", 5);
+        assertEquals(5, nearest.size());
+        assertFalse(nearest.contains("word_119"));
+
+        ivf.setNumProbes(32);
+        assertEquals(32, ivf.getNumProbes());
+        assertEquals(5, ivf.wordsNearest("word_119", 5).size());
+    }
+
+    @Test
+    public void testIndexSerialization() throws Exception {
+        IvfModelUtils<VocabWord> ivf = new IvfModelUtils<>(24, 4);
+        ivf.init(lookupTable);
+
+        InvertedFileIndex index = ivf.getIndex();
+        assertEquals(24, index.numLists());
+        assertEquals(NUM_WORDS, index.getNumVectors());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        WordVectorSerializer.writeInvertedFileIndex(index, baos);
+
+        InvertedFileIndex restored =
+                        WordVectorSerializer.readInvertedFileIndex(new ByteArrayInputStream(baos.toByteArray()));
+        assertFalse(restored.isAttached());
+
+        IvfModelUtils<VocabWord> restoredUtils = new IvfModelUtils<>(restored, 4);
+        restoredUtils.init(lookupTable);
+
+        for (int i = 0; i < 10; i++) {
+            String word = "word_" + (i * 101);
+            List<String> expected = new ArrayList<>(ivf.wordsNearest(word, 10));
+            List<String> actual = new ArrayList<>(restoredUtils.wordsNearest(word, 10));
+            assertEquals(expected, actual);
+        }
+
+        assertTrue(restored.isAttached());
+    }
+}
@@ -0,0 +1,101 @@
+package org.deeplearning4j.models.word2vec;
+
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
+import org.deeplearning4j.models.embeddings.reader.impl.FlatModelUtils;
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class MappedWord2VecTest {
+    private static final int NUM_WORDS = 500;
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private AbstractCache<VocabWord> cache;
+    private InMemoryLookupTable<VocabWord> lookupTable;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new AbstractCache.Builder<VocabWord>().build();
+        for (int i = 0; i < NUM_WORDS; i++) {
+            // non-ascii labels are here to check UTF-8 handling
+            String label = (i % 7 == 0 ? "\u0441\u043b\u043e\u0432\u043e_" : "word_") + i;
+            cache.addToken(new VocabWord(1.0, label));
+            cache.addWordToIndex(i, label);
+        }
+
+        lookupTable = (InMemoryLookupTable<VocabWord>) new InMemoryLookupTable.Builder<VocabWord>().vectorLength(48)
+                        .cache(cache).seed(119).build();
+        lookupTable.resetWeights(true);
+    }
+
+    @Test
+    public void testWriteAndLookup() throws Exception {
+        File file = testDir.newFile("model.mw2v");
+        WordVectors source = WordVectorSerializer.fromTableAndVocab(lookupTable, cache);
+        WordVectorSerializer.writeMappedWordVectors(source, file);
+
+        try (MappedWord2Vec mapped = WordVectorSerializer.readMappedWordVectors(file)) {
+            assertEquals(NUM_WORDS, mapped.numWords());
+            assertEquals(48, mapped.getLayerSize());
+
+            for (int i = 0; i < NUM_WORDS; i++) {
+                String word = cache.wordAtIndex(i);
+                assertTrue(mapped.hasWord(word));
+                assertEquals(i, mapped.indexOf(word));
+                assertEquals(word, mapped.wordAtIndex(i));
+                assertEquals(lookupTable.vector(word), mapped.getWordVectorMatrix(word));
+            }
+
+            assertFalse(mapped.hasWord("unknown_word"));
+            assertNull(mapped.getWordVectorMatrix("unknown_word"));
+
+            mapped.setUNK("word_1");
+            assertEquals(lookupTable.vector("word_1"), mapped.getWordVectorMatrix("unknown_word"));
+
+            INDArray matrix = mapped.getWordVectors(Arrays.asList("word_1", "word_2", "word_3"));
+            assertArrayEquals(new int[] {3, 48}, matrix.shape());
+        }
+    }
+
+    @Test
+    public void testWordsNearest() throws Exception {
+        File file = testDir.newFile("model.mw2v");
+        MappedWord2Vec.write(cache, lookupTable, file);
+
+        FlatModelUtils<VocabWord> flat = new FlatModelUtils<>();
+        flat.init(lookupTable);
+
+        try (MappedWord2Vec mapped = MappedWord2Vec.open(file)) {
+            for (int i = 1; i < 10; i++) {
+                String word = cache.wordAtIndex(i * 3);
+                Collection<String> expected = flat.wordsNearest(lookupTable.vector(word), 10);
+                Collection<String> actual = mapped.wordsNearest(mapped.getWordVectorMatrix(word), 10);
+
+                assertEquals(10, actual.size());
+                assertEquals(word, actual.iterator().next());
+                assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+
+                Collection<String> nearest = mapped.wordsNearest(word, 5);
+                assertEquals(5, nearest.size());
+                assertFalse(nearest.contains(word));
+            }
+
+            assertEquals(lookupTable.vector("word_5").getDouble(0), mapped.getWordVector("word_5")[0], 1e-5);
+            assertEquals(1.0, mapped.similarity("word_5", "word_5"), 1e-5);
+        }
+    }
+}
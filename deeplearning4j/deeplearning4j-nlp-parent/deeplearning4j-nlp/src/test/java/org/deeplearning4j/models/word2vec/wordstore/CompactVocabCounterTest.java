@@ -0,0 +1,91 @@
+package org.deeplearning4j.models.word2vec.wordstore;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class CompactVocabCounterTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testCounting() throws Exception {
+        CompactVocabCounter counter = new CompactVocabCounter();
+        counter.addSequence(Arrays.asList("alpha", "beta", "alpha", "gamma"));
+        counter.addSequence(Arrays.asList("alpha", "\u0441\u043b\u043e\u0432\u043e", "", "beta"));
+
+        assertEquals(4, counter.size());
+        assertEquals(7, counter.totalCount());
+        assertEquals(0, counter.numberOfRuns());
+
+        final Map<String, long[]> counts = collect(counter, 0);
+        assertEquals(4, counts.size());
+        assertArrayEquals(new long[] {3, 2}, counts.get("alpha"));
+        assertArrayEquals(new long[] {2, 2}, counts.get("beta"));
+        assertArrayEquals(new long[] {1, 1}, counts.get("gamma"));
+        assertArrayEquals(new long[] {1, 1}, counts.get("\u0441\u043b\u043e\u0432\u043e"));
+
+        assertEquals(new HashSet<>(Arrays.asList("alpha", "beta")), collect(counter, 2).keySet());
+    }
+
+    @Test
+    public void testSpillAndMerge() throws Exception {
+        Random random = new Random(119);
+        Map<String, long[]> expected = new HashMap<>();
+
+        File spillDir = testDir.newFolder("spill");
+        CompactVocabCounter counter = new CompactVocabCounter(1024 * 1024, spillDir);
+
+        for (int s = 0; s < 2000; s++) {
+            List<String> sequence = new ArrayList<>();
+            for (int t = 0; t < 20; t++)
+                sequence.add("token_" + random.nextInt(s < 1000 ? 30000 : 100));
+
+            Set<String> seen = new HashSet<>();
+            for (String token : sequence) {
+                long[] c = expected.get(token);
+                if (c == null) {
+                    c = new long[2];
+                    expected.put(token, c);
+                }
+                c[0]++;
+                if (seen.add(token))
+                    c[1]++;
+            }
+
+            counter.addSequence(sequence);
+        }
+
+        assertTrue(counter.numberOfRuns() > 0);
+        assertEquals(40000, counter.totalCount());
+
+        Map<String, long[]> actual = collect(counter, 0);
+        assertEquals(expected.size(), actual.size());
+        for (Map.Entry<String, long[]> entry : expected.entrySet())
+            assertArrayEquals(entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+
+        Map<String, long[]> frequent = collect(counter, 5);
+        for (Map.Entry<String, long[]> entry : expected.entrySet())
+            assertEquals(entry.getValue()[0] >= 5, frequent.containsKey(entry.getKey()));
+
+        counter.close();
+        assertEquals(0, spillDir.listFiles().length);
+    }
+
+    private static Map<String, long[]> collect(CompactVocabCounter counter, long minFrequency) throws Exception {
+        final Map<String, long[]> result = new HashMap<>();
+        counter.forEach(minFrequency, new CompactVocabCounter.Visitor() {
+            @Override
+            public void visit(String label, long frequency, long sequences) {
+                assertNull(result.put(label, new long[] {frequency, sequences}));
+            }
+        });
+        return result;
+    }
+}
@@ -15,7 +15,9 @@ import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonPreproc
 import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +35,9 @@ public class VocabConstructorTest {
 
     protected static final Logger log = LoggerFactory.getLogger(VocabConstructorTest.class);
 
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
     TokenizerFactory t = new DefaultTokenizerFactory();
 
 
@@ -125,6 +130,38 @@ public class VocabConstructorTest {
         assertEquals(634303, cache.totalWordOccurrences());
     }
 
+    @Test
+    public void testBuildJointVocabularyCompact() throws Exception {
+        File inputFile = new ClassPathResource("big/raw_sentences.txt").getFile();
+
+        VocabCache<VocabWord> expected = new AbstractCache.Builder<VocabWord>().build();
+        VocabCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+
+        new VocabConstructor.Builder<VocabWord>().addSource(buildIterator(inputFile), 5).useAdaGrad(false)
+                        .setTargetVocabCache(expected).build().buildJointVocabulary(false, true);
+
+        new VocabConstructor.Builder<VocabWord>().addSource(buildIterator(inputFile), 5).useAdaGrad(false)
+                        .useCompactCounter(true).setCounterMemoryLimit(64 * 1024 * 1024)
+                        .setSpillDirectory(testDir.newFolder("spill")).setTargetVocabCache(cache).build()
+                        .buildJointVocabulary(false, true);
+
+        assertEquals(242, cache.numWords());
+        assertEquals(expected.totalWordOccurrences(), cache.totalWordOccurrences());
+
+        for (VocabWord word : expected.vocabWords()) {
+            assertTrue(cache.containsWord(word.getLabel()));
+            assertEquals(word.getElementFrequency(), cache.wordFor(word.getLabel()).getElementFrequency(), 1e-5);
+            assertEquals(word.getSequencesCount(), cache.wordFor(word.getLabel()).getSequencesCount());
+            assertEquals(word.getIndex(), cache.wordFor(word.getLabel()).getIndex());
+        }
+    }
+
+    private AbstractSequenceIterator<VocabWord> buildIterator(File inputFile) throws Exception {
+        SentenceIterator iter = new BasicLineIterator(inputFile);
+        SentenceTransformer transformer = new SentenceTransformer.Builder().iterator(iter).tokenizerFactory(t).build();
+        return new AbstractSequenceIterator.Builder<>(transformer).build();
+    }
+
     @Test
     public void testCounter1() throws Exception {
         VocabCache<VocabWord> vocabCache = new AbstractCache.Builder<VocabWord>().build();
@@ -30,9 +30,10 @@ import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
 
 /**
  * ROC (Receiver Operating Characteristic) for binary classifiers.<br>
- * ROC has 2 modes of operation:
+ * ROC has 3 modes of operation:
  * (a) Thresholded (less memory)<br>
- * (b) Exact (default; use numSteps == 0 to set. May not scale to very large datasets)
+ * (b) Exact (default; use numSteps == 0 to set. May not scale to very large datasets)<br>
+ * (c) Score sketch (fixed memory, with a known error bound; use {@link #withScoreSketch(int)} to create)
  *
  * <p>
  * Thresholded Is an approximate method, that (for large datasets) may use significantly less memory than exact..
@@ -43,6 +44,17 @@ import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
  * Note that in some cases (very skewed probability predictions, for example) the threshold approach can be inaccurate,
  * often underestimating the true area.
  * <p>
+ * Score sketch mode counts the positive and negative examples in each of numBins fixed-width probability bins. Memory
+ * use is 2 * numBins longs, independent of the number of examples, and merging two instances is O(numBins), making
+ * it suitable for streaming and distributed evaluation of very large datasets. Unlike thresholded mode, no information
+ * is lost apart from the order of the predictions within each bin: the AUC calculated from the sketch differs from the
+ * exact AUC by at most {@link #calculateAUCErrorBound()}, which is half the fraction of (positive, negative) pairs that
+ * fall into the same bin. For parallel accumulation, use one instance per thread and {@link #merge(ROC)} the results.
+ * Counts are longs, so more than Integer.MAX_VALUE examples are supported; however the TP/FP/FN counts of
+ * {@link #getPrecisionRecallCurve()} are ints, and are clamped to Integer.MAX_VALUE in this case, so the confusion
+ * matrices derived from them are not exact. Precision, recall, AUC and AUPRC are calculated from the long counts, and
+ * are not affected.
+ * <p>
  * The data is assumed to be binary classification - nColumns == 1 (single binary output variable) or nColumns == 2
  * (probability distribution over 2 classes, with column 1 being values for 'positive' examples)
  *
@@ -51,7 +63,8 @@ import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
 @EqualsAndHashCode(callSuper = true,
                 exclude = {"auc", "auprc", "probAndLabel", "exactAllocBlockSize", "rocCurve", "prCurve"})
 @Data
-@ToString(exclude = {"probAndLabel", "exactAllocBlockSize", "rocCurve", "prCurve"})
+@ToString(exclude = {"probAndLabel", "exactAllocBlockSize", "rocCurve", "prCurve", "sketchPositive",
+                "sketchNegative"})
 @JsonIgnoreProperties({"probAndLabel", "exactAllocBlockSize"})
 @JsonSerialize(using = ROCSerializer.class)
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
@@ -70,9 +83,13 @@ public class ROC extends BaseEvaluation<ROC> {
 
     private boolean isExact;
     private INDArray probAndLabel;
+    //Not used in score sketch mode, where the number of examples may exceed Integer.MAX_VALUE: see totalExampleCount()
     private int exampleCount = 0;
     private boolean rocRemoveRedundantPts;
     private int exactAllocBlockSize;
+    private int scoreSketchBins;
+    private long[] sketchPositive;
+    private long[] sketchNegative;
 
     public ROC() {
         //Default to exact
@@ -122,6 +139,57 @@ public class ROC extends BaseEvaluation<ROC> {
         this.exactAllocBlockSize = exactAllocBlockSize;
     }
 
+    /**
+     * Create a ROC instance that uses a fixed-width score sketch, with bounded memory use (see class javadoc)
+     *
+     * @param numBins Number of probability bins. Memory use is 2 * numBins longs; larger values reduce the error bound
+     */
+    public static ROC withScoreSketch(int numBins) {
+        return withScoreSketch(numBins, true);
+    }
+
+    /**
+     * Create a ROC instance that uses a fixed-width score sketch, with bounded memory use (see class javadoc)
+     *
+     * @param numBins               Number of probability bins. Memory use is 2 * numBins longs; larger values
+     *                              reduce the error bound
+     * @param rocRemoveRedundantPts Usually set to true. If true,  remove any redundant points from ROC and P-R curves
+     */
+    public static ROC withScoreSketch(int numBins, boolean rocRemoveRedundantPts) {
+        if (numBins <= 0) {
+            throw new IllegalArgumentException("Number of score sketch bins must be positive: got " + numBins);
+        }
+        ROC roc = new ROC(0, rocRemoveRedundantPts);
+        roc.isExact = false;
+        roc.scoreSketchBins = numBins;
+        roc.sketchPositive = new long[numBins];
+        roc.sketchNegative = new long[numBins];
+        return roc;
+    }
+
+    /**
+     * @return True if this instance uses a score sketch, as created by {@link #withScoreSketch(int)}
+     */
+    public boolean isScoreSketch() {
+        return scoreSketchBins > 0;
+    }
+
+    /**
+     * Number of examples evaluated so far. Unlike exampleCount, this doesn't overflow in score sketch mode
+     */
+    private long totalExampleCount() {
+        if (isScoreSketch())
+            return countActualPositive + countActualNegative;
+        return exampleCount;
+    }
+
+    /**
+     * Counts of the precision recall curve are ints: score sketch counts, which are longs, are clamped
+     */
+    private static int clampCount(long count) {
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
     protected INDArray getProbAndLabelUsed() {
         if (probAndLabel == null || exampleCount == 0) {
             return null;
@@ -153,6 +221,9 @@ public class ROC extends BaseEvaluation<ROC> {
 
         if (isExact) {
             probAndLabel = null;
+        } else if (isScoreSketch()) {
+            Arrays.fill(sketchPositive, 0L);
+            Arrays.fill(sketchNegative, 0L);
         } else {
             double step = 1.0 / thresholdSteps;
             for (int i = 0; i <= thresholdSteps; i++) {
@@ -164,6 +235,8 @@ public class ROC extends BaseEvaluation<ROC> {
         exampleCount = 0;
         auc = null;
         auprc = null;
+        rocCurve = null;
+        prCurve = null;
     }
 
     @Override
@@ -171,7 +244,11 @@ public class ROC extends BaseEvaluation<ROC> {
         StringBuilder sb = new StringBuilder();
         sb.append("AUC (Area under ROC Curve):                ").append(calculateAUC()).append("\n");
         sb.append("AUPRC (Area under Precision/Recall Curve): ").append(calculateAUCPR());
-        if(!isExact){
+        if (isScoreSketch()) {
+            sb.append("\n");
+            sb.append("[Note: Score sketch AUC/AUPRC calculation used with ").append(scoreSketchBins)
+                    .append(" bins; maximum AUC error: ").append(calculateAUCErrorBound()).append("]");
+        } else if(!isExact){
             sb.append("\n");
             sb.append("[Note: Thresholded AUC/AUPRC calculation used with ").append(thresholdSteps)
                     .append(" steps); accuracy may reduced compared to exact mode]");
@@ -242,6 +319,33 @@ public class ROC extends BaseEvaluation<ROC> {
             int countClass1CurrMinibatch = labelClass1.sumNumber().intValue();
             countActualPositive += countClass1CurrMinibatch;
             countActualNegative += labels.size(0) - countClass1CurrMinibatch;
+        } else if (isScoreSketch()) {
+            //Score sketch: count positives and negatives per probability bin
+            INDArray probClass1;
+            INDArray labelClass1;
+            if (singleOutput) {
+                probClass1 = predictions;
+                labelClass1 = labels;
+            } else {
+                probClass1 = predictions.getColumn(1);
+                labelClass1 = labels.getColumn(1);
+            }
+            //dup: get contiguous buffers of exactly the minibatch size, whatever the views/strides of the input
+            double[] prob = probClass1.dup('c').data().asDouble();
+            double[] label = labelClass1.dup('c').data().asDouble();
+            long countClass1CurrMinibatch = 0;
+            for (int i = 0; i < prob.length; i++) {
+                int bin = (int) (prob[i] * scoreSketchBins);
+                bin = Math.max(0, Math.min(bin, scoreSketchBins - 1));
+                if (label[i] != 0.0) {
+                    sketchPositive[bin]++;
+                    countClass1CurrMinibatch++;
+                } else {
+                    sketchNegative[bin]++;
+                }
+            }
+            countActualPositive += countClass1CurrMinibatch;
+            countActualNegative += prob.length - countClass1CurrMinibatch;
         } else {
             //Thresholded approach
             INDArray positivePredictedClassColumn;
@@ -314,7 +418,8 @@ public class ROC extends BaseEvaluation<ROC> {
             }
         }
 
-        exampleCount += labels.size(0);
+        if (!isScoreSketch())
+            exampleCount += labels.size(0);
         auc = null;
         auprc = null;
         rocCurve = null;
@@ -415,6 +520,38 @@ public class ROC extends BaseEvaluation<ROC> {
             ArrayUtils.reverse(fpCountOut);
             ArrayUtils.reverse(fnCountOut);
 
+            if (rocRemoveRedundantPts) {
+                Pair<double[][], int[][]> pair = removeRedundant(thresholdOut, precisionOut, recallOut, tpCountOut,
+                                fpCountOut, fnCountOut);
+                double[][] temp = pair.getFirst();
+                int[][] temp2 = pair.getSecond();
+                thresholdOut = temp[0];
+                precisionOut = temp[1];
+                recallOut = temp[2];
+                tpCountOut = temp2[0];
+                fpCountOut = temp2[1];
+                fnCountOut = temp2[2];
+            }
+        } else if (isScoreSketch()) {
+            //Thresholds are the bin lower edges, lowest to highest: at threshold i/numBins, bins i and above are
+            //predicted positive
+            long[] tp = cumulativeFromTop(sketchPositive);
+            long[] fp = cumulativeFromTop(sketchNegative);
+            thresholdOut = new double[scoreSketchBins + 1];
+            precisionOut = new double[scoreSketchBins + 1];
+            recallOut = new double[scoreSketchBins + 1];
+            tpCountOut = new int[scoreSketchBins + 1];
+            fpCountOut = new int[scoreSketchBins + 1];
+            fnCountOut = new int[scoreSketchBins + 1];
+            for (int i = 0; i <= scoreSketchBins; i++) {
+                thresholdOut[i] = i / (double) scoreSketchBins;
+                precisionOut[i] = (tp[i] == 0 && fp[i] == 0) ? 1.0 : tp[i] / (double) (tp[i] + fp[i]);
+                recallOut[i] = countActualPositive == 0 ? 1.0 : tp[i] / (double) countActualPositive;
+                tpCountOut[i] = clampCount(tp[i]);
+                fpCountOut[i] = clampCount(fp[i]);
+                fnCountOut[i] = clampCount(countActualPositive - tp[i]);
+            }
+
             if (rocRemoveRedundantPts) {
                 Pair<double[][], int[][]> pair = removeRedundant(thresholdOut, precisionOut, recallOut, tpCountOut,
                                 fpCountOut, fnCountOut);
@@ -471,7 +608,7 @@ public class ROC extends BaseEvaluation<ROC> {
         }
 
         prCurve = new PrecisionRecallCurve(thresholdOut, precisionOut, recallOut, tpCountOut, fpCountOut, fnCountOut,
-                        exampleCount);
+                        clampCount(totalExampleCount()));
         return prCurve;
     }
 
@@ -533,6 +670,28 @@ public class ROC extends BaseEvaluation<ROC> {
 
             this.rocCurve = new RocCurve(tOut, x_fpr_out, y_tpr_out);
 
+            return rocCurve;
+        } else if (isScoreSketch()) {
+            long[] tp = cumulativeFromTop(sketchPositive);
+            long[] fp = cumulativeFromTop(sketchNegative);
+            double[] tOut = new double[scoreSketchBins + 1];
+            double[] x_fpr_out = new double[scoreSketchBins + 1];
+            double[] y_tpr_out = new double[scoreSketchBins + 1];
+            for (int i = 0; i <= scoreSketchBins; i++) {
+                tOut[i] = i / (double) scoreSketchBins;
+                x_fpr_out[i] = fp[i] / (double) countActualNegative;
+                y_tpr_out[i] = tp[i] / (double) countActualPositive;
+            }
+
+            if (rocRemoveRedundantPts) {
+                Pair<double[][], int[][]> p = removeRedundant(tOut, x_fpr_out, y_tpr_out, null, null, null);
+                double[][] temp = p.getFirst();
+                tOut = temp[0];
+                x_fpr_out = temp[1];
+                y_tpr_out = temp[2];
+            }
+
+            this.rocCurve = new RocCurve(tOut, x_fpr_out, y_tpr_out);
             return rocCurve;
         } else {
 
@@ -552,6 +711,17 @@ public class ROC extends BaseEvaluation<ROC> {
         }
     }
 
+    /**
+     * @return Array of length counts.length + 1, where element i is the sum of counts[i] and above
+     */
+    private static long[] cumulativeFromTop(long[] counts) {
+        long[] out = new long[counts.length + 1];
+        for (int i = counts.length - 1; i >= 0; i--) {
+            out[i] = out[i + 1] + counts[i];
+        }
+        return out;
+    }
+
     private static Pair<double[][], int[][]> removeRedundant(double[] threshold, double[] x, double[] y, int[] tpCount,
                     int[] fpCount, int[] fnCount) {
         double[] t_compacted = new double[threshold.length];
@@ -618,7 +788,7 @@ public class ROC extends BaseEvaluation<ROC> {
             return auc;
         }
 
-        if (exampleCount == 0) {
+        if (totalExampleCount() == 0) {
             return Double.NaN;
         }
 
@@ -626,6 +796,34 @@ public class ROC extends BaseEvaluation<ROC> {
         return auc;
     }
 
+    /**
+     * Maximum absolute difference between {@link #calculateAUC()} and the exact AUC. This is 0 for exact mode. For
+     * score sketch mode, the order of (positive, negative) pairs of predictions that fall into the same bin is unknown,
+     * and each such pair is counted as half ordered correctly; the bound is half the fraction of all (positive,
+     * negative) pairs that share a bin.
+     *
+     * @return Upper bound on the AUC error
+     * @throws UnsupportedOperationException for thresholded mode, for which no bound is available
+     */
+    public double calculateAUCErrorBound() {
+        if (isExact) {
+            return 0.0;
+        }
+        if (!isScoreSketch()) {
+            throw new UnsupportedOperationException(
+                            "AUC error bound is not available for thresholded ROC; use exact or score sketch mode");
+        }
+        if (countActualPositive == 0 || countActualNegative == 0) {
+            return Double.NaN;
+        }
+
+        double tiedPairs = 0.0;
+        for (int i = 0; i < scoreSketchBins; i++) {
+            tiedPairs += sketchPositive[i] * (double) sketchNegative[i];
+        }
+        return 0.5 * tiedPairs / ((double) countActualPositive * countActualNegative);
+    }
+
     /**
      * Calculate the area under the precision/recall curve - aka AUCPR
      *
@@ -636,7 +834,7 @@ public class ROC extends BaseEvaluation<ROC> {
             return auprc;
         }
 
-        if(exampleCount == 0){
+        if(totalExampleCount() == 0){
             return Double.NaN;
         }
 
@@ -657,6 +855,11 @@ public class ROC extends BaseEvaluation<ROC> {
                             "Cannot merge ROC instances with different numbers of threshold steps ("
                                             + this.thresholdSteps + " vs. " + other.thresholdSteps + ")");
         }
+        if (this.scoreSketchBins != other.scoreSketchBins) {
+            throw new UnsupportedOperationException(
+                            "Cannot merge ROC instances with different numbers of score sketch bins ("
+                                            + this.scoreSketchBins + " vs. " + other.scoreSketchBins + ")");
+        }
         this.countActualPositive += other.countActualPositive;
         this.countActualNegative += other.countActualNegative;
         this.auc = null;
@@ -688,6 +891,11 @@ public class ROC extends BaseEvaluation<ROC> {
             probAndLabel.put(new INDArrayIndex[] {
                             interval(exampleCount, exampleCount + other.exampleCount), all()},
                             toPut);
+        } else if (isScoreSketch()) {
+            for (int i = 0; i < scoreSketchBins; i++) {
+                this.sketchPositive[i] += other.sketchPositive[i];
+                this.sketchNegative[i] += other.sketchNegative[i];
+            }
         } else {
             for (Double d : this.counts.keySet()) {
                 CountsForThreshold cft = this.counts.get(d);
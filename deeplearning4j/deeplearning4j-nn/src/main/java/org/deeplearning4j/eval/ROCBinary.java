@@ -34,6 +34,7 @@ public class ROCBinary extends BaseEvaluation<ROCBinary> {
 
     private int thresholdSteps;
     private boolean rocRemoveRedundantPts;
+    private int scoreSketchBins;
     private List<String> labels;
 
     public ROCBinary() {
@@ -56,6 +57,21 @@ public class ROCBinary extends BaseEvaluation<ROCBinary> {
         this.rocRemoveRedundantPts = rocRemoveRedundantPts;
     }
 
+    /**
+     * Create a ROCBinary instance that uses a fixed-width score sketch for each output, with bounded memory use.
+     * See {@link ROC#withScoreSketch(int)} for details
+     *
+     * @param numBins Number of probability bins per output
+     */
+    public static ROCBinary withScoreSketch(int numBins) {
+        if (numBins <= 0) {
+            throw new IllegalArgumentException("Number of score sketch bins must be positive: got " + numBins);
+        }
+        ROCBinary r = new ROCBinary(0);
+        r.scoreSketchBins = numBins;
+        return r;
+    }
+
 
     @Override
     public void reset() {
@@ -84,7 +100,8 @@ public class ROCBinary extends BaseEvaluation<ROCBinary> {
         if (underlying == null) {
             underlying = new ROC[n];
             for (int i = 0; i < n; i++) {
-                underlying[i] = new ROC(thresholdSteps, rocRemoveRedundantPts);
+                underlying[i] = scoreSketchBins > 0 ? ROC.withScoreSketch(scoreSketchBins, rocRemoveRedundantPts)
+                                : new ROC(thresholdSteps, rocRemoveRedundantPts);
             }
         }
 
@@ -250,6 +267,16 @@ public class ROCBinary extends BaseEvaluation<ROCBinary> {
         return underlying[outputNum].calculateAUC();
     }
 
+    /**
+     * Maximum absolute error of {@link #calculateAUC(int)}; see {@link ROC#calculateAUCErrorBound()}
+     *
+     * @param outputNum Output number to calculate the AUC error bound for
+     */
+    public double calculateAUCErrorBound(int outputNum) {
+        assertIndex(outputNum);
+        return underlying[outputNum].calculateAUCErrorBound();
+    }
+
     /**
      * Calculate the AUCPR - Area Under Curve - Precision Recall<br>
      * Utilizes trapezoidal integration internally
@@ -309,7 +336,11 @@ public class ROCBinary extends BaseEvaluation<ROCBinary> {
                                 getCountActualNegative(i)));
             }
 
-            if(thresholdSteps > 0){
+            if (scoreSketchBins > 0) {
+                sb.append("\n");
+                sb.append("[Note: Score sketch AUC/AUPRC calculation used with ").append(scoreSketchBins)
+                        .append(" bins; see ROC.calculateAUCErrorBound() for the maximum AUC error]");
+            } else if(thresholdSteps > 0){
                 sb.append("\n");
                 sb.append("[Note: Thresholded AUC/AUPRC calculation used with ").append(thresholdSteps)
                         .append(" steps); accuracy may reduced compared to exact mode]");
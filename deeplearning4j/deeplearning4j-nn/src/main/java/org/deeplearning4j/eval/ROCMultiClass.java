@@ -27,6 +27,7 @@ public class ROCMultiClass extends BaseEvaluation<ROCMultiClass> {
 
     private int thresholdSteps;
     private boolean rocRemoveRedundantPts;
+    private int scoreSketchBins;
     @JsonSerialize(using = ROCArraySerializer.class)
     private ROC[] underlying;
     private List<String> labels;
@@ -52,6 +53,21 @@ public class ROCMultiClass extends BaseEvaluation<ROCMultiClass> {
         this.rocRemoveRedundantPts = rocRemoveRedundantPts;
     }
 
+    /**
+     * Create a ROCMultiClass instance that uses a fixed-width score sketch for each output, with bounded memory use.
+     * See {@link ROC#withScoreSketch(int)} for details
+     *
+     * @param numBins Number of probability bins per output
+     */
+    public static ROCMultiClass withScoreSketch(int numBins) {
+        if (numBins <= 0) {
+            throw new IllegalArgumentException("Number of score sketch bins must be positive: got " + numBins);
+        }
+        ROCMultiClass r = new ROCMultiClass(0);
+        r.scoreSketchBins = numBins;
+        return r;
+    }
+
     @Override
     public void reset() {
         underlying = null;
@@ -95,7 +111,11 @@ public class ROCMultiClass extends BaseEvaluation<ROCMultiClass> {
 
             sb.append("Average AUC: ").append(String.format("%-12." + printPrecision + "f", calculateAverageAUC()));
 
-            if(thresholdSteps > 0){
+            if (scoreSketchBins > 0) {
+                sb.append("\n");
+                sb.append("[Note: Score sketch AUC/AUPRC calculation used with ").append(scoreSketchBins)
+                        .append(" bins; see ROC.calculateAUCErrorBound() for the maximum AUC error]");
+            } else if(thresholdSteps > 0){
                 sb.append("\n");
                 sb.append("[Note: Thresholded AUC/AUPRC calculation used with ").append(thresholdSteps)
                         .append(" steps); accuracy may reduced compared to exact mode]");
@@ -132,7 +152,8 @@ public class ROCMultiClass extends BaseEvaluation<ROCMultiClass> {
         if (underlying == null) {
             underlying = new ROC[n];
             for (int i = 0; i < n; i++) {
-                underlying[i] = new ROC(thresholdSteps, rocRemoveRedundantPts);
+                underlying[i] = scoreSketchBins > 0 ? ROC.withScoreSketch(scoreSketchBins, rocRemoveRedundantPts)
+                                : new ROC(thresholdSteps, rocRemoveRedundantPts);
             }
         }
 
@@ -182,6 +203,16 @@ public class ROCMultiClass extends BaseEvaluation<ROCMultiClass> {
         return underlying[classIdx].calculateAUC();
     }
 
+    /**
+     * Maximum absolute error of {@link #calculateAUC(int)}; see {@link ROC#calculateAUCErrorBound()}
+     *
+     * @param classIdx Class index to calculate the AUC error bound for
+     */
+    public double calculateAUCErrorBound(int classIdx) {
+        assertIndex(classIdx);
+        return underlying[classIdx].calculateAUCErrorBound();
+    }
+
     /**
      * Calculate the AUPRC - Area Under Curve Precision Recall <br>
      * Utilizes trapezoidal integration internally
@@ -193,7 +193,8 @@ public class PrecisionRecallCurve extends BaseCurve {
     public Confusion getConfusionMatrixAtThreshold(double threshold) {
         Point p = getPointAtThreshold(threshold);
         int idx = p.idx;
-        int tn = totalCount - (tpCount[idx] + fpCount[idx] + fnCount[idx]);
+        //Counts may be clamped to Integer.MAX_VALUE (see ROC): sum as longs so that tn doesn't wrap
+        int tn = (int) Math.max(0, (long) totalCount - tpCount[idx] - fpCount[idx] - fnCount[idx]);
         return new Confusion(p, tpCount[idx], fpCount[idx], fnCount[idx], tn);
     }
 
@@ -41,6 +41,12 @@ public class ROCSerializer extends JsonSerializer<ROC> {
         jsonGenerator.writeBooleanField("isExact", roc.isExact());
         jsonGenerator.writeNumberField("exampleCount", roc.getExampleCount());
         jsonGenerator.writeBooleanField("rocRemoveRedundantPts", roc.isRocRemoveRedundantPts());
+        if (roc.isScoreSketch()) {
+            //Sketch size is bounded, so store it: this allows merging of deserialized instances
+            jsonGenerator.writeNumberField("scoreSketchBins", roc.getScoreSketchBins());
+            jsonGenerator.writeObjectField("sketchPositive", roc.getSketchPositive());
+            jsonGenerator.writeObjectField("sketchNegative", roc.getSketchNegative());
+        }
     }
 
     @Override
@@ -85,6 +85,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * A ComputationGraph network is a neural network with arbitrary (directed acyclic graph) connection structure.
@@ -190,6 +191,14 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
     private NeuralNetConfiguration defaultConfiguration;
     private Collection<TrainingListener> trainingListeners = new ArrayList<>();
 
+    /**
+     * Number of threads used to execute independent vertices concurrently during inference. 0: disabled
+     */
+    @Getter
+    protected int vertexExecutionThreads = 0;
+    protected transient ExecutorService vertexExecutor;
+    protected transient Map<String, Long> vertexExecutionTimes;
+
 
     public ComputationGraph(ComputationGraphConfiguration configuration) {
         this.configuration = configuration;
@@ -259,6 +268,41 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         }
     }
 
+    /**
+     * Enable or disable concurrent execution of independent vertices (for example, the branches of Inception-style
+     * or multi-tower networks) for the inference/output methods ({@link #output(INDArray...)} and similar).<br>
+     * When enabled, vertices are scheduled as soon as all of their inputs have been computed, on a pool of
+     * numThreads threads, rather than one at a time in topological order on the calling thread. This can reduce
+     * latency for wide graphs when each op alone doesn't use all available cores - for example, at small batch sizes.
+     * Working memory workspaces are used per thread; output activations of each vertex are detached, as they may be
+     * consumed on another thread.<br>
+     * Training (fit) and the feedForward methods always execute vertices sequentially.
+     *
+     * @param numThreads Number of threads to use. 0 to disable concurrent execution (default)
+     */
+    public void setVertexExecutionThreads(int numThreads) {
+        Preconditions.checkArgument(numThreads >= 0, "Number of threads must be >= 0, got %s", numThreads);
+        synchronized (this) {
+            if (vertexExecutor != null) {
+                vertexExecutor.shutdown();
+                vertexExecutor = null;
+            }
+            this.vertexExecutionThreads = numThreads;
+        }
+    }
+
+    /**
+     * Time taken to execute each vertex (in nanoseconds, keyed by vertex name) during the last inference pass with
+     * concurrent vertex execution enabled. Input vertices, and vertices not required for the requested outputs, are
+     * not included.
+     *
+     * @return Vertex execution times, or null if no concurrent inference pass has been performed
+     * @see #setVertexExecutionThreads(int)
+     */
+    public Map<String, Long> getVertexExecutionTimes() {
+        return vertexExecutionTimes;
+    }
+
     /**
      * This method returns configuration of this ComputationGraph
      *
@@ -2026,6 +2070,10 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         //Verify that no workspace is open externally
         WorkspaceUtils.assertNoWorkspacesOpen("Expected no workspace active before call to outputOfLayersDetached");
 
+        if(vertexExecutionThreads > 0 && fwdPassType == FwdPassType.STANDARD){
+            return outputOfLayersConcurrent(train, layerIndexes, features, clearLayerInputs, detachedInputs);
+        }
+
 
         //First: for each vertex, determine the highest index of the vertex that consumes it's output
         //Then: for each vertex, determine the forward pass step that each vertex's output has been fully consumed on
@@ -2230,6 +2278,229 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
     }
 
 
+    /**
+     * Concurrent version of {@link #outputOfLayersDetached(boolean, FwdPassType, int[], INDArray[], INDArray[], INDArray[], boolean, boolean)}
+     * for standard forward pass. Vertices are submitted to the vertex executor once all of their inputs are available;
+     * the calling thread only does the scheduling, using the vertex input/output indices (i.e., the graph structure
+     * used for the topological sort).<br>
+     * Workspaces are thread local, so each vertex uses the working memory workspace of the thread it is executed on,
+     * and output activations are always detached.
+     */
+    protected INDArray[] outputOfLayersConcurrent(boolean train, int[] layerIndexes, INDArray[] features,
+                                                  boolean clearLayerInputs, boolean detachedInputs){
+        //Only vertices that the requested outputs depend on need to be executed
+        boolean[] required = new boolean[vertices.length];
+        boolean[] requestedOutput = new boolean[vertices.length];
+        LinkedList<Integer> toVisit = new LinkedList<>();
+        for(int idx : layerIndexes){
+            requestedOutput[idx] = true;
+            toVisit.add(idx);
+        }
+        while(!toVisit.isEmpty()){
+            int idx = toVisit.removeFirst();
+            if(required[idx])
+                continue;
+            required[idx] = true;
+            VertexIndices[] inputsFrom = vertices[idx].getInputVertices();
+            if(inputsFrom != null){
+                for(VertexIndices vi : inputsFrom){
+                    toVisit.add(vi.getVertexIndex());
+                }
+            }
+        }
+
+        //Position in array: index of vertex. Values: number of inputs not yet available, and number of consumers
+        // not yet executed (after which the vertex activations can be released)
+        int[] pendingInputs = new int[vertices.length];
+        int[] pendingConsumers = new int[vertices.length];
+        int numRequired = 0;
+        for(int i = 0; i < vertices.length; i++){
+            if(!required[i])
+                continue;
+            numRequired++;
+            VertexIndices[] inputsFrom = vertices[i].getInputVertices();
+            if(inputsFrom != null){
+                pendingInputs[i] = inputsFrom.length;
+                for(VertexIndices vi : inputsFrom){
+                    pendingConsumers[vi.getVertexIndex()]++;
+                }
+            }
+        }
+
+        WorkspaceMode wsm = (train ? configuration.getTrainingWorkspaceMode() : configuration.getInferenceWorkspaceMode());
+        boolean detachInputs = detachedInputs || !clearLayerInputs;
+        INDArray[] activations = new INDArray[vertices.length];
+        long[] timesNanos = new long[vertices.length];
+        INDArray[] outputs = new INDArray[layerIndexes.length];
+
+        CompletionService<Integer> completionService = new ExecutorCompletionService<>(getVertexExecutor());
+        List<Future<Integer>> futures = new ArrayList<>();
+        LinkedList<Integer> completed = new LinkedList<>();
+        for(int i : topologicalOrder){
+            if(required[i] && vertices[i].isInputVertex()){
+                activations[i] = features[i];
+                completed.add(i);
+            }
+        }
+
+        boolean success = false;
+        try {
+            int numDone = 0;
+            while(numDone < numRequired){
+                if(completed.isEmpty()){
+                    Future<Integer> f = completionService.take();
+                    completed.add(f.get());
+                }
+                int idx = completed.removeFirst();
+                numDone++;
+
+                if(requestedOutput[idx]){
+                    for(int i = 0; i < layerIndexes.length; i++){
+                        if(layerIndexes[i] == idx)
+                            outputs[i] = activations[idx];
+                    }
+                }
+
+                //Inputs of this vertex may no longer be required
+                VertexIndices[] inputsFrom = vertices[idx].getInputVertices();
+                if(inputsFrom != null){
+                    for(VertexIndices vi : inputsFrom){
+                        if(--pendingConsumers[vi.getVertexIndex()] == 0){
+                            activations[vi.getVertexIndex()] = null;
+                        }
+                    }
+                }
+
+                //Schedule any vertices that now have all of their inputs
+                VertexIndices[] outputsTo = vertices[idx].getOutputVertices();
+                if(outputsTo != null){
+                    for(VertexIndices vi : outputsTo){
+                        int c = vi.getVertexIndex();
+                        if(required[c] && --pendingInputs[c] == 0){
+                            futures.add(completionService.submit(new VertexForwardTask(c, train, wsm, detachInputs,
+                                    clearLayerInputs, activations, timesNanos)));
+                        }
+                    }
+                }
+            }
+            success = true;
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during concurrent forward pass", e);
+        } catch (ExecutionException e){
+            Throwable t = e.getCause();
+            if(t instanceof RuntimeException)
+                throw (RuntimeException) t;
+            if(t instanceof Error)
+                throw (Error) t;
+            throw new RuntimeException("Error during concurrent forward pass", t);
+        } finally {
+            if(!success){
+                for(Future<Integer> f : futures){
+                    f.cancel(true);
+                }
+            }
+        }
+
+        Map<String, Long> times = new LinkedHashMap<>();
+        for(int i : topologicalOrder){
+            if(required[i] && !vertices[i].isInputVertex()){
+                times.put(vertices[i].getVertexName(), timesNanos[i]);
+            }
+        }
+        vertexExecutionTimes = times;
+
+        return outputs;
+    }
+
+    protected synchronized ExecutorService getVertexExecutor(){
+        if(vertexExecutor == null){
+            vertexExecutor = Executors.newFixedThreadPool(vertexExecutionThreads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = Executors.defaultThreadFactory().newThread(r);
+
+                    t.setDaemon(true);
+                    t.setName("ComputationGraph vertex thread");
+
+                    // we don't want threads to be working on different devices
+                    Nd4j.getAffinityManager().attachThreadToDevice(t,
+                            Nd4j.getAffinityManager().getDeviceForCurrentThread());
+
+                    return t;
+                }
+            });
+        }
+        return vertexExecutor;
+    }
+
+    /**
+     * Forward pass for a single vertex, on a vertex executor thread. Inputs are taken from the activations array,
+     * and the output activations (detached) are put into it.
+     */
+    protected class VertexForwardTask implements Callable<Integer> {
+        private final int vertexIdx;
+        private final boolean train;
+        private final WorkspaceMode wsm;
+        private final boolean detachInputs;
+        private final boolean clearLayerInputs;
+        private final INDArray[] activations;
+        private final long[] timesNanos;
+
+        protected VertexForwardTask(int vertexIdx, boolean train, WorkspaceMode wsm, boolean detachInputs,
+                                    boolean clearLayerInputs, INDArray[] activations, long[] timesNanos){
+            this.vertexIdx = vertexIdx;
+            this.train = train;
+            this.wsm = wsm;
+            this.detachInputs = detachInputs;
+            this.clearLayerInputs = clearLayerInputs;
+            this.activations = activations;
+            this.timesNanos = timesNanos;
+        }
+
+        @Override
+        public Integer call() {
+            long start = System.nanoTime();
+            GraphVertex current = vertices[vertexIdx];
+
+            LayerWorkspaceMgr workspaceMgr;
+            if(wsm == WorkspaceMode.NONE){
+                workspaceMgr = LayerWorkspaceMgr.noWorkspaces();
+            } else {
+                workspaceMgr = LayerWorkspaceMgr.builder()
+                        .noWorkspaceFor(ArrayType.ACTIVATIONS)
+                        .with(ArrayType.INPUT, WS_LAYER_WORKING_MEM, WS_LAYER_WORKING_MEM_CONFIG)
+                        .with(ArrayType.FF_WORKING_MEM, WS_LAYER_WORKING_MEM, WS_LAYER_WORKING_MEM_CONFIG)
+                        .with(ArrayType.RNN_FF_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM_CONFIG)
+                        .build();
+                if(detachInputs){
+                    workspaceMgr.setScopedOutFor(ArrayType.INPUT);
+                }
+            }
+
+            INDArray out;
+            try(MemoryWorkspace wsFFWorking = workspaceMgr.notifyScopeEntered(ArrayType.FF_WORKING_MEM)){
+                VertexIndices[] inputsFrom = current.getInputVertices();
+                for(int i = 0; i < inputsFrom.length; i++){
+                    current.setInput(i, activations[inputsFrom[i].getVertexIndex()], workspaceMgr);
+                }
+
+                out = current.doForward(train, workspaceMgr);
+                validateArrayWorkspaces(workspaceMgr, out, ArrayType.ACTIVATIONS, current.getVertexName(), false,
+                        "Feed forward (concurrent inference)");
+
+                if(clearLayerInputs) {
+                    current.clear();
+                }
+            }
+
+            activations[vertexIdx] = out;
+            timesNanos[vertexIdx] = System.nanoTime() - start;
+            return vertexIdx;
+        }
+    }
+
+
     /**
      * Calculate the gradient of the network with respect to some external errors.
      * Note that this is typically used for things like reinforcement learning, not typical networks that include
@@ -42,6 +42,7 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
     protected Map<String, Layer> layersByName;
     protected final List<UpdaterBlock> updaterBlocks;
     protected INDArray updaterStateViewArray;
+    protected int fusedUpdateMaxLength;
 
     public BaseMultiLayerUpdater(T network) {
         this(network, null);
@@ -164,6 +165,25 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
         }
     }
 
+    /**
+     * Set the maximum number of parameters in an updater block for which fused updates are used. For these blocks, the
+     * updater and L1/L2 regularization are applied in a single pass over the block on the host (see
+     * {@link FusedUpdater}), instead of as a chain of separate ops. This reduces op dispatch overhead for networks with
+     * many small layers, when using the CPU backend.<br>
+     * Default: 0 (fused updates disabled)
+     *
+     * @param maxLength Maximum block size (number of parameters) to use fused updates for
+     */
+    public void setFusedUpdateMaxLength(int maxLength) {
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("Maximum fused update length must be non-negative: got " + maxLength);
+        }
+        this.fusedUpdateMaxLength = maxLength;
+        for (UpdaterBlock ub : updaterBlocks) {
+            ub.setFusedUpdateMaxLength(maxLength);
+        }
+    }
+
     /**
      *
      * @return Array of layers, in the correct order (i.e., same order as the parameter/gradient/updater flattening
@@ -0,0 +1,128 @@
+package org.deeplearning4j.nn.updater;
+
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.learning.AdamUpdater;
+import org.nd4j.linalg.learning.GradientUpdater;
+import org.nd4j.linalg.learning.NesterovsUpdater;
+import org.nd4j.linalg.learning.RmsPropUpdater;
+import org.nd4j.linalg.learning.SgdUpdater;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.learning.config.Nesterovs;
+import org.nd4j.linalg.learning.config.RmsProp;
+
+/**
+ * Fused updater kernels, used by {@link UpdaterBlock} for small blocks: the updater (Sgd, Nesterovs, Adam or RmsProp)
+ * and L1/L2 regularization are applied to each element of the gradient in a single pass over the gradient, parameters
+ * and updater state, instead of a chain of separate ops (each with its own dispatch overhead, and its own pass over
+ * memory).<br>
+ * The math is identical to {@link GradientUpdater#applyUpdater(INDArray, int, int)} followed by
+ * {@link UpdaterBlock#postApply}, up to floating point rounding. Kernels run on the host, so this is intended for
+ * arrays in host memory (i.e., the CPU backend).
+ */
+public class FusedUpdater {
+
+    private FusedUpdater() {
+        //No instances
+    }
+
+    /**
+     * @param updater Updater to check
+     * @param arrays  Arrays that the kernel would operate on
+     * @return True if a fused kernel is available for the updater, and all arrays are contiguous
+     */
+    public static boolean canApply(GradientUpdater updater, INDArray... arrays) {
+        if (!(updater instanceof SgdUpdater || updater instanceof NesterovsUpdater || updater instanceof AdamUpdater
+                        || updater instanceof RmsPropUpdater)) {
+            return false;
+        }
+        for (INDArray arr : arrays) {
+            if (arr != null && arr.length() > 1 && arr.elementWiseStride() != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Apply the updater, then L1 and L2 regularization, to the gradient of a single parameter, in place
+     *
+     * @param updater     Updater for the block
+     * @param iteration   Current iteration
+     * @param epoch       Current epoch
+     * @param gradient    Gradient of the parameter. Modified in place
+     * @param params      Parameter values
+     * @param stateOffset Offset of the parameter in the block, for indexing the updater state
+     * @param l1          L1 coefficient, 0 if not used
+     * @param l2          L2 coefficient, 0 if not used
+     */
+    public static void apply(GradientUpdater updater, int iteration, int epoch, INDArray gradient, INDArray params,
+                    long stateOffset, double l1, double l2) {
+        long n = gradient.length();
+        //Buffer indices are relative to the offset of the view
+        DataBuffer g = gradient.data();
+        DataBuffer p = params.data();
+
+        if (updater instanceof SgdUpdater) {
+            double lr = ((SgdUpdater) updater).getConfig().getLearningRate(iteration, epoch);
+            for (long i = 0; i < n; i++) {
+                double pi = p.getDouble(i);
+                g.put(i, lr * g.getDouble(i) + l2 * pi + l1 * Math.signum(pi));
+            }
+        } else if (updater instanceof NesterovsUpdater) {
+            NesterovsUpdater u = (NesterovsUpdater) updater;
+            Nesterovs config = u.getConfig();
+            double momentum = config.currentMomentum(iteration, epoch);
+            double lr = config.getLearningRate(iteration, epoch);
+            DataBuffer v = u.getV().data();
+            for (long i = 0; i < n; i++) {
+                //v = mu * v - lr * gradient; update = mu * vPrev + (-1 - mu) * v
+                double vPrev = v.getDouble(stateOffset + i);
+                double vi = momentum * vPrev - lr * g.getDouble(i);
+                v.put(stateOffset + i, vi);
+                double pi = p.getDouble(i);
+                g.put(i, momentum * vPrev + (-1 - momentum) * vi + l2 * pi + l1 * Math.signum(pi));
+            }
+        } else if (updater instanceof AdamUpdater) {
+            AdamUpdater u = (AdamUpdater) updater;
+            Adam config = u.getConfig();
+            double beta1 = config.getBeta1();
+            double beta2 = config.getBeta2();
+            double epsilon = config.getEpsilon();
+            double learningRate = config.getLearningRate(iteration, epoch);
+            double beta1t = Math.pow(beta1, iteration + 1);
+            double beta2t = Math.pow(beta2, iteration + 1);
+            double alphat = learningRate * Math.sqrt(1 - beta2t) / (1 - beta1t);
+            if (Double.isNaN(alphat) || alphat == 0.0)
+                alphat = epsilon;
+
+            DataBuffer m = u.getM().data();
+            DataBuffer v = u.getV().data();
+            for (long i = 0; i < n; i++) {
+                double gi = g.getDouble(i);
+                double mi = beta1 * m.getDouble(stateOffset + i) + (1.0 - beta1) * gi;
+                double vi = beta2 * v.getDouble(stateOffset + i) + (1.0 - beta2) * gi * gi;
+                m.put(stateOffset + i, mi);
+                v.put(stateOffset + i, vi);
+                double pi = p.getDouble(i);
+                g.put(i, alphat * mi / (Math.sqrt(vi) + epsilon) + l2 * pi + l1 * Math.signum(pi));
+            }
+        } else if (updater instanceof RmsPropUpdater) {
+            RmsPropUpdater u = (RmsPropUpdater) updater;
+            RmsProp config = u.getConfig();
+            double learningRate = config.getLearningRate(iteration, epoch);
+            double rmsDecay = config.getRmsDecay();
+            double epsilon = config.getEpsilon();
+            DataBuffer c = u.getLastGradient().data();
+            for (long i = 0; i < n; i++) {
+                double gi = g.getDouble(i);
+                double ci = rmsDecay * c.getDouble(stateOffset + i) + (1 - rmsDecay) * gi * gi;
+                c.put(stateOffset + i, ci);
+                double pi = p.getDouble(i);
+                g.put(i, learningRate * gi / (Math.sqrt(ci) + epsilon) + l2 * pi + l1 * Math.signum(pi));
+            }
+        } else {
+            throw new UnsupportedOperationException("No fused kernel for updater: " + updater.getClass().getName());
+        }
+    }
+}
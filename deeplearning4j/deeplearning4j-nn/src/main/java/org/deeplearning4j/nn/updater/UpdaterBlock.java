@@ -3,6 +3,7 @@ package org.deeplearning4j.nn.updater;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.val;
+import org.apache.commons.lang3.ArrayUtils;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.BaseLayer;
@@ -35,6 +36,7 @@ public class UpdaterBlock {
     private boolean updaterViewRequiresInitialization;
 
     private GradientUpdater gradientUpdater;
+    private int fusedUpdateMaxLength;
 
 
     @AllArgsConstructor
@@ -139,24 +141,48 @@ public class UpdaterBlock {
             return;
         }
 
-        //Apply the updater itself
-        gradientUpdater.applyUpdater(blockGradViewArray, iteration, epoch);
-
-        //Post apply: l1 and l2 by params
-        for (ParamState p : layersAndVariablesInBlock) {
-            INDArray paramView;
-            INDArray gradView;
+        int n = layersAndVariablesInBlock.size();
+        INDArray[] paramViews = new INDArray[n];
+        INDArray[] gradViews = new INDArray[n];
+        for (int i = 0; i < n; i++) {
+            ParamState p = layersAndVariablesInBlock.get(i);
             if (externalGradient) {
-                paramView = fullNetworkParamsArray.get(NDArrayIndex.point(0),
+                paramViews[i] = fullNetworkParamsArray.get(NDArrayIndex.point(0),
                                 NDArrayIndex.interval(p.getParamOffsetStart(), p.getParamOffsetEnd()));
-                gradView = fullNetworkGradientView.get(NDArrayIndex.point(0),
+                gradViews[i] = fullNetworkGradientView.get(NDArrayIndex.point(0),
                                 NDArrayIndex.interval(p.getParamOffsetStart(), p.getParamOffsetEnd()));
             } else {
                 //Standard case
-                paramView = p.getParamView();
-                gradView = p.getGradView();
+                paramViews[i] = p.getParamView();
+                gradViews[i] = p.getGradView();
+            }
+        }
+
+        if (blockGradViewArray.length() <= fusedUpdateMaxLength
+                        && FusedUpdater.canApply(gradientUpdater,
+                                        ArrayUtils.add(ArrayUtils.addAll(paramViews, gradViews), updaterView))) {
+            //Small block: updater, l1 and l2 in a single pass, instead of a chain of small ops
+            for (int i = 0; i < n; i++) {
+                ParamState p = layersAndVariablesInBlock.get(i);
+                double l1 = 0.0;
+                double l2 = 0.0;
+                if (!(p.getLayer() instanceof FrozenLayer)) {
+                    l1 = Math.max(0.0, p.getLayer().conf().getL1ByParam(p.getParamName()));
+                    l2 = Math.max(0.0, p.getLayer().conf().getL2ByParam(p.getParamName()));
+                }
+                FusedUpdater.apply(gradientUpdater, iteration, epoch, gradViews[i], paramViews[i],
+                                p.getParamOffsetStart() - paramOffsetStart, l1, l2);
             }
-            postApply(p.getLayer(), p.getParamName(), gradView, paramView);
+            return;
+        }
+
+        //Apply the updater itself
+        gradientUpdater.applyUpdater(blockGradViewArray, iteration, epoch);
+
+        //Post apply: l1 and l2 by params
+        for (int i = 0; i < n; i++) {
+            ParamState p = layersAndVariablesInBlock.get(i);
+            postApply(p.getLayer(), p.getParamName(), gradViews[i], paramViews[i]);
         }
     }
 
@@ -0,0 +1,201 @@
+package org.deeplearning4j.util;
+
+import lombok.NonNull;
+import org.bytedeco.javacpp.DoublePointer;
+import org.bytedeco.javacpp.FloatPointer;
+import org.bytedeco.javacpp.Pointer;
+import org.bytedeco.javacpp.indexer.DoubleIndexer;
+import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.javacpp.indexer.Indexer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.concurrency.AffinityManager;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Utility methods for reading and writing raw array data in files, as used by
+ * {@link ModelSerializer#writeModelMapped(org.deeplearning4j.nn.api.Model, java.io.File)}.
+ *
+ * Arrays are stored as raw elements in c order. When possible, they are read by memory mapping the file
+ * (copy-on-write, so no data is copied and file pages are shared between processes), otherwise elements are
+ * copied in bulk, in segments, so arrays of more than 2GB are supported.
+ */
+public class MappedDataBuffers {
+
+    /**
+     * Largest region that can be memory mapped, and so read without any copy
+     */
+    public static final long MAX_MAPPED_BYTES = Integer.MAX_VALUE;
+
+    private static final int SEGMENT_BYTES = 1 << 26;
+
+    private MappedDataBuffers() {
+        //No instances
+    }
+
+    /**
+     * Read an array stored in c order at given offset.<br>
+     * The array is backed by a copy-on-write mapping of the file if map is true, the array is at most
+     * {@link #MAX_MAPPED_BYTES}, and its data type and byte order are the same as Nd4j's; the channel must then
+     * be opened for writing (though the file is never modified). Otherwise, elements are copied.
+     *
+     * @param channel   channel to read from
+     * @param offset    position of the first element in the channel
+     * @param shape     shape of the array
+     * @param dataType  data type of the stored elements, FLOAT or DOUBLE
+     * @param byteOrder byte order of the stored elements
+     * @param map       whether the array may be backed by memory mapping
+     * @return array of Nd4j data type
+     * @throws IOException
+     */
+    public static INDArray read(@NonNull FileChannel channel, long offset, @NonNull long[] shape,
+                    @NonNull DataBuffer.Type dataType, @NonNull ByteOrder byteOrder, boolean map) throws IOException {
+        return read(channel, offset, shape, dataType, byteOrder, map, SEGMENT_BYTES);
+    }
+
+    static INDArray read(FileChannel channel, long offset, long[] shape, DataBuffer.Type dataType,
+                    ByteOrder byteOrder, boolean map, int segmentBytes) throws IOException {
+        if (dataType != DataBuffer.Type.FLOAT && dataType != DataBuffer.Type.DOUBLE)
+            throw new IllegalArgumentException("Unsupported data type: " + dataType);
+        int elementSize = dataType == DataBuffer.Type.DOUBLE ? 8 : 4;
+        long length = 1;
+        for (long s : shape)
+            length *= s;
+
+        if (map && length * elementSize <= MAX_MAPPED_BYTES && dataType == Nd4j.dataType()
+                        && byteOrder == ByteOrder.nativeOrder()) {
+            // mapping stays valid after the channel is closed
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.PRIVATE, offset, length * elementSize);
+            mapped.order(byteOrder);
+
+            Pointer pointer;
+            Indexer indexer;
+            if (dataType == DataBuffer.Type.DOUBLE) {
+                pointer = new MappedDoublePointer(mapped);
+                indexer = DoubleIndexer.create((DoublePointer) pointer);
+            } else {
+                pointer = new MappedFloatPointer(mapped);
+                indexer = FloatIndexer.create((FloatPointer) pointer);
+            }
+            DataBuffer buffer = Nd4j.createBuffer(pointer, dataType, length, indexer);
+            return Nd4j.create(buffer, shape);
+        }
+
+        // bulk copy, segment by segment: data type and byte order are converted if necessary
+        INDArray result = Nd4j.create(new long[] {1, length}, 'c');
+        long segmentElements = segmentBytes / elementSize;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (Math.min(length, segmentElements) * elementSize));
+        buffer.order(byteOrder);
+        for (long start = 0; start < length; start += segmentElements) {
+            int n = (int) Math.min(segmentElements, length - start);
+            buffer.clear();
+            buffer.limit(n * elementSize);
+            long position = offset + start * elementSize;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0)
+                    throw new EOFException("Unexpected end of file: expected " + length + " elements");
+            }
+            buffer.flip();
+
+            INDArray view = result.get(NDArrayIndex.point(0), NDArrayIndex.interval(start, start + n));
+            if (Nd4j.dataType() == DataBuffer.Type.DOUBLE) {
+                double[] data = new double[n];
+                if (dataType == DataBuffer.Type.DOUBLE) {
+                    buffer.asDoubleBuffer().get(data);
+                } else {
+                    FloatBuffer floats = buffer.asFloatBuffer();
+                    for (int i = 0; i < n; i++)
+                        data[i] = floats.get(i);
+                }
+                view.assign(Nd4j.create(data, view.shape()));
+            } else {
+                float[] data = new float[n];
+                if (dataType == DataBuffer.Type.FLOAT) {
+                    buffer.asFloatBuffer().get(data);
+                } else {
+                    double[] doubles = new double[n];
+                    buffer.asDoubleBuffer().get(doubles);
+                    for (int i = 0; i < n; i++)
+                        data[i] = (float) doubles[i];
+                }
+                view.assign(Nd4j.create(data, view.shape()));
+            }
+        }
+        return result.reshape('c', shape);
+    }
+
+    /**
+     * Write the first length elements of an array, in c order, at the current position of the channel.
+     * Elements are written in segments, so arrays of more than 2GB are supported.
+     *
+     * @param channel channel to write to
+     * @param array   array to write
+     * @param length  number of elements to write
+     * @throws IOException
+     */
+    public static void write(@NonNull FileChannel channel, @NonNull INDArray array, long length) throws IOException {
+        write(channel, array, length, SEGMENT_BYTES);
+    }
+
+    static void write(FileChannel channel, INDArray array, long length, int segmentBytes) throws IOException {
+        if (array.isView() || array.ordering() != 'c' || array.data().offset() != 0
+                        || array.data().length() != array.length())
+            array = array.dup('c');
+
+        int elementSize = array.data().getElementSize();
+        long segmentElements = segmentBytes / elementSize;
+        if (length <= segmentElements) {
+            writeContiguous(channel, array, length * elementSize);
+            return;
+        }
+
+        INDArray flat = array.reshape('c', 1, array.length());
+        for (long start = 0; start < length; start += segmentElements) {
+            long n = Math.min(segmentElements, length - start);
+            INDArray segment = flat.get(NDArrayIndex.point(0), NDArrayIndex.interval(start, start + n)).dup('c');
+            writeContiguous(channel, segment, n * elementSize);
+        }
+    }
+
+    private static void writeContiguous(FileChannel channel, INDArray array, long bytes) throws IOException {
+        // on devices with separate memory, data has to be available on host side first
+        Nd4j.getAffinityManager().ensureLocation(array, AffinityManager.Location.HOST);
+
+        ByteBuffer data = array.data().asNio();
+        data.limit((int) bytes);
+        while (data.hasRemaining())
+            channel.write(data);
+    }
+
+    /**
+     * FloatPointer holding reference to the mapped region, so it's not unmapped while the data is in use
+     */
+    private static class MappedFloatPointer extends FloatPointer {
+        private final ByteBuffer mapped;
+
+        private MappedFloatPointer(ByteBuffer mapped) {
+            super(mapped.asFloatBuffer());
+            this.mapped = mapped;
+        }
+    }
+
+    /**
+     * DoublePointer holding reference to the mapped region, so it's not unmapped while the data is in use
+     */
+    private static class MappedDoublePointer extends DoublePointer {
+        private final ByteBuffer mapped;
+
+        private MappedDoublePointer(ByteBuffer mapped) {
+            super(mapped.asDoubleBuffer());
+            this.mapped = mapped;
+        }
+    }
+}
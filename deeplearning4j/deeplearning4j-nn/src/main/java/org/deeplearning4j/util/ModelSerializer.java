@@ -14,6 +14,7 @@ import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.updater.graph.ComputationGraphUpdater;
 import org.nd4j.base.Preconditions;
+import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
 import org.nd4j.linalg.dataset.api.preprocessor.DataNormalization;
@@ -24,7 +25,10 @@ import org.nd4j.linalg.heartbeat.reports.Task;
 import org.nd4j.linalg.primitives.Pair;
 
 import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.zip.ZipEntry;
@@ -46,6 +50,16 @@ public class ModelSerializer {
     public static final String NO_PARAMS_MARKER = "noParams.marker";
     public static final String PREPROCESSOR_BIN = "preprocessor.bin";
 
+    private static final byte[] MAPPED_MAGIC = {'D', 'L', '4', 'J', 'M', 'M', 'A', 'P'};
+    private static final int MAPPED_VERSION = 1;
+    private static final long MAPPED_ALIGNMENT = 4096;
+    private static final byte MAPPED_MULTILAYER = 0;
+    private static final byte MAPPED_COMPUTATION_GRAPH = 1;
+    private static final byte MAPPED_FLOAT = 0;
+    private static final byte MAPPED_DOUBLE = 1;
+    private static final byte MAPPED_LITTLE_ENDIAN = 0;
+    private static final byte MAPPED_BIG_ENDIAN = 1;
+
     private ModelSerializer() {}
 
     /**
@@ -636,6 +650,154 @@ public class ModelSerializer {
                     + "], gotCoefficients: [" + gotCoefficients + "], gotUpdater: [" + gotUpdaterState + "]");
     }
 
+    /**
+     * Write a model to a file in uncompressed, memory mappable format: configuration is followed by the raw
+     * parameters, page aligned and in native byte order. Models written this way can be restored near-instantly via
+     * {@link #restoreMultiLayerNetworkMapped(File)} or {@link #restoreComputationGraphMapped(File)}, as parameters
+     * are memory mapped instead of being read. This format is intended for inference: updater state and
+     * normalizer are not saved.<br>
+     * The format is limited to 2GB of parameters: larger models can't be written this way, use
+     * {@link #writeModel(Model, File, boolean)} instead.
+     *
+     * @param model the model to write
+     * @param file the file to write to
+     * @throws IOException
+     */
+    public static void writeModelMapped(@NonNull Model model, @NonNull File file) throws IOException {
+        byte modelType;
+        String json;
+        if (model instanceof MultiLayerNetwork) {
+            modelType = MAPPED_MULTILAYER;
+            json = ((MultiLayerNetwork) model).getLayerWiseConfigurations().toJson();
+        } else if (model instanceof ComputationGraph) {
+            modelType = MAPPED_COMPUTATION_GRAPH;
+            json = ((ComputationGraph) model).getConfiguration().toJson();
+        } else {
+            throw new IllegalArgumentException("Unsupported model type: " + model.getClass().getName());
+        }
+
+        INDArray params = model.params();
+        long numParams = params == null ? 0 : params.length();
+
+        DataBuffer.Type dataType = params == null ? Nd4j.dataType() : params.data().dataType();
+        if (dataType != DataBuffer.Type.FLOAT && dataType != DataBuffer.Type.DOUBLE)
+            throw new IllegalArgumentException("Unsupported parameters data type: " + dataType);
+
+        // checked before the file is touched, so an existing file isn't destroyed
+        int elementSize = dataType == DataBuffer.Type.DOUBLE ? 8 : 4;
+        if (numParams * elementSize > MappedDataBuffers.MAX_MAPPED_BYTES)
+            throw new IllegalArgumentException("Unable to write " + numParams
+                            + " parameters: mapped models are limited to 2GB of parameters");
+
+        byte[] jsonBytes = json.getBytes("UTF-8");
+        long headerLength = MAPPED_MAGIC.length + 4 + 1 + 1 + 1 + 8 + 8 + 4 + jsonBytes.length;
+        long paramsOffset = (headerLength + MAPPED_ALIGNMENT - 1) / MAPPED_ALIGNMENT * MAPPED_ALIGNMENT;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+            raf.write(MAPPED_MAGIC);
+            raf.writeInt(MAPPED_VERSION);
+            raf.writeByte(modelType);
+            raf.writeByte(dataType == DataBuffer.Type.DOUBLE ? MAPPED_DOUBLE : MAPPED_FLOAT);
+            raf.writeByte(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? MAPPED_LITTLE_ENDIAN : MAPPED_BIG_ENDIAN);
+            raf.writeLong(numParams);
+            raf.writeLong(paramsOffset);
+            raf.writeInt(jsonBytes.length);
+            raf.write(jsonBytes);
+
+            if (params != null) {
+                FileChannel channel = raf.getChannel();
+                channel.position(paramsOffset);
+                MappedDataBuffers.write(channel, params, numParams);
+            } else {
+                raf.setLength(paramsOffset);
+            }
+        }
+    }
+
+    /**
+     * Load a multi layer network from a file written by {@link #writeModelMapped(Model, File)}.
+     * Parameters are memory mapped copy-on-write, so file pages are loaded lazily and shared between all processes
+     * mapping the same file; the network may still be trained, but changes are never written back to the file.<br>
+     * Copy-on-write mapping requires the file to be writable (it is never modified): if the file is read-only, or was
+     * written with different data type or byte order, parameters are copied instead (in bulk, like a regular read).
+     *
+     * @param file the file to load from
+     * @return the loaded multi layer network
+     * @throws IOException
+     */
+    public static MultiLayerNetwork restoreMultiLayerNetworkMapped(@NonNull File file) throws IOException {
+        Pair<String, INDArray> model = readMapped(file, MAPPED_MULTILAYER);
+
+        MultiLayerNetwork network = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(model.getFirst()));
+        network.init(model.getSecond(), false);
+        return network;
+    }
+
+    /**
+     * Load a computation graph from a file written by {@link #writeModelMapped(Model, File)}.
+     * Parameters are memory mapped copy-on-write, so file pages are loaded lazily and shared between all processes
+     * mapping the same file; the network may still be trained, but changes are never written back to the file.<br>
+     * Copy-on-write mapping requires the file to be writable (it is never modified): if the file is read-only, or was
+     * written with different data type or byte order, parameters are copied instead (in bulk, like a regular read).
+     *
+     * @param file the file to load from
+     * @return the loaded computation graph
+     * @throws IOException
+     */
+    public static ComputationGraph restoreComputationGraphMapped(@NonNull File file) throws IOException {
+        Pair<String, INDArray> model = readMapped(file, MAPPED_COMPUTATION_GRAPH);
+
+        ComputationGraph cg = new ComputationGraph(ComputationGraphConfiguration.fromJson(model.getFirst()));
+        cg.init(model.getSecond(), false);
+        return cg;
+    }
+
+    private static Pair<String, INDArray> readMapped(File file, byte expectedModelType) throws IOException {
+        // copy-on-write mapping requires channel opened for writing, even though file is never modified
+        boolean writable = file.canWrite();
+        try (RandomAccessFile raf = new RandomAccessFile(file, writable ? "rw" : "r")) {
+            byte[] magic = new byte[MAPPED_MAGIC.length];
+            raf.readFully(magic);
+            if (!Arrays.equals(magic, MAPPED_MAGIC))
+                throw new IOException("File " + file + " wasn't written by ModelSerializer.writeModelMapped()");
+
+            int version = raf.readInt();
+            if (version != MAPPED_VERSION)
+                throw new IOException("Unsupported mapped model version: " + version);
+
+            byte modelType = raf.readByte();
+            if (modelType != expectedModelType) {
+                throw new IllegalStateException("Saved model is a " + (modelType == MAPPED_COMPUTATION_GRAPH
+                                ? "ComputationGraph - use ModelSerializer.restoreComputationGraphMapped instead"
+                                : "MultiLayerNetwork - use ModelSerializer.restoreMultiLayerNetworkMapped instead"));
+            }
+
+            DataBuffer.Type dataType = raf.readByte() == MAPPED_DOUBLE ? DataBuffer.Type.DOUBLE : DataBuffer.Type.FLOAT;
+            ByteOrder byteOrder = raf.readByte() == MAPPED_LITTLE_ENDIAN ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+            long numParams = raf.readLong();
+            long paramsOffset = raf.readLong();
+            byte[] jsonBytes = new byte[raf.readInt()];
+            raf.readFully(jsonBytes);
+            String json = new String(jsonBytes, "UTF-8");
+
+            if (numParams == 0)
+                return new Pair<>(json, null);
+
+            int elementSize = dataType == DataBuffer.Type.DOUBLE ? 8 : 4;
+            if (numParams * elementSize > MappedDataBuffers.MAX_MAPPED_BYTES)
+                throw new IOException("Unable to map " + numParams + " parameters: mapped models are limited to 2GB of parameters");
+
+            if (paramsOffset + numParams * elementSize > raf.length())
+                throw new IOException("Mapped model file " + file + " is truncated");
+
+            INDArray params = MappedDataBuffers.read(raf.getChannel(), paramsOffset, new long[] {1, numParams},
+                            dataType, byteOrder, writable);
+
+            return new Pair<>(json, params);
+        }
+    }
+
     /**
      *
      * @param model
@@ -0,0 +1,399 @@
+package org.deeplearning4j.parallelism;
+
+import lombok.NonNull;
+import org.apache.commons.lang3.SerializationUtils;
+import org.deeplearning4j.datasets.iterator.impl.MultiDataSetIteratorAdapter;
+import org.deeplearning4j.eval.Evaluation;
+import org.deeplearning4j.eval.IEvaluation;
+import org.deeplearning4j.eval.ROC;
+import org.deeplearning4j.eval.RegressionEvaluation;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class evaluates a MultiLayerNetwork or ComputationGraph on multiple worker threads, each with its own replica
+ * of the model.
+ *
+ * The calling thread reads the iterator into a bounded prefetch queue, and each worker takes minibatches from that
+ * queue as soon as it's done with the previous one, so slow and fast workers balance out. Each worker collects
+ * statistics in its own copies of the provided IEvaluation instances (Evaluation, ROC, RegressionEvaluation etc),
+ * and the copies are merged into the provided instances once all data has been processed.
+ *
+ * PLEASE NOTE: Results are the same as for MultiLayerNetwork.doEvaluation() and ComputationGraph.doEvaluation(),
+ * up to floating point differences due to the order of the merges
+ */
+public class ParallelEvaluation {
+    private Model model;
+    private int workers;
+    private int prefetchBuffer;
+
+    private ExecutorService executor;
+    private final ThreadLocal<Model> replicas = new ThreadLocal<>();
+
+    public final static int DEFAULT_NUM_WORKERS = Runtime.getRuntime().availableProcessors();
+
+    protected ParallelEvaluation() {
+        //
+    }
+
+    protected void init() {
+        final int numDevices = Nd4j.getAffinityManager().getNumberOfDevices();
+        final AtomicInteger threadCounter = new AtomicInteger(0);
+        executor = Executors.newFixedThreadPool(workers, r -> {
+            int id = threadCounter.getAndIncrement();
+            Thread t = new Thread(r, "EvaluationThread-" + id);
+            t.setDaemon(true);
+            Nd4j.getAffinityManager().attachThreadToDevice(t, id % numDevices);
+            return t;
+        });
+    }
+
+    /**
+     * This method evaluates the model on the given data, using standard classification Evaluation
+     *
+     * @param iterator data to evaluate on
+     * @return Evaluation instance, with label names taken from the iterator (if available)
+     */
+    public Evaluation evaluate(@NonNull DataSetIterator iterator) {
+        List<String> labels = iterator.getLabels();
+        return doEvaluation(iterator, labels == null ? new Evaluation() : new Evaluation(labels))[0];
+    }
+
+    /**
+     * This method evaluates the model on the given data, using RegressionEvaluation
+     *
+     * @param iterator data to evaluate on
+     * @return RegressionEvaluation instance
+     */
+    public RegressionEvaluation evaluateRegression(@NonNull DataSetIterator iterator) {
+        return doEvaluation(iterator, new RegressionEvaluation())[0];
+    }
+
+    /**
+     * This method evaluates a binary classifier on the given data, using ROC
+     *
+     * @param iterator          data to evaluate on
+     * @param rocThresholdSteps number of threshold steps, or 0 for exact ROC
+     * @return ROC instance
+     */
+    public ROC evaluateROC(@NonNull DataSetIterator iterator, int rocThresholdSteps) {
+        return doEvaluation(iterator, new ROC(rocThresholdSteps))[0];
+    }
+
+    /**
+     * This method evaluates the model on the given data, using the provided IEvaluation instances
+     *
+     * @param iterator    data to evaluate on
+     * @param evaluations IEvaluation instances. Statistics are added to any existing statistics in these instances
+     * @return the provided IEvaluation instances, after evaluation
+     */
+    public <T extends IEvaluation> T[] doEvaluation(@NonNull DataSetIterator iterator, @NonNull T... evaluations) {
+        return doEvaluation(new MultiDataSetIteratorAdapter(iterator), evaluations);
+    }
+
+    /**
+     * This method evaluates the model on the given data, using the provided IEvaluation instances
+     *
+     * @param iterator    data to evaluate on
+     * @param evaluations IEvaluation instances. Statistics are added to any existing statistics in these instances
+     * @return the provided IEvaluation instances, after evaluation
+     */
+    public <T extends IEvaluation> T[] doEvaluation(@NonNull MultiDataSetIterator iterator,
+                    @NonNull T... evaluations) {
+        if (executor == null)
+            throw new IllegalStateException("ParallelEvaluation instance was shut down");
+
+        if (iterator.resetSupported() && !iterator.hasNext())
+            iterator.reset();
+
+        BlockingQueue<MultiDataSet> queue = new LinkedBlockingQueue<>(prefetchBuffer);
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        List<Future<T[]>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            T[] copies = evaluations.clone();
+            for (int e = 0; e < copies.length; e++) {
+                copies[e] = (T) SerializationUtils.clone(evaluations[e]);
+                copies[e].reset();
+            }
+
+            QueueIterator source = new QueueIterator(queue, done, failure);
+            futures.add(executor.submit(() -> evaluate(source, copies, failure)));
+        }
+
+        // calling thread acts as prefetcher, workers pick up minibatches as soon as they're free
+        try {
+            feed:
+            while (iterator.hasNext() && failure.get() == null) {
+                MultiDataSet next = iterator.next();
+                while (!queue.offer(next, 10, TimeUnit.MILLISECONDS)) {
+                    if (failure.get() != null)
+                        break feed;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        } finally {
+            done.set(true);
+        }
+
+        List<T[]> results = new ArrayList<>(workers);
+        for (Future<T[]> future : futures) {
+            try {
+                T[] result = future.get();
+                if (result != null)
+                    results.add(result);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, e);
+            } catch (ExecutionException e) {
+                failure.compareAndSet(null, e.getCause());
+            }
+        }
+
+        Throwable t = failure.get();
+        if (t != null) {
+            if (t instanceof RuntimeException)
+                throw (RuntimeException) t;
+            throw new RuntimeException(t);
+        }
+
+        for (T[] result : results) {
+            for (int e = 0; e < evaluations.length; e++)
+                evaluations[e].merge(result[e]);
+        }
+
+        return evaluations;
+    }
+
+    /**
+     * This method is executed by worker threads
+     *
+     * @return evaluations, or null if this worker got no data
+     */
+    protected <T extends IEvaluation> T[] evaluate(QueueIterator source, T[] evaluations,
+                    AtomicReference<Throwable> failure) {
+        try {
+            Model replica = getReplica();
+            if (replica instanceof ComputationGraph) {
+                ((ComputationGraph) replica).doEvaluation(source, evaluations);
+            } else {
+                ((MultiLayerNetwork) replica).doEvaluation(source, evaluations);
+            }
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+            throw t;
+        }
+
+        return source.getCounter() > 0 ? evaluations : null;
+    }
+
+    /**
+     * This method returns model replica for current worker thread, with parameters copied from the original model
+     *
+     * @return
+     */
+    protected Model getReplica() {
+        Model replica = replicas.get();
+        if (replica == null) {
+            if (model instanceof ComputationGraph) {
+                replica = new ComputationGraph(ComputationGraphConfiguration
+                                .fromJson(((ComputationGraph) model).getConfiguration().toJson()));
+            } else {
+                replica = new MultiLayerNetwork(MultiLayerConfiguration
+                                .fromJson(((MultiLayerNetwork) model).getLayerWiseConfigurations().toJson()));
+            }
+            replica.init();
+            replicas.set(replica);
+        }
+
+        // parameters are copied on every call, since original model might be trained in between
+        replica.setParams(model.params());
+        Nd4j.getExecutioner().commit();
+
+        return replica;
+    }
+
+    /**
+     * This method gracefully shuts down ParallelEvaluation instance
+     */
+    public synchronized void shutdown() {
+        if (executor == null)
+            return;
+
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    public static class Builder {
+        private Model model;
+        private int workers = DEFAULT_NUM_WORKERS;
+        private int prefetchBuffer = -1;
+
+        public Builder(@NonNull Model model) {
+            if (!(model instanceof MultiLayerNetwork) && !(model instanceof ComputationGraph))
+                throw new IllegalArgumentException("Only MultiLayerNetwork and ComputationGraph models are supported: got "
+                                + model.getClass().getName());
+
+            this.model = model;
+        }
+
+        /**
+         * This method defines, how many model copies will be used for evaluation.
+         *
+         * Default value: number of available processors
+         *
+         * @param workers
+         * @return
+         */
+        public Builder workers(int workers) {
+            if (workers < 1)
+                throw new IllegalStateException("Workers should be positive value");
+
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Size of prefetch buffer, in minibatches, that will be used for background data prefetching.
+         *
+         * Default value: 2x number of workers
+         *
+         * @param size
+         * @return
+         */
+        public Builder prefetchBuffer(int size) {
+            if (size < 1)
+                throw new IllegalStateException("Prefetch buffer should be positive value");
+
+            this.prefetchBuffer = size;
+            return this;
+        }
+
+        /**
+         * This method builds new ParallelEvaluation instance
+         *
+         * @return
+         */
+        public ParallelEvaluation build() {
+            ParallelEvaluation evaluation = new ParallelEvaluation();
+            evaluation.model = this.model;
+            evaluation.workers = this.workers;
+            evaluation.prefetchBuffer = this.prefetchBuffer > 0 ? this.prefetchBuffer : 2 * this.workers;
+
+            evaluation.init();
+
+            return evaluation;
+        }
+    }
+
+
+    /**
+     * MultiDataSetIterator that takes minibatches from the shared prefetch queue, until the queue is drained
+     * and the calling thread is done reading the original iterator, or any worker fails
+     */
+    protected static class QueueIterator implements MultiDataSetIterator {
+        private final BlockingQueue<MultiDataSet> queue;
+        private final AtomicBoolean done;
+        private final AtomicReference<Throwable> failure;
+        private MultiDataSet next;
+        private long counter;
+
+        protected QueueIterator(@NonNull BlockingQueue<MultiDataSet> queue, @NonNull AtomicBoolean done,
+                        @NonNull AtomicReference<Throwable> failure) {
+            this.queue = queue;
+            this.done = done;
+            this.failure = failure;
+        }
+
+        protected long getCounter() {
+            return counter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    if (failure.get() != null)
+                        return false;
+
+                    // done flag is checked before polling, so we can't miss the last minibatch
+                    boolean finished = done.get();
+                    next = queue.poll(10, TimeUnit.MILLISECONDS);
+                    if (next == null && finished)
+                        return false;
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public MultiDataSet next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            MultiDataSet ret = next;
+            next = null;
+            counter++;
+            return ret;
+        }
+
+        @Override
+        public MultiDataSet next(int num) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setPreProcessor(MultiDataSetPreProcessor preProcessor) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MultiDataSetPreProcessor getPreProcessor() {
+            return null;
+        }
+
+        @Override
+        public boolean resetSupported() {
+            return false;
+        }
+
+        @Override
+        public boolean asyncSupported() {
+            return false;
+        }
+
+        @Override
+        public void reset() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
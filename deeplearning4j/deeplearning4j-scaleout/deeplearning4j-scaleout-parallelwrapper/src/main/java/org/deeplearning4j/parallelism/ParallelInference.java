@@ -8,21 +8,26 @@ import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.parallelism.inference.AdaptiveBatchController;
 import org.deeplearning4j.parallelism.inference.InferenceMode;
 import org.deeplearning4j.parallelism.inference.InferenceObservable;
 import org.deeplearning4j.parallelism.inference.observers.BasicInferenceObservable;
 import org.deeplearning4j.parallelism.inference.observers.BasicInferenceObserver;
 import org.deeplearning4j.parallelism.inference.observers.BatchedInferenceObservable;
+import org.deeplearning4j.parallelism.inference.observers.CompletableInferenceObserver;
+import org.deeplearning4j.parallelism.inference.stats.InferenceWorkerStats;
+import org.deeplearning4j.parallelism.inference.stats.LongHistogram;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.primitives.Pair;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Observer;
+import java.util.*;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -41,6 +46,7 @@ public class ParallelInference {
     private int batchLimit;
     private InferenceMode inferenceMode;
     private int queueLimit;
+    private long latencyTarget;
 
     // this queue
     private BlockingQueue<InferenceObservable> observables;
@@ -49,6 +55,8 @@ public class ParallelInference {
 
     private InferenceWorker[] zoo;
     private ObservablesProvider provider;
+    private AdaptiveBatchController batchController;
+    private final LongHistogram requestLatency = new LongHistogram();
 
 
 
@@ -85,8 +93,15 @@ public class ParallelInference {
 
 
         if (inferenceMode == InferenceMode.BATCHED) {
-            log.info("Initializing ObservablesProvider...");
-            provider = new ObservablesProvider(nanos, batchLimit, observables);
+            if (latencyTarget > 0) {
+                log.info("Initializing AdaptiveObservablesProvider with latency target of {} ms...",
+                                TimeUnit.NANOSECONDS.toMillis(latencyTarget));
+                batchController = new AdaptiveBatchController(latencyTarget, batchLimit);
+                provider = new AdaptiveObservablesProvider(batchController, observables);
+            } else {
+                log.info("Initializing ObservablesProvider...");
+                provider = new ObservablesProvider(nanos, batchLimit, observables);
+            }
         }
     }
 
@@ -94,6 +109,34 @@ public class ParallelInference {
         return zoo[workerIdx].getCounterValue();
     }
 
+    /**
+     * This method returns statistics for given worker: queue depth, batch size and model latency histograms
+     *
+     * @param workerIdx
+     * @return
+     */
+    public InferenceWorkerStats getWorkerStats(int workerIdx) {
+        return zoo[workerIdx].getStats();
+    }
+
+    /**
+     * This method returns histogram of end-to-end latencies of output() calls, in nanoseconds
+     *
+     * @return
+     */
+    public LongHistogram getRequestLatency() {
+        return requestLatency;
+    }
+
+    /**
+     * This method returns current batch size limit, in examples for adaptive batching, or in requests otherwise
+     *
+     * @return
+     */
+    public int getCurrentBatchLimit() {
+        return batchController != null ? batchController.getBatchLimit() : batchLimit;
+    }
+
     /**
      * This method gracefully shuts down ParallelInference instance
      */
@@ -177,6 +220,7 @@ public class ParallelInference {
     public INDArray[] output(INDArray[] input, INDArray[] inputMasks){
         // basically, depending on model type we either throw stuff to specific model, or wait for batch
 
+        long time1 = System.nanoTime();
         BasicInferenceObserver observer = new BasicInferenceObserver();
         InferenceObservable observable;
 
@@ -203,16 +247,87 @@ public class ParallelInference {
             throw new RuntimeException(e);
         }
 
+        long time2 = System.nanoTime();
+        requestLatency.record(time2 - time1);
+        if (batchController != null)
+            batchController.observeRequest(time2 - time1);
+
         return observable.getOutput();
     }
 
 
+    /**
+     * Asynchronous version of output(INDArray...): this method never blocks.
+     *
+     * @param input Input to the network
+     * @return future that'll be completed with output from the network
+     */
+    public CompletableFuture<INDArray[]> outputAsync(INDArray... input) {
+        return outputAsync(input, null);
+    }
+
+    /**
+     * Asynchronous version of output(INDArray[], INDArray[]): this method never blocks, returned future is completed
+     * by worker thread once output is available, so dependent actions shouldn't do heavy work there.
+     *
+     * If inference queue is full, returned future is completed exceptionally with RejectedExecutionException,
+     * so callers can apply backpressure instead of being parked. See isSaturated().
+     *
+     * @param input      Input to the network
+     * @param inputMasks Input masks for the network. May be null.
+     * @return future that'll be completed with output from the network
+     */
+    public CompletableFuture<INDArray[]> outputAsync(INDArray[] input, INDArray[] inputMasks) {
+        final long time1 = System.nanoTime();
+        CompletableInferenceObserver observer = new CompletableInferenceObserver();
+        CompletableFuture<INDArray[]> future = observer.getFuture();
+
+        if (inferenceMode == InferenceMode.SEQUENTIAL) {
+            InferenceObservable observable = new BasicInferenceObservable(input, inputMasks);
+            observable.addObserver(observer);
+            if (!observables.offer(observable)) {
+                future.completeExceptionally(new RejectedExecutionException("Inference queue is full"));
+                return future;
+            }
+
+            observer.setPosition(0);
+        } else {
+            InferenceObservable observable = provider.setInput(observer, input, inputMasks, false);
+            if (observable == null) {
+                future.completeExceptionally(new RejectedExecutionException("Inference queue is full"));
+                return future;
+            }
+
+            observer.setPosition(((BatchedInferenceObservable) observable).getPosition());
+        }
+
+        future.whenComplete((output, throwable) -> {
+            long time2 = System.nanoTime();
+            requestLatency.record(time2 - time1);
+            if (batchController != null)
+                batchController.observeRequest(time2 - time1);
+        });
+
+        return future;
+    }
+
+    /**
+     * This method returns true if inference queue is full, so asynchronous requests will be rejected,
+     * and synchronous ones will block
+     *
+     * @return
+     */
+    public boolean isSaturated() {
+        return observables.remainingCapacity() == 0;
+    }
+
     public static class Builder {
         private Model model;
         private int workers = DEFAULT_NUM_WORKERS;
         private int batchLimit = DEFAULT_BATCH_LIMIT;
         private InferenceMode inferenceMode = DEFAULT_INFERENCE_MODE;
         private int queueLimit = DEFAULT_QUEUE_LIMIT;
+        private long latencyTarget = 0L;
 
         public Builder(@NonNull Model model) {
             this.model = model;
@@ -286,6 +401,26 @@ public class ParallelInference {
             return this;
         }
 
+        /**
+         * This method enables adaptive batching with given p99 latency target.
+         * Batch size limit is picked from observed model latency, and batchLimit becomes upper bound for it,
+         * counted in examples. Requests are grouped by input shapes, so each batch is concatenated without padding.
+         *
+         * PLEASE NOTE: This value has no effect in
+         * SEQUENTIAL inference mode
+         *
+         * @param target
+         * @param timeUnit
+         * @return
+         */
+        public Builder latencyTarget(long target, @NonNull TimeUnit timeUnit) {
+            if (target < 1)
+                throw new IllegalStateException("Latency target should be positive value");
+
+            this.latencyTarget = timeUnit.toNanos(target);
+            return this;
+        }
+
         /**
          * This method builds new ParallelInference instance
          *
@@ -298,6 +433,7 @@ public class ParallelInference {
             inference.inferenceMode = this.inferenceMode;
             inference.model = this.model;
             inference.workers = this.workers;
+            inference.latencyTarget = this.latencyTarget;
 
             inference.init();
 
@@ -318,11 +454,13 @@ public class ParallelInference {
         private Model replicatedModel;
         private AtomicLong counter = new AtomicLong(0);
         private boolean rootDevice;
+        private InferenceWorkerStats stats;
 
         private InferenceWorker(int id, @NonNull Model model, @NonNull BlockingQueue inputQueue, boolean rootDevice) {
             this.inputQueue = inputQueue;
             this.protoModel = model;
             this.rootDevice = rootDevice;
+            this.stats = new InferenceWorkerStats(id);
 
             this.setDaemon(true);
             this.setName("InferenceThread-" + id);
@@ -333,6 +471,10 @@ public class ParallelInference {
             return counter.get();
         }
 
+        protected InferenceWorkerStats getStats() {
+            return stats;
+        }
+
         @Override
         public void run() {
             try {
@@ -372,6 +514,9 @@ public class ParallelInference {
 
                     if (request != null) {
                         counter.incrementAndGet();
+                        int depth = inputQueue.size();
+                        long examples = 0;
+                        long time1 = System.nanoTime();
 
                         // FIXME: get rid of instanceof here, model won't change during runtime anyway
                         if (replicatedModel instanceof ComputationGraph) {
@@ -381,6 +526,7 @@ public class ParallelInference {
                                 for (Pair<INDArray[],INDArray[]> inBatch : batches) {
                                     INDArray[] output = ((ComputationGraph) replicatedModel).output(false, inBatch.getFirst(), inBatch.getSecond());
                                     out.add(output);
+                                    examples += inBatch.getFirst()[0].size(0);
                                 }
                                 request.setOutputBatches(out);
                             } catch (Exception e){
@@ -395,6 +541,7 @@ public class ParallelInference {
                                     INDArray fm = (inBatch.getSecond() == null ? null : inBatch.getSecond()[0]);
                                     INDArray output = ((MultiLayerNetwork) replicatedModel).output(f, false, fm, null);
                                     out.add(new INDArray[]{output});
+                                    examples += f.size(0);
                                 }
                                 request.setOutputBatches(out);
                             } catch (Exception e){
@@ -402,7 +549,10 @@ public class ParallelInference {
                             }
                         }
 
-
+                        long time2 = System.nanoTime();
+                        stats.record(depth, examples, time2 - time1);
+                        if (batchController != null)
+                            batchController.observeBatch(examples, time2 - time1);
                     } else {
                         // just do nothing, i guess and hope for next round?
                     }
@@ -427,12 +577,12 @@ public class ParallelInference {
 
 
     protected static class ObservablesProvider {
-        private BlockingQueue<InferenceObservable> targetQueue;
+        protected BlockingQueue<InferenceObservable> targetQueue;
         private long nanos;
         private int batchLimit;
 
         private volatile BatchedInferenceObservable currentObservable;
-        private final Object locker = new Object();
+        protected final Object locker = new Object();
 
         protected ObservablesProvider(long nanos, int batchLimit, @NonNull BlockingQueue<InferenceObservable> queue) {
             this.targetQueue = queue;
@@ -449,16 +599,34 @@ public class ParallelInference {
         }
 
         protected InferenceObservable setInput(@NonNull Observer observer, INDArray[] input, INDArray[] inputMask) {
+            return setInput(observer, input, inputMask, true);
+        }
+
+        /**
+         * This method adds input to current batch, or starts new batch
+         *
+         * @param observer
+         * @param input
+         * @param inputMask
+         * @param blocking if false, and new batch can't be queued because queue is full, null is returned
+         * @return observable that holds given input, or null if input was rejected
+         */
+        protected InferenceObservable setInput(@NonNull Observer observer, INDArray[] input, INDArray[] inputMask,
+                        boolean blocking) {
             synchronized (locker) {
                 boolean isNew = false;
                 if (currentObservable == null || currentObservable.getCounter() >= batchLimit
                                 || currentObservable.isLocked()) {
+                    if (!blocking && targetQueue.remainingCapacity() == 0)
+                        return null;
+
                     isNew = true;
                     currentObservable = new BatchedInferenceObservable();
                 }
 
-                currentObservable.addInput(input, inputMask);
+                // observer goes first, so it can't miss notification once input is added
                 currentObservable.addObserver(observer);
+                currentObservable.addInput(input, inputMask);
 
                 try {
                     if (isNew)
@@ -472,4 +640,87 @@ public class ParallelInference {
             }
         }
     }
+
+
+    /**
+     * This ObservablesProvider groups requests by input and mask shapes, so each batch can be concatenated as is,
+     * and limits batch size in examples, with limit provided by AdaptiveBatchController
+     */
+    protected static class AdaptiveObservablesProvider extends ObservablesProvider {
+        private static final int MAX_GROUPS = 64;
+
+        private final AdaptiveBatchController controller;
+        private final Map<String, BatchGroup> groups = new HashMap<>();
+
+        protected AdaptiveObservablesProvider(@NonNull AdaptiveBatchController controller,
+                        @NonNull BlockingQueue<InferenceObservable> queue) {
+            super(0L, Integer.MAX_VALUE, queue);
+            this.controller = controller;
+        }
+
+        @Override
+        protected InferenceObservable setInput(@NonNull Observer observer, INDArray[] input, INDArray[] inputMask,
+                        boolean blocking) {
+            String key = groupKey(input, inputMask);
+            long examples = input[0].size(0);
+
+            synchronized (locker) {
+                BatchGroup group = groups.get(key);
+                boolean isNew = false;
+                if (group == null || group.examples + examples > controller.getBatchLimit()
+                                || group.observable.isLocked()) {
+                    if (!blocking && targetQueue.remainingCapacity() == 0)
+                        return null;
+
+                    isNew = true;
+
+                    // stale groups are already queued, so they just won't get new requests
+                    if (group == null && groups.size() >= MAX_GROUPS)
+                        groups.clear();
+
+                    group = new BatchGroup(new BatchedInferenceObservable());
+                    groups.put(key, group);
+                }
+
+                group.observable.addObserver(observer);
+                group.observable.addInput(input, inputMask);
+                group.examples += examples;
+
+                try {
+                    if (isNew)
+                        targetQueue.put(group.observable);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+
+                return group.observable;
+            }
+        }
+
+        protected static String groupKey(INDArray[] input, INDArray[] inputMask) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < input.length; i++) {
+                // first dimension is batch dimension
+                long[] shape = input[i].shape();
+                builder.append(Arrays.toString(Arrays.copyOfRange(shape, 1, shape.length))).append(input[i].ordering());
+
+                if (inputMask != null && inputMask[i] != null) {
+                    long[] maskShape = inputMask[i].shape();
+                    builder.append("m").append(Arrays.toString(Arrays.copyOfRange(maskShape, 1, maskShape.length)));
+                }
+                builder.append(";");
+            }
+            return builder.toString();
+        }
+
+        private static class BatchGroup {
+            private final BatchedInferenceObservable observable;
+            private long examples;
+
+            private BatchGroup(BatchedInferenceObservable observable) {
+                this.observable = observable;
+            }
+        }
+    }
 }
@@ -0,0 +1,143 @@
+package org.deeplearning4j.parallelism.inference;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.parallelism.inference.stats.LongHistogram;
+
+/**
+ * This class picks batch size limit for BATCHED inference, with respect to configured p99 latency target.
+ *
+ * Model latency is fitted as linear function of batch size (fixed overhead + per-example cost), using exponentially
+ * decayed least squares over batches processed by workers. Since request might wait for one batch in flight before its
+ * own batch is processed, half of the target is used as budget for single batch.
+ *
+ * On top of that, observed end-to-end p99 is checked periodically: if it's above target, budget is shrunk, and grown
+ * back once latencies are well below target. This covers queueing and other effects not captured by the model.
+ */
+@Slf4j
+public class AdaptiveBatchController {
+    private static final double DECAY = 0.98;
+    private static final int WINDOW = 128;
+    private static final double MIN_HEADROOM = 0.05;
+
+    private final long targetNanos;
+    private final int maxBatch;
+
+    // decayed sums for least squares: weight, x, y, x*x, x*y
+    private double sw, sx, sy, sxx, sxy;
+    private long observations;
+
+    private double headroom = 1.0;
+    private final LongHistogram window = new LongHistogram();
+
+    private volatile int batchLimit;
+
+    /**
+     * @param targetNanos p99 end-to-end latency target, in nanoseconds
+     * @param maxBatch upper bound for batch size, in examples
+     */
+    public AdaptiveBatchController(long targetNanos, int maxBatch) {
+        if (targetNanos <= 0)
+            throw new IllegalStateException("Latency target should be positive value");
+
+        if (maxBatch < 1)
+            throw new IllegalStateException("Batch limit should be positive value");
+
+        this.targetNanos = targetNanos;
+        this.maxBatch = maxBatch;
+        this.batchLimit = maxBatch;
+    }
+
+    /**
+     * Returns current batch size limit, in examples
+     *
+     * @return
+     */
+    public int getBatchLimit() {
+        return batchLimit;
+    }
+
+    public long getTargetNanos() {
+        return targetNanos;
+    }
+
+    /**
+     * This method is called by workers after each batch
+     *
+     * @param examples number of examples in batch
+     * @param nanos model latency for this batch
+     */
+    public synchronized void observeBatch(long examples, long nanos) {
+        if (examples < 1)
+            return;
+
+        sw = sw * DECAY + 1.0;
+        sx = sx * DECAY + examples;
+        sy = sy * DECAY + nanos;
+        sxx = sxx * DECAY + (double) examples * examples;
+        sxy = sxy * DECAY + (double) examples * nanos;
+        observations++;
+
+        updateLimit();
+    }
+
+    /**
+     * This method is called once request is served
+     *
+     * @param nanos end-to-end latency of the request
+     */
+    public void observeRequest(long nanos) {
+        window.record(nanos);
+
+        if (window.getCount() >= WINDOW) {
+            synchronized (this) {
+                if (window.getCount() < WINDOW)
+                    return;
+
+                long p99 = window.getPercentile(99.0);
+                window.reset();
+
+                if (p99 > targetNanos)
+                    headroom = Math.max(MIN_HEADROOM, headroom * 0.75);
+                else if (p99 < targetNanos * 0.7)
+                    headroom = Math.min(1.0, headroom * 1.1);
+
+                updateLimit();
+            }
+        }
+    }
+
+    protected void updateLimit() {
+        if (observations == 0)
+            return;
+
+        double budget = targetNanos * headroom / 2.0;
+
+        double slope;
+        double intercept;
+        double denominator = sw * sxx - sx * sx;
+        if (Math.abs(denominator) > 1e-9 * sw * sxx) {
+            slope = (sw * sxy - sx * sy) / denominator;
+            intercept = (sy - slope * sx) / sw;
+        } else {
+            // all batches had the same size so far, so we just assume latency is proportional to batch size
+            slope = sy / sx;
+            intercept = 0.0;
+        }
+
+        if (intercept < 0.0) {
+            intercept = 0.0;
+            slope = sxy / sxx;
+        }
+
+        int limit;
+        if (slope <= 0.0)
+            limit = maxBatch;
+        else
+            limit = (int) Math.min(maxBatch, Math.max(1.0, Math.floor((budget - intercept) / slope + 1e-6)));
+
+        if (limit != batchLimit && log.isDebugEnabled())
+            log.debug("Batch limit changed: {} -> {}", batchLimit, limit);
+
+        batchLimit = limit;
+    }
+}
@@ -0,0 +1,59 @@
+package org.deeplearning4j.parallelism.inference.observers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.parallelism.inference.InferenceObservable;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Observer implementation for asynchronous inference: it completes CompletableFuture instead of parking the caller.
+ *
+ * Since batched output is picked by position of the input within the batch, observer gets completed only when both
+ * output is available and position is known, whatever happens first.
+ */
+@Slf4j
+public class CompletableInferenceObserver implements Observer {
+    private final CompletableFuture<INDArray[]> future = new CompletableFuture<>();
+    private Observable observable;
+    private int position = -1;
+
+    public CompletableFuture<INDArray[]> getFuture() {
+        return future;
+    }
+
+    /**
+     * This method sets position of the input within batch, or 0 for non-batched observables
+     *
+     * @param position
+     */
+    public synchronized void setPosition(int position) {
+        this.position = position;
+        tryComplete();
+    }
+
+    @Override
+    public synchronized void update(Observable o, Object arg) {
+        this.observable = o;
+        tryComplete();
+    }
+
+    private void tryComplete() {
+        if (observable == null || position < 0 || future.isDone())
+            return;
+
+        try {
+            INDArray[] output;
+            if (observable instanceof BatchedInferenceObservable)
+                output = ((BatchedInferenceObservable) observable).getOutput(position);
+            else
+                output = ((InferenceObservable) observable).getOutput();
+
+            future.complete(output);
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+    }
+}
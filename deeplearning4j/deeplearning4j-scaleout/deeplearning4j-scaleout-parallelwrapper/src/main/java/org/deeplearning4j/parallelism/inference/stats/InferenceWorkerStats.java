@@ -0,0 +1,47 @@
+package org.deeplearning4j.parallelism.inference.stats;
+
+import lombok.Getter;
+
+/**
+ * This class holds per-worker ParallelInference statistics:
+ * queue depth observed when request was taken, batch size in examples, and model latency in nanoseconds
+ */
+@Getter
+public class InferenceWorkerStats {
+    private final int workerId;
+    private final LongHistogram queueDepth = new LongHistogram();
+    private final LongHistogram batchSize = new LongHistogram();
+    private final LongHistogram latency = new LongHistogram();
+
+    public InferenceWorkerStats(int workerId) {
+        this.workerId = workerId;
+    }
+
+    /**
+     * This method records single processed request
+     *
+     * @param depth number of requests left in queue after this one was taken
+     * @param examples number of examples within request
+     * @param nanos time spent in model
+     */
+    public void record(int depth, long examples, long nanos) {
+        queueDepth.record(depth);
+        batchSize.record(examples);
+        latency.record(nanos);
+    }
+
+    /**
+     * This method discards all recorded values
+     */
+    public void reset() {
+        queueDepth.reset();
+        batchSize.reset();
+        latency.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "InferenceWorkerStats(workerId=" + workerId + ", queueDepth=" + queueDepth + ", batchSize=" + batchSize
+                        + ", latency=" + latency + ")";
+    }
+}
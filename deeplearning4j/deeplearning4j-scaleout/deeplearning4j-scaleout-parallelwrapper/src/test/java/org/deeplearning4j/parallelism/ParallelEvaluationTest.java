@@ -0,0 +1,112 @@
+package org.deeplearning4j.parallelism;
+
+import org.deeplearning4j.datasets.iterator.impl.ListDataSetIterator;
+import org.deeplearning4j.eval.Evaluation;
+import org.deeplearning4j.eval.IEvaluation;
+import org.deeplearning4j.eval.ROCMultiClass;
+import org.deeplearning4j.eval.RegressionEvaluation;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParallelEvaluationTest {
+
+    @Test(timeout = 60000L)
+    public void testMultiLayerNetwork() {
+        MultiLayerNetwork net = new MultiLayerNetwork(new NeuralNetConfiguration.Builder().seed(12345).list()
+                        .layer(new DenseLayer.Builder().nIn(4).nOut(10).activation(Activation.TANH).build())
+                        .layer(new OutputLayer.Builder().nIn(10).nOut(3).activation(Activation.SOFTMAX)
+                                        .lossFunction(LossFunctions.LossFunction.MCXENT).build())
+                        .build());
+        net.init();
+
+        DataSetIterator iter = getIterator(4, 3);
+        Evaluation exp = net.evaluate(iter);
+        ROCMultiClass expRoc = net.evaluateROCMultiClass(iter, 0);
+
+        ParallelEvaluation pe = new ParallelEvaluation.Builder(net).workers(4).prefetchBuffer(2).build();
+        try {
+            Evaluation act = pe.evaluate(iter);
+            assertEquals(exp.getConfusionMatrix(), act.getConfusionMatrix());
+            assertEquals(exp.accuracy(), act.accuracy(), 1e-6);
+
+            ROCMultiClass actRoc = pe.doEvaluation(iter, new ROCMultiClass(0))[0];
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expRoc.calculateAUC(i), actRoc.calculateAUC(i), 1e-6);
+            }
+
+            //Model changes after training should be picked up by the replicas
+            net.fit(iter);
+            exp = net.evaluate(iter);
+            act = pe.evaluate(iter);
+            assertEquals(exp.getConfusionMatrix(), act.getConfusionMatrix());
+        } finally {
+            pe.shutdown();
+        }
+    }
+
+    @Test(timeout = 60000L)
+    public void testComputationGraph() {
+        ComputationGraph net = new ComputationGraph(new NeuralNetConfiguration.Builder().seed(12345).graphBuilder()
+                        .addInputs("in")
+                        .addLayer("0", new DenseLayer.Builder().nIn(4).nOut(10).activation(Activation.TANH).build(), "in")
+                        .addLayer("out", new OutputLayer.Builder().nIn(10).nOut(2).activation(Activation.IDENTITY)
+                                        .lossFunction(LossFunctions.LossFunction.MSE).build(), "0")
+                        .setOutputs("out").build());
+        net.init();
+
+        DataSetIterator iter = getIterator(4, 2);
+        RegressionEvaluation exp = net.evaluateRegression(iter);
+
+        ParallelEvaluation pe = new ParallelEvaluation.Builder(net).workers(3).build();
+        try {
+            RegressionEvaluation act = pe.evaluateRegression(iter);
+            for (int i = 0; i < 2; i++) {
+                assertEquals(exp.meanSquaredError(i), act.meanSquaredError(i), 1e-5);
+                assertEquals(exp.correlationR2(i), act.correlationR2(i), 1e-5);
+            }
+
+            //Statistics are added to the provided instances
+            RegressionEvaluation twice = pe.doEvaluation(iter, pe.evaluateRegression(iter))[0];
+            assertEquals(2 * exp.getExampleCountPerColumn().getDouble(0),
+                            twice.getExampleCountPerColumn().getDouble(0), 1e-6);
+        } finally {
+            pe.shutdown();
+        }
+
+        try {
+            pe.doEvaluation(iter, new IEvaluation[] {new Evaluation()});
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            //OK
+        }
+    }
+
+    private static DataSetIterator getIterator(int nIn, int nOut) {
+        Nd4j.getRandom().setSeed(12345);
+        List<DataSet> list = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            INDArray features = Nd4j.rand(8, nIn);
+            INDArray labels = Nd4j.zeros(8, nOut);
+            for (int j = 0; j < 8; j++) {
+                labels.putScalar(j, j % nOut, 1.0);
+            }
+            list.add(new DataSet(features, labels));
+        }
+        return new ListDataSetIterator<>(list, 8);
+    }
+}
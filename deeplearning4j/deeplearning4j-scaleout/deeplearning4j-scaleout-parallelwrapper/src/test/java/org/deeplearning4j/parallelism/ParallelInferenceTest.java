@@ -15,10 +15,13 @@ import org.nd4j.linalg.io.ClassPathResource;
 import org.deeplearning4j.datasets.iterator.impl.MnistDataSetIterator;
 import org.deeplearning4j.eval.Evaluation;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.parallelism.inference.AdaptiveBatchController;
 import org.deeplearning4j.parallelism.inference.InferenceMode;
 import org.deeplearning4j.parallelism.inference.InferenceObservable;
 import org.deeplearning4j.parallelism.inference.observers.BasicInferenceObserver;
 import org.deeplearning4j.parallelism.inference.observers.BatchedInferenceObservable;
+import org.deeplearning4j.parallelism.inference.observers.CompletableInferenceObserver;
+import org.deeplearning4j.parallelism.inference.stats.InferenceWorkerStats;
 import org.deeplearning4j.util.ModelSerializer;
 import org.junit.After;
 import org.junit.Before;
@@ -32,7 +35,10 @@ import org.nd4j.linalg.primitives.Pair;
 import java.io.File;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
@@ -183,6 +189,125 @@ public class ParallelInferenceTest {
     }
 
 
+    @Test(timeout = 30000L)
+    public void testInferenceAdaptive1() throws Exception {
+        ParallelInference inf = new ParallelInference.Builder(model).inferenceMode(InferenceMode.BATCHED).batchLimit(32)
+                        .latencyTarget(500, TimeUnit.MILLISECONDS).workers(2).build();
+
+        iterator = new MnistDataSetIterator(1, false, 12345);
+
+        INDArray array1 = inf.output(iterator.next().getFeatureMatrix());
+        assertFalse(array1.isAttached());
+
+        iterator.reset();
+
+        evalClassifcationMultipleThreads(inf, iterator, 20);
+
+        long batches = 0;
+        for (int i = 0; i < 2; i++) {
+            InferenceWorkerStats stats = inf.getWorkerStats(i);
+            batches += stats.getBatchSize().getCount();
+            assertEquals(stats.getBatchSize().getCount(), stats.getLatency().getCount());
+            assertTrue(stats.getBatchSize().getMax() <= 32);
+        }
+
+        long requests = inf.getRequestLatency().getCount();
+        assertTrue(batches > 0);
+        assertTrue(batches <= requests);
+        assertTrue(inf.getCurrentBatchLimit() >= 1 && inf.getCurrentBatchLimit() <= 32);
+
+        inf.shutdown();
+    }
+
+    @Test
+    public void testAdaptiveProviderGrouping() throws Exception {
+        LinkedBlockingQueue queue = new LinkedBlockingQueue();
+        BasicInferenceObserver observer = new BasicInferenceObserver();
+        AdaptiveBatchController controller = new AdaptiveBatchController(TimeUnit.SECONDS.toNanos(1), 4);
+        ParallelInference.ObservablesProvider provider =
+                        new ParallelInference.AdaptiveObservablesProvider(controller, queue);
+
+        InferenceObservable observable1 = provider.setInput(observer, Nd4j.create(1, 10).assign(1.0));
+        InferenceObservable observable2 = provider.setInput(observer, Nd4j.create(1, 20).assign(2.0));
+        InferenceObservable observable3 = provider.setInput(observer, Nd4j.create(2, 10).assign(3.0));
+        InferenceObservable observable4 = provider.setInput(observer, Nd4j.create(2, 10).assign(4.0));
+
+        // different shapes go to different batches, and batch limit is counted in examples
+        assertTrue(observable1 != observable2);
+        assertTrue(observable1 == observable3);
+        assertTrue(observable1 != observable4);
+        assertEquals(3, queue.size());
+
+        List<Pair<INDArray[],INDArray[]>> l = observable1.getInputBatches();
+        assertEquals(1, l.size());
+        assertArrayEquals(new long[] {3, 10}, l.get(0).getFirst()[0].shape());
+        assertEquals(1.0f, l.get(0).getFirst()[0].getRow(0).meanNumber().floatValue(), 0.001);
+        assertEquals(3.0f, l.get(0).getFirst()[0].getRow(2).meanNumber().floatValue(), 0.001);
+    }
+
+    @Test(timeout = 30000L)
+    public void testOutputAsync() throws Exception {
+        int nIn = 10;
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .activation(Activation.TANH)
+                .seed(12345)
+                .list()
+                .layer(new DenseLayer.Builder().nIn(nIn).nOut(5).build())
+                .layer(new OutputLayer.Builder().nIn(5).nOut(5).build())
+                .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        for (InferenceMode m : InferenceMode.values()) {
+            final ParallelInference inf = new ParallelInference.Builder(net).inferenceMode(m).batchLimit(20)
+                            .queueLimit(64).workers(2).build();
+
+            List<INDArray> in = new ArrayList<>();
+            List<CompletableFuture<INDArray[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                INDArray array = Nd4j.rand(1, nIn);
+                in.add(array);
+
+                // queue is large enough here, so nothing gets rejected
+                futures.add(inf.outputAsync(array));
+            }
+
+            for (int i = 0; i < in.size(); i++)
+                assertEquals(net.output(in.get(i)), futures.get(i).get()[0]);
+
+            // errors should be propagated through future
+            try {
+                inf.outputAsync(Nd4j.ones(1, 5)).get();
+                fail("Expected exception");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof DL4JInvalidInputException);
+            }
+
+            inf.shutdown();
+        }
+    }
+
+    @Test
+    public void testProviderRejection() throws Exception {
+        LinkedBlockingQueue queue = new LinkedBlockingQueue(1);
+        CompletableInferenceObserver observer = new CompletableInferenceObserver();
+        ParallelInference.ObservablesProvider provider =
+                        new ParallelInference.ObservablesProvider(10000000L, 1, queue);
+
+        InferenceObservable observable1 =
+                        provider.setInput(observer, new INDArray[] {Nd4j.create(100).assign(1.0)}, null, false);
+        assertNotNull(observable1);
+
+        // queue is full, and batch limit is reached, so input should be rejected without blocking
+        InferenceObservable observable2 =
+                        provider.setInput(observer, new INDArray[] {Nd4j.create(100).assign(2.0)}, null, false);
+        assertNull(observable2);
+        assertEquals(1, queue.size());
+        assertEquals(1, ((BatchedInferenceObservable) observable1).getCounter());
+    }
+
     @Test
     public void testProvider1() throws Exception {
         LinkedBlockingQueue queue = new LinkedBlockingQueue();
@@ -0,0 +1,53 @@
+package org.deeplearning4j.parallelism.inference;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveBatchControllerTest {
+
+    @Test
+    public void testLimitFromModelLatency() {
+        long target = TimeUnit.MILLISECONDS.toNanos(100);
+        AdaptiveBatchController controller = new AdaptiveBatchController(target, 256);
+        assertEquals(256, controller.getBatchLimit());
+
+        // 2ms overhead + 1ms per example: 50ms budget fits 48 examples
+        for (int i = 0; i < 200; i++) {
+            int examples = 1 + (i % 32);
+            controller.observeBatch(examples, TimeUnit.MILLISECONDS.toNanos(2 + examples));
+        }
+
+        assertEquals(48, controller.getBatchLimit());
+    }
+
+    @Test
+    public void testUpperBound() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(TimeUnit.SECONDS.toNanos(10), 16);
+        for (int i = 0; i < 100; i++)
+            controller.observeBatch(1 + (i % 8), 1000L * (1 + (i % 8)));
+
+        assertEquals(16, controller.getBatchLimit());
+    }
+
+    @Test
+    public void testTargetMisses() {
+        long target = TimeUnit.MILLISECONDS.toNanos(100);
+        AdaptiveBatchController controller = new AdaptiveBatchController(target, 256);
+
+        for (int i = 0; i < 200; i++) {
+            int examples = 1 + (i % 32);
+            controller.observeBatch(examples, TimeUnit.MILLISECONDS.toNanos(examples));
+        }
+        int limit = controller.getBatchLimit();
+        assertEquals(50, limit);
+
+        // end-to-end latencies above target should shrink the limit
+        for (int i = 0; i < 256; i++)
+            controller.observeRequest(target * 2);
+
+        assertTrue(controller.getBatchLimit() < limit);
+    }
+}
@@ -0,0 +1,42 @@
+package org.deeplearning4j.parallelism.inference.stats;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LongHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        for (long value : new long[] {0, 1, 15, 16, 17, 31, 32, 33, 1000, 123456789L, Long.MAX_VALUE}) {
+            int bucket = LongHistogram.bucketOf(value);
+            long upper = LongHistogram.upperBoundOf(bucket);
+            assertTrue(upper >= value);
+            // relative error is bounded by sub-buckets count
+            assertTrue(upper - value <= Math.max(0, value / 16));
+            if (bucket > 0)
+                assertTrue(LongHistogram.upperBoundOf(bucket - 1) < value);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LongHistogram histogram = new LongHistogram();
+        assertEquals(0, histogram.getPercentile(99.0));
+
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(i * 1000L);
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000L, histogram.getMax());
+        assertEquals(500500.0, histogram.getMean(), 1e-5);
+
+        assertEquals(500000.0, histogram.getPercentile(50.0), 500000.0 / 16);
+        assertEquals(990000.0, histogram.getPercentile(99.0), 990000.0 / 16);
+        assertEquals(1000000L, histogram.getPercentile(100.0));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+}
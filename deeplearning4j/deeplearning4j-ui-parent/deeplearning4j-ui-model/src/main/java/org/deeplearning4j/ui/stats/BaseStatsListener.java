@@ -70,6 +70,17 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
     private Map<String, Double> stdevGradient;
     private Map<String, Double> meanMagGradients;
 
+    //Adaptive stats collection: see AdaptiveStatsUpdateConfiguration
+    private static final int MIN_SAMPLE_SIZE = 1000;
+    private static final int MAX_ARRAY_STATS_INTERVAL = 1024;
+    private Random sampleRng = new Random();
+    private int sampleSize = -1;            //Current max sample size per array
+    private int arrayStatsInterval = 1;     //Array stats are included in every arrayStatsInterval'th report
+    private int reportsUntilArrayStats = 0;
+    private long windowStartNanos = -1;
+    private long statsNanosInWindow;
+    private double measuredOverhead = Double.NaN;
+
     private static class ModelInfo implements Serializable {
         private final Model model;
         private long initTime;
@@ -174,6 +185,43 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         this.updateConfig = newConfig;
     }
 
+    /**
+     * Get the fraction of training time spent collecting stats, as measured over the most recent reports that
+     * included array stats (histograms, means etc). Only measured when the update configuration is an
+     * {@link AdaptiveStatsUpdateConfiguration} with a positive overhead budget; NaN otherwise, or before the first
+     * measurement.
+     */
+    public double getMeasuredOverhead() {
+        return measuredOverhead;
+    }
+
+    /**
+     * @return The current maximum number of elements of each array used to calculate stats, when an overhead budget
+     * is set. -1 if not used
+     */
+    public int getCurrentSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * @return The current number of reports per report that includes array stats, when an overhead budget is set.
+     * For example, 4 means array stats are included in every 4th report. 1 if not used
+     */
+    public int getCurrentArrayStatsInterval() {
+        return arrayStatsInterval;
+    }
+
+    private AdaptiveStatsUpdateConfiguration adaptiveConfig() {
+        if (updateConfig instanceof AdaptiveStatsUpdateConfiguration
+                && ((AdaptiveStatsUpdateConfiguration) updateConfig).overheadBudget() > 0) {
+            AdaptiveStatsUpdateConfiguration c = (AdaptiveStatsUpdateConfiguration) updateConfig;
+            if (sampleSize < 0 || sampleSize > c.maxSampleSize())
+                sampleSize = c.maxSampleSize();
+            return c;
+        }
+        return null;
+    }
+
     @Override
     public void setStorageRouter(StatsStorageRouter router) {
         this.router = router;
@@ -246,7 +294,19 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
     public void onForwardPass(Model model, Map<String, INDArray> activations) {
         int iterCount = getModelInfo(model).iterCount;
         if (calcFromActivations() && updateConfig.reportingFrequency() > 0
-                && (iterCount == 0 || iterCount % updateConfig.reportingFrequency() == 0)) {
+                && (iterCount == 0 || iterCount % updateConfig.reportingFrequency() == 0)
+                && reportsUntilArrayStats == 0) {
+            long start = System.nanoTime();
+            if (adaptiveConfig() != null) {
+                ArrayStats stats = calculateFusedStats(activations, StatsType.Activations);
+                activationHistograms = stats.histograms;
+                meanActivations = stats.mean;
+                stdevActivations = stats.stdev;
+                meanMagActivations = stats.meanMagnitude;
+                statsNanosInWindow += System.nanoTime() - start;
+                return;
+            }
+
             if (updateConfig.collectHistograms(StatsType.Activations)) {
                 activationHistograms = getHistograms(activations, updateConfig.numHistogramBins(StatsType.Activations));
             }
@@ -259,6 +319,7 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
             if (updateConfig.collectMeanMagnitudes(StatsType.Activations)) {
                 meanMagActivations = calculateSummaryStats(activations, StatType.MeanMagnitude);
             }
+            statsNanosInWindow += System.nanoTime() - start;
         }
     }
 
@@ -266,8 +327,20 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
     public void onGradientCalculation(Model model) {
         int iterCount = getModelInfo(model).iterCount;
         if (calcFromGradients() && updateConfig.reportingFrequency() > 0
-                && (iterCount == 0 || iterCount % updateConfig.reportingFrequency() == 0)) {
+                && (iterCount == 0 || iterCount % updateConfig.reportingFrequency() == 0)
+                && reportsUntilArrayStats == 0) {
+            long start = System.nanoTime();
             Gradient g = model.gradient();
+            if (adaptiveConfig() != null) {
+                ArrayStats stats = calculateFusedStats(g.gradientForVariable(), StatsType.Gradients);
+                gradientHistograms = stats.histograms;
+                meanGradients = stats.mean;
+                stdevGradient = stats.stdev;
+                meanMagGradients = stats.meanMagnitude;
+                statsNanosInWindow += System.nanoTime() - start;
+                return;
+            }
+
             if (updateConfig.collectHistograms(StatsType.Gradients)) {
                 gradientHistograms = getHistograms(g.gradientForVariable(), updateConfig.numHistogramBins(StatsType.Gradients));
             }
@@ -281,6 +354,7 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
             if (updateConfig.collectMeanMagnitudes(StatsType.Gradients)) {
                 meanMagGradients = calculateSummaryStats(g.gradientForVariable(), StatType.MeanMagnitude);
             }
+            statsNanosInWindow += System.nanoTime() - start;
         }
     }
 
@@ -303,9 +377,11 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
 
     @Override
     public void iterationDone(Model model, int iteration, int epoch) {
+        long startNanos = System.nanoTime();
+        if (windowStartNanos < 0)
+            windowStartNanos = startNanos;
 
         ModelInfo modelInfo = getModelInfo(model);
-        boolean backpropParamsOnly = backpropParamsOnly(model);
 
         long currentTime = getTime();
         if (modelInfo.iterCount == 0) {
@@ -456,10 +532,56 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         }
 
 
+        //--- Histograms and Summary Stats ---
+        //First report includes initialization, so isn't used for the overhead measurement
+        boolean initReport = modelInfo.lastReportIteration == -1;
+        AdaptiveStatsUpdateConfiguration adaptive = adaptiveConfig();
+        boolean includeArrayStats = reportsUntilArrayStats == 0;
+        if (includeArrayStats) {
+            reportArrayStats(model, report, adaptive != null);
+            reportsUntilArrayStats = arrayStatsInterval - 1;
+        } else {
+            reportsUntilArrayStats--;
+        }
+
+        long endTime = getTime();
+        report.reportStatsCollectionDurationMS((int) (endTime - currentTime)); //Amount of time required to alculate all histograms, means etc.
+        modelInfo.lastReportTime = currentTime;
+        modelInfo.lastReportIteration = iteration;
+        report.reportIterationCount(iteration);
+
+        this.router.putUpdate(report);
+
+        statsNanosInWindow += System.nanoTime() - startNanos;
+        if (adaptive != null && includeArrayStats)
+            adaptToOverheadBudget(adaptive, initReport);
+
+        modelInfo.iterCount = iteration;
+        activationHistograms = null;
+        meanActivations = null;
+        stdevActivations = null;
+        meanMagActivations = null;
+        gradientHistograms = null;
+        meanGradients = null;
+        stdevGradient = null;
+        meanMagGradients = null;
+    }
+
+    private void reportArrayStats(Model model, StatsReport report, boolean fused) {
+        boolean backpropParamsOnly = backpropParamsOnly(model);
+        ArrayStats paramStats = null;
+        ArrayStats updateStats = null;
+        if (fused) {
+            //All requested stats for each array in a single pass
+            paramStats = calculateFusedStats(model.paramTable(backpropParamsOnly), StatsType.Parameters);
+            updateStats = calculateFusedStats(model.gradient().gradientForVariable(), StatsType.Updates);
+        }
+
         //--- Histograms ---
 
         if (updateConfig.collectHistograms(StatsType.Parameters)) {
-            Map<String, Histogram> paramHistograms = getHistograms(model.paramTable(backpropParamsOnly),
+            Map<String, Histogram> paramHistograms = fused ? paramStats.histograms
+                    : getHistograms(model.paramTable(backpropParamsOnly),
                     updateConfig.numHistogramBins(StatsType.Parameters));
             report.reportHistograms(StatsType.Parameters, paramHistograms);
         }
@@ -469,7 +591,8 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         }
 
         if (updateConfig.collectHistograms(StatsType.Updates)) {
-            Map<String, Histogram> updateHistograms = getHistograms(model.gradient().gradientForVariable(),
+            Map<String, Histogram> updateHistograms = fused ? updateStats.histograms
+                    : getHistograms(model.gradient().gradientForVariable(),
                     updateConfig.numHistogramBins(StatsType.Updates));
             report.reportHistograms(StatsType.Updates, updateHistograms);
         }
@@ -482,7 +605,8 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         //--- Summary Stats: Mean, Variance, Mean Magnitudes ---
 
         if (updateConfig.collectMean(StatsType.Parameters)) {
-            Map<String, Double> meanParams = calculateSummaryStats(model.paramTable(backpropParamsOnly), StatType.Mean);
+            Map<String, Double> meanParams = fused ? paramStats.mean
+                    : calculateSummaryStats(model.paramTable(backpropParamsOnly), StatType.Mean);
             report.reportMean(StatsType.Parameters, meanParams);
         }
 
@@ -491,8 +615,8 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         }
 
         if (updateConfig.collectMean(StatsType.Updates)) {
-            Map<String, Double> meanUpdates =
-                    calculateSummaryStats(model.gradient().gradientForVariable(), StatType.Mean);
+            Map<String, Double> meanUpdates = fused ? updateStats.mean
+                    : calculateSummaryStats(model.gradient().gradientForVariable(), StatType.Mean);
             report.reportMean(StatsType.Updates, meanUpdates);
         }
 
@@ -502,8 +626,8 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
 
 
         if (updateConfig.collectStdev(StatsType.Parameters)) {
-            Map<String, Double> stdevParams =
-                    calculateSummaryStats(model.paramTable(backpropParamsOnly), StatType.Stdev);
+            Map<String, Double> stdevParams = fused ? paramStats.stdev
+                    : calculateSummaryStats(model.paramTable(backpropParamsOnly), StatType.Stdev);
             report.reportStdev(StatsType.Parameters, stdevParams);
         }
 
@@ -512,8 +636,8 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         }
 
         if (updateConfig.collectStdev(StatsType.Updates)) {
-            Map<String, Double> stdevUpdates =
-                    calculateSummaryStats(model.gradient().gradientForVariable(), StatType.Stdev);
+            Map<String, Double> stdevUpdates = fused ? updateStats.stdev
+                    : calculateSummaryStats(model.gradient().gradientForVariable(), StatType.Stdev);
             report.reportStdev(StatsType.Updates, stdevUpdates);
         }
 
@@ -523,8 +647,8 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
 
 
         if (updateConfig.collectMeanMagnitudes(StatsType.Parameters)) {
-            Map<String, Double> meanMagParams =
-                    calculateSummaryStats(model.paramTable(backpropParamsOnly), StatType.MeanMagnitude);
+            Map<String, Double> meanMagParams = fused ? paramStats.meanMagnitude
+                    : calculateSummaryStats(model.paramTable(backpropParamsOnly), StatType.MeanMagnitude);
             report.reportMeanMagnitudes(StatsType.Parameters, meanMagParams);
         }
 
@@ -533,33 +657,83 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         }
 
         if (updateConfig.collectMeanMagnitudes(StatsType.Updates)) {
-            Map<String, Double> meanMagUpdates =
-                    calculateSummaryStats(model.gradient().gradientForVariable(), StatType.MeanMagnitude);
+            Map<String, Double> meanMagUpdates = fused ? updateStats.meanMagnitude
+                    : calculateSummaryStats(model.gradient().gradientForVariable(), StatType.MeanMagnitude);
             report.reportMeanMagnitudes(StatsType.Updates, meanMagUpdates);
         }
 
         if (updateConfig.collectMeanMagnitudes(StatsType.Activations)) {
             report.reportMeanMagnitudes(StatsType.Activations, meanMagActivations);
         }
+    }
 
+    private void adaptToOverheadBudget(AdaptiveStatsUpdateConfiguration adaptive, boolean initReport) {
+        long now = System.nanoTime();
+        long elapsed = now - windowStartNanos;
+        if (!initReport && elapsed > 0) {
+            //Fraction of wall clock time since the last adaptation spent collecting stats
+            measuredOverhead = statsNanosInWindow / (double) elapsed;
+            double budget = adaptive.overheadBudget();
+            if (measuredOverhead > budget) {
+                //Over budget: first reduce the sample size, then include array stats in fewer reports
+                if (sampleSize > MIN_SAMPLE_SIZE) {
+                    sampleSize = Math.max(MIN_SAMPLE_SIZE, sampleSize / 2);
+                } else if (arrayStatsInterval < MAX_ARRAY_STATS_INTERVAL) {
+                    arrayStatsInterval *= 2;
+                    reportsUntilArrayStats = arrayStatsInterval - 1;
+                }
+            } else if (measuredOverhead < budget / 4) {
+                //Well under budget: undo the above, in reverse order
+                if (arrayStatsInterval > 1) {
+                    arrayStatsInterval /= 2;
+                    reportsUntilArrayStats = arrayStatsInterval - 1;
+                } else if (sampleSize < adaptive.maxSampleSize()) {
+                    sampleSize = (int) Math.min(adaptive.maxSampleSize(), 2L * sampleSize);
+                }
+            }
+            log.debug("Stats collection overhead: {}% of training time (budget: {}%); sample size: {}, array stats "
+                    + "every {} reports", 100 * measuredOverhead, 100 * budget, sampleSize, arrayStatsInterval);
+        }
+        windowStartNanos = now;
+        statsNanosInWindow = 0;
+    }
+
+    private ArrayStats calculateFusedStats(Map<String, INDArray> source, StatsType statsType) {
+        ArrayStats out = new ArrayStats();
+        boolean histograms = updateConfig.collectHistograms(statsType);
+        int nBins = histograms ? updateConfig.numHistogramBins(statsType) : 0;
+        if (histograms)
+            out.histograms = new LinkedHashMap<>();
+        if (updateConfig.collectMean(statsType))
+            out.mean = new LinkedHashMap<>();
+        if (updateConfig.collectStdev(statsType))
+            out.stdev = new LinkedHashMap<>();
+        if (updateConfig.collectMeanMagnitudes(statsType))
+            out.meanMagnitude = new LinkedHashMap<>();
 
-        long endTime = getTime();
-        report.reportStatsCollectionDurationMS((int) (endTime - currentTime)); //Amount of time required to alculate all histograms, means etc.
-        modelInfo.lastReportTime = currentTime;
-        modelInfo.lastReportIteration = iteration;
-        report.reportIterationCount(iteration);
+        if (source == null)
+            return out;
 
-        this.router.putUpdate(report);
+        for (Map.Entry<String, INDArray> entry : source.entrySet()) {
+            FusedSummaryStats s = FusedSummaryStats.calculate(entry.getValue(), sampleSize, nBins, sampleRng);
+            String name = entry.getKey();
+            if (out.histograms != null)
+                out.histograms.put(name, s.getHistogram());
+            if (out.mean != null)
+                out.mean.put(name, s.getMean());
+            if (out.stdev != null)
+                out.stdev.put(name, s.getStdev());
+            if (out.meanMagnitude != null)
+                out.meanMagnitude.put(name, s.getMeanMagnitude());
+        }
+        return out;
+    }
 
-        modelInfo.iterCount = iteration;
-        activationHistograms = null;
-        meanActivations = null;
-        stdevActivations = null;
-        meanMagActivations = null;
-        gradientHistograms = null;
-        meanGradients = null;
-        stdevGradient = null;
-        meanMagGradients = null;
+    private static class ArrayStats {
+        private Map<String, Histogram> histograms;
+        private Map<String, Double> mean;
+        private Map<String, Double> stdev;
+        private Map<String, Double> meanMagnitude;
     }
 
     private long getTime() {
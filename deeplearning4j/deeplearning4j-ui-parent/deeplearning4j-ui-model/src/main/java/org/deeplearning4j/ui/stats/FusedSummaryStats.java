@@ -0,0 +1,132 @@
+package org.deeplearning4j.ui.stats;
+
+import lombok.Getter;
+import org.deeplearning4j.ui.stats.api.Histogram;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.Random;
+
+/**
+ * Summary statistics (mean, standard deviation, mean magnitude, min, max and optionally a histogram) for an array,
+ * calculated in a single pass over the array's data, instead of one reduction op per statistic.<br>
+ * Arrays with more than {@code maxSampleSize} elements are subsampled (systematic sample with a random start), in
+ * which case the statistics are estimates, and histogram counts are scaled up to the full array length.<br>
+ * Used by {@link BaseStatsListener} when the update configuration is an
+ * {@link org.deeplearning4j.ui.stats.api.AdaptiveStatsUpdateConfiguration} with a positive overhead budget.
+ */
+@Getter
+public class FusedSummaryStats {
+
+    private final long length;
+    private final int sampleSize;
+    private final double mean;
+    private final double stdev;
+    private final double meanMagnitude;
+    private final double min;
+    private final double max;
+    private final Histogram histogram;
+
+    private FusedSummaryStats(long length, int sampleSize, double mean, double stdev, double meanMagnitude,
+                    double min, double max, Histogram histogram) {
+        this.length = length;
+        this.sampleSize = sampleSize;
+        this.mean = mean;
+        this.stdev = stdev;
+        this.meanMagnitude = meanMagnitude;
+        this.min = min;
+        this.max = max;
+        this.histogram = histogram;
+    }
+
+    /**
+     * @param arr           Array to calculate the statistics for
+     * @param maxSampleSize Maximum number of elements to read from the array
+     * @param nBins         Number of histogram bins, or 0 for no histogram
+     * @param rng           Used to select the start of the sample, for subsampled arrays
+     */
+    public static FusedSummaryStats calculate(INDArray arr, int maxSampleSize, int nBins, Random rng) {
+        if (maxSampleSize <= 0)
+            throw new IllegalArgumentException("Max sample size must be positive: got " + maxSampleSize);
+
+        //Statistics are independent of the order of the elements, so we can read the buffer directly when the
+        //array has a uniform element-wise stride, whatever its shape and order
+        if (arr.elementWiseStride() <= 0)
+            arr = arr.dup();
+        //Indices are relative to the view: the data buffer of a view already applies the view's offset
+        DataBuffer data = arr.data();
+        long ews = arr.elementWiseStride();
+        long length = arr.length();
+
+        int sampleSize;
+        long step;
+        long start;
+        if (length <= maxSampleSize) {
+            sampleSize = (int) length;
+            step = 1;
+            start = 0;
+        } else {
+            step = (length + maxSampleSize - 1) / maxSampleSize;
+            start = (long) (rng.nextDouble() * step);
+            sampleSize = (int) ((length - 1 - start) / step + 1);
+        }
+
+        //Single pass: mean and variance (Welford), sum of magnitudes, min, max
+        double[] values = nBins > 0 ? new double[sampleSize] : null;
+        double mean = 0.0;
+        double m2 = 0.0;
+        double sumAbs = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        long idx = start * ews;
+        long idxStep = step * ews;
+        for (int i = 0; i < sampleSize; i++) {
+            double d = data.getDouble(idx);
+            idx += idxStep;
+            if (values != null)
+                values[i] = d;
+
+            double delta = d - mean;
+            mean += delta / (i + 1);
+            m2 += delta * (d - mean);
+            sumAbs += Math.abs(d);
+            if (d < min)
+                min = d;
+            if (d > max)
+                max = d;
+        }
+
+        if (sampleSize == 0) {
+            min = 0.0;
+            max = 0.0;
+        }
+        //Bias corrected, as per INDArray.stdNumber()
+        double stdev = sampleSize > 1 ? Math.sqrt(m2 / (sampleSize - 1)) : 0.0;
+        double meanMagnitude = sampleSize > 0 ? sumAbs / sampleSize : 0.0;
+
+        Histogram histogram = null;
+        if (values != null) {
+            //Second pass is over the (small) sample only, not the original array
+            double[] counts = new double[nBins];
+            double binSize = (max - min) / nBins;
+            for (double d : values) {
+                int bin = binSize > 0.0 ? (int) ((d - min) / binSize) : 0;
+                counts[Math.min(bin, nBins - 1)]++;
+            }
+            double scale = (double) length / Math.max(1, sampleSize);
+            int[] binCounts = new int[nBins];
+            for (int i = 0; i < nBins; i++)
+                binCounts[i] = (int) Math.round(counts[i] * scale);
+            histogram = new Histogram(min, max, nBins, binCounts);
+        }
+
+        return new FusedSummaryStats(length, sampleSize, mean, stdev, meanMagnitude, min, max, histogram);
+    }
+
+    /**
+     * @return True if only a subset of the array's elements were used
+     */
+    public boolean isSampled() {
+        return sampleSize < length;
+    }
+}
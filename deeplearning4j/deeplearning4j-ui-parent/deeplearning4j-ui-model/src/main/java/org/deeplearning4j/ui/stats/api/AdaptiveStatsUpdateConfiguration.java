@@ -0,0 +1,25 @@
+package org.deeplearning4j.ui.stats.api;
+
+/**
+ * A {@link StatsUpdateConfiguration} that bounds the cost of collecting the array statistics (histograms, means,
+ * standard deviations and mean magnitudes of parameters, gradients, updates and activations).<br>
+ * When {@link #overheadBudget()} is positive, all requested statistics for an array are calculated in a single pass
+ * (see {@link org.deeplearning4j.ui.stats.FusedSummaryStats}), arrays are subsampled, and the listener adapts the
+ * sample size and the fraction of reports that include array statistics, so that the time spent collecting stats
+ * stays within the budget.
+ */
+public interface AdaptiveStatsUpdateConfiguration extends StatsUpdateConfiguration {
+
+    /**
+     * Maximum fraction of the training time to spend collecting stats - for example, 0.02 for 2%. If 0 (or negative),
+     * stats are calculated exactly, with separate ops for each statistic, for every report.
+     */
+    double overheadBudget();
+
+    /**
+     * Maximum number of elements of each array used to calculate the statistics, when {@link #overheadBudget()} is
+     * positive. The number of elements used may be reduced further, to stay within the overhead budget.
+     */
+    int maxSampleSize();
+
+}
@@ -1,16 +1,17 @@
 package org.deeplearning4j.ui.stats.impl;
 
 import lombok.AllArgsConstructor;
+import org.deeplearning4j.ui.stats.api.AdaptiveStatsUpdateConfiguration;
 import org.deeplearning4j.ui.stats.api.StatsType;
-import org.deeplearning4j.ui.stats.api.StatsUpdateConfiguration;
 
 /**
  * Created by Alex on 07/10/2016.
  */
 @AllArgsConstructor
-public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration {
+public class DefaultStatsUpdateConfiguration implements AdaptiveStatsUpdateConfiguration {
 
     public static final int DEFAULT_REPORTING_FREQUENCY = 10;
+    public static final int DEFAULT_MAX_SAMPLE_SIZE = 100000;
 
     private int reportingFrequency = DEFAULT_REPORTING_FREQUENCY;
     private boolean collectPerformanceStats = true;
@@ -34,6 +35,8 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
     private boolean collectMeanMagnitudesGradients = true;
     private boolean collectMeanMagnitudesUpdates = true;
     private boolean collectMeanMagnitudesActivations = true;
+    private double overheadBudget = 0.0;
+    private int maxSampleSize = DEFAULT_MAX_SAMPLE_SIZE;
 
     private DefaultStatsUpdateConfiguration(Builder b) {
         this.reportingFrequency = b.reportingFrequency;
@@ -58,6 +61,8 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
         this.collectMeanMagnitudesGradients = b.collectMeanMagnitudesGradients;
         this.collectMeanMagnitudesUpdates = b.collectMeanMagnitudesUpdates;
         this.collectMeanMagnitudesActivations = b.collectMeanMagnitudesActivations;
+        this.overheadBudget = b.overheadBudget;
+        this.maxSampleSize = b.maxSampleSize;
     }
 
     @Override
@@ -150,6 +155,16 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
         return false;
     }
 
+    @Override
+    public double overheadBudget() {
+        return overheadBudget;
+    }
+
+    @Override
+    public int maxSampleSize() {
+        return maxSampleSize;
+    }
+
     public static class Builder {
         private int reportingFrequency = DEFAULT_REPORTING_FREQUENCY;
         private boolean collectPerformanceStats = true;
@@ -173,6 +188,8 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
         private boolean collectMeanMagnitudesGradients = true;
         private boolean collectMeanMagnitudesUpdates = true;
         private boolean collectMeanMagnitudesActivations = true;
+        private double overheadBudget = 0.0;
+        private int maxSampleSize = DEFAULT_MAX_SAMPLE_SIZE;
 
         public Builder reportingFrequency(int reportingFrequency) {
             this.reportingFrequency = reportingFrequency;
@@ -284,6 +301,27 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
             return this;
         }
 
+        /**
+         * Maximum fraction of training time to spend collecting array stats (for example, 0.02 for 2%). If positive,
+         * stats are calculated in a single pass over subsampled arrays, and the sample size and number of reports
+         * including array stats are adapted to stay within the budget. Default: 0 (exact stats, for every report)
+         *
+         * @see AdaptiveStatsUpdateConfiguration
+         */
+        public Builder overheadBudget(double overheadBudget) {
+            this.overheadBudget = overheadBudget;
+            return this;
+        }
+
+        /**
+         * Maximum number of elements of each array to use when calculating stats, if {@link #overheadBudget(double)}
+         * is positive. Default: 100000
+         */
+        public Builder maxSampleSize(int maxSampleSize) {
+            this.maxSampleSize = maxSampleSize;
+            return this;
+        }
+
         public DefaultStatsUpdateConfiguration build() {
             return new DefaultStatsUpdateConfiguration(this);
         }
@@ -0,0 +1,589 @@
+package org.deeplearning4j.ui.storage;
+
+import lombok.Data;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.api.storage.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A file-based {@link StatsStorage} implementation designed for long training runs, where persistence of UI data
+ * must not slow down training.<br>
+ * <ul>
+ *     <li><b>Write-behind</b>: The put methods only add the object to a queue, and never block. A single background
+ *     thread adds queued objects to the in-memory storage (at which point they are visible to the get methods, and
+ *     listeners are notified), and appends them to the current segment file, in batches. If the writer thread falls
+ *     more than {@link Builder#maxQueuedUpdates(int)} updates behind, further updates are dropped (with a warning)
+ *     rather than blocking the training thread. Static info and storage metadata are never dropped.</li>
+ *     <li><b>Append-only segment files</b>: Records are appended to numbered segment files in the storage directory.
+ *     A new segment is started when the current segment exceeds {@link Builder#maxSegmentSizeBytes(long)}, and when
+ *     the storage is reopened. A truncated record at the end of a segment (for example, after a crash) is ignored.</li>
+ *     <li><b>Downsampling/retention</b>: At most {@link Builder#maxUpdatesPerWorker(int)} updates are retained for each
+ *     session/type/worker. When this is exceeded, the most recent {@link Builder#fullResolutionUpdates(int)} updates
+ *     are kept, and every second older update is removed - hence old history becomes progressively sparser, but
+ *     memory use is bounded. Once there are more than {@link Builder#maxSegments(int)} segments, the retained data is
+ *     compacted into a single new segment, and older segments are deleted, which also bounds disk use.</li>
+ * </ul>
+ * Note that as puts are asynchronous, objects are not immediately available from the get methods; use {@link #flush()}
+ * to wait until all objects put so far have been processed. {@link #close()} flushes any remaining objects.
+ */
+@Slf4j
+public class AsyncFileStatsStorage extends BaseCollectionStatsStorage {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+    private static final byte TYPE_METADATA = 0;
+    private static final byte TYPE_STATIC_INFO = 1;
+    private static final byte TYPE_UPDATE = 2;
+
+    private final File directory;
+    private final int maxQueuedUpdates;
+    private final long maxSegmentSizeBytes;
+    private final int maxSegments;
+    private final int maxUpdatesPerWorker;
+    private final int fullResolutionUpdates;
+
+    private final LinkedBlockingQueue<Record> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger queuedUpdates = new AtomicInteger();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong droppedUpdates = new AtomicLong();
+    private final Object flushLock = new Object();
+    private long processed;
+
+    private final Map<String, Class<?>> classCache = new HashMap<>();
+    private final Thread writerThread;
+    private final Thread shutdownHook;
+    private volatile boolean isClosed;
+
+    //Only accessed by the writer thread, after construction
+    private List<File> segments = new ArrayList<>();
+    private int nextSegmentIdx;
+    private DataOutputStream out;
+    private long currentSegmentBytes;
+
+    /**
+     * Create (or open) a storage instance with the default configuration
+     *
+     * @param directory Storage directory, for the segment files
+     */
+    public AsyncFileStatsStorage(File directory) {
+        this(new Builder(directory));
+    }
+
+    private AsyncFileStatsStorage(Builder builder) {
+        if (builder.getDirectory() == null)
+            throw new IllegalArgumentException("Storage directory must be set");
+        if (builder.getFullResolutionUpdates() <= 0
+                        || builder.getFullResolutionUpdates() >= builder.getMaxUpdatesPerWorker())
+            throw new IllegalArgumentException("fullResolutionUpdates must be positive, and less than "
+                            + "maxUpdatesPerWorker: got " + builder.getFullResolutionUpdates() + " and "
+                            + builder.getMaxUpdatesPerWorker());
+        this.directory = builder.getDirectory();
+        this.maxQueuedUpdates = builder.getMaxQueuedUpdates();
+        this.maxSegmentSizeBytes = builder.getMaxSegmentSizeBytes();
+        this.maxSegments = Math.max(2, builder.getMaxSegments());
+        this.maxUpdatesPerWorker = builder.getMaxUpdatesPerWorker();
+        this.fullResolutionUpdates = builder.getFullResolutionUpdates();
+
+        sessionIDs = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        storageMetaData = new ConcurrentHashMap<>();
+        staticInfo = new ConcurrentHashMap<>();
+        //Listeners are notified by the writer thread, and may be (de)registered concurrently by other threads
+        listeners = new CopyOnWriteArrayList<>();
+
+        if (!directory.exists() && !directory.mkdirs())
+            throw new RuntimeException("Could not create storage directory: " + directory);
+        if (!directory.isDirectory())
+            throw new IllegalArgumentException("Not a directory: " + directory);
+
+        //Load any existing data. Always start a new segment, as the last one might end with a truncated record
+        try {
+            loadSegments();
+        } catch (IOException e) {
+            throw new RuntimeException("Error loading stats storage segments from " + directory, e);
+        }
+
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWriter();
+            }
+        }, "AsyncFileStatsStorage-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        shutdownHook = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                closeInternal();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    // ----- Segment files -----
+
+    private void loadSegments() throws IOException {
+        File[] files = directory.listFiles();
+        TreeMap<Integer, File> sorted = new TreeMap<>();
+        if (files != null) {
+            for (File f : files) {
+                int idx = segmentIndex(f.getName());
+                if (idx >= 0)
+                    sorted.put(idx, f);
+            }
+        }
+
+        for (File f : sorted.values()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+                while (true) {
+                    int type = in.read();
+                    if (type < 0)
+                        break; //End of segment
+                    Persistable p;
+                    try {
+                        p = readPersistable(in);
+                    } catch (EOFException e) {
+                        log.warn("Ignoring truncated record at end of stats storage segment {}", f);
+                        break;
+                    }
+                    store((byte) type, p, false);
+                }
+            }
+            segments.add(f);
+        }
+        nextSegmentIdx = sorted.isEmpty() ? 0 : sorted.lastKey() + 1;
+    }
+
+    private static int segmentIndex(String name) {
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX))
+            return -1;
+        try {
+            return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private File segmentFile(int idx) {
+        return new File(directory, String.format("%s%08d%s", SEGMENT_PREFIX, idx, SEGMENT_SUFFIX));
+    }
+
+    private Persistable readPersistable(DataInputStream in) throws IOException {
+        String className = in.readUTF();
+        int length = in.readInt();
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        Class<?> c = classCache.get(className);
+        if (c == null) {
+            try {
+                c = Class.forName(className);
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Unknown Persistable class: " + className, e);
+            }
+            classCache.put(className, c);
+        }
+        Persistable p;
+        try {
+            p = (Persistable) c.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IOException("Could not create Persistable of class " + className, e);
+        }
+        p.decode(bytes);
+        return p;
+    }
+
+    private void write(byte type, Persistable p) throws IOException {
+        if (out == null) {
+            File f = segmentFile(nextSegmentIdx++);
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), 1 << 16));
+            segments.add(f);
+            currentSegmentBytes = 0;
+        }
+
+        byte[] bytes = p.encode();
+        int before = out.size();
+        out.writeByte(type);
+        out.writeUTF(p.getClass().getName());
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        currentSegmentBytes += out.size() - before;
+    }
+
+    private void closeSegment() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    /**
+     * Write all retained data to a new segment, and delete all older segments
+     */
+    private void compact() throws IOException {
+        closeSegment();
+        List<File> old = segments;
+        segments = new ArrayList<>();
+
+        //Write to a temporary file first: if we crash part way through, the old segments are still valid
+        int idx = nextSegmentIdx++;
+        File tmp = new File(directory, SEGMENT_PREFIX + idx + ".tmp");
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+        currentSegmentBytes = 0;
+        for (StorageMetaData m : storageMetaData.values())
+            write(TYPE_METADATA, m);
+        for (Persistable p : staticInfo.values())
+            write(TYPE_STATIC_INFO, p);
+        for (Map<Long, Persistable> m : updates.values()) {
+            for (Persistable p : m.values())
+                write(TYPE_UPDATE, p);
+        }
+        closeSegment();
+
+        File f = segmentFile(idx);
+        if (!tmp.renameTo(f))
+            throw new IOException("Could not rename " + tmp + " to " + f);
+        segments.add(f);
+        for (File o : old) {
+            if (!o.delete())
+                log.warn("Could not delete old stats storage segment {}", o);
+        }
+    }
+
+    // ----- Writer thread -----
+
+    private void runWriter() {
+        List<Record> batch = new ArrayList<>();
+        while (true) {
+            Record first;
+            try {
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                //Only interrupted when closing: finish processing anything still in the queue
+                first = queue.poll();
+            }
+            if (first == null) {
+                if (isClosed)
+                    break;
+                continue;
+            }
+
+            batch.add(first);
+            queue.drainTo(batch, 1023);
+            processBatch(batch);
+            batch.clear();
+        }
+
+        try {
+            closeSegment();
+        } catch (IOException e) {
+            log.error("Error closing stats storage segment", e);
+        }
+    }
+
+    private void processBatch(List<Record> batch) {
+        try {
+            storeAndWrite(batch);
+        } finally {
+            //Whatever happened, the batch won't be retried: don't leave flush() waiting for it
+            synchronized (flushLock) {
+                processed += batch.size();
+                flushLock.notifyAll();
+            }
+        }
+    }
+
+    private void storeAndWrite(List<Record> batch) {
+        //A failure for one record (for example, in a listener) must not stop the writer thread, or affect other records
+        for (Record r : batch) {
+            if (r.type == TYPE_UPDATE)
+                queuedUpdates.decrementAndGet();
+            try {
+                store(r.type, r.persistable, true);
+            } catch (RuntimeException e) {
+                log.error("Error storing {} in stats storage", r.persistable.getClass().getSimpleName(), e);
+            }
+        }
+
+        try {
+            for (Record r : batch) {
+                try {
+                    write(r.type, r.persistable);
+                } catch (RuntimeException e) {
+                    log.error("Error encoding {} for stats storage", r.persistable.getClass().getSimpleName(), e);
+                }
+            }
+            out.flush();
+
+            if (currentSegmentBytes >= maxSegmentSizeBytes) {
+                closeSegment();
+                if (segments.size() >= maxSegments)
+                    compact();
+            }
+        } catch (IOException e) {
+            //Data is still available in memory; start a new segment for the next batch
+            log.error("Error writing stats storage segment in directory {}", directory, e);
+            try {
+                closeSegment();
+            } catch (IOException e2) {
+                out = null;
+            }
+        }
+    }
+
+    // ----- In-memory storage -----
+
+    private void store(byte type, Persistable p, boolean notify) {
+        List<StatsStorageEvent> sses = notify ? checkStorageEvents(p) : null;
+        StatsStorageListener.EventType eventType;
+        switch (type) {
+            case TYPE_METADATA:
+                storageMetaData.put(new SessionTypeId(p.getSessionID(), p.getTypeID()), (StorageMetaData) p);
+                eventType = StatsStorageListener.EventType.PostMetaData;
+                break;
+            case TYPE_STATIC_INFO:
+                sessionIDs.add(p.getSessionID());
+                staticInfo.put(new SessionTypeWorkerId(p.getSessionID(), p.getTypeID(), p.getWorkerID()), p);
+                eventType = StatsStorageListener.EventType.PostStaticInfo;
+                break;
+            case TYPE_UPDATE:
+                Map<Long, Persistable> updateMap =
+                                getUpdateMap(p.getSessionID(), p.getTypeID(), p.getWorkerID(), true);
+                updateMap.put(p.getTimeStamp(), p);
+                if (updateMap.size() > maxUpdatesPerWorker)
+                    downsample((ConcurrentSkipListMap<Long, Persistable>) updateMap);
+                eventType = StatsStorageListener.EventType.PostUpdate;
+                break;
+            default:
+                throw new IllegalStateException("Unknown record type: " + type);
+        }
+
+        if (notify && !listeners.isEmpty()) {
+            StatsStorageEvent sse = new StatsStorageEvent(this, eventType, p.getSessionID(), p.getTypeID(),
+                            p.getWorkerID(), p.getTimeStamp());
+            for (StatsStorageListener l : listeners) {
+                notify(l, sse);
+            }
+        }
+        if (sses != null && !sses.isEmpty()) {
+            for (StatsStorageListener l : listeners) {
+                for (StatsStorageEvent e : sses)
+                    notify(l, e);
+            }
+        }
+    }
+
+    private static void notify(StatsStorageListener l, StatsStorageEvent e) {
+        try {
+            l.notify(e);
+        } catch (RuntimeException ex) {
+            log.error("Error notifying stats storage listener {} of event {}", l, e, ex);
+        }
+    }
+
+    /**
+     * Keep the most recent fullResolutionUpdates updates, and remove every second update before that
+     */
+    private void downsample(ConcurrentSkipListMap<Long, Persistable> updateMap) {
+        int numOld = updateMap.size() - fullResolutionUpdates;
+        Iterator<Long> iter = updateMap.keySet().iterator();
+        for (int i = 0; i < numOld && iter.hasNext(); i++) {
+            iter.next();
+            if (i % 2 == 1)
+                iter.remove();
+        }
+    }
+
+    @Override
+    protected Map<Long, Persistable> getUpdateMap(String sessionID, String typeID, String workerID,
+                    boolean createIfRequired) {
+        SessionTypeWorkerId id = new SessionTypeWorkerId(sessionID, typeID, workerID);
+        Map<Long, Persistable> updateMap = updates.get(id);
+        if (updateMap != null || !createIfRequired)
+            return updateMap;
+        //Only the writer thread (or constructor) creates update maps
+        updateMap = new ConcurrentSkipListMap<>();
+        updates.put(id, updateMap);
+        return updateMap;
+    }
+
+    // ----- Store new info -----
+
+    private void enqueue(byte type, Persistable p) {
+        if (isClosed)
+            throw new IllegalStateException("Cannot store " + p.getClass().getSimpleName() + ": " + this
+                            + " is closed");
+        if (type == TYPE_UPDATE && queuedUpdates.incrementAndGet() > maxQueuedUpdates) {
+            queuedUpdates.decrementAndGet();
+            long dropped = droppedUpdates.incrementAndGet();
+            //Log only when the total is a power of 2, to avoid flooding the log
+            if ((dropped & (dropped - 1)) == 0)
+                log.warn("Stats storage writer is falling behind: dropped {} updates in total (max queued updates: {})",
+                                dropped, maxQueuedUpdates);
+            return;
+        }
+        enqueued.incrementAndGet();
+        queue.add(new Record(type, p));
+    }
+
+    @Override
+    public void putStaticInfo(@NonNull Persistable staticInfo) {
+        enqueue(TYPE_STATIC_INFO, staticInfo);
+    }
+
+    @Override
+    public void putUpdate(@NonNull Persistable update) {
+        enqueue(TYPE_UPDATE, update);
+    }
+
+    @Override
+    public void putStorageMetaData(@NonNull StorageMetaData storageMetaData) {
+        enqueue(TYPE_METADATA, storageMetaData);
+    }
+
+    /**
+     * Block until all objects put so far have been added to the in-memory storage, and written to the segment file.
+     */
+    public void flush() {
+        long target = enqueued.get();
+        synchronized (flushLock) {
+            while (processed < target && writerThread.isAlive()) {
+                try {
+                    flushLock.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Number of updates that were dropped, because the writer thread was too far behind
+     */
+    public long getNumDroppedUpdates() {
+        return droppedUpdates.get();
+    }
+
+    @Override
+    public void close() {
+        closeInternal();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            //JVM is already shutting down
+        }
+    }
+
+    private void closeInternal() {
+        if (isClosed)
+            return;
+        isClosed = true;
+        writerThread.interrupt();
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return isClosed;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncFileStatsStorage(" + directory.getPath() + ")";
+    }
+
+    private static class Record {
+        private final byte type;
+        private final Persistable persistable;
+
+        private Record(byte type, Persistable persistable) {
+            this.type = type;
+            this.persistable = persistable;
+        }
+    }
+
+    @Data
+    public static class Builder {
+
+        private File directory;
+        private int maxQueuedUpdates = 10000;
+        private long maxSegmentSizeBytes = 64L * 1024 * 1024;
+        private int maxSegments = 16;
+        private int maxUpdatesPerWorker = 20000;
+        private int fullResolutionUpdates = 10000;
+
+        public Builder(File directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * @param directory Storage directory, for the segment files
+         */
+        public Builder directory(File directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Maximum number of updates that may be waiting to be written. If exceeded, further updates are dropped
+         * rather than blocking. Default: 10000
+         */
+        public Builder maxQueuedUpdates(int maxQueuedUpdates) {
+            this.maxQueuedUpdates = maxQueuedUpdates;
+            return this;
+        }
+
+        /**
+         * Size after which a new segment file is started. Default: 64MB
+         */
+        public Builder maxSegmentSizeBytes(long maxSegmentSizeBytes) {
+            this.maxSegmentSizeBytes = maxSegmentSizeBytes;
+            return this;
+        }
+
+        /**
+         * Maximum number of segment files, after which retained data is compacted into a single segment. Default: 16
+         */
+        public Builder maxSegments(int maxSegments) {
+            this.maxSegments = maxSegments;
+            return this;
+        }
+
+        /**
+         * Maximum number of updates retained for each session/type/worker, after which older updates are downsampled.
+         * Default: 20000
+         */
+        public Builder maxUpdatesPerWorker(int maxUpdatesPerWorker) {
+            this.maxUpdatesPerWorker = maxUpdatesPerWorker;
+            return this;
+        }
+
+        /**
+         * Number of most recent updates for each session/type/worker that are never downsampled. Must be less than
+         * {@link #maxUpdatesPerWorker(int)}. Default: 10000
+         */
+        public Builder fullResolutionUpdates(int fullResolutionUpdates) {
+            this.fullResolutionUpdates = fullResolutionUpdates;
+            return this;
+        }
+
+        public AsyncFileStatsStorage build() {
+            return new AsyncFileStatsStorage(this);
+        }
+    }
+}
@@ -3,20 +3,30 @@ package org.deeplearning4j.ui.stats;
 import org.deeplearning4j.api.storage.Persistable;
 import org.deeplearning4j.api.storage.StatsStorage;
 import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.api.Model;
 import org.deeplearning4j.nn.api.OptimizationAlgorithm;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.optimize.api.BaseTrainingListener;
+import org.deeplearning4j.ui.stats.api.Histogram;
+import org.deeplearning4j.ui.stats.api.StatsReport;
+import org.deeplearning4j.ui.stats.api.StatsType;
+import org.deeplearning4j.ui.stats.impl.DefaultStatsUpdateConfiguration;
 import org.deeplearning4j.ui.storage.mapdb.MapDBStatsStorage;
 import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.*;
 
 /**
  * Created by Alex on 07/10/2016.
@@ -76,4 +86,107 @@ public class TestStatsListener {
 
     }
 
+    @Test
+    public void testFusedSummaryStats() {
+        Nd4j.getRandom().setSeed(12345);
+        Random r = new Random(12345);
+
+        //Not subsampled: should match the separate ops
+        INDArray arr = Nd4j.randn(20, 30).muli(2).addi(1);
+        //Contiguous view with non-zero offset, as for all parameters but the first in a flattened params array
+        INDArray offsetView = Nd4j.linspace(1, 20, 20).get(NDArrayIndex.interval(0, 1), NDArrayIndex.interval(10, 20));
+        assertEquals(15.5, FusedSummaryStats.calculate(offsetView, 100000, 0, r).getMean(), 1e-6);
+        for (INDArray a : new INDArray[] {arr, arr.transpose(), arr.get(NDArrayIndex.all(), NDArrayIndex.interval(5, 10)),
+                        offsetView}) {
+            FusedSummaryStats s = FusedSummaryStats.calculate(a, 100000, 10, r);
+            assertFalse(s.isSampled());
+            assertEquals(a.length(), s.getSampleSize());
+            assertEquals(a.meanNumber().doubleValue(), s.getMean(), 1e-4);
+            assertEquals(a.stdNumber().doubleValue(), s.getStdev(), 1e-4);
+            assertEquals(a.norm1Number().doubleValue() / a.length(), s.getMeanMagnitude(), 1e-4);
+            assertEquals(a.minNumber().doubleValue(), s.getMin(), 1e-6);
+            assertEquals(a.maxNumber().doubleValue(), s.getMax(), 1e-6);
+
+            Histogram h = s.getHistogram();
+            assertEquals(10, h.getNBins());
+            int sum = 0;
+            for (int c : h.getBinCounts())
+                sum += c;
+            assertEquals(a.length(), sum);
+        }
+
+        //Subsampled: estimates should be close
+        INDArray large = Nd4j.randn(1, 200000).muli(2).addi(1);
+        FusedSummaryStats s = FusedSummaryStats.calculate(large, 10000, 0, r);
+        assertTrue(s.isSampled());
+        assertTrue(s.getSampleSize() <= 10000);
+        assertNull(s.getHistogram());
+        assertEquals(large.meanNumber().doubleValue(), s.getMean(), 0.1);
+        assertEquals(large.stdNumber().doubleValue(), s.getStdev(), 0.1);
+        assertEquals(large.norm1Number().doubleValue() / large.length(), s.getMeanMagnitude(), 0.1);
+    }
+
+    @Test
+    public void testListenerOverheadBudget() {
+        DataSet ds = new IrisDataSetIterator(150, 150).next();
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                        .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).list()
+                        .layer(0, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(4).nOut(3).build())
+                        .pretrain(false).backprop(true).build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        StatsStorage ss = new MapDBStatsStorage(); //in-memory
+        StatsListener l = new StatsListener(ss, null, new DefaultStatsUpdateConfiguration.Builder()
+                        .reportingFrequency(1).overheadBudget(0.02).maxSampleSize(5).build(), null, null);
+        //Bias is stored after the weights in the flattened params, so is a view with non-zero offset
+        final INDArray[] firstBias = new INDArray[1];
+        net.setListeners(l, new BaseTrainingListener() {
+            @Override
+            public void iterationDone(Model model, int iteration, int epoch) {
+                if (firstBias[0] == null)
+                    firstBias[0] = model.getParam("0_b").dup();
+            }
+        });
+
+        for (int i = 0; i < 10; i++) {
+            net.fit(ds);
+        }
+
+        //Single layer network, so the listener spends a large fraction of the time collecting stats, and reduces the
+        //number of reports with array stats
+        assertTrue(l.getMeasuredOverhead() > 0.0);
+        assertTrue(l.getCurrentArrayStatsInterval() > 1);
+        assertEquals(5, l.getCurrentSampleSize());
+
+        String sessionID = ss.listSessionIDs().get(0);
+        String typeID = ss.listTypeIDsForSession(sessionID).get(0);
+        String workerID = ss.listWorkerIDsForSession(sessionID).get(0);
+        List<Persistable> updates = ss.getAllUpdatesAfter(sessionID, typeID, workerID, 0);
+        assertEquals(10, updates.size());
+
+        //All reports include the score; the first includes array stats, calculated from (at most) 5 elements
+        StatsReport first = (StatsReport) updates.get(0);
+        Map<String, Histogram> paramHistograms = first.getHistograms(StatsType.Parameters);
+        assertNotNull(paramHistograms);
+        int sum = 0;
+        for (int c : paramHistograms.get("0_W").getBinCounts())
+            sum += c;
+        assertEquals(12, sum);
+        assertNotNull(first.getMean(StatsType.Parameters));
+        //Bias has 3 elements, so isn't subsampled
+        assertEquals(firstBias[0].meanNumber().doubleValue(), first.getMean(StatsType.Parameters).get("0_b"), 1e-6);
+        assertEquals(firstBias[0].stdNumber().doubleValue(), first.getStdev(StatsType.Parameters).get("0_b"), 1e-6);
+        int withArrayStats = 0;
+        for (Persistable p : updates) {
+            StatsReport sr = (StatsReport) p;
+            assertFalse(Double.isNaN(sr.getScore()));
+            if (sr.getMean(StatsType.Parameters) != null)
+                withArrayStats++;
+        }
+        assertTrue(withArrayStats < 10);
+    }
+
 }
@@ -337,6 +337,140 @@ public class TestStatsStorage {
         }
     }
 
+    @Test
+    public void testAsyncFileStatsStorage() throws Exception {
+
+        for (boolean useJ7Storage : new boolean[] {false, true}) {
+            File dir = testDir.newFolder();
+            AsyncFileStatsStorage ss = new AsyncFileStatsStorage(dir);
+            CountingListener l = new CountingListener();
+            ss.registerStatsStorageListener(l);
+
+            //Puts are asynchronous: need to flush before the data is guaranteed to be available
+            ss.putStaticInfo(getInitReport(0, 0, 0, useJ7Storage));
+            ss.putUpdate(getReport(0, 0, 0, 12345, useJ7Storage));
+            ss.putUpdate(getReport(0, 0, 0, 12346, useJ7Storage));
+            ss.putUpdate(getReport(0, 0, 1, 12345, useJ7Storage));
+            ss.flush();
+
+            assertEquals(1, l.countNewSession);
+            assertEquals(2, l.countNewWorkerId);
+            assertEquals(1, l.countStaticInfo);
+            assertEquals(3, l.countUpdate);
+            assertEquals(Collections.singletonList("sid0"), ss.listSessionIDs());
+            assertEquals(getInitReport(0, 0, 0, useJ7Storage), ss.getStaticInfo("sid0", "tid0", "wid0"));
+            assertEquals(getReport(0, 0, 0, 12346, useJ7Storage), ss.getLatestUpdate("sid0", "tid0", "wid0"));
+            assertEquals(2, ss.getLatestUpdateAllWorkers("sid0", "tid0").size());
+            assertArrayEquals(new long[] {12345, 12346}, ss.getAllUpdateTimes("sid0", "tid0", "wid0"));
+
+            //Close and re-open
+            ss.close();
+            assertTrue(ss.isClosed());
+            try {
+                ss.putUpdate(getReport(0, 0, 0, 12347, useJ7Storage));
+                fail("Expected exception");
+            } catch (IllegalStateException e) {
+                //expected
+            }
+
+            ss = new AsyncFileStatsStorage(dir);
+            assertEquals(getInitReport(0, 0, 0, useJ7Storage), ss.getStaticInfo("sid0", "tid0", "wid0"));
+            assertEquals(getReport(0, 0, 0, 12345, useJ7Storage), ss.getUpdate("sid0", "tid0", "wid0", 12345));
+            assertEquals(getReport(0, 0, 0, 12346, useJ7Storage), ss.getLatestUpdate("sid0", "tid0", "wid0"));
+            assertEquals(getReport(0, 0, 1, 12345, useJ7Storage), ss.getLatestUpdate("sid0", "tid0", "wid1"));
+            assertEquals(3, ss.getNumUpdateRecordsFor("sid0"));
+
+            //Truncated record at the end of the last segment (i.e., crash during write) should be ignored
+            ss.putUpdate(getReport(0, 0, 0, 12347, useJ7Storage));
+            ss.close();
+            File[] segments = dir.listFiles();
+            Arrays.sort(segments);
+            File last = segments[segments.length - 1];
+            byte[] bytes = Files.readAllBytes(last.toPath());
+            Files.write(last.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+
+            ss = new AsyncFileStatsStorage(dir);
+            assertEquals(getReport(0, 0, 0, 12346, useJ7Storage), ss.getLatestUpdate("sid0", "tid0", "wid0"));
+            ss.close();
+        }
+    }
+
+    @Test
+    public void testAsyncFileStatsStorageRetention() throws Exception {
+        File dir = testDir.newFolder();
+        AsyncFileStatsStorage.Builder builder = new AsyncFileStatsStorage.Builder(dir).maxUpdatesPerWorker(100)
+                        .fullResolutionUpdates(50).maxSegmentSizeBytes(4096).maxSegments(3);
+        AsyncFileStatsStorage ss = builder.build();
+
+        ss.putStaticInfo(getInitReport(0, 0, 0, true));
+        int numUpdates = 2000;
+        for (int i = 0; i < numUpdates; i++) {
+            ss.putUpdate(getReport(0, 0, 0, i, true));
+            if (i % 100 == 0)
+                ss.flush(); //Avoid dropping updates in this test, if the writer thread falls behind
+        }
+        ss.flush();
+        assertEquals(0, ss.getNumDroppedUpdates());
+
+        //Most recent updates are all retained; older updates are downsampled
+        long[] times = ss.getAllUpdateTimes("sid0", "tid0", "wid0");
+        assertTrue(times.length <= 100);
+        assertTrue(times.length > 50);
+        for (int i = 0; i < 50; i++)
+            assertEquals(numUpdates - 50 + i, times[times.length - 50 + i]);
+        assertEquals(numUpdates - 1, ss.getLatestUpdate("sid0", "tid0", "wid0").getTimeStamp());
+
+        //Segments are compacted, so disk use is bounded too
+        ss.close();
+        assertTrue(dir.listFiles().length <= 3);
+
+        ss = builder.build();
+        assertNotNull(ss.getStaticInfo("sid0", "tid0", "wid0"));
+        long[] timesAfterReopen = ss.getAllUpdateTimes("sid0", "tid0", "wid0");
+        assertTrue(timesAfterReopen.length <= 100);
+        assertEquals(numUpdates - 1, timesAfterReopen[timesAfterReopen.length - 1]);
+        ss.close();
+    }
+
+    @Test
+    public void testAsyncFileStatsStorageListenerFailure() throws Exception {
+        File dir = testDir.newFolder();
+        final AsyncFileStatsStorage ss = new AsyncFileStatsStorage(dir);
+
+        //Listener exceptions, and listeners deregistered during notification, must not stop the writer thread
+        ss.registerStatsStorageListener(new StatsStorageListener() {
+            @Override
+            public void notify(StatsStorageEvent event) {
+                throw new RuntimeException("Expected exception in listener");
+            }
+        });
+        ss.registerStatsStorageListener(new StatsStorageListener() {
+            @Override
+            public void notify(StatsStorageEvent event) {
+                ss.deregisterStatsStorageListener(this);
+            }
+        });
+        CountingListener l = new CountingListener();
+        ss.registerStatsStorageListener(l);
+
+        ss.putStaticInfo(getInitReport(0, 0, 0, true));
+        ss.putUpdate(getReport(0, 0, 0, 12345, true));
+        ss.flush();
+        ss.putUpdate(getReport(0, 0, 0, 12346, true));
+        ss.flush();
+
+        assertEquals(1, l.countStaticInfo);
+        assertEquals(2, l.countUpdate);
+        assertEquals(2, ss.getListeners().size());
+        assertArrayEquals(new long[] {12345, 12346}, ss.getAllUpdateTimes("sid0", "tid0", "wid0"));
+        ss.close();
+
+        //Data was persisted too
+        AsyncFileStatsStorage reopened = new AsyncFileStatsStorage(dir);
+        assertEquals(getReport(0, 0, 0, 12346, true), reopened.getLatestUpdate("sid0", "tid0", "wid0"));
+        reopened.close();
+    }
+
     private static StatsInitializationReport getInitReport(int idNumber, int tid, int wid, boolean useJ7Storage) {
         StatsInitializationReport rep;
         if (useJ7Storage) {
@@ -21,6 +21,7 @@ package org.nd4j.linalg.dataset;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.nd4j.base.Preconditions;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -34,6 +35,7 @@ import org.nd4j.linalg.primitives.Pair;
 import org.nd4j.linalg.util.ArrayUtil;
 import org.nd4j.linalg.util.FeatureUtil;
 import org.nd4j.linalg.util.MathUtils;
+import org.nd4j.serde.binary.ChunkedBinarySerde;
 
 import java.io.*;
 import java.util.*;
@@ -59,6 +61,7 @@ public class DataSet implements org.nd4j.linalg.dataset.api.DataSet {
     private static final byte BITMASK_LABELS_SAME_AS_FEATURES = 1 << 2;
     private static final byte BITMASK_FEATURE_MASK_PRESENT = 1 << 3;
     private static final byte BITMASK_LABELS_MASK_PRESENT = 1 << 4;
+    private static final byte BITMASK_CHUNKED = 1 << 5;
 
     private List<String> columnNames = new ArrayList<>();
     private List<String> labelNames = new ArrayList<>();
@@ -252,18 +255,19 @@ public class DataSet implements org.nd4j.linalg.dataset.api.DataSet {
             boolean hasLabelsSameAsFeatures = (included & BITMASK_LABELS_SAME_AS_FEATURES) != 0;
             boolean hasFeaturesMask = (included & BITMASK_FEATURE_MASK_PRESENT) != 0;
             boolean hasLabelsMask = (included & BITMASK_LABELS_MASK_PRESENT) != 0;
+            ChunkedBinarySerde serde = (included & BITMASK_CHUNKED) != 0 ? ChunkedBinarySerde.getDefault() : null;
 
-            features = (hasFeatures ? Nd4j.read(dis) : null);
+            features = (hasFeatures ? readArray(dis, serde) : null);
             if (hasLabels) {
-                labels = Nd4j.read(dis);
+                labels = readArray(dis, serde);
             } else if (hasLabelsSameAsFeatures) {
                 labels = features;
             } else {
                 labels = null;
             }
 
-            featuresMask = (hasFeaturesMask ? Nd4j.read(dis) : null);
-            labelsMask = (hasLabelsMask ? Nd4j.read(dis) : null);
+            featuresMask = (hasFeaturesMask ? readArray(dis, serde) : null);
+            labelsMask = (hasLabelsMask ? readArray(dis, serde) : null);
 
             dis.close();
         } catch (Exception e) {
@@ -284,6 +288,57 @@ public class DataSet implements org.nd4j.linalg.dataset.api.DataSet {
 
     @Override
     public void save(OutputStream to) {
+        try {
+            save(to, null, false);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void save(File to) {
+        try (FileOutputStream fos = new FileOutputStream(to, false);
+                        BufferedOutputStream bos = new BufferedOutputStream(fos)) {
+            save(bos);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Save this DataSet using chunked binary format: arrays are split into chunks, which are (optionally)
+     * compressed and checksummed in parallel. This is faster than {@link #save(OutputStream)} for large DataSets.
+     * Saved DataSet can be restored with {@link #load(InputStream)} as usual, so it can be used with
+     * FileDataSetIterator as well.
+     *
+     * @param to    Stream to save DataSet to. Stream is closed after saving
+     * @param serde Serde to use for arrays
+     */
+    public void save(OutputStream to, @NonNull ChunkedBinarySerde serde) {
+        try {
+            save(to, serde, true);
+        } catch (IOException e) {
+            throw new RuntimeException("Error saving DataSet", e);
+        }
+    }
+
+    /**
+     * Save this DataSet to the file using chunked binary format.
+     *
+     * @param to    File to save DataSet to
+     * @param serde Serde to use for arrays
+     * @see #save(OutputStream, ChunkedBinarySerde)
+     */
+    public void save(File to, @NonNull ChunkedBinarySerde serde) {
+        try (FileOutputStream fos = new FileOutputStream(to, false);
+                        BufferedOutputStream bos = new BufferedOutputStream(fos)) {
+            save(bos, serde);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void save(OutputStream to, ChunkedBinarySerde serde, boolean chunked) throws IOException {
 
         byte included = 0;
         if (features != null)
@@ -300,37 +355,35 @@ public class DataSet implements org.nd4j.linalg.dataset.api.DataSet {
             included |= BITMASK_FEATURE_MASK_PRESENT;
         if (labelsMask != null)
             included |= BITMASK_LABELS_MASK_PRESENT;
+        if (chunked)
+            included |= BITMASK_CHUNKED;
 
+        BufferedOutputStream bos = new BufferedOutputStream(to);
+        DataOutputStream dos = new DataOutputStream(bos);
+        dos.writeByte(included);
 
-        try {
-            BufferedOutputStream bos = new BufferedOutputStream(to);
-            DataOutputStream dos = new DataOutputStream(bos);
-            dos.writeByte(included);
+        if (features != null)
+            writeArray(features, dos, serde);
+        if (labels != null && labels != features)
+            writeArray(labels, dos, serde);
+        if (featuresMask != null)
+            writeArray(featuresMask, dos, serde);
+        if (labelsMask != null)
+            writeArray(labelsMask, dos, serde);
 
-            if (features != null)
-                Nd4j.write(features, dos);
-            if (labels != null && labels != features)
-                Nd4j.write(labels, dos);
-            if (featuresMask != null)
-                Nd4j.write(featuresMask, dos);
-            if (labelsMask != null)
-                Nd4j.write(labelsMask, dos);
+        dos.flush();
+        dos.close();
+    }
 
-            dos.flush();
-            dos.close();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    private static void writeArray(INDArray arr, DataOutputStream dos, ChunkedBinarySerde serde) throws IOException {
+        if (serde != null)
+            serde.write(arr, dos);
+        else
+            Nd4j.write(arr, dos);
     }
 
-    @Override
-    public void save(File to) {
-        try (FileOutputStream fos = new FileOutputStream(to, false);
-                        BufferedOutputStream bos = new BufferedOutputStream(fos)) {
-            save(bos);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    private static INDArray readArray(DataInputStream dis, ChunkedBinarySerde serde) throws IOException {
+        return serde != null ? serde.read(dis) : Nd4j.read(dis);
     }
 
     @Override
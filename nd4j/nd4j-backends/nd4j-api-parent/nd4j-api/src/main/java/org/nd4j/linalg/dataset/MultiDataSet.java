@@ -5,6 +5,7 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.DataSetUtil;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.serde.binary.ChunkedBinarySerde;
 
 import java.io.*;
 import java.util.*;
@@ -14,6 +15,8 @@ import java.util.*;
  */
 public class MultiDataSet implements org.nd4j.linalg.dataset.api.MultiDataSet {
     private static final ThreadLocal<INDArray> EMPTY_MASK_ARRAY_PLACEHOLDER = new ThreadLocal<>();
+    // leading marker of chunked format, never clashes with number of feature arrays
+    private static final int CHUNKED_MARKER = -1;
 
     private INDArray[] features;
     private INDArray[] labels;
@@ -198,25 +201,40 @@ public class MultiDataSet implements org.nd4j.linalg.dataset.api.MultiDataSet {
 
     @Override
     public void save(OutputStream to) throws IOException {
+        save(to, null);
+    }
+
+    /**
+     * Save this MultiDataSet using chunked binary format: arrays are split into chunks, which are (optionally)
+     * compressed and checksummed in parallel. Saved MultiDataSet can be restored with {@link #load(InputStream)}
+     * as usual, so it can be used with FileMultiDataSetIterator as well.
+     *
+     * @param to    Stream to save MultiDataSet to. Stream is closed after saving
+     * @param serde Serde to use for arrays. If null, default format is used
+     */
+    public void save(OutputStream to, ChunkedBinarySerde serde) throws IOException {
         int numFArr = (features == null ? 0 : features.length);
         int numLArr = (labels == null ? 0 : labels.length);
         int numFMArr = (featuresMaskArrays == null ? 0 : featuresMaskArrays.length);
         int numLMArr = (labelsMaskArrays == null ? 0 : labelsMaskArrays.length);
 
         try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(to))) {
+            if (serde != null)
+                dos.writeInt(CHUNKED_MARKER);
             dos.writeInt(numFArr);
             dos.writeInt(numLArr);
             dos.writeInt(numFMArr);
             dos.writeInt(numLMArr);
 
-            saveINDArrays(features, dos, false);
-            saveINDArrays(labels, dos, false);
-            saveINDArrays(featuresMaskArrays, dos, true);
-            saveINDArrays(labelsMaskArrays, dos, true);
+            saveINDArrays(features, dos, false, serde);
+            saveINDArrays(labels, dos, false, serde);
+            saveINDArrays(featuresMaskArrays, dos, true, serde);
+            saveINDArrays(labelsMaskArrays, dos, true, serde);
         }
     }
 
-    private void saveINDArrays(INDArray[] arrays, DataOutputStream dos, boolean isMask) throws IOException {
+    private void saveINDArrays(INDArray[] arrays, DataOutputStream dos, boolean isMask, ChunkedBinarySerde serde)
+                    throws IOException {
         if (arrays != null && arrays.length > 0) {
             for (INDArray fm : arrays) {
                 if (isMask && fm == null) {
@@ -227,7 +245,10 @@ public class MultiDataSet implements org.nd4j.linalg.dataset.api.MultiDataSet {
                     }
                     fm = temp;
                 }
-                Nd4j.write(fm, dos);
+                if (serde != null)
+                    serde.write(fm, dos);
+                else
+                    Nd4j.write(fm, dos);
             }
         }
     }
@@ -237,27 +258,42 @@ public class MultiDataSet implements org.nd4j.linalg.dataset.api.MultiDataSet {
         save(new FileOutputStream(to));
     }
 
+    /**
+     * Save this MultiDataSet to the file using chunked binary format.
+     *
+     * @see #save(OutputStream, ChunkedBinarySerde)
+     */
+    public void save(File to, ChunkedBinarySerde serde) throws IOException {
+        save(new BufferedOutputStream(new FileOutputStream(to)), serde);
+    }
+
     @Override
     public void load(InputStream from) throws IOException {
         try (DataInputStream dis = new DataInputStream(from)) {
             int numFArr = dis.readInt();
+            ChunkedBinarySerde serde = null;
+            if (numFArr == CHUNKED_MARKER) {
+                serde = ChunkedBinarySerde.getDefault();
+                numFArr = dis.readInt();
+            }
             int numLArr = dis.readInt();
             int numFMArr = dis.readInt();
             int numLMArr = dis.readInt();
 
-            features = loadINDArrays(numFArr, dis, false);
-            labels = loadINDArrays(numLArr, dis, false);
-            featuresMaskArrays = loadINDArrays(numFMArr, dis, true);
-            labelsMaskArrays = loadINDArrays(numLMArr, dis, true);
+            features = loadINDArrays(numFArr, dis, false, serde);
+            labels = loadINDArrays(numLArr, dis, false, serde);
+            featuresMaskArrays = loadINDArrays(numFMArr, dis, true, serde);
+            labelsMaskArrays = loadINDArrays(numLMArr, dis, true, serde);
         }
     }
 
-    private INDArray[] loadINDArrays(int numArrays, DataInputStream dis, boolean isMask) throws IOException {
+    private INDArray[] loadINDArrays(int numArrays, DataInputStream dis, boolean isMask, ChunkedBinarySerde serde)
+                    throws IOException {
         INDArray[] result = null;
         if (numArrays > 0) {
             result = new INDArray[numArrays];
             for (int i = 0; i < numArrays; i++) {
-                INDArray arr = Nd4j.read(dis);
+                INDArray arr = serde != null ? serde.read(dis) : Nd4j.read(dis);
                 result[i] = isMask && arr.equals(EMPTY_MASK_ARRAY_PLACEHOLDER.get()) ? null : arr;
             }
         }
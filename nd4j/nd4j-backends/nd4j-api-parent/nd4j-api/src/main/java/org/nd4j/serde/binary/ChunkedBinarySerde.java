@@ -0,0 +1,432 @@
+package org.nd4j.serde.binary;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.BytePointer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.concurrency.AffinityManager;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.executors.ExecutorServiceProvider;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Chunked binary serialization for INDArrays.
+ *
+ * Array data is split into fixed size chunks, each one optionally compressed and protected by CRC32 checksum.
+ * Chunks are encoded & decoded in parallel, straight from & to DataBuffer memory, while stream itself is written and
+ * read sequentially. Unlike {@link org.nd4j.linalg.factory.Nd4j#write(INDArray, DataOutputStream)}, there's no
+ * per-element conversion, so this format is suited for large arrays and DataSets.
+ *
+ * Format of single array: header (magic, version, data type, byte order, ordering, shape, chunk size, number of chunks),
+ * followed by chunks, each one prefixed with compression flag, raw & stored lengths and checksum.
+ *
+ * @see org.nd4j.linalg.dataset.DataSet#save(OutputStream, ChunkedBinarySerde)
+ * @see org.nd4j.linalg.dataset.MultiDataSet#save(OutputStream, ChunkedBinarySerde)
+ */
+@Slf4j
+public class ChunkedBinarySerde {
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final int MAGIC = 0x4E44434B;
+    private static final byte VERSION = 1;
+    private static final byte CHUNK_RAW = 0;
+    private static final byte CHUNK_DEFLATE = 1;
+
+    private static final ChunkedBinarySerde DEFAULT_INSTANCE = new Builder().build();
+
+    public enum Compression {
+        NONE, DEFLATE
+    }
+
+    private final int chunkSize;
+    private final Compression compression;
+    private final int compressionLevel;
+    private final int maxChunksInFlight;
+
+    protected ChunkedBinarySerde(Builder builder) {
+        this.chunkSize = builder.chunkSize;
+        this.compression = builder.compression;
+        this.compressionLevel = builder.compressionLevel;
+        this.maxChunksInFlight = builder.maxChunksInFlight;
+    }
+
+    /**
+     * Returns instance with default settings: 4MB chunks, no compression
+     *
+     * @return
+     */
+    public static ChunkedBinarySerde getDefault() {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * This method writes given array to the stream
+     *
+     * @param arr array to write
+     * @param out stream to write to. Stream isn't closed by this method
+     * @throws IOException
+     */
+    public void write(@NonNull INDArray arr, @NonNull OutputStream out) throws IOException {
+        if (arr.isCompressed())
+            arr = Nd4j.getCompressor().decompress(arr);
+
+        // we need contiguous buffer holding exactly this array, in its own ordering
+        if (arr.isView() || arr.data().offset() != 0 || arr.data().length() != arr.length())
+            arr = arr.dup(arr.ordering());
+
+        Nd4j.getAffinityManager().ensureLocation(arr, AffinityManager.Location.HOST);
+
+        DataBuffer buffer = arr.data();
+        long[] shape = arr.shape();
+        long totalBytes = arr.length() * buffer.getElementSize();
+        int numChunks = (int) ((totalBytes + chunkSize - 1) / chunkSize);
+
+        DataOutputStream dos = out instanceof DataOutputStream ? (DataOutputStream) out : new DataOutputStream(out);
+        dos.writeInt(MAGIC);
+        dos.writeByte(VERSION);
+        dos.writeUTF(buffer.dataType().name());
+        dos.writeByte(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 0 : 1);
+        dos.writeChar(arr.ordering());
+        dos.writeInt(shape.length);
+        for (long s : shape)
+            dos.writeLong(s);
+        dos.writeInt(chunkSize);
+        dos.writeInt(numChunks);
+
+        BytePointer pointer = bytePointer(buffer, totalBytes);
+        ExecutorService executor = ExecutorServiceProvider.getExecutorService();
+        Deque<Future<EncodedChunk>> inFlight = new ArrayDeque<>();
+        try {
+            for (int c = 0; c < numChunks; c++) {
+                long start = (long) c * chunkSize;
+                long end = Math.min(totalBytes, start + chunkSize);
+                final ByteBuffer slice = pointer.position(start).limit(end).asByteBuffer();
+
+                inFlight.add(executor.submit(new Callable<EncodedChunk>() {
+                    @Override
+                    public EncodedChunk call() throws Exception {
+                        return encode(slice);
+                    }
+                }));
+
+                if (inFlight.size() >= maxChunksInFlight)
+                    writeChunk(dos, get(inFlight.poll()));
+            }
+
+            while (!inFlight.isEmpty())
+                writeChunk(dos, get(inFlight.poll()));
+        } finally {
+            for (Future<EncodedChunk> f : inFlight)
+                f.cancel(true);
+        }
+
+        dos.flush();
+    }
+
+    /**
+     * This method reads array, written by {@link #write(INDArray, OutputStream)}, from the stream
+     *
+     * @param in stream to read from. Stream isn't closed by this method
+     * @return
+     * @throws IOException
+     */
+    public INDArray read(@NonNull InputStream in) throws IOException {
+        DataInputStream dis = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+        if (dis.readInt() != MAGIC)
+            throw new IOException("Not a chunked array: magic number mismatch");
+
+        byte version = dis.readByte();
+        if (version != VERSION)
+            throw new IOException("Unsupported chunked array version: " + version);
+
+        DataBuffer.Type type = DataBuffer.Type.valueOf(dis.readUTF());
+        final ByteOrder byteOrder = dis.readByte() == 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        char ordering = dis.readChar();
+        long[] shape = new long[dis.readInt()];
+        long length = 1;
+        for (int i = 0; i < shape.length; i++) {
+            shape[i] = dis.readLong();
+            length *= shape[i];
+        }
+        int storedChunkSize = dis.readInt();
+        int numChunks = dis.readInt();
+
+        DataBuffer buffer = Nd4j.createBuffer(new long[] {length}, type);
+        final int elementSize = buffer.getElementSize();
+        final long totalBytes = length * elementSize;
+        BytePointer pointer = bytePointer(buffer, totalBytes);
+
+        ExecutorService executor = ExecutorServiceProvider.getExecutorService();
+        Deque<Future<?>> inFlight = new ArrayDeque<>();
+        try {
+            for (int c = 0; c < numChunks; c++) {
+                final int chunkIdx = c;
+                final byte codec = dis.readByte();
+                final int rawLength = dis.readInt();
+                int storedLength = dis.readInt();
+                final int checksum = dis.readInt();
+
+                long start = (long) c * storedChunkSize;
+                if (start + rawLength > totalBytes)
+                    throw new IOException("Chunk " + c + " exceeds array length. Corrupt serialization?");
+
+                final byte[] stored = new byte[storedLength];
+                dis.readFully(stored);
+                final ByteBuffer target = pointer.position(start).limit(start + rawLength).asByteBuffer();
+
+                inFlight.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        decode(chunkIdx, codec, stored, rawLength, checksum, target, byteOrder, elementSize);
+                        return null;
+                    }
+                }));
+
+                if (inFlight.size() >= maxChunksInFlight)
+                    get(inFlight.poll());
+            }
+
+            while (!inFlight.isEmpty())
+                get(inFlight.poll());
+        } finally {
+            for (Future<?> f : inFlight)
+                f.cancel(true);
+        }
+
+        Nd4j.getAffinityManager().tagLocation(buffer, AffinityManager.Location.HOST);
+
+        return Nd4j.create(buffer, shape, Nd4j.getStrides(shape, ordering), 0, ordering);
+    }
+
+    /**
+     * This method writes given array to the file
+     *
+     * @param arr
+     * @param file
+     * @throws IOException
+     */
+    public void write(@NonNull INDArray arr, @NonNull File file) throws IOException {
+        try (BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(arr, bos);
+        }
+    }
+
+    /**
+     * This method reads array from the file
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public INDArray read(@NonNull File file) throws IOException {
+        try (BufferedInputStream bis = new BufferedInputStream(new FileInputStream(file))) {
+            return read(bis);
+        }
+    }
+
+    protected EncodedChunk encode(ByteBuffer slice) {
+        byte[] raw = new byte[slice.remaining()];
+        slice.get(raw);
+
+        CRC32 crc = new CRC32();
+        crc.update(raw, 0, raw.length);
+        int checksum = (int) crc.getValue();
+
+        if (compression == Compression.DEFLATE) {
+            Deflater deflater = new Deflater(compressionLevel);
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+                byte[] compressed = new byte[raw.length];
+                int len = 0;
+                while (!deflater.finished() && len < compressed.length)
+                    len += deflater.deflate(compressed, len, compressed.length - len);
+
+                // incompressible data is stored as is
+                if (deflater.finished() && len < raw.length)
+                    return new EncodedChunk(CHUNK_DEFLATE, raw.length, checksum, compressed, len);
+            } finally {
+                deflater.end();
+            }
+        }
+
+        return new EncodedChunk(CHUNK_RAW, raw.length, checksum, raw, raw.length);
+    }
+
+    protected void decode(int chunkIdx, byte codec, byte[] stored, int rawLength, int checksum, ByteBuffer target,
+                    ByteOrder byteOrder, int elementSize) throws IOException {
+        byte[] raw;
+        if (codec == CHUNK_DEFLATE) {
+            raw = new byte[rawLength];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(stored);
+                int len = 0;
+                while (len < rawLength && !inflater.finished()) {
+                    int n = inflater.inflate(raw, len, rawLength - len);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                        break;
+                    len += n;
+                }
+                if (len != rawLength)
+                    throw new IOException("Chunk " + chunkIdx + " is truncated. Corrupt serialization?");
+            } catch (DataFormatException e) {
+                throw new IOException("Unable to decompress chunk " + chunkIdx, e);
+            } finally {
+                inflater.end();
+            }
+        } else if (codec == CHUNK_RAW) {
+            raw = stored;
+        } else {
+            throw new IOException("Unknown codec for chunk " + chunkIdx + ": " + codec);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(raw, 0, rawLength);
+        if ((int) crc.getValue() != checksum)
+            throw new IOException("Checksum mismatch for chunk " + chunkIdx + ". Corrupt serialization?");
+
+        target.put(raw, 0, rawLength);
+
+        // chunk size is multiple of 8, so chunks never split elements
+        if (byteOrder != ByteOrder.nativeOrder())
+            swapBytes(target, elementSize);
+    }
+
+    /**
+     * This method converts chunk data written on machine with different byte order
+     */
+    protected static void swapBytes(ByteBuffer target, int elementSize) {
+        target.clear();
+        int limit = target.limit();
+        for (int p = 0; p + elementSize <= limit; p += elementSize) {
+            for (int i = 0, j = elementSize - 1; i < j; i++, j--) {
+                byte b = target.get(p + i);
+                target.put(p + i, target.get(p + j));
+                target.put(p + j, b);
+            }
+        }
+    }
+
+    protected static void writeChunk(DataOutputStream dos, EncodedChunk chunk) throws IOException {
+        dos.writeByte(chunk.codec);
+        dos.writeInt(chunk.rawLength);
+        dos.writeInt(chunk.storedLength);
+        dos.writeInt(chunk.checksum);
+        dos.write(chunk.data, 0, chunk.storedLength);
+    }
+
+    protected static BytePointer bytePointer(DataBuffer buffer, long totalBytes) {
+        BytePointer pointer = new BytePointer(buffer.addressPointer());
+        pointer.capacity(totalBytes);
+        pointer.limit(totalBytes);
+        return pointer;
+    }
+
+    protected static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    protected static class EncodedChunk {
+        private final byte codec;
+        private final int rawLength;
+        private final int checksum;
+        private final byte[] data;
+        private final int storedLength;
+
+        protected EncodedChunk(byte codec, int rawLength, int checksum, byte[] data, int storedLength) {
+            this.codec = codec;
+            this.rawLength = rawLength;
+            this.checksum = checksum;
+            this.data = data;
+            this.storedLength = storedLength;
+        }
+    }
+
+    public static class Builder {
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+        private Compression compression = Compression.NONE;
+        private int compressionLevel = Deflater.BEST_SPEED;
+        private int maxChunksInFlight = 2 * Runtime.getRuntime().availableProcessors();
+
+        public Builder() {}
+
+        /**
+         * Size of single chunk, in bytes. Should be multiple of 8, so chunks never split array elements.
+         * Default value: 4MB
+         *
+         * @param chunkSize
+         */
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize < 8 || chunkSize % 8 != 0)
+                throw new IllegalArgumentException("Chunk size should be positive multiple of 8");
+
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Compression applied to each chunk. Default value: NONE
+         *
+         * @param compression
+         */
+        public Builder compression(@NonNull Compression compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        /**
+         * Compression level, 1 to 9. Default value: 1 (fastest)
+         *
+         * @param compressionLevel
+         */
+        public Builder compressionLevel(int compressionLevel) {
+            if (compressionLevel < 1 || compressionLevel > 9)
+                throw new IllegalArgumentException("Compression level should be in range 1..9");
+
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        /**
+         * Max number of chunks being encoded/decoded at once, this bounds memory used for staging.
+         * Default value: 2 * number of cores
+         *
+         * @param maxChunksInFlight
+         */
+        public Builder maxChunksInFlight(int maxChunksInFlight) {
+            if (maxChunksInFlight < 1)
+                throw new IllegalArgumentException("Number of chunks in flight should be positive value");
+
+            this.maxChunksInFlight = maxChunksInFlight;
+            return this;
+        }
+
+        public ChunkedBinarySerde build() {
+            return new ChunkedBinarySerde(this);
+        }
+    }
+}
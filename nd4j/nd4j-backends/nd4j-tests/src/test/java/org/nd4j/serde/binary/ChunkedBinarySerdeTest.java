@@ -0,0 +1,130 @@
+package org.nd4j.serde.binary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class ChunkedBinarySerdeTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private static INDArray roundTrip(ChunkedBinarySerde serde, INDArray arr) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serde.write(arr, baos);
+        return serde.read(new ByteArrayInputStream(baos.toByteArray()));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        INDArray c = Nd4j.rand(new int[] {37, 11, 5}, 12345);
+        INDArray f = c.dup('f');
+        INDArray view = c.get(NDArrayIndex.interval(3, 20), NDArrayIndex.all(), NDArrayIndex.point(2));
+
+        for (ChunkedBinarySerde.Compression compression : ChunkedBinarySerde.Compression.values()) {
+            // small chunks, to get plenty of them, including last partial one
+            ChunkedBinarySerde serde = new ChunkedBinarySerde.Builder().chunkSize(64).compression(compression)
+                            .maxChunksInFlight(3).build();
+
+            for (INDArray arr : new INDArray[] {c, f, view, Nd4j.scalar(3.0), Nd4j.zeros(1000)}) {
+                INDArray restored = roundTrip(serde, arr);
+                assertEquals(arr, restored);
+                assertArrayEquals(arr.shape(), restored.shape());
+                assertEquals(arr.isView() ? 'c' : arr.ordering(), restored.ordering());
+            }
+        }
+    }
+
+    @Test
+    public void testCompressionShrinksRedundantData() throws Exception {
+        INDArray arr = Nd4j.zeros(100000);
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        ChunkedBinarySerde.getDefault().write(arr, raw);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new ChunkedBinarySerde.Builder().compression(ChunkedBinarySerde.Compression.DEFLATE).build().write(arr,
+                        compressed);
+
+        assertTrue(compressed.size() * 10 < raw.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testChecksumMismatch() throws Exception {
+        INDArray arr = Nd4j.linspace(1, 100, 100);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ChunkedBinarySerde.getDefault().write(arr, baos);
+
+        byte[] bytes = baos.toByteArray();
+        bytes[bytes.length - 3] ^= 0x55;
+        ChunkedBinarySerde.getDefault().read(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    public void testFile() throws Exception {
+        File file = testDir.newFile();
+        INDArray arr = Nd4j.rand(100, 100);
+        ChunkedBinarySerde serde = new ChunkedBinarySerde.Builder().chunkSize(1024).build();
+        serde.write(arr, file);
+        assertEquals(arr, serde.read(file));
+    }
+
+    @Test
+    public void testDataSet() throws Exception {
+        INDArray features = Nd4j.rand(10, 4);
+        INDArray labels = Nd4j.rand(10, 3);
+        INDArray labelsMask = Nd4j.ones(10, 1);
+        DataSet ds = new DataSet(features, labels, null, labelsMask);
+
+        ChunkedBinarySerde serde = new ChunkedBinarySerde.Builder().chunkSize(16)
+                        .compression(ChunkedBinarySerde.Compression.DEFLATE).build();
+        File file = testDir.newFile();
+        ds.save(file, serde);
+
+        DataSet restored = new DataSet();
+        restored.load(file);
+        assertEquals(ds, restored);
+        assertNull(restored.getFeaturesMaskArray());
+
+        // labels same as features are stored once
+        DataSet unsupervised = new DataSet(features, features);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        unsupervised.save(baos, serde);
+        restored = new DataSet();
+        restored.load(new ByteArrayInputStream(baos.toByteArray()));
+        assertEquals(features, restored.getFeatures());
+        assertTrue(restored.getFeatures() == restored.getLabels());
+    }
+
+    @Test
+    public void testMultiDataSet() throws Exception {
+        INDArray[] features = new INDArray[] {Nd4j.rand(5, 4), Nd4j.rand(new int[] {5, 2, 3}, 123)};
+        INDArray[] labels = new INDArray[] {Nd4j.rand(5, 2)};
+        INDArray[] labelsMask = new INDArray[] {Nd4j.ones(5, 1)};
+        MultiDataSet mds = new MultiDataSet(features, labels, null, labelsMask);
+
+        File file = testDir.newFile();
+        mds.save(file, new ChunkedBinarySerde.Builder().chunkSize(32).build());
+
+        MultiDataSet restored = new MultiDataSet();
+        restored.load(file);
+        assertEquals(mds, restored);
+
+        // default format still works
+        mds.save(file);
+        restored = new MultiDataSet();
+        restored.load(file);
+        assertEquals(mds, restored);
+    }
+}
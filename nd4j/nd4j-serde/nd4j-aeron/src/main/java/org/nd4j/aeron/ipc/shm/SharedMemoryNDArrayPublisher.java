@@ -0,0 +1,166 @@
+package org.nd4j.aeron.ipc.shm;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.concurrency.AffinityManager;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NDArray publisher for processes on the same host.
+ *
+ * Unlike {@link org.nd4j.aeron.ipc.AeronNDArrayPublisher}, there's no media driver and no serialization step:
+ * array header (data type, ordering, shape) and raw array data are written in place into
+ * {@link SharedMemoryRingBuffer}, so hand-off costs a single memory copy.
+ * Arrays published here are received with {@link SharedMemoryNDArraySubscriber} in another JVM.
+ *
+ * For request/response use (i.e. remote inference), use two ring buffers: one for requests and one for results.
+ *
+ * PLEASE NOTE: This class isn't thread safe, only one thread may publish to the ring at a time.
+ */
+@Slf4j
+public class SharedMemoryNDArrayPublisher implements AutoCloseable {
+    // message header: int rank, byte data type, byte ordering, 2 bytes padding, followed by long[rank] shape
+    static final int MESSAGE_HEADER_LENGTH = 8;
+
+    private final SharedMemoryRingBuffer ring;
+    private final boolean ownsRing;
+    private final IdleStrategy idleStrategy = new BackoffIdleStrategy(100, 10, 1000, TimeUnit.MICROSECONDS.toNanos(100));
+    private final UnsafeBuffer source = new UnsafeBuffer(0, 0);
+
+    /**
+     * @param ring ring buffer to publish to. Ring isn't closed by {@link #close()}
+     */
+    public SharedMemoryNDArrayPublisher(@NonNull SharedMemoryRingBuffer ring) {
+        this(ring, false);
+    }
+
+    /**
+     * This constructor creates new ring buffer file, consumer should open it with
+     * {@link SharedMemoryNDArraySubscriber#SharedMemoryNDArraySubscriber(File)}
+     *
+     * @param file     ring buffer file, preferably on tmpfs (i.e. /dev/shm)
+     * @param capacity ring capacity in bytes, power of 2. Should be at least twice as large as largest array published
+     */
+    public SharedMemoryNDArrayPublisher(@NonNull File file, int capacity) {
+        this(SharedMemoryRingBuffer.create(file, capacity), true);
+    }
+
+    private SharedMemoryNDArrayPublisher(SharedMemoryRingBuffer ring, boolean ownsRing) {
+        this.ring = ring;
+        this.ownsRing = ownsRing;
+    }
+
+    /**
+     * This method publishes array, waiting for free space in the ring if necessary
+     *
+     * @param arr
+     * @throws InterruptedException
+     */
+    public void publish(@NonNull INDArray arr) throws InterruptedException {
+        offer(arr, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * This method tries to publish array, without waiting
+     *
+     * @param arr
+     * @return true if array was published, false if there's no free space in the ring at this moment
+     */
+    public boolean offer(@NonNull INDArray arr) {
+        arr = prepare(arr);
+        return tryWrite(arr, payloadLength(arr));
+    }
+
+    /**
+     * This method publishes array, waiting up to given timeout for free space in the ring
+     *
+     * @param arr
+     * @param timeout
+     * @param timeUnit
+     * @return true if array was published, false if timeout elapsed
+     * @throws InterruptedException
+     */
+    public boolean offer(@NonNull INDArray arr, long timeout, @NonNull TimeUnit timeUnit) throws InterruptedException {
+        arr = prepare(arr);
+        int length = payloadLength(arr);
+        long start = System.nanoTime();
+        long timeoutNanos = timeUnit.toNanos(timeout);
+
+        idleStrategy.reset();
+        while (!tryWrite(arr, length)) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (System.nanoTime() - start >= timeoutNanos)
+                return false;
+
+            idleStrategy.idle();
+        }
+        return true;
+    }
+
+    protected INDArray prepare(INDArray arr) {
+        if (arr.isCompressed())
+            arr = Nd4j.getCompressor().decompress(arr);
+
+        // we write array data with single copy, so buffer should hold exactly this array
+        if (arr.isView() || arr.data().offset() != 0 || arr.data().length() != arr.length())
+            arr = arr.dup(arr.ordering());
+
+        Nd4j.getAffinityManager().ensureLocation(arr, AffinityManager.Location.HOST);
+        return arr;
+    }
+
+    protected int payloadLength(INDArray arr) {
+        long length = MESSAGE_HEADER_LENGTH + 8L * arr.rank() + arr.length() * arr.data().getElementSize();
+        if (length > ring.maxPayloadLength())
+            throw new IllegalArgumentException("Array of " + length + " bytes exceeds max message length "
+                            + ring.maxPayloadLength() + ". Use ring buffer of larger capacity");
+        return (int) length;
+    }
+
+    protected boolean tryWrite(INDArray arr, int length) {
+        int offset = ring.tryClaim(length);
+        if (offset < 0)
+            return false;
+
+        UnsafeBuffer buffer = ring.buffer();
+        DataBuffer data = arr.data();
+        long[] shape = arr.shape();
+
+        buffer.putInt(offset, shape.length);
+        buffer.putByte(offset + 4, (byte) data.dataType().ordinal());
+        buffer.putByte(offset + 5, (byte) arr.ordering());
+        int position = offset + MESSAGE_HEADER_LENGTH;
+        for (long s : shape) {
+            buffer.putLong(position, s);
+            position += 8;
+        }
+
+        int dataLength = length - (position - offset);
+        if (dataLength > 0) {
+            source.wrap(data.addressPointer().address(), dataLength);
+            buffer.putBytes(position, source, 0, dataLength);
+        }
+
+        ring.commit();
+        return true;
+    }
+
+    public SharedMemoryRingBuffer getRing() {
+        return ring;
+    }
+
+    @Override
+    public void close() {
+        if (ownsRing)
+            ring.close();
+    }
+}
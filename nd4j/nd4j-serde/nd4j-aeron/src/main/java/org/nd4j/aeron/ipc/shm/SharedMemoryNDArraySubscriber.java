@@ -0,0 +1,215 @@
+package org.nd4j.aeron.ipc.shm;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.nd4j.aeron.ipc.NDArrayCallback;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.concurrency.AffinityManager;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Subscriber for ndarrays published with {@link SharedMemoryNDArrayPublisher}, possibly from another JVM on the
+ * same host.
+ *
+ * Arrays can be received either with {@link #receive(long, TimeUnit)}, or passed to {@link NDArrayCallback#onNDArray(INDArray)},
+ * either by calling {@link #poll(int)} from caller thread, or from background thread started with {@link #launch()}.
+ * Each received array is copied out of the ring with single memory copy, so it stays valid after ring slot is reused.
+ *
+ * PLEASE NOTE: Only one thread may receive from the ring at a time.
+ */
+@Slf4j
+public class SharedMemoryNDArraySubscriber implements AutoCloseable {
+    private final SharedMemoryRingBuffer ring;
+    private final boolean ownsRing;
+    private final NDArrayCallback callback;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final UnsafeBuffer target = new UnsafeBuffer(0, 0);
+    private Thread thread;
+
+    // used by receive() only
+    private INDArray received;
+    private final SharedMemoryRingBuffer.RecordHandler receiveHandler = new SharedMemoryRingBuffer.RecordHandler() {
+        @Override
+        public void onRecord(UnsafeBuffer buffer, int offset, int length) {
+            received = decode(buffer, offset, length);
+        }
+    };
+
+    private final SharedMemoryRingBuffer.RecordHandler callbackHandler = new SharedMemoryRingBuffer.RecordHandler() {
+        @Override
+        public void onRecord(UnsafeBuffer buffer, int offset, int length) {
+            callback.onNDArray(decode(buffer, offset, length));
+        }
+    };
+
+    /**
+     * This constructor maps existing ring buffer file, created by publisher. Arrays can be received with
+     * {@link #receive(long, TimeUnit)} only.
+     *
+     * @param file
+     */
+    public SharedMemoryNDArraySubscriber(@NonNull File file) {
+        this(SharedMemoryRingBuffer.open(file), true, null);
+    }
+
+    /**
+     * This constructor maps existing ring buffer file, created by publisher
+     *
+     * @param file
+     * @param callback callback to pass received arrays to
+     */
+    public SharedMemoryNDArraySubscriber(@NonNull File file, @NonNull NDArrayCallback callback) {
+        this(SharedMemoryRingBuffer.open(file), true, callback);
+    }
+
+    /**
+     * @param ring     ring buffer to receive from. Ring isn't closed by {@link #close()}
+     * @param callback callback to pass received arrays to, may be null if {@link #receive(long, TimeUnit)} is used
+     */
+    public SharedMemoryNDArraySubscriber(@NonNull SharedMemoryRingBuffer ring, NDArrayCallback callback) {
+        this(ring, false, callback);
+    }
+
+    private SharedMemoryNDArraySubscriber(SharedMemoryRingBuffer ring, boolean ownsRing, NDArrayCallback callback) {
+        this.ring = ring;
+        this.ownsRing = ownsRing;
+        this.callback = callback;
+    }
+
+    /**
+     * This method passes up to limit arrays available in the ring to the callback, without waiting
+     *
+     * @param limit
+     * @return number of arrays received
+     */
+    public int poll(int limit) {
+        if (callback == null)
+            throw new IllegalStateException("NDArray callback wasn't specified");
+
+        return ring.read(callbackHandler, limit);
+    }
+
+    /**
+     * This method returns next array from the ring, waiting up to given timeout
+     *
+     * @param timeout
+     * @param timeUnit
+     * @return received array, or null if timeout elapsed
+     * @throws InterruptedException
+     */
+    public INDArray receive(long timeout, @NonNull TimeUnit timeUnit) throws InterruptedException {
+        IdleStrategy idleStrategy = newIdleStrategy();
+        long start = System.nanoTime();
+        long timeoutNanos = timeUnit.toNanos(timeout);
+        while (ring.read(receiveHandler, 1) == 0) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (System.nanoTime() - start >= timeoutNanos)
+                return null;
+
+            idleStrategy.idle();
+        }
+
+        INDArray result = received;
+        received = null;
+        return result;
+    }
+
+    /**
+     * Returns true if background thread is running
+     *
+     * @return
+     */
+    public boolean launched() {
+        return running.get();
+    }
+
+    /**
+     * This method launches background thread, which passes received arrays to the callback until {@link #close()}
+     */
+    public synchronized void launch() {
+        if (callback == null)
+            throw new IllegalStateException("NDArray callback wasn't specified");
+        if (!running.compareAndSet(false, true))
+            return;
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                IdleStrategy idleStrategy = newIdleStrategy();
+                while (running.get()) {
+                    int count;
+                    try {
+                        count = ring.read(callbackHandler, 16);
+                    } catch (Exception e) {
+                        log.error("NDArray callback failed", e);
+                        count = 1;
+                    }
+                    idleStrategy.idle(count);
+                }
+            }
+        }, "SharedMemoryNDArraySubscriber-" + ring.getFile().getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    protected INDArray decode(UnsafeBuffer buffer, int offset, int length) {
+        int rank = buffer.getInt(offset);
+        DataBuffer.Type type = DataBuffer.Type.values()[buffer.getByte(offset + 4)];
+        char ordering = (char) buffer.getByte(offset + 5);
+
+        long[] shape = new long[rank];
+        int position = offset + SharedMemoryNDArrayPublisher.MESSAGE_HEADER_LENGTH;
+        long arrayLength = 1;
+        for (int i = 0; i < rank; i++) {
+            shape[i] = buffer.getLong(position);
+            arrayLength *= shape[i];
+            position += 8;
+        }
+
+        DataBuffer data = Nd4j.createBuffer(new long[] {arrayLength}, type);
+        int dataLength = length - (position - offset);
+        if (dataLength != arrayLength * data.getElementSize())
+            throw new IllegalStateException("Array data length mismatch: " + dataLength + " bytes for "
+                            + arrayLength + " elements of " + type);
+
+        if (dataLength > 0) {
+            target.wrap(data.addressPointer().address(), dataLength);
+            buffer.getBytes(position, target, 0, dataLength);
+        }
+        Nd4j.getAffinityManager().tagLocation(data, AffinityManager.Location.HOST);
+
+        return Nd4j.create(data, shape, Nd4j.getStrides(shape, ordering), 0, ordering);
+    }
+
+    protected IdleStrategy newIdleStrategy() {
+        return new BackoffIdleStrategy(100, 10, 1000, TimeUnit.MICROSECONDS.toNanos(100));
+    }
+
+    public SharedMemoryRingBuffer getRing() {
+        return ring;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        Thread t;
+        synchronized (this) {
+            running.set(false);
+            t = thread;
+            thread = null;
+        }
+        if (t != null)
+            t.join();
+
+        if (ownsRing)
+            ring.close();
+    }
+}
@@ -0,0 +1,274 @@
+package org.nd4j.aeron.ipc.shm;
+
+import lombok.NonNull;
+import org.agrona.BitUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Single producer/single consumer ring buffer, backed by memory mapped file.
+ *
+ * This is the transport used by {@link SharedMemoryNDArrayPublisher} and {@link SharedMemoryNDArraySubscriber}:
+ * both sides map the same file, producer claims space for a record and writes payload in place, and consumer
+ * reads it in place. There's no media driver involved, so it only works for processes on the same host.
+ *
+ * File layout: metadata (magic, capacity, producer & consumer positions, each one on separate cache line),
+ * followed by data region of power-of-2 capacity. Each record is prefixed with its length & type, and records are
+ * aligned to 8 bytes. Record length is written last, with ordered store, so consumer never sees partial record.
+ * Consumer zeroes consumed records before releasing them to producer.
+ *
+ * PLEASE NOTE: Only one thread (in one process) may write to the ring, and only one thread may read from it.
+ *
+ * @see SharedMemoryNDArrayPublisher
+ * @see SharedMemoryNDArraySubscriber
+ */
+public class SharedMemoryRingBuffer implements AutoCloseable {
+    public static final int HEADER_LENGTH = 8;
+    public static final int ALIGNMENT = 8;
+
+    private static final int MAGIC = 0x4E445342;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int TAIL_OFFSET = 64;
+    private static final int HEAD_OFFSET = 128;
+    private static final int METADATA_LENGTH = 256;
+
+    private static final int TYPE_MESSAGE = 1;
+    private static final int TYPE_PADDING = 2;
+
+    /**
+     * Handler for records read from the ring
+     */
+    public interface RecordHandler {
+        /**
+         * This method is called for every record. Buffer contents are valid only until this method returns
+         *
+         * @param buffer buffer holding the record
+         * @param offset offset of the payload within buffer
+         * @param length payload length, in bytes
+         */
+        void onRecord(UnsafeBuffer buffer, int offset, int length);
+    }
+
+    private final File file;
+    private final MappedByteBuffer mapped;
+    private final UnsafeBuffer metadata;
+    private final UnsafeBuffer data;
+    private final int capacity;
+    private final int mask;
+
+    // producer-local state
+    private long headCache;
+    private int claimIndex = -1;
+    private int claimLength;
+
+    private SharedMemoryRingBuffer(File file, MappedByteBuffer mapped) {
+        this.file = file;
+        this.mapped = mapped;
+        this.metadata = new UnsafeBuffer(mapped, 0, METADATA_LENGTH);
+
+        if (metadata.getIntVolatile(MAGIC_OFFSET) != MAGIC)
+            throw new IllegalStateException("File " + file + " isn't a shared memory ring buffer");
+
+        this.capacity = metadata.getInt(CAPACITY_OFFSET);
+        if (mapped.capacity() != METADATA_LENGTH + capacity)
+            throw new IllegalStateException("Ring buffer file " + file + " is truncated");
+
+        this.data = new UnsafeBuffer(mapped, METADATA_LENGTH, capacity);
+        this.mask = capacity - 1;
+        this.headCache = metadata.getLongVolatile(HEAD_OFFSET);
+    }
+
+    /**
+     * This method creates new ring buffer file, overwriting existing one if any
+     *
+     * @param file     file to create. For lowest latency it should reside on tmpfs, i.e. /dev/shm
+     * @param capacity capacity of the data region in bytes, should be power of 2
+     * @return
+     */
+    public static SharedMemoryRingBuffer create(@NonNull File file, int capacity) {
+        if (!BitUtil.isPowerOfTwo(capacity) || capacity < 1024)
+            throw new IllegalArgumentException("Capacity should be power of 2, and at least 1024 bytes: " + capacity);
+
+        if (file.exists() && !file.delete())
+            throw new IllegalStateException("Unable to delete existing file " + file);
+
+        // new file is zero-filled
+        MappedByteBuffer mapped = map(file, METADATA_LENGTH + (long) capacity);
+        UnsafeBuffer metadata = new UnsafeBuffer(mapped, 0, METADATA_LENGTH);
+        metadata.putInt(CAPACITY_OFFSET, capacity);
+        metadata.putIntOrdered(MAGIC_OFFSET, MAGIC);
+
+        return new SharedMemoryRingBuffer(file, mapped);
+    }
+
+    /**
+     * This method maps existing ring buffer file, created with {@link #create(File, int)}
+     *
+     * @param file
+     * @return
+     */
+    public static SharedMemoryRingBuffer open(@NonNull File file) {
+        if (!file.exists())
+            throw new IllegalStateException("Ring buffer file " + file + " doesn't exist");
+
+        return new SharedMemoryRingBuffer(file, map(file, -1));
+    }
+
+    private static MappedByteBuffer map(File file, long length) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            if (length >= 0)
+                raf.setLength(length);
+            // mapping stays valid after channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to map ring buffer file " + file, e);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Max payload length for single record
+     *
+     * @return
+     */
+    public int maxPayloadLength() {
+        // at most one padding record might be needed in front of the record
+        return capacity / 2 - HEADER_LENGTH;
+    }
+
+    /**
+     * Underlying buffer, payload offsets returned by {@link #tryClaim(int)} are relative to it
+     *
+     * @return
+     */
+    public UnsafeBuffer buffer() {
+        return data;
+    }
+
+    /**
+     * This method claims space for record with given payload length. Payload should be written to
+     * {@link #buffer()} at returned offset, and then published with {@link #commit()}.
+     *
+     * @param length payload length in bytes
+     * @return payload offset, or -1 if there's not enough free space in the ring at this moment
+     */
+    public int tryClaim(int length) {
+        if (claimIndex >= 0)
+            throw new IllegalStateException("Previous claim wasn't committed yet");
+        if (length < 0 || length > maxPayloadLength())
+            throw new IllegalArgumentException("Payload length " + length + " exceeds max payload length "
+                            + maxPayloadLength() + ". Use ring buffer of larger capacity");
+
+        int recordLength = BitUtil.align(HEADER_LENGTH + length, ALIGNMENT);
+        long tail = metadata.getLong(TAIL_OFFSET);
+        int tailIndex = (int) (tail & mask);
+        int toEnd = capacity - tailIndex;
+        int required = recordLength > toEnd ? recordLength + toEnd : recordLength;
+
+        if (capacity - (tail - headCache) < required) {
+            headCache = metadata.getLongVolatile(HEAD_OFFSET);
+            if (capacity - (tail - headCache) < required)
+                return -1;
+        }
+
+        if (recordLength > toEnd) {
+            // record can't wrap, so the rest of the ring is skipped
+            data.putInt(tailIndex + 4, TYPE_PADDING);
+            data.putIntOrdered(tailIndex, toEnd);
+            tail += toEnd;
+            tailIndex = 0;
+            metadata.putLongOrdered(TAIL_OFFSET, tail);
+        }
+
+        claimIndex = tailIndex;
+        claimLength = HEADER_LENGTH + length;
+        return tailIndex + HEADER_LENGTH;
+    }
+
+    /**
+     * This method publishes record claimed with {@link #tryClaim(int)}, making it visible to consumer
+     */
+    public void commit() {
+        if (claimIndex < 0)
+            throw new IllegalStateException("Nothing was claimed");
+
+        data.putInt(claimIndex + 4, TYPE_MESSAGE);
+        data.putIntOrdered(claimIndex, claimLength);
+        metadata.putLongOrdered(TAIL_OFFSET,
+                        metadata.getLong(TAIL_OFFSET) + BitUtil.align(claimLength, ALIGNMENT));
+        claimIndex = -1;
+    }
+
+    /**
+     * This method reads up to given number of records, passing each one to the handler.
+     * Records are released even if handler throws an exception.
+     *
+     * @param handler
+     * @param limit max number of records to read
+     * @return number of records read
+     */
+    public int read(@NonNull RecordHandler handler, int limit) {
+        long head = metadata.getLong(HEAD_OFFSET);
+        int bytesRead = 0;
+        int count = 0;
+        try {
+            while (count < limit && bytesRead < capacity) {
+                int index = (int) ((head + bytesRead) & mask);
+                int recordLength = data.getIntVolatile(index);
+                if (recordLength <= 0)
+                    break;
+
+                int type = data.getInt(index + 4);
+                int alignedLength = BitUtil.align(recordLength, ALIGNMENT);
+                bytesRead += alignedLength;
+                try {
+                    if (type == TYPE_MESSAGE) {
+                        count++;
+                        handler.onRecord(data, index + HEADER_LENGTH, recordLength - HEADER_LENGTH);
+                    }
+                } finally {
+                    // producer relies on released memory being zeroed
+                    data.setMemory(index, alignedLength, (byte) 0);
+                }
+            }
+        } finally {
+            if (bytesRead > 0)
+                metadata.putLongOrdered(HEAD_OFFSET, head + bytesRead);
+        }
+
+        return count;
+    }
+
+    /**
+     * Number of bytes currently used by unread records
+     *
+     * @return
+     */
+    public int size() {
+        long head = metadata.getLongVolatile(HEAD_OFFSET);
+        long tail = metadata.getLongVolatile(TAIL_OFFSET);
+        return (int) (tail - head);
+    }
+
+    /**
+     * This method flushes ring state to the file. Mapping itself is released once this instance is garbage collected,
+     * file isn't removed.
+     */
+    @Override
+    public void close() {
+        mapped.force();
+    }
+}
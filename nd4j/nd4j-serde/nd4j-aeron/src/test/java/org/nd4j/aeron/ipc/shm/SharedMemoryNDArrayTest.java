@@ -0,0 +1,123 @@
+package org.nd4j.aeron.ipc.shm;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.aeron.ipc.NDArrayCallback;
+import org.nd4j.aeron.ipc.NDArrayMessage;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SharedMemoryNDArrayTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testRingBufferWrapAround() throws Exception {
+        File file = new File(testDir.getRoot(), "ring");
+        try (SharedMemoryRingBuffer producer = SharedMemoryRingBuffer.create(file, 1024);
+                        SharedMemoryRingBuffer consumer = SharedMemoryRingBuffer.open(file)) {
+            final List<Integer> received = new ArrayList<>();
+            SharedMemoryRingBuffer.RecordHandler handler = new SharedMemoryRingBuffer.RecordHandler() {
+                @Override
+                public void onRecord(UnsafeBuffer buffer, int offset, int length) {
+                    assertEquals(100, length);
+                    received.add(buffer.getInt(offset));
+                }
+            };
+
+            int sent = 0;
+            for (int round = 0; round < 50; round++) {
+                int offset;
+                while ((offset = producer.tryClaim(100)) >= 0) {
+                    producer.buffer().putInt(offset, sent++);
+                    producer.commit();
+                }
+                assertTrue(consumer.read(handler, round % 2 == 0 ? Integer.MAX_VALUE : 3) > 0);
+            }
+            while (consumer.read(handler, Integer.MAX_VALUE) > 0);
+
+            assertEquals(0, consumer.size());
+            assertEquals(sent, received.size());
+            for (int i = 0; i < sent; i++)
+                assertEquals(i, (int) received.get(i));
+        }
+    }
+
+    @Test
+    public void testPublishReceive() throws Exception {
+        File file = new File(testDir.getRoot(), "arrays");
+        INDArray c = Nd4j.rand(new int[] {3, 4, 5}, 123);
+        INDArray f = Nd4j.rand(7, 2).dup('f');
+        INDArray view = c.get(NDArrayIndex.point(1), NDArrayIndex.interval(1, 3), NDArrayIndex.all());
+        INDArray[] arrays = new INDArray[] {c, f, view, Nd4j.scalar(2.0)};
+
+        try (SharedMemoryNDArrayPublisher publisher = new SharedMemoryNDArrayPublisher(file, 4096);
+                        SharedMemoryNDArraySubscriber subscriber = new SharedMemoryNDArraySubscriber(file)) {
+            assertNull(subscriber.receive(1, TimeUnit.MILLISECONDS));
+
+            for (INDArray arr : arrays)
+                assertTrue(publisher.offer(arr));
+
+            for (INDArray arr : arrays) {
+                INDArray received = subscriber.receive(1, TimeUnit.SECONDS);
+                assertEquals(arr, received);
+                assertArrayEquals(arr.shape(), received.shape());
+            }
+
+            try {
+                publisher.offer(Nd4j.create(1000));
+                fail("Expected exception for array larger than ring");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testBackgroundSubscriber() throws Exception {
+        File file = new File(testDir.getRoot(), "background");
+        int numArrays = 200;
+        final CountDownLatch latch = new CountDownLatch(numArrays);
+        final List<INDArray> received = Collections.synchronizedList(new ArrayList<INDArray>());
+
+        try (SharedMemoryNDArrayPublisher publisher = new SharedMemoryNDArrayPublisher(file, 8192);
+                        SharedMemoryNDArraySubscriber subscriber =
+                                        new SharedMemoryNDArraySubscriber(file, new NDArrayCallback() {
+                                            @Override
+                                            public void onNDArrayMessage(NDArrayMessage message) {}
+
+                                            @Override
+                                            public void onNDArrayPartial(INDArray arr, long idx, int... dimensions) {}
+
+                                            @Override
+                                            public void onNDArray(INDArray arr) {
+                                                received.add(arr);
+                                                latch.countDown();
+                                            }
+                                        })) {
+            subscriber.launch();
+            assertTrue(subscriber.launched());
+
+            // ring holds only few of these, so publisher has to wait for subscriber
+            for (int i = 0; i < numArrays; i++)
+                publisher.publish(Nd4j.valueArrayOf(new long[] {10, 10}, i));
+
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+            for (int i = 0; i < numArrays; i++)
+                assertEquals(Nd4j.valueArrayOf(new long[] {10, 10}, i), received.get(i));
+        }
+    }
+}
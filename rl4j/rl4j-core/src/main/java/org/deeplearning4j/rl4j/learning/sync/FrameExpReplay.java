@@ -0,0 +1,230 @@
+package org.deeplearning4j.rl4j.learning.sync;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Exp Replay that stores the observation frames in a single preallocated off-heap INDArray
+ * used as a ring buffer, and the rest of the transitions in primitive arrays.
+ *
+ * Consecutive transitions of an episode share most of the frames of their history: a frame that was
+ * already part of the previous transition is not written again, and the transition only stores its
+ * position in the ring. For a history of length h, a transition usually costs one frame instead of
+ * h + 1, and no INDArray is kept per transition.
+ *
+ * Batches are sampled without duplicates, without boxing, and without copying: the observations
+ * of the returned transitions are views of the ring. They are only valid until the next call to
+ * store, which is the way QLearning uses them.
+ *
+ * The frames of a transition are assumed to be unchanged after the transition is stored, as they
+ * are compared by reference to detect the frames shared with the previous transition.
+ * The ring holds maxSize + 2 * (h + 1) frames: each episode start needs h extra frames, so with many
+ * short episodes the oldest transitions can be evicted before maxSize transitions are stored.
+ */
+public class FrameExpReplay<A> implements IExpReplay<A> {
+
+    final private int maxSize;
+    final private int batchSize;
+    final protected Random random;
+
+    //allocated by the first store, when the frame shape and the history length are known
+    private INDArray frames;
+    private long[] frameShape;
+    private int historyLength;
+    private int frameCapacity;
+    //total number of frames ever written
+    private long frameCount;
+
+    //transition t is stored at slot t % maxSize. Frames of the slot: [slot * (h + 1), (slot + 1) * (h + 1)),
+    //the history followed by the next observation
+    private long[] frameIndices;
+    final private Object[] actions;
+    final private double[] rewards;
+    final private boolean[] terminal;
+    //total number of transitions ever stored
+    private long transitionCount;
+    //oldest transition whose frames have not been overwritten
+    private long firstValid;
+
+    //frames of the last stored transition and their indices, to detect the frames shared with the next one
+    private INDArray[] lastFrames;
+    private long[] lastFrameIndices;
+
+    public FrameExpReplay(int maxSize, int batchSize, int seed) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("Max size must be at least 1, got " + maxSize);
+        this.maxSize = maxSize;
+        this.batchSize = batchSize;
+        this.random = new Random(seed);
+        actions = new Object[maxSize];
+        rewards = new double[maxSize];
+        terminal = new boolean[maxSize];
+    }
+
+    public void store(Transition<A> transition) {
+        INDArray[] observation = transition.getObservation();
+        if (frames == null) {
+            init(observation);
+        } else if (observation.length != historyLength) {
+            throw new IllegalArgumentException("Expected a history of length " + historyLength + ", got "
+                            + observation.length);
+        }
+
+        int width = historyLength + 1;
+        INDArray[] transitionFrames = Arrays.copyOf(observation, width);
+        transitionFrames[historyLength] = transition.getNextObservation();
+
+        int slot = slot(transitionCount);
+        //a frame can be shared if it stays in the ring while the (at most width) new frames are written
+        long minShared = frameCount + width - frameCapacity;
+        for (int i = 0; i < width; i++) {
+            long index = -1;
+            for (int j = 0; j < width && lastFrames != null && index < 0; j++) {
+                if (transitionFrames[i] == lastFrames[j] && lastFrameIndices[j] >= minShared)
+                    index = lastFrameIndices[j];
+            }
+            for (int j = 0; j < i && index < 0; j++) {
+                if (transitionFrames[i] == transitionFrames[j])
+                    index = frameIndices[slot * width + j];
+            }
+            frameIndices[slot * width + i] = index >= 0 ? index : writeFrame(transitionFrames[i]);
+        }
+
+        actions[slot] = transition.getAction();
+        rewards[slot] = transition.getReward();
+        terminal[slot] = transition.isTerminal();
+        transitionCount++;
+        lastFrames = transitionFrames;
+        lastFrameIndices = Arrays.copyOfRange(frameIndices, slot * width, (slot + 1) * width);
+
+        //evict the transitions with overwritten frames: the oldest frame of a transition is never older
+        //than the oldest frame of the previous one, so these are the oldest transitions
+        firstValid = Math.max(firstValid, transitionCount - maxSize);
+        while (firstValid < transitionCount && oldestFrame(slot(firstValid)) < frameCount - frameCapacity) {
+            evicted(slot(firstValid));
+            firstValid++;
+        }
+    }
+
+    public ArrayList<Transition<A>> getBatch() {
+        return getBatch(batchSize);
+    }
+
+    /**
+     * @param size number of transitions to sample, uniformly and without duplicates
+     * @return the sampled transitions, or all the transitions if there are less than size
+     */
+    public ArrayList<Transition<A>> getBatch(int size) {
+        int n = size();
+        int k = Math.min(size, n);
+
+        //Floyd's algorithm: k distinct indices in [0, n) with exactly k random draws
+        int[] sampled = new int[k];
+        for (int i = 0; i < k; i++) {
+            int j = n - k + i;
+            int rd = random.nextInt(j + 1);
+            sampled[i] = contains(sampled, i, rd) ? j : rd;
+        }
+
+        ArrayList<Transition<A>> batch = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            batch.add(get(firstValid + sampled[i]));
+        }
+        return batch;
+    }
+
+    /**
+     * @return the number of transitions currently stored
+     */
+    public int size() {
+        return (int) (transitionCount - firstValid);
+    }
+
+    /**
+     * @return the number of frames the ring can hold, 0 before the first store
+     */
+    public int getFrameCapacity() {
+        return frameCapacity;
+    }
+
+    /**
+     * @param t absolute index of a stored transition, between {@link #firstValid()} (included) and
+     *          {@link #transitionCount()} (excluded)
+     * @return the transition, with observations that are views of the frame ring
+     */
+    protected Transition<A> get(long t) {
+        int slot = slot(t);
+        int offset = slot * (historyLength + 1);
+        INDArray[] observation = new INDArray[historyLength];
+        for (int i = 0; i < historyLength; i++) {
+            observation[i] = frame(frameIndices[offset + i]);
+        }
+        return new Transition<>(observation, (A) actions[slot], rewards[slot], terminal[slot],
+                        frame(frameIndices[offset + historyLength]));
+    }
+
+    /**
+     * Called when the transition in the given slot is evicted before being overwritten by a new transition,
+     * because its frames have been overwritten
+     */
+    protected void evicted(int slot) {
+        //no op
+    }
+
+    protected int slot(long t) {
+        return (int) (t % maxSize);
+    }
+
+    /**
+     * @return the absolute index of the stored transition in the given slot
+     */
+    protected long indexOf(int slot) {
+        return firstValid + (slot - slot(firstValid) + maxSize) % maxSize;
+    }
+
+    protected long firstValid() {
+        return firstValid;
+    }
+
+    protected long transitionCount() {
+        return transitionCount;
+    }
+
+    private void init(INDArray[] observation) {
+        historyLength = observation.length;
+        frameShape = observation[0].shape();
+        frameCapacity = maxSize + 2 * (historyLength + 1);
+        frames = Nd4j.create(frameCapacity, (int) observation[0].length());
+        frameIndices = new long[maxSize * (historyLength + 1)];
+    }
+
+    private long oldestFrame(int slot) {
+        long oldest = Long.MAX_VALUE;
+        for (int i = slot * (historyLength + 1); i < (slot + 1) * (historyLength + 1); i++) {
+            oldest = Math.min(oldest, frameIndices[i]);
+        }
+        return oldest;
+    }
+
+    private long writeFrame(INDArray frame) {
+        INDArray row = frames.getRow((int) (frameCount % frameCapacity));
+        row.assign(frame.reshape(1, row.length()));
+        return frameCount++;
+    }
+
+    private INDArray frame(long f) {
+        return frames.getRow((int) (f % frameCapacity)).reshape(frameShape);
+    }
+
+    private static boolean contains(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value)
+                return true;
+        }
+        return false;
+    }
+}
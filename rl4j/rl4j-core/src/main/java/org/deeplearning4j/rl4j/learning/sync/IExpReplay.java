@@ -7,9 +7,8 @@ import java.util.ArrayList;
  *
  * Common Interface for Experience replays
  *
- * A prioritized Exp Replay could be implemented by changing the interface
- * and integrating the TD-error in the transition for ranking
- * Not a high priority feature right now
+ * See {@link PrioritizedExpReplay} for a prioritized Exp Replay, which is
+ * given the TD-errors of the last batch by QLearningDiscrete
  *
  * The memory is optimised by using array of INDArray in the transitions
  * such that two same INDArrays are not allocated twice
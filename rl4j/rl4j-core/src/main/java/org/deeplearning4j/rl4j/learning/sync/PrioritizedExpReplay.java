@@ -0,0 +1,117 @@
+package org.deeplearning4j.rl4j.learning.sync;
+
+import java.util.ArrayList;
+
+/**
+ * Proportional prioritized Exp Replay, https://arxiv.org/abs/1511.05952
+ *
+ * Transitions are sampled (without duplicates) with a probability proportional to
+ * (|TD error| + epsilon)^alpha, using a {@link SumTree}. New transitions get the highest priority seen so far,
+ * and the priorities of the last sampled batch are updated with {@link #updatePriorities(double[])}.
+ *
+ * The importance sampling weights (n * P(i))^-beta of the last batch, normalized by their maximum in the batch,
+ * are given by {@link #getLastWeights()}.
+ * The frames are stored as in {@link FrameExpReplay}
+ */
+public class PrioritizedExpReplay<A> extends FrameExpReplay<A> {
+
+    final private double alpha;
+    final private double beta;
+    final private double epsilon;
+    final private SumTree priorities;
+    private double maxPriority = 1.0;
+
+    private long[] lastBatch = new long[0];
+    private double[] lastWeights = new double[0];
+
+    public PrioritizedExpReplay(int maxSize, int batchSize, int seed) {
+        this(maxSize, batchSize, seed, 0.6, 0.4, 1e-6);
+    }
+
+    /**
+     * @param alpha   how much prioritization is used, 0 for uniform sampling
+     * @param beta    importance sampling correction, 1 to fully compensate for the non uniform sampling
+     * @param epsilon added to the absolute TD errors, so that no transition has a zero probability
+     */
+    public PrioritizedExpReplay(int maxSize, int batchSize, int seed, double alpha, double beta, double epsilon) {
+        super(maxSize, batchSize, seed);
+        if (alpha < 0 || beta < 0 || epsilon <= 0)
+            throw new IllegalArgumentException("Invalid prioritization parameters: alpha=" + alpha + ", beta=" + beta
+                            + ", epsilon=" + epsilon);
+        this.alpha = alpha;
+        this.beta = beta;
+        this.epsilon = epsilon;
+        this.priorities = new SumTree(maxSize);
+    }
+
+    @Override
+    public void store(Transition<A> transition) {
+        super.store(transition);
+        priorities.set(slot(transitionCount() - 1), Math.pow(maxPriority, alpha));
+    }
+
+    /**
+     * @param size number of transitions to sample, proportionally to their priorities and without duplicates
+     * @return the sampled transitions, or all the transitions if there are less than size
+     */
+    @Override
+    public ArrayList<Transition<A>> getBatch(int size) {
+        int n = size();
+        int k = Math.min(size, n);
+        double total = priorities.total();
+
+        //sample without replacement: the priorities of the sampled transitions are set to 0 until the batch is done
+        int[] slots = new int[k];
+        double[] sampledPriorities = new double[k];
+        for (int i = 0; i < k; i++) {
+            slots[i] = priorities.find(random.nextDouble() * priorities.total());
+            sampledPriorities[i] = priorities.get(slots[i]);
+            priorities.set(slots[i], 0.0);
+        }
+
+        lastBatch = new long[k];
+        lastWeights = new double[k];
+        double maxWeight = 0.0;
+        ArrayList<Transition<A>> batch = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            priorities.set(slots[i], sampledPriorities[i]);
+            lastBatch[i] = indexOf(slots[i]);
+            batch.add(get(lastBatch[i]));
+            lastWeights[i] = Math.pow(n * sampledPriorities[i] / total, -beta);
+            maxWeight = Math.max(maxWeight, lastWeights[i]);
+        }
+        for (int i = 0; i < k; i++) {
+            lastWeights[i] /= maxWeight;
+        }
+        return batch;
+    }
+
+    /**
+     * Update the priorities of the transitions of the last batch
+     * @param tdErrors TD errors of the transitions, in the same order as the last batch
+     */
+    public void updatePriorities(double[] tdErrors) {
+        if (tdErrors.length != lastBatch.length)
+            throw new IllegalArgumentException("Expected " + lastBatch.length + " TD errors, got " + tdErrors.length);
+        for (int i = 0; i < tdErrors.length; i++) {
+            //ignore the transitions that have been evicted since the batch was sampled
+            if (lastBatch[i] < firstValid())
+                continue;
+            double p = Math.abs(tdErrors[i]) + epsilon;
+            maxPriority = Math.max(maxPriority, p);
+            priorities.set(slot(lastBatch[i]), Math.pow(p, alpha));
+        }
+    }
+
+    /**
+     * @return the normalized importance sampling weights of the transitions of the last batch
+     */
+    public double[] getLastWeights() {
+        return lastWeights;
+    }
+
+    @Override
+    protected void evicted(int slot) {
+        priorities.set(slot, 0.0);
+    }
+}
@@ -0,0 +1,70 @@
+package org.deeplearning4j.rl4j.learning.sync;
+
+/**
+ * Binary sum tree over a fixed number of non-negative priorities, stored in a single primitive array.
+ *
+ * Setting a priority and sampling an index proportionally to its priority are both O(log n).
+ * Used by {@link PrioritizedExpReplay}
+ */
+public class SumTree {
+
+    final private int capacity;
+    //tree[1] is the root, the children of node i are 2i and 2i+1, leaves are tree[capacity .. 2*capacity-1]
+    final private double[] tree;
+
+    public SumTree(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be at least 1, got " + capacity);
+        this.capacity = capacity;
+        this.tree = new double[2 * capacity];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the sum of all priorities
+     */
+    public double total() {
+        return tree[1];
+    }
+
+    public double get(int index) {
+        return tree[index + capacity];
+    }
+
+    public void set(int index, double priority) {
+        if (priority < 0 || Double.isNaN(priority))
+            throw new IllegalArgumentException("Priority must be non-negative, got " + priority);
+        int i = index + capacity;
+        tree[i] = priority;
+        //recompute sums rather than adding deltas, so that rounding errors don't accumulate
+        for (i >>= 1; i >= 1; i >>= 1) {
+            tree[i] = tree[2 * i] + tree[2 * i + 1];
+        }
+    }
+
+    /**
+     * Find the index such that the sum of the priorities before it (in tree order) is at most value,
+     * and the sum including it is greater than value
+     * @param value in [0, total())
+     * @return the index, with probability proportional to its priority if value is uniform in [0, total())
+     */
+    public int find(double value) {
+        if (capacity == 1)
+            return 0;
+        int i = 1;
+        while (i < capacity) {
+            int left = 2 * i;
+            //the right child check guards against rounding errors when value is close to the total
+            if (value < tree[left] || tree[left + 1] <= 0) {
+                i = left;
+            } else {
+                value -= tree[left];
+                i = left + 1;
+            }
+        }
+        return i - capacity;
+    }
+}
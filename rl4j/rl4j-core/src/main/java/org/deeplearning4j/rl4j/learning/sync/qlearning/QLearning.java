@@ -30,7 +30,8 @@ public abstract class QLearning<O extends Encodable, A, AS extends ActionSpace<A
                 extends SyncLearning<O, A, AS, IDQN> {
 
     @Getter
-    final private IExpReplay<A> expReplay;
+    @Setter
+    private IExpReplay<A> expReplay;
 
     public QLearning(QLConfiguration conf) {
         super(conf);
@@ -5,6 +5,7 @@ import lombok.Setter;
 import org.nd4j.linalg.primitives.Pair;
 import org.deeplearning4j.gym.StepReply;
 import org.deeplearning4j.rl4j.learning.Learning;
+import org.deeplearning4j.rl4j.learning.sync.PrioritizedExpReplay;
 import org.deeplearning4j.rl4j.learning.sync.Transition;
 import org.deeplearning4j.rl4j.learning.sync.qlearning.QLearning;
 import org.deeplearning4j.rl4j.mdp.MDP;
@@ -231,6 +232,12 @@ public abstract class QLearningDiscrete<O extends Encodable> extends QLearning<O
         }
 
 
+        //prioritized replay: the TD errors are the new priorities, and the error of each transition is scaled
+        //by its importance sampling weight (which weights its contribution to the squared error loss)
+        PrioritizedExpReplay<Integer> prioritized = getExpReplay() instanceof PrioritizedExpReplay
+                        ? (PrioritizedExpReplay<Integer>) getExpReplay() : null;
+        double[] tdErrors = prioritized != null ? new double[size] : null;
+
         for (int i = 0; i < size; i++) {
             double yTar = transitions.get(i).getReward();
             if (!areTerminal[i]) {
@@ -250,10 +257,17 @@ public abstract class QLearningDiscrete<O extends Encodable> extends QLearning<O
             double lowB = previousV - getConfiguration().getErrorClamp();
             double highB = previousV + getConfiguration().getErrorClamp();
             double clamped = Math.min(highB, Math.max(yTar, lowB));
+            if (prioritized != null) {
+                tdErrors[i] = yTar - previousV;
+                clamped = previousV + prioritized.getLastWeights()[i] * (clamped - previousV);
+            }
 
             dqnOutputAr.putScalar(i, actions[i], clamped);
         }
 
+        if (prioritized != null)
+            prioritized.updatePriorities(tdErrors);
+
         return new Pair(obs, dqnOutputAr);
     }
 
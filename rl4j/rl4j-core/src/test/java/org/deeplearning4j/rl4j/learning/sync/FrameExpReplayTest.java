@@ -0,0 +1,154 @@
+package org.deeplearning4j.rl4j.learning.sync;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class FrameExpReplayTest {
+
+    @Test
+    public void testStoreAndSample() {
+        int historyLength = 4;
+        FrameExpReplay<Integer> expReplay = new FrameExpReplay<>(10, 5, 123);
+
+        //two episodes, with histories ordered as by the HistoryProcessor
+        storeEpisode(expReplay, historyLength, 0, 30);
+        storeEpisode(expReplay, historyLength, 1000, 8);
+
+        //frames are shared between the transitions of an episode, so nothing is evicted before maxSize
+        assertEquals(10, expReplay.size());
+        assertEquals(10 + 2 * (historyLength + 1), expReplay.getFrameCapacity());
+
+        Set<Integer> actions = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            ArrayList<Transition<Integer>> batch = expReplay.getBatch();
+            assertEquals(5, batch.size());
+            actions.clear();
+            for (Transition<Integer> t : batch) {
+                assertTrue(actions.add(t.getAction()));
+                assertTransition(t, historyLength);
+            }
+        }
+
+        ArrayList<Transition<Integer>> all = expReplay.getBatch(100);
+        assertEquals(10, all.size());
+        actions.clear();
+        for (Transition<Integer> t : all) {
+            actions.add(t.getAction());
+        }
+        //last 2 transitions of the first episode, and the 8 of the second
+        for (int a = 28; a < 30; a++)
+            assertTrue(actions.contains(a));
+        for (int a = 1000; a < 1008; a++)
+            assertTrue(actions.contains(a));
+    }
+
+    @Test
+    public void testEvictionWithShortEpisodes() {
+        int historyLength = 2;
+        FrameExpReplay<Integer> expReplay = new FrameExpReplay<>(10, 5, 123);
+        for (int e = 0; e < 20; e++) {
+            storeEpisode(expReplay, historyLength, 100 * e, 1);
+        }
+        //each transition needs its own 2 frames: the ring of 16 frames holds 8 transitions
+        assertEquals(8, expReplay.size());
+        for (Transition<Integer> t : expReplay.getBatch(10)) {
+            assertTrue(t.getAction() >= 1200);
+            assertTransition(t, historyLength);
+        }
+    }
+
+    @Test
+    public void testPrioritized() {
+        PrioritizedExpReplay<Integer> expReplay = new PrioritizedExpReplay<>(20, 4, 123, 1.0, 1.0, 1e-6);
+        storeEpisode(expReplay, 1, 0, 20);
+
+        ArrayList<Transition<Integer>> batch = expReplay.getBatch(20);
+        expReplay.updatePriorities(tdErrors(batch));
+
+        int count7 = 0;
+        for (int i = 0; i < 1000; i++) {
+            batch = expReplay.getBatch();
+            Set<Integer> actions = new HashSet<>();
+            for (Transition<Integer> t : batch) {
+                assertTrue(actions.add(t.getAction()));
+                assertTransition(t, 1);
+            }
+            if (actions.contains(7)) {
+                count7++;
+                //the high priority transition has the lowest importance sampling weight
+                double[] w = expReplay.getLastWeights();
+                for (int j = 0; j < batch.size(); j++) {
+                    assertEquals(batch.get(j).getAction() == 7 ? 0.01 : 1.0, w[j], 1e-6);
+                }
+            }
+            expReplay.updatePriorities(tdErrors(batch));
+        }
+        //7 is missing from a batch of 4 with probability (19/119) * (18/118) * (17/117) * (16/116)
+        assertTrue(count7 > 990);
+    }
+
+    @Test
+    public void testSumTree() {
+        SumTree tree = new SumTree(5);
+        double[] p = {1.0, 0.0, 3.0, 2.0, 4.0};
+        for (int i = 0; i < p.length; i++) {
+            tree.set(i, p[i]);
+        }
+        assertEquals(10.0, tree.total(), 1e-12);
+
+        int[] counts = new int[5];
+        for (int i = 0; i < 10000; i++) {
+            counts[tree.find((i + 0.5) / 10000 * tree.total())]++;
+        }
+        for (int i = 0; i < p.length; i++) {
+            assertEquals(p[i] / 10.0, counts[i] / 10000.0, 1e-3);
+        }
+
+        tree.set(4, 0.0);
+        assertEquals(6.0, tree.total(), 1e-12);
+        assertNotEquals(4, tree.find(5.999999));
+    }
+
+    /**
+     * Store the transitions of an episode as QLearningDiscrete does with a HistoryProcessor (oldest frame first,
+     * and the first frame of the next history as next observation). Frames are the arrays [value], and the
+     * action of a transition is the value of the last frame of its history
+     */
+    private static void storeEpisode(FrameExpReplay<Integer> expReplay, int historyLength, int firstAction,
+                    int length) {
+        INDArray[] history = new INDArray[historyLength];
+        for (int i = 0; i < historyLength; i++) {
+            history[i] = Nd4j.create(new double[] {firstAction - historyLength + i + 1});
+        }
+        for (int s = 0; s < length; s++) {
+            INDArray[] nhistory = new INDArray[historyLength];
+            System.arraycopy(history, 1, nhistory, 0, historyLength - 1);
+            nhistory[historyLength - 1] = Nd4j.create(new double[] {firstAction + s + 1});
+            expReplay.store(new Transition<>(history, firstAction + s, 1.0, s == length - 1, nhistory[0]));
+            history = nhistory;
+        }
+    }
+
+    private static double[] tdErrors(ArrayList<Transition<Integer>> batch) {
+        double[] tdErrors = new double[batch.size()];
+        for (int i = 0; i < tdErrors.length; i++) {
+            tdErrors[i] = batch.get(i).getAction() == 7 ? 100.0 : 1.0;
+        }
+        return tdErrors;
+    }
+
+    private static void assertTransition(Transition<Integer> t, int historyLength) {
+        int a = t.getAction();
+        for (int i = 0; i < historyLength; i++) {
+            assertEquals(a - historyLength + i + 1, t.getObservation()[i].getDouble(0), 0.0);
+        }
+        assertEquals(a - historyLength + 2, t.getNextObservation().getDouble(0), 0.0);
+    }
+}